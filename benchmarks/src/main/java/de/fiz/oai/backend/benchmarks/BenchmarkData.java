@@ -0,0 +1,134 @@
+/*
+ * Copyright 2019 FIZ Karlsruhe - Leibniz-Institut fuer Informationsinfrastruktur GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.fiz.oai.backend.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import de.fiz.oai.backend.models.Content;
+import de.fiz.oai.backend.models.Crosswalk;
+import de.fiz.oai.backend.models.Item;
+import de.fiz.oai.backend.models.Set;
+
+/**
+ * Records, crosswalks and sets shared by the benchmarks.
+ */
+public final class BenchmarkData {
+
+  public static final String DATACITE = "datacite";
+
+  public static final String JATS = "jats";
+
+  public static final String OAI_DC = "oai_dc";
+
+  private BenchmarkData() {
+  }
+
+  /**
+   * @param format datacite, jats or oai_dc
+   * @return the record of the format, the oai_dc record is the crosswalk result of the
+   *         datacite record
+   */
+  public static String record(String format) {
+    return resource(format + ".xml");
+  }
+
+  /**
+   * @param format datacite or jats
+   * @return the crosswalk of the format to oai_dc, named after the format
+   */
+  public static Crosswalk crosswalk(String format) {
+    Crosswalk crosswalk = new Crosswalk();
+    crosswalk.setName(format);
+    crosswalk.setFormatFrom(format);
+    crosswalk.setFormatTo(OAI_DC);
+    crosswalk.setXsltStylesheet(resource(format + "_to_oai_dc.xsl"));
+    return crosswalk;
+  }
+
+  public static Content content(String identifier, String format, String xml) {
+    Content content = new Content();
+    content.setIdentifier(identifier);
+    content.setFormat(format);
+    content.setContent(xml);
+    return content;
+  }
+
+  public static Item item(String identifier, String format) {
+    Item item = new Item();
+    item.setIdentifier(identifier);
+    item.setDatestamp("2021-06-02T10:15:30Z");
+    item.setDeleteFlag(false);
+    item.setIngestFormat(format);
+    item.setTags(Arrays.asList("kit", "open-access"));
+    item.setFormats(Arrays.asList(format, OAI_DC));
+    item.setSets(Arrays.asList("openaire", "doc-type:dataset", "ddc:550"));
+    return item;
+  }
+
+  /**
+   * Sets as a repository has them: most check a value in the ingest format or in oai_dc,
+   * some select by tag. Only a few of them match the benchmark records.
+   *
+   * @param count the number of sets
+   * @return the sets
+   */
+  public static List<Set> sets(int count) {
+    List<Set> sets = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      Set set = new Set();
+      set.setName("set" + i);
+      set.setSpec("set" + i);
+      Map<String, String> xPaths = new HashMap<>();
+      switch (i % 4) {
+      case 0:
+        xPaths.put(OAI_DC, "/oai_dc:dc/dc:subject[text()='" + (i == 0 ? "aerosol" : "subject" + i) + "']");
+        break;
+      case 1:
+        xPaths.put(DATACITE, "/resource/publicationYear[text()='" + (2000 + i % 25) + "']");
+        break;
+      case 2:
+        xPaths.put(OAI_DC, "/oai_dc:dc/dc:type[text()='" + (i == 2 ? "Dataset" : "Type" + i) + "']");
+        xPaths.put(JATS, "/article/front/article-meta/article-categories/subj-group/subject[text()='Review Articles']");
+        break;
+      default:
+        set.setTags(Arrays.asList(i == 3 ? "kit" : "tag" + i));
+      }
+      set.setxPaths(xPaths);
+      sets.add(set);
+    }
+    return sets;
+  }
+
+  private static String resource(String name) {
+    try (InputStream in = BenchmarkData.class.getResourceAsStream("/benchmarks/" + name)) {
+      if (in == null) {
+        throw new IOException("Missing benchmark resource " + name);
+      }
+      return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2019 FIZ Karlsruhe - Leibniz-Institut fuer Informationsinfrastruktur GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.fiz.oai.backend.benchmarks;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import de.fiz.oai.backend.models.Crosswalk;
+import de.fiz.oai.backend.models.Format;
+import de.fiz.oai.backend.models.Set;
+import de.fiz.oai.backend.service.MetadataCache;
+
+/**
+ * A metadata cache with fixed sets, as the real cache is between two invalidations.
+ */
+public class StaticMetadataCache implements MetadataCache {
+
+  private final List<Set> sets;
+
+  public StaticMetadataCache(List<Set> sets) {
+    this.sets = sets;
+  }
+
+  @Override
+  public List<Set> getSets() {
+    return sets;
+  }
+
+  @Override
+  public Format getFormat(String metadataPrefix) {
+    return null;
+  }
+
+  @Override
+  public List<Crosswalk> getCrosswalks() {
+    return Collections.emptyList();
+  }
+
+  @Override
+  public void invalidateSets() {
+  }
+
+  @Override
+  public void invalidateFormats() {
+  }
+
+  @Override
+  public void invalidateCrosswalks() {
+  }
+
+  @Override
+  public Map<String, Map<String, Long>> getStatistics() {
+    return Collections.emptyMap();
+  }
+
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2019 FIZ Karlsruhe - Leibniz-Institut fuer Informationsinfrastruktur GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.fiz.oai.backend.models;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import de.fiz.oai.backend.benchmarks.BenchmarkData;
+
+/**
+ * The conversions of an item on every index write (toMap) and every REST response or
+ * request (JSON).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ItemSerializationBenchmark {
+
+  private final ObjectMapper mapper = new ObjectMapper();
+
+  private Item item;
+
+  private String json;
+
+  @Setup
+  public void setup() throws IOException {
+    item = BenchmarkData.item("oai:kitopen:1000123456", BenchmarkData.DATACITE);
+    item.setContent(BenchmarkData.content(item.getIdentifier(), BenchmarkData.DATACITE,
+        BenchmarkData.record(BenchmarkData.DATACITE)));
+    json = mapper.writeValueAsString(item);
+  }
+
+  @Benchmark
+  public Map<String, Object> toMap() {
+    return item.toMap();
+  }
+
+  @Benchmark
+  public String toJson() throws IOException {
+    return mapper.writeValueAsString(item);
+  }
+
+  @Benchmark
+  public Item fromJson() throws IOException {
+    return mapper.readValue(json, Item.class);
+  }
+
+}
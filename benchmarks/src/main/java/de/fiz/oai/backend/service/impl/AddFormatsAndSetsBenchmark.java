@@ -0,0 +1,85 @@
+/*
+ * Copyright 2019 FIZ Karlsruhe - Leibniz-Institut fuer Informationsinfrastruktur GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.fiz.oai.backend.service.impl;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.fiz.oai.backend.benchmarks.BenchmarkData;
+import de.fiz.oai.backend.benchmarks.StaticMetadataCache;
+import de.fiz.oai.backend.dao.impl.InMemoryDAOContent;
+import de.fiz.oai.backend.models.Item;
+
+/**
+ * Formats and set membership of an item with a datacite and an oai_dc content, as computed
+ * for every index write, against a growing number of sets.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AddFormatsAndSetsBenchmark {
+
+  private static final String IDENTIFIER = "oai:kitopen:1000123456";
+
+  @Param({ "10", "100", "500" })
+  public int sets;
+
+  private ItemServiceImpl itemService;
+
+  private Item item;
+
+  @Setup
+  public void setup() throws IOException {
+    InMemoryDAOContent daoContent = new InMemoryDAOContent();
+    daoContent.create(BenchmarkData.content(IDENTIFIER, BenchmarkData.DATACITE,
+        BenchmarkData.record(BenchmarkData.DATACITE)));
+    daoContent.create(BenchmarkData.content(IDENTIFIER, BenchmarkData.OAI_DC,
+        BenchmarkData.record(BenchmarkData.OAI_DC)));
+
+    itemService = new ItemServiceImpl();
+    itemService.daoContent = daoContent;
+    itemService.metadataCache = new StaticMetadataCache(BenchmarkData.sets(sets));
+
+    item = BenchmarkData.item(IDENTIFIER, BenchmarkData.DATACITE);
+    itemService.addFormatsAndSets(item);
+    if (!item.getSets().containsAll(Arrays.asList("set0", "set1", "set2", "set3"))) {
+      throw new IllegalStateException("Unexpected sets " + item.getSets());
+    }
+  }
+
+  @Benchmark
+  public Item addFormatsAndSets() throws IOException {
+    itemService.addFormatsAndSets(item);
+    return item;
+  }
+
+}
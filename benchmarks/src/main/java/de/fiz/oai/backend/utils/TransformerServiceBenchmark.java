@@ -0,0 +1,79 @@
+/*
+ * Copyright 2019 FIZ Karlsruhe - Leibniz-Institut fuer Informationsinfrastruktur GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.fiz.oai.backend.utils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.fiz.oai.backend.benchmarks.BenchmarkData;
+import de.fiz.oai.backend.dao.impl.InMemoryDAOCrosswalk;
+import de.fiz.oai.backend.models.Content;
+
+/**
+ * A crosswalk transformation of a record to oai_dc, as run for every ingested item. Run
+ * with -t to see how concurrent transformations of the same crosswalk scale.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(1)
+public class TransformerServiceBenchmark {
+
+  @Param({ BenchmarkData.DATACITE, BenchmarkData.JATS })
+  public String format;
+
+  private TransformerServiceImpl transformerService;
+
+  private byte[] record;
+
+  @Setup
+  public void setup() throws IOException {
+    InMemoryDAOCrosswalk daoCrosswalk = new InMemoryDAOCrosswalk();
+    daoCrosswalk.create(BenchmarkData.crosswalk(format));
+
+    transformerService = new TransformerServiceImpl();
+    transformerService.daoCrosswalk = daoCrosswalk;
+    record = BenchmarkData.record(format).getBytes(StandardCharsets.UTF_8);
+
+    // Compile before the measurement and fail early on a broken stylesheet
+    if (Content.isBlank(transformerService.transform(record, format))) {
+      throw new IllegalStateException("Crosswalk " + format + " returned no result");
+    }
+  }
+
+  @Benchmark
+  public byte[] transform() throws IOException {
+    return transformerService.transform(record, format);
+  }
+
+}
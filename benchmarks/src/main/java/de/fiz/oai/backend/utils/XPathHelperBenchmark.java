@@ -0,0 +1,76 @@
+/*
+ * Copyright 2019 FIZ Karlsruhe - Leibniz-Institut fuer Informationsinfrastruktur GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.fiz.oai.backend.utils;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.xpath.XPathExpressionException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xml.sax.SAXException;
+
+import de.fiz.oai.backend.benchmarks.BenchmarkData;
+
+/**
+ * A single xPath check against a record, which parses the record each time. The check is
+ * done by {@link SetMembershipEngine}, it parses the record once, plain or namespace aware
+ * for an xPath with prefixes, so the two kinds compare the two parsers and evaluations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class XPathHelperBenchmark {
+
+  @Param({ "plain", "namespaces" })
+  public String xPathKind;
+
+  private String record;
+
+  private String xPath;
+
+  @Setup
+  public void setup() throws SAXException, XPathExpressionException {
+    if ("plain".equals(xPathKind)) {
+      record = BenchmarkData.record(BenchmarkData.JATS);
+      xPath = "/article/front/article-meta/contrib-group/contrib/name[surname='Blume']";
+    } else {
+      record = BenchmarkData.record(BenchmarkData.OAI_DC);
+      xPath = "/oai_dc:dc/dc:subject[text()='aerosol']";
+    }
+    if (!XPathHelper.isTextValueMatching(record, xPath)) {
+      throw new IllegalStateException(xPath + " does not match");
+    }
+  }
+
+  @Benchmark
+  public Boolean isTextValueMatching() throws SAXException, XPathExpressionException {
+    return XPathHelper.isTextValueMatching(record, xPath);
+  }
+
+}
@@ -0,0 +1,57 @@
+<?xml version="1.0" encoding="UTF-8"?>
+<xsl:stylesheet version="2.0" xmlns:xsl="http://www.w3.org/1999/XSL/Transform"
+  xmlns:datacite="http://datacite.org/schema/kernel-4"
+  xmlns:oai_dc="http://www.openarchives.org/OAI/2.0/oai_dc/"
+  xmlns:dc="http://purl.org/dc/elements/1.1/"
+  xmlns:xsi="http://www.w3.org/2001/XMLSchema-instance"
+  exclude-result-prefixes="datacite">
+
+  <xsl:output method="xml" encoding="UTF-8" indent="yes" />
+
+  <xsl:template match="/datacite:resource">
+    <oai_dc:dc xsi:schemaLocation="http://www.openarchives.org/OAI/2.0/oai_dc/ http://www.openarchives.org/OAI/2.0/oai_dc.xsd">
+      <xsl:for-each select="datacite:titles/datacite:title">
+        <dc:title><xsl:value-of select="normalize-space(.)" /></dc:title>
+      </xsl:for-each>
+      <xsl:for-each select="datacite:creators/datacite:creator">
+        <dc:creator><xsl:value-of select="normalize-space(datacite:creatorName)" /></dc:creator>
+      </xsl:for-each>
+      <xsl:for-each select="datacite:subjects/datacite:subject">
+        <dc:subject><xsl:value-of select="normalize-space(.)" /></dc:subject>
+      </xsl:for-each>
+      <xsl:for-each select="datacite:descriptions/datacite:description">
+        <dc:description><xsl:value-of select="normalize-space(.)" /></dc:description>
+      </xsl:for-each>
+      <dc:publisher><xsl:value-of select="datacite:publisher" /></dc:publisher>
+      <xsl:for-each select="datacite:contributors/datacite:contributor">
+        <dc:contributor><xsl:value-of select="normalize-space(datacite:contributorName)" /></dc:contributor>
+      </xsl:for-each>
+      <xsl:for-each select="datacite:dates/datacite:date">
+        <dc:date><xsl:value-of select="." /></dc:date>
+      </xsl:for-each>
+      <dc:type><xsl:value-of select="datacite:resourceType/@resourceTypeGeneral" /></dc:type>
+      <xsl:for-each select="datacite:formats/datacite:format">
+        <dc:format><xsl:value-of select="." /></dc:format>
+      </xsl:for-each>
+      <dc:identifier>
+        <xsl:value-of select="concat('https://doi.org/', datacite:identifier[@identifierType = 'DOI'])" />
+      </dc:identifier>
+      <xsl:for-each select="datacite:alternateIdentifiers/datacite:alternateIdentifier">
+        <dc:identifier><xsl:value-of select="." /></dc:identifier>
+      </xsl:for-each>
+      <xsl:for-each select="datacite:relatedIdentifiers/datacite:relatedIdentifier">
+        <dc:relation><xsl:value-of select="concat(lower-case(@relatedIdentifierType), ':', .)" /></dc:relation>
+      </xsl:for-each>
+      <xsl:if test="datacite:language">
+        <dc:language><xsl:value-of select="datacite:language" /></dc:language>
+      </xsl:if>
+      <xsl:for-each select="datacite:rightsList/datacite:rights">
+        <dc:rights><xsl:value-of select="(@rightsURI, .)[1]" /></dc:rights>
+      </xsl:for-each>
+      <xsl:for-each select="datacite:geoLocations/datacite:geoLocation/datacite:geoLocationPlace">
+        <dc:coverage><xsl:value-of select="." /></dc:coverage>
+      </xsl:for-each>
+    </oai_dc:dc>
+  </xsl:template>
+
+</xsl:stylesheet>
@@ -0,0 +1,50 @@
+<?xml version="1.0" encoding="UTF-8"?>
+<xsl:stylesheet version="2.0" xmlns:xsl="http://www.w3.org/1999/XSL/Transform"
+  xmlns:oai_dc="http://www.openarchives.org/OAI/2.0/oai_dc/"
+  xmlns:dc="http://purl.org/dc/elements/1.1/"
+  xmlns:xlink="http://www.w3.org/1999/xlink"
+  xmlns:xsi="http://www.w3.org/2001/XMLSchema-instance"
+  exclude-result-prefixes="xlink">
+
+  <xsl:output method="xml" encoding="UTF-8" indent="yes" />
+
+  <xsl:template match="/article">
+    <xsl:variable name="meta" select="front/article-meta" />
+    <oai_dc:dc xsi:schemaLocation="http://www.openarchives.org/OAI/2.0/oai_dc/ http://www.openarchives.org/OAI/2.0/oai_dc.xsd">
+      <xsl:for-each select="$meta/title-group/article-title">
+        <dc:title><xsl:value-of select="normalize-space(.)" /></dc:title>
+      </xsl:for-each>
+      <xsl:for-each select="$meta/contrib-group/contrib/name">
+        <dc:creator><xsl:value-of select="string-join((surname, given-names), ', ')" /></dc:creator>
+      </xsl:for-each>
+      <xsl:for-each select="$meta/article-categories//subject | $meta/kwd-group/kwd">
+        <dc:subject><xsl:value-of select="normalize-space(.)" /></dc:subject>
+      </xsl:for-each>
+      <xsl:for-each select="$meta/abstract">
+        <dc:description><xsl:value-of select="normalize-space(.)" /></dc:description>
+      </xsl:for-each>
+      <xsl:for-each select="front/journal-meta/publisher/publisher-name">
+        <dc:publisher><xsl:value-of select="." /></dc:publisher>
+      </xsl:for-each>
+      <xsl:for-each select="$meta/pub-date[1]">
+        <dc:date>
+          <xsl:value-of select="string-join((year, format-number(number((month, 1)[1]), '00'), format-number(number((day, 1)[1]), '00')), '-')" />
+        </dc:date>
+      </xsl:for-each>
+      <dc:type>Text</dc:type>
+      <xsl:for-each select="$meta/article-id[@pub-id-type = 'doi']">
+        <dc:identifier><xsl:value-of select="concat('https://doi.org/', .)" /></dc:identifier>
+      </xsl:for-each>
+      <xsl:for-each select="front/journal-meta/issn">
+        <dc:source><xsl:value-of select="concat('issn:', .)" /></dc:source>
+      </xsl:for-each>
+      <xsl:if test="@xml:lang">
+        <dc:language><xsl:value-of select="@xml:lang" /></dc:language>
+      </xsl:if>
+      <xsl:for-each select="$meta/permissions/license/@xlink:href">
+        <dc:rights><xsl:value-of select="." /></dc:rights>
+      </xsl:for-each>
+    </oai_dc:dc>
+  </xsl:template>
+
+</xsl:stylesheet>
@@ -43,7 +43,11 @@ public class FizOAIBackendApplication extends ResourceConfig {
         instance = this;
         LOGGER.info("FIZ OAI Backend starting");
         Configuration config = Configuration.getInstance();
-        if (config.isApplicationConfigured()) {
+        if (config.isApplicationConfigured() && FizOAIBackendBinder.isInMemory()) {
+            LOGGER.warn("FIZ OAI Backend keeps all data in memory, it is lost on shutdown");
+            applicationReady = true;
+        }
+        else if (config.isApplicationConfigured()) {
             try {
                 ClusterManager cm = ClusterManager.getInstance();
                 CqlSession session = cm.getCassandraSession();
@@ -60,6 +64,11 @@ public class FizOAIBackendApplication extends ResourceConfig {
         
         register(MultiPartFeature.class);
         register(new FizOAIBackendBinder()); 
+        if (applicationReady) {
+            register(IndexingLifecycleListener.class);
+            register(ItemCountLifecycleListener.class);
+            register(CrosswalkLifecycleListener.class);
+        }
         
         this.configureSwagger();
     }
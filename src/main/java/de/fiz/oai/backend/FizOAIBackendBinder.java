@@ -21,30 +21,59 @@ import org.glassfish.hk2.utilities.binding.AbstractBinder;
 
 import de.fiz.oai.backend.dao.DAOContent;
 import de.fiz.oai.backend.dao.DAOCrosswalk;
+import de.fiz.oai.backend.dao.DAOCrosswalkJob;
 import de.fiz.oai.backend.dao.DAOFormat;
+import de.fiz.oai.backend.dao.DAOIndexQueue;
 import de.fiz.oai.backend.dao.DAOItem;
 import de.fiz.oai.backend.dao.DAOSet;
 import de.fiz.oai.backend.dao.impl.CassandraDAOContent;
 import de.fiz.oai.backend.dao.impl.CassandraDAOCrosswalk;
+import de.fiz.oai.backend.dao.impl.CassandraDAOCrosswalkJob;
 import de.fiz.oai.backend.dao.impl.CassandraDAOFormat;
+import de.fiz.oai.backend.dao.impl.CassandraDAOIndexQueue;
 import de.fiz.oai.backend.dao.impl.CassandraDAOItem;
 import de.fiz.oai.backend.dao.impl.CassandraDAOSet;
+import de.fiz.oai.backend.dao.impl.InMemoryDAOContent;
+import de.fiz.oai.backend.dao.impl.InMemoryDAOCrosswalk;
+import de.fiz.oai.backend.dao.impl.InMemoryDAOCrosswalkJob;
+import de.fiz.oai.backend.dao.impl.InMemoryDAOFormat;
+import de.fiz.oai.backend.dao.impl.InMemoryDAOIndexQueue;
+import de.fiz.oai.backend.dao.impl.InMemoryDAOItem;
+import de.fiz.oai.backend.dao.impl.InMemoryDAOSet;
 import de.fiz.oai.backend.service.ContentService;
 import de.fiz.oai.backend.service.CrosswalkService;
 import de.fiz.oai.backend.service.FormatService;
+import de.fiz.oai.backend.service.IndexingService;
 import de.fiz.oai.backend.service.ItemService;
+import de.fiz.oai.backend.service.MetadataCache;
 import de.fiz.oai.backend.service.SearchService;
 import de.fiz.oai.backend.service.SetService;
 import de.fiz.oai.backend.service.TransformerService;
 import de.fiz.oai.backend.service.impl.ContentServiceImpl;
 import de.fiz.oai.backend.service.impl.CrosswalkServiceImpl;
 import de.fiz.oai.backend.service.impl.FormatServiceImpl;
+import de.fiz.oai.backend.service.impl.IndexingServiceImpl;
 import de.fiz.oai.backend.service.impl.ItemServiceImpl;
+import de.fiz.oai.backend.service.impl.MetadataCacheImpl;
 import de.fiz.oai.backend.service.impl.SetServiceImpl;
 import de.fiz.oai.backend.utils.Configuration;
 import de.fiz.oai.backend.utils.TransformerServiceImpl;
 
 public class FizOAIBackendBinder extends AbstractBinder {
+
+    /**
+     * Value of the property dao.impl that keeps all data in memory instead of Cassandra,
+     * for load tests. Combine it with the InMemorySearchServiceImpl as class.impl.search.
+     */
+    public static final String DAO_IMPL_MEMORY = "memory";
+
+    /**
+     * @return whether the DAOs keep all data in memory
+     */
+    public static boolean isInMemory() {
+        return DAO_IMPL_MEMORY.equals(Configuration.getInstance().getProperty("dao.impl", "cassandra"));
+    }
+
     @SuppressWarnings("unchecked")
     @Override
     protected void configure() {
@@ -60,16 +89,31 @@ public class FizOAIBackendBinder extends AbstractBinder {
             throw new RuntimeException(e.getMessage());
         }
 
-        bind(CassandraDAOContent.class).to(DAOContent.class).in(Singleton.class);
-        bind(CassandraDAOCrosswalk.class).to(DAOCrosswalk.class).in(Singleton.class);
-        bind(CassandraDAOFormat.class).to(DAOFormat.class).in(Singleton.class);
-        bind(CassandraDAOItem.class).to(DAOItem.class).in(Singleton.class);
-        bind(CassandraDAOSet.class).to(DAOSet.class).in(Singleton.class);
+        if (isInMemory()) {
+            bind(InMemoryDAOContent.class).to(DAOContent.class).in(Singleton.class);
+            bind(InMemoryDAOCrosswalk.class).to(DAOCrosswalk.class).in(Singleton.class);
+            bind(InMemoryDAOCrosswalkJob.class).to(DAOCrosswalkJob.class).in(Singleton.class);
+            bind(InMemoryDAOFormat.class).to(DAOFormat.class).in(Singleton.class);
+            bind(InMemoryDAOIndexQueue.class).to(DAOIndexQueue.class).in(Singleton.class);
+            bind(InMemoryDAOItem.class).to(DAOItem.class).in(Singleton.class);
+            bind(InMemoryDAOSet.class).to(DAOSet.class).in(Singleton.class);
+        }
+        else {
+            bind(CassandraDAOContent.class).to(DAOContent.class).in(Singleton.class);
+            bind(CassandraDAOCrosswalk.class).to(DAOCrosswalk.class).in(Singleton.class);
+            bind(CassandraDAOCrosswalkJob.class).to(DAOCrosswalkJob.class).in(Singleton.class);
+            bind(CassandraDAOFormat.class).to(DAOFormat.class).in(Singleton.class);
+            bind(CassandraDAOIndexQueue.class).to(DAOIndexQueue.class).in(Singleton.class);
+            bind(CassandraDAOItem.class).to(DAOItem.class).in(Singleton.class);
+            bind(CassandraDAOSet.class).to(DAOSet.class).in(Singleton.class);
+        }
 
         bind(ContentServiceImpl.class).to(ContentService.class).in(Singleton.class);
         bind(CrosswalkServiceImpl.class).to(CrosswalkService.class).in(Singleton.class);
         bind(FormatServiceImpl.class).to(FormatService.class).in(Singleton.class);
+        bind(IndexingServiceImpl.class).to(IndexingService.class).in(Singleton.class);
         bind(ItemServiceImpl.class).to(ItemService.class).in(Singleton.class);
+        bind(MetadataCacheImpl.class).to(MetadataCache.class).in(Singleton.class);
         bind(searchImpl).to(SearchService.class).in(Singleton.class);
         bind(SetServiceImpl.class).to(SetService.class).in(Singleton.class);
         bind(TransformerServiceImpl.class).to(TransformerService.class).in(Singleton.class);
@@ -24,6 +24,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import de.fiz.oai.backend.utils.ClusterManager;
+import de.fiz.oai.backend.utils.ThreadPoolManager;
 
 /**
  * @author Michael Hoppe
@@ -40,6 +41,9 @@ public class FizOaiServletContextListener implements ServletContextListener {
 
     @Override
     public void contextDestroyed(ServletContextEvent arg0) {
-        ClusterManager.getInstance().shutdown();
+        ThreadPoolManager.getInstance().shutdown();
+        if (!FizOAIBackendBinder.isInMemory()) {
+            ClusterManager.getInstance().shutdown();
+        }
     }
 }
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2019 FIZ Karlsruhe - Leibniz-Institut fuer Informationsinfrastruktur GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.fiz.oai.backend;
+
+import org.glassfish.jersey.server.spi.Container;
+import org.glassfish.jersey.server.spi.ContainerLifecycleListener;
+
+import de.fiz.oai.backend.service.IndexingService;
+
+/**
+ * Runs the background indexer while the application is deployed, so items queued before
+ * a restart are indexed without waiting for the next request.
+ */
+public class IndexingLifecycleListener implements ContainerLifecycleListener {
+
+    @Override
+    public void onStartup(Container container) {
+        getIndexingService(container).start();
+    }
+
+    @Override
+    public void onReload(Container container) {
+    }
+
+    @Override
+    public void onShutdown(Container container) {
+        getIndexingService(container).stop();
+    }
+
+    private static IndexingService getIndexingService(Container container) {
+        return container.getApplicationHandler().getInjectionManager().getInstance(IndexingService.class);
+    }
+
+}
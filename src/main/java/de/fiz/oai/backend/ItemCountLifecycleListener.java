@@ -0,0 +1,57 @@
+/*
+ * Copyright 2019 FIZ Karlsruhe - Leibniz-Institut fuer Informationsinfrastruktur GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.fiz.oai.backend;
+
+import org.glassfish.jersey.server.spi.Container;
+import org.glassfish.jersey.server.spi.ContainerLifecycleListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.fiz.oai.backend.service.ItemService;
+
+/**
+ * Seeds the maintained item count on the first start, in the background as it counts all
+ * items.
+ */
+public class ItemCountLifecycleListener implements ContainerLifecycleListener {
+
+    private static Logger LOGGER = LoggerFactory.getLogger(ItemCountLifecycleListener.class);
+
+    @Override
+    public void onStartup(Container container) {
+        ItemService itemService = container.getApplicationHandler().getInjectionManager()
+            .getInstance(ItemService.class);
+        Thread thread = new Thread(() -> {
+            try {
+                itemService.seedCount();
+            }
+            catch (Exception e) {
+                LOGGER.error("Cannot seed the item count", e);
+            }
+        }, "oai-item-count-seed");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void onReload(Container container) {
+    }
+
+    @Override
+    public void onShutdown(Container container) {
+    }
+
+}
@@ -47,9 +47,7 @@ import org.slf4j.LoggerFactory;
 import de.fiz.oai.backend.models.Crosswalk;
 import de.fiz.oai.backend.models.SearchResult;
 import de.fiz.oai.backend.service.CrosswalkService;
-import de.fiz.oai.backend.utils.Configuration;
-
-import de.fiz.oai.backend.utils.Configuration;
+import de.fiz.oai.backend.utils.Datestamps;
 
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
@@ -210,11 +208,12 @@ public class CrosswalkController extends AbstractController {
   @PUT
   @Path("/{name}/process")
   @ApiOperation(
-      value = "Process crosswalk by name"
+      value = "Start processing crosswalk by name in the background"
   )
   @ApiResponses({
-      @ApiResponse(code = 204, message = "Crosswalk processed successfully"),
-      @ApiResponse(code = 400, message = "Bad request")
+      @ApiResponse(code = 202, message = "Crosswalk process started"),
+      @ApiResponse(code = 400, message = "Bad request"),
+      @ApiResponse(code = 409, message = "Crosswalk process already running")
   })
   public void process(
       @ApiParam(value = "Name of the crosswalk", required = true) @PathParam("name") String name,
@@ -246,7 +245,7 @@ public class CrosswalkController extends AbstractController {
 
     try {
       if (!StringUtils.isBlank(from)) {
-        fromDate = Configuration.getDateformat().parse(from);
+        fromDate = Datestamps.parseDate(from);
       }
     } catch (ParseException e) {
       throw new BadRequestException("Invalid from QueryParam!");
@@ -254,7 +253,7 @@ public class CrosswalkController extends AbstractController {
 
     try {
       if (!StringUtils.isBlank(until)) {
-        untilDate = Configuration.getDateformat().parse(until);
+        untilDate = Datestamps.parseDate(until);
       }
     } catch (ParseException e) {
       throw new BadRequestException("Invalid until QueryParam!");
@@ -262,9 +261,62 @@ public class CrosswalkController extends AbstractController {
 
 
 
-    crosswalkService.process(name, updateItemTimestamp, fromDate, untilDate);
+    if (!crosswalkService.process(name, updateItemTimestamp, fromDate, untilDate)) {
+      throw new WebApplicationException("Crosswalk process already running.", Status.CONFLICT);
+    }
+    throw new WebApplicationException("Crosswalk process started.", Status.ACCEPTED);
+  }
+
+  @POST
+  @Path("/{name}/process/resume")
+  @ApiOperation(
+      value = "Resume a stopped, failed or interrupted crosswalk process from its last checkpoint"
+  )
+  @ApiResponses({
+      @ApiResponse(code = 202, message = "Crosswalk process resumed"),
+      @ApiResponse(code = 409, message = "Crosswalk process running or nothing to resume")
+  })
+  public void resumeProcess(
+      @ApiParam(value = "Name of the crosswalk", required = true) @PathParam("name") String name) throws IOException {
+
+    if (!crosswalkService.resumeProcess(name)) {
+      throw new WebApplicationException("Crosswalk process running or nothing to resume.", Status.CONFLICT);
+    }
+    throw new WebApplicationException("Crosswalk process resumed.", Status.ACCEPTED);
+  }
+
+  @POST
+  @Path("/{name}/process/stop")
+  @ApiOperation(
+      value = "Stop the crosswalk process after the current page of items"
+  )
+  @ApiResponses({
+      @ApiResponse(code = 200, message = "Crosswalk process stopping"),
+      @ApiResponse(code = 404, message = "No crosswalk process running")
+  })
+  public void stopProcess(
+      @ApiParam(value = "Name of the crosswalk", required = true) @PathParam("name") String name) {
+
+    if (!crosswalkService.stopProcess(name)) {
+      throw new WebApplicationException("No crosswalk process running.", Status.NOT_FOUND);
+    }
+    throw new WebApplicationException(Status.OK);
+  }
+
+  @GET
+  @Path("/{name}/process/status")
+  @Produces(MediaType.TEXT_PLAIN)
+  @ApiOperation(
+      value = "Get crosswalk process status",
+      response = String.class
+  )
+  @ApiResponses({
+      @ApiResponse(code = 200, message = "Crosswalk process status retrieved successfully", response = String.class)
+  })
+  public String getProcessStatus(
+      @ApiParam(value = "Name of the crosswalk", required = true) @PathParam("name") String name) throws IOException {
 
-    return;
+    return crosswalkService.getProcessStatusVerbose(name);
   }
   
 }
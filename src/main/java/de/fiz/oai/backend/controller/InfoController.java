@@ -16,19 +16,27 @@
 package de.fiz.oai.backend.controller;
 
 import java.io.IOException;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 import javax.inject.Inject;
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
+import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.MediaType;
 
+import de.fiz.oai.backend.service.IndexingService;
+import de.fiz.oai.backend.service.ItemService;
+import de.fiz.oai.backend.service.MetadataCache;
 import de.fiz.oai.backend.service.TransformerService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import de.fiz.oai.backend.utils.Configuration;
+import de.fiz.oai.backend.utils.ContentCompressor;
 
 @Path("/info")
 public class InfoController extends AbstractController{
@@ -38,6 +46,15 @@ public class InfoController extends AbstractController{
     @Inject
     TransformerService transformerService;
 
+    @Inject
+    MetadataCache metadataCache;
+
+    @Inject
+    ItemService itemService;
+
+    @Inject
+    IndexingService indexingService;
+
     @GET
     @Path("/version")
     @Produces(MediaType.TEXT_PLAIN)
@@ -70,4 +87,70 @@ public class InfoController extends AbstractController{
         return transformerService.info();
     }
 
+    @GET
+    @Path("/crosswalks")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Map<String, Map<String, Long>> getCrosswalkInfo() {
+        return transformerService.getStatistics();
+    }
+
+    @GET
+    @Path("/cache")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Map<String, Map<String, Long>> getCacheInfo() {
+        return metadataCache.getStatistics();
+    }
+
+    /**
+     * Content compression counters since startup, raw and stored sizes of the contents written and read.
+     */
+    @GET
+    @Path("/content")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Map<String, Long> getContentInfo() {
+        return ContentCompressor.getInstance().getStatistics();
+    }
+
+    /**
+     * The maintained item count, a single read. With exact=true all items are counted,
+     * which takes long on large repositories.
+     */
+    @GET
+    @Path("/items")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Map<String, Object> getItemCount(@DefaultValue("false") @QueryParam("exact") boolean exact) throws IOException {
+        Map<String, Object> info = new LinkedHashMap<>();
+        info.put("count", itemService.getCount(exact));
+        info.put("exact", exact);
+        return info;
+    }
+
+    /**
+     * Count all items and correct the maintained count. It is left as it is if items were
+     * created during the count, corrected is false then.
+     */
+    @POST
+    @Path("/items/recount")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Map<String, Object> recountItems() throws IOException {
+        long estimate = itemService.getCount(false);
+        long count = itemService.getCount(true);
+        Map<String, Object> info = new LinkedHashMap<>();
+        info.put("count", count);
+        info.put("corrected", itemService.correctCount(count, estimate));
+        return info;
+    }
+
+    /**
+     * Indexer counters since startup. lagMillis is the age of the oldest item waiting for
+     * the index, 0 when nothing is queued, deferred the number of items the indexer holds
+     * back because they were changed within the coalesce window.
+     */
+    @GET
+    @Path("/indexing")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Map<String, Long> getIndexingInfo() {
+        return indexingService.getStatistics();
+    }
+
 }
@@ -15,8 +15,16 @@
  */
 package de.fiz.oai.backend.controller;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.text.ParseException;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 
@@ -38,17 +46,26 @@ import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.core.StreamingOutput;
 
 import org.apache.commons.lang3.StringUtils;
+import org.glassfish.jersey.media.multipart.FormDataBodyPart;
 import org.glassfish.jersey.media.multipart.FormDataParam;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import de.fiz.oai.backend.models.BulkItemResult;
 import de.fiz.oai.backend.models.Content;
 import de.fiz.oai.backend.models.Item;
 import de.fiz.oai.backend.models.SearchResult;
 import de.fiz.oai.backend.service.ItemService;
 import de.fiz.oai.backend.utils.Configuration;
+import de.fiz.oai.backend.utils.Datestamps;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiParam;
@@ -72,6 +89,15 @@ public class ItemController extends AbstractController {
 
   private static Logger LOGGER = LoggerFactory.getLogger(ItemController.class);
 
+  public static final String APPLICATION_NDJSON = "application/x-ndjson";
+
+  private static final ObjectWriter ITEM_WRITER = new ObjectMapper().writerFor(Item.class);
+
+  private static final ObjectReader ITEM_READER = new ObjectMapper().readerFor(Item.class);
+
+  private int exportPageSize = Integer.parseInt(Configuration.getInstance().getProperty("export.page.size", "500"));
+
+  private int bulkBatchSize = Integer.parseInt(Configuration.getInstance().getProperty("bulk.batch.size", "500"));
 
   @GET
   @Path("/{identifier}")
@@ -127,28 +153,12 @@ public class ItemController extends AbstractController {
     LOGGER.info("content: {}", content);
     LOGGER.info("searchMark: {}", searchMark);
     
-    Date fromDate = null;
-    Date untilDate = null;
-
     if (StringUtils.isBlank(format)) {
       throw new BadRequestException("format QueryParam cannot be empty!");
     }
 
-    try {
-      if (!StringUtils.isBlank(from)) {
-        fromDate = Configuration.getDateformat().parse(from);
-      }
-    } catch (ParseException e) {
-      throw new BadRequestException("Invalid from QueryParam!");
-    }
-
-    try {
-      if (!StringUtils.isBlank(until)) {
-        untilDate = Configuration.getDateformat().parse(until);
-      }
-    } catch (ParseException e) {
-      throw new BadRequestException("Invalid until QueryParam!");
-    }
+    Date fromDate = parseDate(from, "from");
+    Date untilDate = parseDate(until, "until");
 
     if (content == null) {
       content = false;
@@ -159,6 +169,62 @@ public class ItemController extends AbstractController {
     return result;
   }
 
+  @GET
+  @Path("/export")
+  @Produces(APPLICATION_NDJSON)
+  @ApiOperation(value = "Export Items", notes = "Stream all matching items as newline delimited JSON, one item per line")
+  @ApiResponses(value = {
+      @ApiResponse(code = 200, message = "Items streamed"),
+      @ApiResponse(code = 400, message = "Invalid search parameters")
+  })
+  public StreamingOutput exportItems(
+      @ApiParam(value = "Set to export", required = false) @QueryParam("set") String set,
+      @ApiParam(value = "Format of the items", required = true) @QueryParam("format") String format,
+      @ApiParam(value = "Start date for export", required = false) @QueryParam("from") String from,
+      @ApiParam(value = "End date for export", required = false) @QueryParam("until") String until,
+      @ApiParam(value = "Include content in the response", required = false) @QueryParam("content") Boolean content) {
+
+    LOGGER.info("exportItems set: {}, format: {}, from: {}, until: {}, content: {}", set, format, from, until, content);
+
+    if (StringUtils.isBlank(format)) {
+      throw new BadRequestException("format QueryParam cannot be empty!");
+    }
+
+    final Date fromDate = parseDate(from, "from");
+    final Date untilDate = parseDate(until, "until");
+    final boolean readContent = content != null && content;
+
+    // Only one page of items is held in memory, each page is flushed to the client before the next is read
+    return output -> {
+      Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+      String searchMark = null;
+      long exported = 0;
+      do {
+        SearchResult<Item> page = itemService.search(exportPageSize, set, format, fromDate, untilDate, readContent,
+            searchMark);
+        for (Item item : page.getData()) {
+          writer.write(ITEM_WRITER.writeValueAsString(item));
+          writer.write('\n');
+        }
+        writer.flush();
+        exported += page.getSize();
+        searchMark = page.getSearchMark();
+      } while (StringUtils.isNotBlank(searchMark));
+      LOGGER.info("exportItems: {} items exported", exported);
+    };
+  }
+
+  private Date parseDate(String date, String name) {
+    try {
+      if (!StringUtils.isBlank(date)) {
+        return Datestamps.parseDate(date);
+      }
+    } catch (ParseException e) {
+      throw new BadRequestException("Invalid " + name + " QueryParam!");
+    }
+    return null;
+  }
+
   @DELETE
   @Path("/{identifier}")
   @ApiOperation(value = "Delete Item by Identifier", notes = "Delete an item using its identifier")
@@ -187,22 +253,23 @@ public class ItemController extends AbstractController {
       @ApiResponse(code = 400, message = "Invalid item data")
   })
   public Item createItem(
-      @ApiParam(value = "Content of the item", required = true) @FormDataParam("content") String content,
+      @ApiParam(value = "Content of the item", required = true) @FormDataParam("content") FormDataBodyPart content,
       @ApiParam(value = "Item object", required = true) @FormDataParam("item") Item item,
       @Context HttpServletRequest request,
       @Context HttpServletResponse response) throws IOException {
     LOGGER.info("createItem item: {}", item.toString());
-    LOGGER.debug("content: {}", content);
+
+    Content itemContent = new Content();
+    itemContent.setBytes(contentBytes(content));
+    LOGGER.debug("content: {}", itemContent);
     
     Configuration config = Configuration.getInstance();
     boolean checkItemIdentifierInContent = Boolean.valueOf(config.getProperty("checkItemIdentifierInContent", "true"));
     
-    if (checkItemIdentifierInContent && !content.contains(item.getIdentifier())) {
+    if (checkItemIdentifierInContent && !itemContent.contains(item.getIdentifier())) {
       throw new WebApplicationException("Cannot find the identifier in the content!", Status.BAD_REQUEST);
     }
 
-    Content itemContent = new Content();
-    itemContent.setContent(content);
     itemContent.setFormat(item.getIngestFormat());
     itemContent.setIdentifier(item.getIdentifier());
 
@@ -216,6 +283,91 @@ public class ItemController extends AbstractController {
     return newItem;
   }
 
+  @POST
+  @Path("/bulk")
+  @Consumes(APPLICATION_NDJSON)
+  @Produces(MediaType.APPLICATION_JSON)
+  @ApiOperation(value = "Create Items", notes = "Create new items from newline delimited JSON, one item with its content per line", response = BulkItemResult.class, responseContainer = "List")
+  @ApiResponses(value = {
+      @ApiResponse(code = 200, message = "Items processed, the status of each item is part of the result", response = BulkItemResult.class, responseContainer = "List")
+  })
+  public List<BulkItemResult> createItems(
+      @ApiParam(value = "Items, one JSON object per line", required = true) InputStream items) throws IOException {
+    Configuration config = Configuration.getInstance();
+    boolean checkItemIdentifierInContent = Boolean.valueOf(config.getProperty("checkItemIdentifierInContent", "true"));
+
+    // The items are created in batches, one batch is held in memory at a time
+    List<BulkItemResult> results = new ArrayList<>();
+    List<Item> batch = new ArrayList<>(bulkBatchSize);
+    List<Integer> batchPositions = new ArrayList<>(bulkBatchSize);
+
+    BufferedReader reader = new BufferedReader(new InputStreamReader(items, StandardCharsets.UTF_8));
+    String line;
+    int lineNumber = 0;
+    while ((line = reader.readLine()) != null) {
+      lineNumber++;
+      if (StringUtils.isBlank(line)) {
+        continue;
+      }
+
+      Item item;
+      try {
+        item = ITEM_READER.readValue(line);
+      } catch (JsonProcessingException e) {
+        results.add(new BulkItemResult(null, Status.BAD_REQUEST.getStatusCode(),
+            "Invalid item in line " + lineNumber + ": " + e.getOriginalMessage()));
+        continue;
+      }
+
+      Content itemContent = item.getContent();
+      if (itemContent == null || itemContent.getContent() == null) {
+        results.add(new BulkItemResult(item.getIdentifier(), Status.BAD_REQUEST.getStatusCode(),
+            "Missing content in line " + lineNumber));
+        continue;
+      }
+      if (checkItemIdentifierInContent && (item.getIdentifier() == null
+          || !itemContent.contains(item.getIdentifier()))) {
+        results.add(new BulkItemResult(item.getIdentifier(), Status.BAD_REQUEST.getStatusCode(),
+            "Cannot find the identifier in the content!"));
+        continue;
+      }
+      itemContent.setFormat(item.getIngestFormat());
+      itemContent.setIdentifier(item.getIdentifier());
+
+      batchPositions.add(results.size());
+      results.add(null);
+      batch.add(item);
+      if (batch.size() == bulkBatchSize) {
+        createBatch(batch, batchPositions, results);
+      }
+    }
+    createBatch(batch, batchPositions, results);
+
+    LOGGER.info("createItems: {} items processed", results.size());
+    return results;
+  }
+
+  private void createBatch(List<Item> batch, List<Integer> batchPositions, List<BulkItemResult> results) {
+    if (batch.isEmpty()) {
+      return;
+    }
+    try {
+      List<BulkItemResult> batchResults = itemService.createAll(batch);
+      for (int i = 0; i < batchResults.size(); i++) {
+        results.set(batchPositions.get(i), batchResults.get(i));
+      }
+    } catch (IOException | RuntimeException e) {
+      // The results of the other batches are kept, the client retries the failed items
+      LOGGER.error("createItems: cannot create a batch of " + batch.size() + " items", e);
+      for (int i = 0; i < batch.size(); i++) {
+        results.set(batchPositions.get(i), new BulkItemResult(batch.get(i).getIdentifier(),
+            Status.INTERNAL_SERVER_ERROR.getStatusCode(), "Cannot create item: " + e.getMessage()));
+      }
+    }
+    batch.clear();
+    batchPositions.clear();
+  }
+
   @PUT
   @Path("/{identifier}")
   @Consumes(MediaType.MULTIPART_FORM_DATA)
@@ -227,7 +379,7 @@ public class ItemController extends AbstractController {
   })
   public Item updateItem(
       @ApiParam(value = "Identifier of the item", required = true) @PathParam("identifier") String identifier,
-      @ApiParam(value = "Content of the item", required = true) @FormDataParam("content") String content,
+      @ApiParam(value = "Content of the item", required = true) @FormDataParam("content") FormDataBodyPart content,
       @ApiParam(value = "Item object", required = true) @FormDataParam("item") Item item,
       @Context HttpServletRequest request,
       @Context HttpServletResponse response) throws IOException {
@@ -241,12 +393,13 @@ public class ItemController extends AbstractController {
           Status.BAD_REQUEST);
     }
 
-    if (!content.contains(identifier)) {
+    Content itemContent = new Content();
+    itemContent.setBytes(contentBytes(content));
+
+    if (!itemContent.contains(identifier)) {
       throw new WebApplicationException("Cannot find the identifier in the content!", Status.BAD_REQUEST);
     }
 
-    Content itemContent = new Content();
-    itemContent.setContent(content);
     itemContent.setFormat(item.getIngestFormat());
     itemContent.setIdentifier(item.getIdentifier());
 
@@ -257,6 +410,17 @@ public class ItemController extends AbstractController {
     return updateItem;
   }
 
+  /**
+   * The content part as UTF-8. Parts sent as UTF-8, the default, are taken as they are.
+   */
+  private byte[] contentBytes(FormDataBodyPart content) {
+    String charset = content.getMediaType().getParameters().get(MediaType.CHARSET_PARAMETER);
+    if (charset == null || StandardCharsets.UTF_8.name().equalsIgnoreCase(charset)) {
+      return content.getValueAs(byte[].class);
+    }
+    return content.getValueAs(String.class).getBytes(StandardCharsets.UTF_8);
+  }
+
   @PUT
   @Path("/tags/{identifier}")
   @Consumes(MediaType.APPLICATION_JSON)
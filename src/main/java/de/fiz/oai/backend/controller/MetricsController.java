@@ -0,0 +1,40 @@
+/*
+ * Copyright 2019 FIZ Karlsruhe - Leibniz-Institut fuer Informationsinfrastruktur GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.fiz.oai.backend.controller;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+
+import de.fiz.oai.backend.utils.MetricsManager;
+
+@Path("/metrics")
+public class MetricsController extends AbstractController {
+
+    public static final String PROMETHEUS_TEXT_FORMAT = "text/plain; version=0.0.4; charset=utf-8";
+
+    /**
+     * All meters in the Prometheus text format: request latencies per resource, Cassandra
+     * requests per table and statement, search index requests, crosswalk transformations,
+     * set evaluation, thread pools, content compression, indexing and JVM.
+     */
+    @GET
+    @Produces(PROMETHEUS_TEXT_FORMAT)
+    public String getMetrics() {
+        return MetricsManager.getInstance().scrape();
+    }
+
+}
@@ -17,6 +17,7 @@ package de.fiz.oai.backend.dao;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.CompletionStage;
 
 import org.jvnet.hk2.annotations.Contract;
 
@@ -34,6 +35,24 @@ public interface DAOContent {
    */
   Content read(String identifier, String format) throws IOException;
 
+  /**
+   * Read a Content without blocking.
+   *
+   * @param identifier the item identifier
+   * @param format the format
+   * @return the Content, null if not found
+   */
+  CompletionStage<Content> readAsync(String identifier, String format);
+
+  /**
+   * Read the Contents of several items in the same format. The reads are issued concurrently.
+   *
+   * @param identifiers the item identifiers
+   * @param format the format
+   * @return the Contents found, in the order of the given identifiers
+   */
+  List<Content> read(List<String> identifiers, String format) throws IOException;
+
   /**
    * Create a new Content.
    *
@@ -42,6 +61,14 @@ public interface DAOContent {
    */
   Content create(Content content) throws IOException;
 
+  /**
+   * Create a new Content without blocking.
+   *
+   * @param content the Content
+   * @return the Content created
+   */
+  CompletionStage<Content> createAsync(Content content);
+
   
   /**
    * Read all Contents for a given identifier.
@@ -50,6 +77,13 @@ public interface DAOContent {
    */
   List<Content> readFormats(String identifier) throws IOException;
 
+  /**
+   * Read all Contents for a given identifier without blocking.
+   *
+   * @return the Contents
+   */
+  CompletionStage<List<Content>> readFormatsAsync(String identifier);
+
   
   /**
    * Delete an Content.
@@ -17,6 +17,7 @@ package de.fiz.oai.backend.dao;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.CompletionStage;
 
 import org.jvnet.hk2.annotations.Contract;
 
@@ -33,6 +34,14 @@ public interface DAOCrosswalk {
    */
   Crosswalk read(String name) throws IOException;
 
+  /**
+   * Read a Crosswalk without blocking.
+   *
+   * @param name the name
+   * @return the Crosswalk, null if not found
+   */
+  CompletionStage<Crosswalk> readAsync(String name);
+
   /**
    * Create a new Crosswalk.
    *
@@ -41,6 +50,14 @@ public interface DAOCrosswalk {
    */
   Crosswalk create(Crosswalk content) throws IOException;
 
+  /**
+   * Create a new Crosswalk without blocking.
+   *
+   * @param content Crosswalk to create
+   * @return the Crosswalk created
+   */
+  CompletionStage<Crosswalk> createAsync(Crosswalk content);
+
   /**
    * Read all Crosswalks.
    *
@@ -48,6 +65,13 @@ public interface DAOCrosswalk {
    */
   List<Crosswalk> readAll() throws IOException;
 
+  /**
+   * Read all Crosswalks without blocking.
+   *
+   * @return the Crosswalks
+   */
+  CompletionStage<List<Crosswalk>> readAllAsync();
+
   /**
    * Delete an Crosswalk.
    *
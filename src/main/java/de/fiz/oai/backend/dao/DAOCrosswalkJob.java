@@ -0,0 +1,77 @@
+/*
+ * Copyright 2019 FIZ Karlsruhe - Leibniz-Institut fuer Informationsinfrastruktur GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.fiz.oai.backend.dao;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.List;
+
+import org.jvnet.hk2.annotations.Contract;
+
+import de.fiz.oai.backend.models.crosswalk.CrosswalkJob;
+
+@Contract
+public interface DAOCrosswalkJob {
+
+  /**
+   * Read the last job of a Crosswalk.
+   *
+   * @param name the name of the crosswalk
+   * @return the CrosswalkJob, null if not found
+   */
+  CrosswalkJob read(String name) throws IOException;
+
+  /**
+   * Create or replace the job of a Crosswalk.
+   *
+   * @param job the CrosswalkJob
+   * @return the CrosswalkJob stored
+   */
+  CrosswalkJob create(CrosswalkJob job) throws IOException;
+
+  /**
+   * Create the job of a Crosswalk unless there is one already.
+   *
+   * @param job the CrosswalkJob
+   * @return <code>false</code> if a job of the Crosswalk exists
+   */
+  boolean createIfNotExists(CrosswalkJob job) throws IOException;
+
+  /**
+   * Replace the job of a Crosswalk if the stored one still has the given state and
+   * heartbeat, so of several nodes only one takes over a job.
+   *
+   * @param job the CrosswalkJob
+   * @param state the state of the stored job
+   * @param heartbeat the heartbeat of the stored job, null if none
+   * @return <code>false</code> if the stored job has changed
+   */
+  boolean update(CrosswalkJob job, CrosswalkJob.State state, Date heartbeat) throws IOException;
+
+  /**
+   * Read all CrosswalkJobs.
+   *
+   * @return the CrosswalkJobs
+   */
+  List<CrosswalkJob> readAll() throws IOException;
+
+  /**
+   * Delete the job of a Crosswalk.
+   *
+   * @param name the name of the crosswalk
+   */
+  void delete(String name) throws IOException;
+}
@@ -17,6 +17,7 @@ package de.fiz.oai.backend.dao;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.CompletionStage;
 
 import org.jvnet.hk2.annotations.Contract;
 
@@ -35,6 +36,15 @@ public interface DAOFormat {
      */
     Format read(String metadataPrefix) throws IOException;
 
+    /**
+     * Read a Format without blocking.
+     *
+     * @param metadataPrefix
+     *            the metadataPrefix
+     * @return the Format, null if not found
+     */
+    CompletionStage<Format> readAsync(String metadataPrefix);
+
     /**
      * Create a new Format.
      *
@@ -44,6 +54,15 @@ public interface DAOFormat {
      */
     Format create(Format Format) throws IOException;
 
+    /**
+     * Create a new Format without blocking.
+     *
+     * @param Format
+     *            the Format
+     * @return the Format created
+     */
+    CompletionStage<Format> createAsync(Format Format);
+
     /**
      * Search for Formats.
      *
@@ -51,6 +70,13 @@ public interface DAOFormat {
      */
     List<Format> readAll() throws IOException;
 
+    /**
+     * Read all Formats without blocking.
+     *
+     * @return the Formats
+     */
+    CompletionStage<List<Format>> readAllAsync();
+
     /**
      * Delete an Format.
      *
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2019 FIZ Karlsruhe - Leibniz-Institut fuer Informationsinfrastruktur GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.fiz.oai.backend.dao;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import org.jvnet.hk2.annotations.Contract;
+
+import de.fiz.oai.backend.models.index.IndexQueueEntry;
+
+@Contract
+public interface DAOIndexQueue {
+
+  /**
+   * @return the number of queue partitions
+   */
+  int getShards();
+
+  /**
+   * Queue items for indexing, an item already queued is queued again with the new time.
+   *
+   * @param identifiers the item identifiers
+   */
+  void add(List<String> identifiers) throws IOException;
+
+  /**
+   * Read entries of one queue partition in the order of their identifiers.
+   *
+   * @param shard the partition
+   * @param after the identifier to read after, null to read from the start
+   * @param limit the maximum number of entries
+   * @return the entries
+   */
+  List<IndexQueueEntry> read(int shard, String after, int limit) throws IOException;
+
+  /**
+   * Remove indexed entries. An entry queued again after it was read is kept.
+   *
+   * @param entries the entries read before
+   */
+  void remove(List<IndexQueueEntry> entries) throws IOException;
+
+  /**
+   * Store the failed attempts and the next attempt time of entries. An entry queued again
+   * after it was read keeps its own, queuing an item starts over with no attempts.
+   *
+   * @param entries the entries read before, with the attempt added
+   */
+  void retry(List<IndexQueueEntry> entries) throws IOException;
+
+  /**
+   * Move an entry that failed too often out of the queue into the dead letters, where it
+   * is kept for inspection. An entry queued again after it was read stays queued.
+   *
+   * @param entry the entry read before
+   * @param error the error of the last attempt
+   */
+  void deadLetter(IndexQueueEntry entry, String error) throws IOException;
+
+  /**
+   * Register a node running an indexer, the registration expires unless renewed.
+   *
+   * @param node the node
+   * @param ttlMillis the time until the registration expires
+   */
+  void registerIndexer(String node, long ttlMillis) throws IOException;
+
+  /**
+   * Remove the registration of a node that stopped its indexer.
+   *
+   * @param node the node
+   */
+  void unregisterIndexer(String node) throws IOException;
+
+  /**
+   * @return the nodes running an indexer
+   */
+  List<String> readIndexers() throws IOException;
+
+  /**
+   * @return the node holding the lease per leased partition
+   */
+  Map<Integer, String> readLeases() throws IOException;
+
+  /**
+   * Take or renew the lease of a partition, only the node holding the lease indexes the
+   * entries of the partition. The lease expires unless renewed.
+   *
+   * @param shard the partition
+   * @param node the node
+   * @param ttlMillis the time until the lease expires
+   * @return <code>false</code> if another node holds the lease
+   */
+  boolean lease(int shard, String node, long ttlMillis) throws IOException;
+
+  /**
+   * Give up the lease of a partition, if the node still holds it.
+   *
+   * @param shard the partition
+   * @param node the node
+   */
+  void release(int shard, String node) throws IOException;
+}
@@ -16,13 +16,14 @@
 package de.fiz.oai.backend.dao;
 
 import java.io.IOException;
+import java.util.Date;
 import java.util.List;
+import java.util.concurrent.CompletionStage;
 
 import org.jvnet.hk2.annotations.Contract;
 
-import com.datastax.oss.driver.api.core.cql.ResultSet;
-
 import de.fiz.oai.backend.models.Item;
+import de.fiz.oai.backend.models.scan.ScanCheckpoint;
 
 @Contract
 public interface DAOItem {
@@ -35,6 +36,22 @@ public interface DAOItem {
    */
   Item read(String identifier) throws IOException;
 
+  /**
+   * Read an Item without blocking.
+   *
+   * @param identifier the identifier
+   * @return the item, null if not found
+   */
+  CompletionStage<Item> readAsync(String identifier);
+
+  /**
+   * Read several Items at once. The reads are issued concurrently.
+   *
+   * @param identifiers the identifiers
+   * @return the items found, in the order of the given identifiers
+   */
+  List<Item> read(List<String> identifiers) throws IOException;
+
   /**
    * Create a new Item.
    *
@@ -43,6 +60,14 @@ public interface DAOItem {
    */
   Item create(Item item) throws IOException;
 
+  /**
+   * Create a new Item without blocking.
+   *
+   * @param item the item
+   * @return the item created
+   */
+  CompletionStage<Item> createAsync(Item item);
+
   /**
    * Delete an Item.
    *
@@ -51,17 +76,50 @@ public interface DAOItem {
   void delete(String identifier) throws IOException;
 
   /**
-   * Get count.
+   * Get the exact count. The token ranges are counted concurrently, but every Item is
+   * still read.
    */
   long getCount() throws IOException;
 
   /**
-   * Get all items as ResultSet.
+   * Get the count maintained by {@link #incrementCountAsync(long)}, a single read. Counter
+   * updates are not idempotent, so it may drift from the exact count.
+   */
+  long getCountEstimate() throws IOException;
+
+  /**
+   * Add to the maintained count without blocking.
+   *
+   * @param delta the number of Items added, negative if removed
+   */
+  CompletionStage<Void> incrementCountAsync(long delta);
+
+  /**
+   * Claim seeding the maintained count, see {@link de.fiz.oai.backend.service.ItemService#seedCount()}.
+   * Only one node in the cluster holds the claim. A claim that was not completed and whose
+   * heartbeat is older than the timeout is taken over, the node holding it is considered dead.
+   *
+   * @param heartbeat the heartbeat of the new claim
+   * @param timeoutMillis the time after which a claim not renewed is taken over
+   * @return whether this call claimed it
    */
-  ResultSet getAllItemsResultSet() throws IOException;
+  boolean claimCountSeed(Date heartbeat, long timeoutMillis) throws IOException;
 
   /**
-   * Get list of Items given an already prepared ResultSet.
+   * Renew the heartbeat of an own claim on seeding the count, or complete it.
+   *
+   * @param heartbeat the current heartbeat of the claim
+   * @param renewed the new heartbeat
+   * @param done whether the count was seeded
+   * @return <code>false</code> if another node took the claim over
+   */
+  boolean updateCountSeed(Date heartbeat, Date renewed, boolean done) throws IOException;
+
+  /**
+   * Start a full scan of all Items. The token ranges are read concurrently, in pages.
+   *
+   * @param checkpoint the ranges left by an earlier scan, null to scan all Items
+   * @return the running scan, to be closed by the caller
    */
-  List<Item> getItemsFromResultSet(ResultSet resultSet, int itemsToRetrieve) throws IOException;
+  ItemScan scan(ScanCheckpoint checkpoint) throws IOException;
 }
@@ -17,6 +17,7 @@ package de.fiz.oai.backend.dao;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.CompletionStage;
 
 import org.jvnet.hk2.annotations.Contract;
 
@@ -35,6 +36,15 @@ public interface DAOSet {
      */
     Set read(String name) throws IOException;
 
+    /**
+     * Read a Set without blocking.
+     *
+     * @param name
+     *            the name
+     * @return the Set, null if not found
+     */
+    CompletionStage<Set> readAsync(String name);
+
     /**
      * Create a new Set.
      *
@@ -44,6 +54,15 @@ public interface DAOSet {
      */
     Set create(Set Set) throws IOException;
 
+    /**
+     * Create a new Set without blocking.
+     *
+     * @param Set
+     *            the Set
+     * @return the Set created
+     */
+    CompletionStage<Set> createAsync(Set Set);
+
     /**
      * Search for Sets.
      *
@@ -51,6 +70,13 @@ public interface DAOSet {
      */
     List<Set> readAll() throws IOException;
 
+    /**
+     * Read all Sets without blocking.
+     *
+     * @return the Sets
+     */
+    CompletionStage<List<Set>> readAllAsync();
+
     /**
      * Delete an Set.
      *
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2019 FIZ Karlsruhe - Leibniz-Institut fuer Informationsinfrastruktur GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.fiz.oai.backend.dao;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import de.fiz.oai.backend.models.Item;
+import de.fiz.oai.backend.models.scan.ScanCheckpoint;
+
+/**
+ * A running full scan of all Items, see {@link DAOItem#scan(ScanCheckpoint)}.
+ * <p>
+ * The Items are read in the background, in no particular order. A failure of the
+ * background reads is thrown as UncheckedIOException by hasNext or next. The scan must be
+ * closed if it is not read to the end.
+ */
+public interface ItemScan extends Iterator<Item>, Closeable {
+
+  /**
+   * @return the ranges still to read, not containing any Item returned by next so far
+   */
+  ScanCheckpoint checkpoint();
+
+  /**
+   * @param maxItems the maximum number of Items
+   * @return the next Items, empty at the end of the scan
+   */
+  default List<Item> next(int maxItems) {
+    List<Item> items = new ArrayList<>(maxItems);
+    while (items.size() < maxItems && hasNext()) {
+      items.add(next());
+    }
+    return items;
+  }
+
+  @Override
+  void close();
+
+}
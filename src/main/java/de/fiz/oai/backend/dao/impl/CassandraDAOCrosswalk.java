@@ -17,10 +17,9 @@ package de.fiz.oai.backend.dao.impl;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.CompletionStage;
 
 import org.apache.commons.lang3.StringUtils;
 import org.jvnet.hk2.annotations.Service;
@@ -30,10 +29,12 @@ import com.datastax.oss.driver.api.core.cql.BoundStatement;
 import com.datastax.oss.driver.api.core.cql.PreparedStatement;
 import com.datastax.oss.driver.api.core.cql.ResultSet;
 import com.datastax.oss.driver.api.core.cql.Row;
+import com.datastax.oss.protocol.internal.util.Bytes;
 
 import de.fiz.oai.backend.dao.DAOCrosswalk;
 import de.fiz.oai.backend.exceptions.NotFoundException;
 import de.fiz.oai.backend.models.Crosswalk;
+import de.fiz.oai.backend.utils.CassandraUtils;
 import de.fiz.oai.backend.utils.ClusterManager;
 
 @Service
@@ -46,52 +47,34 @@ public class CassandraDAOCrosswalk implements DAOCrosswalk {
 
   public static final String TABLENAME_CROSSWALK = "oai_crosswalk";
 
-  private Map<String, PreparedStatement> preparedStatements = new HashMap<String, PreparedStatement>();
-
   @Override
   public Crosswalk read(String metadataPrefix) throws IOException {
+    return CassandraUtils.await(readAsync(metadataPrefix));
+  }
+
+  @Override
+  public CompletionStage<Crosswalk> readAsync(String metadataPrefix) {
     ClusterManager manager = ClusterManager.getInstance();
     CqlSession session = manager.getCassandraSession();
 
-    PreparedStatement prepared = preparedStatements.get("read");
-    if (prepared == null) {
-      final StringBuilder selectStmt = new StringBuilder();
-      selectStmt.append("SELECT * FROM ");
-      selectStmt.append(TABLENAME_CROSSWALK);
-      selectStmt.append(" WHERE name=?");
-
-      prepared = session.prepare(selectStmt.toString());
-      preparedStatements.put("read", prepared);
-    }
+    PreparedStatement prepared = manager.getPreparedStatement(session, CqlStatement.CROSSWALK_READ);
     BoundStatement bound = prepared.bind(metadataPrefix);
 
-    ResultSet rs = session.execute(bound);
-    Row resultRow = rs.one();
-    if (resultRow != null) {
-      final Crosswalk crosswalk = populateFormat(resultRow);
-
-      return crosswalk;
-    }
-    return null;
+    return CassandraUtils.one(session.executeAsync(bound), this::populateFormat);
   }
 
   @Override
   public List<Crosswalk> readAll() throws IOException {
+    return CassandraUtils.await(readAllAsync());
+  }
+
+  @Override
+  public CompletionStage<List<Crosswalk>> readAllAsync() {
     ClusterManager manager = ClusterManager.getInstance();
     CqlSession session = manager.getCassandraSession();
 
-    final List<Crosswalk> allCrosswalks = new ArrayList<Crosswalk>();
-
-    String query = "SELECT * FROM " + TABLENAME_CROSSWALK;
-    ResultSet rs = session.execute(query);
-
-    for (final Row row : rs) {
-      final Crosswalk format = populateFormat(row);
-
-      allCrosswalks.add(format);
-    }
-
-    return allCrosswalks;
+    BoundStatement bound = manager.getPreparedStatement(session, CqlStatement.CROSSWALK_READ_ALL).bind();
+    return CassandraUtils.all(session.executeAsync(bound), this::populateFormat);
   }
 
   private Crosswalk populateFormat(Row row) {
@@ -99,44 +82,31 @@ public class CassandraDAOCrosswalk implements DAOCrosswalk {
     crosswalk.setName(row.getString(CROSSWALK_NAME));
     crosswalk.setFormatFrom(row.getString(CROSSWALK_FORMAT_FROM));
     crosswalk.setFormatTo(row.getString(CROSSWALK_FORMAT_TO));
-    crosswalk.setXsltStylesheet(new String(row.getByteBuffer(CROSSWALK_XSLT_STYLESHEET).array()));
+    crosswalk.setXsltStylesheet(new String(Bytes.getArray(row.getByteBuffer(CROSSWALK_XSLT_STYLESHEET)), StandardCharsets.UTF_8));
     return crosswalk;
   }
 
   @Override
   public Crosswalk create(Crosswalk crosswalk) throws IOException {
+    return CassandraUtils.await(createAsync(crosswalk));
+  }
+
+  @Override
+  public CompletionStage<Crosswalk> createAsync(Crosswalk crosswalk) {
     ClusterManager manager = ClusterManager.getInstance();
     CqlSession session = manager.getCassandraSession();
 
     if (StringUtils.isBlank(crosswalk.getName())) {
-      throw new IOException("Crosswalk name cannot be empty!");
+      return CassandraUtils.failed("Crosswalk name cannot be empty!");
     }
 
-    PreparedStatement prepared = preparedStatements.get("create");
-    if (prepared == null) {
-      StringBuilder insertStmt = new StringBuilder();
-      insertStmt.append("INSERT INTO ");
-      insertStmt.append(TABLENAME_CROSSWALK);
-      insertStmt.append(" (");
-      insertStmt.append(CROSSWALK_NAME);
-      insertStmt.append(", ");
-      insertStmt.append(CROSSWALK_FORMAT_FROM);
-      insertStmt.append(", ");
-      insertStmt.append(CROSSWALK_FORMAT_TO);
-      insertStmt.append(", ");
-      insertStmt.append(CROSSWALK_XSLT_STYLESHEET);
-      insertStmt.append(") VALUES (?, ?, ?, ?)");
-
-      prepared = session.prepare(insertStmt.toString());
-      preparedStatements.put("create", prepared);
-    }
-    ByteBuffer buffer = ByteBuffer.wrap(crosswalk.getXsltStylesheet().getBytes());
+    PreparedStatement prepared = manager.getPreparedStatement(session, CqlStatement.CROSSWALK_CREATE);
+    ByteBuffer buffer = ByteBuffer.wrap(crosswalk.getXsltStylesheet().getBytes(StandardCharsets.UTF_8));
 
     BoundStatement bound = prepared.bind(crosswalk.getName(), crosswalk.getFormatFrom(), crosswalk.getFormatTo(),
         buffer);
-    session.execute(bound);
 
-    return crosswalk;
+    return session.executeAsync(bound).thenApply(result -> crosswalk);
   }
 
   @Override
@@ -149,18 +119,7 @@ public class CassandraDAOCrosswalk implements DAOCrosswalk {
     ClusterManager manager = ClusterManager.getInstance();
     CqlSession session = manager.getCassandraSession();
 
-    PreparedStatement prepared = preparedStatements.get("delete");
-    if (prepared == null) {
-      StringBuilder deleteStmt = new StringBuilder();
-      deleteStmt.append("DELETE FROM ");
-      deleteStmt.append(TABLENAME_CROSSWALK);
-      deleteStmt.append(" WHERE ");
-      deleteStmt.append(CROSSWALK_NAME);
-      deleteStmt.append("=?");
-
-      prepared = session.prepare(deleteStmt.toString());
-      preparedStatements.put("delete", prepared);
-    }
+    PreparedStatement prepared = manager.getPreparedStatement(session, CqlStatement.CROSSWALK_DELETE);
     BoundStatement bound = prepared.bind(name);
     ResultSet result = session.execute(bound);
 
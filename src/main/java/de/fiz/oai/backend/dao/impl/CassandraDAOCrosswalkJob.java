@@ -0,0 +1,160 @@
+/*
+ * Copyright 2019 FIZ Karlsruhe - Leibniz-Institut fuer Informationsinfrastruktur GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.fiz.oai.backend.dao.impl;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+
+import org.apache.commons.lang3.StringUtils;
+import org.jvnet.hk2.annotations.Service;
+
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.cql.BoundStatement;
+import com.datastax.oss.driver.api.core.cql.PreparedStatement;
+import com.datastax.oss.driver.api.core.cql.Row;
+
+import de.fiz.oai.backend.dao.DAOCrosswalkJob;
+import de.fiz.oai.backend.models.crosswalk.CrosswalkJob;
+import de.fiz.oai.backend.utils.CassandraUtils;
+import de.fiz.oai.backend.utils.ClusterManager;
+
+@Service
+public class CassandraDAOCrosswalkJob implements DAOCrosswalkJob {
+
+  public static final String JOB_NAME = "name";
+  public static final String JOB_UPDATEITEMTIMESTAMP = "updateItemTimestamp";
+  public static final String JOB_FROM = "fromDate";
+  public static final String JOB_UNTIL = "untilDate";
+  public static final String JOB_SEARCHMARK = "searchMark";
+  public static final String JOB_STATE = "state";
+  public static final String JOB_TOTAL = "total";
+  public static final String JOB_PROCESSED = "processed";
+  public static final String JOB_FAILED = "failed";
+  public static final String JOB_STARTTIME = "startTime";
+  public static final String JOB_ENDTIME = "endTime";
+  public static final String JOB_HEARTBEAT = "heartbeat";
+
+  public static final String TABLENAME_CROSSWALK_JOB = "oai_crosswalk_job";
+
+  @Override
+  public CrosswalkJob read(String name) throws IOException {
+    ClusterManager manager = ClusterManager.getInstance();
+    CqlSession session = manager.getCassandraSession();
+
+    BoundStatement bound = manager.getPreparedStatement(session, CqlStatement.CROSSWALK_JOB_READ).bind(name);
+    return CassandraUtils.await(CassandraUtils.one(session.executeAsync(bound), this::populateJob));
+  }
+
+  @Override
+  public List<CrosswalkJob> readAll() throws IOException {
+    ClusterManager manager = ClusterManager.getInstance();
+    CqlSession session = manager.getCassandraSession();
+
+    BoundStatement bound = manager.getPreparedStatement(session, CqlStatement.CROSSWALK_JOB_READ_ALL).bind();
+    return CassandraUtils.await(CassandraUtils.all(session.executeAsync(bound), this::populateJob));
+  }
+
+  private CrosswalkJob populateJob(Row row) {
+    final CrosswalkJob job = new CrosswalkJob();
+    job.setName(row.getString(JOB_NAME));
+    job.setUpdateItemTimestamp(row.getBoolean(JOB_UPDATEITEMTIMESTAMP));
+    job.setFrom(toDate(row.getInstant(JOB_FROM)));
+    job.setUntil(toDate(row.getInstant(JOB_UNTIL)));
+    job.setSearchMark(row.getString(JOB_SEARCHMARK));
+    job.setState(CrosswalkJob.State.valueOf(row.getString(JOB_STATE)));
+    job.setTotalCount(row.getLong(JOB_TOTAL));
+    job.setProcessedCount(row.getLong(JOB_PROCESSED));
+    job.setFailedCount(row.getLong(JOB_FAILED));
+    job.setStartTime(row.getString(JOB_STARTTIME));
+    job.setEndTime(row.getString(JOB_ENDTIME));
+    job.setHeartbeat(toDate(row.getInstant(JOB_HEARTBEAT)));
+    return job;
+  }
+
+  private static Date toDate(Instant instant) {
+    return instant != null ? Date.from(instant) : null;
+  }
+
+  private static Instant toInstant(Date date) {
+    return date != null ? date.toInstant() : null;
+  }
+
+  @Override
+  public CrosswalkJob create(CrosswalkJob job) throws IOException {
+    if (StringUtils.isBlank(job.getName())) {
+      throw new IOException("Crosswalk name cannot be empty!");
+    }
+
+    ClusterManager manager = ClusterManager.getInstance();
+    CqlSession session = manager.getCassandraSession();
+
+    BoundStatement bound = bindJob(manager.getPreparedStatement(session, CqlStatement.CROSSWALK_JOB_CREATE), job);
+    return CassandraUtils.await(session.executeAsync(bound).thenApply(result -> job));
+  }
+
+  @Override
+  public boolean createIfNotExists(CrosswalkJob job) throws IOException {
+    if (StringUtils.isBlank(job.getName())) {
+      throw new IOException("Crosswalk name cannot be empty!");
+    }
+
+    ClusterManager manager = ClusterManager.getInstance();
+    CqlSession session = manager.getCassandraSession();
+
+    BoundStatement bound = bindJob(
+        manager.getPreparedStatement(session, CqlStatement.CROSSWALK_JOB_CREATE_IF_NOT_EXISTS), job);
+    return CassandraUtils.await(session.executeAsync(bound).thenApply(result -> result.wasApplied()));
+  }
+
+  @Override
+  public boolean update(CrosswalkJob job, CrosswalkJob.State state, Date heartbeat) throws IOException {
+    if (StringUtils.isBlank(job.getName())) {
+      throw new IOException("Crosswalk name cannot be empty!");
+    }
+
+    ClusterManager manager = ClusterManager.getInstance();
+    CqlSession session = manager.getCassandraSession();
+
+    PreparedStatement prepared = manager.getPreparedStatement(session, CqlStatement.CROSSWALK_JOB_UPDATE_IF);
+    BoundStatement bound = prepared.bind(job.isUpdateItemTimestamp(), toInstant(job.getFrom()),
+        toInstant(job.getUntil()), job.getSearchMark(), job.getState().name(), job.getTotalCount(),
+        job.getProcessedCount(), job.getFailedCount(), job.getStartTime(), job.getEndTime(),
+        toInstant(job.getHeartbeat()), job.getName(), state.name(), toInstant(heartbeat));
+    return CassandraUtils.await(session.executeAsync(bound).thenApply(result -> result.wasApplied()));
+  }
+
+  private static BoundStatement bindJob(PreparedStatement prepared, CrosswalkJob job) {
+    return prepared.bind(job.getName(), job.isUpdateItemTimestamp(), toInstant(job.getFrom()),
+        toInstant(job.getUntil()), job.getSearchMark(), job.getState().name(), job.getTotalCount(),
+        job.getProcessedCount(), job.getFailedCount(), job.getStartTime(), job.getEndTime(),
+        toInstant(job.getHeartbeat()));
+  }
+
+  @Override
+  public void delete(String name) throws IOException {
+    if (StringUtils.isBlank(name)) {
+      throw new IOException("Crosswalk name must not be empty!");
+    }
+
+    ClusterManager manager = ClusterManager.getInstance();
+    CqlSession session = manager.getCassandraSession();
+
+    BoundStatement bound = manager.getPreparedStatement(session, CqlStatement.CROSSWALK_JOB_DELETE).bind(name);
+    session.execute(bound);
+  }
+}
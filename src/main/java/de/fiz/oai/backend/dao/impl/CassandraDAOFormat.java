@@ -16,10 +16,8 @@
 package de.fiz.oai.backend.dao.impl;
 
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.CompletionStage;
 
 import org.apache.commons.lang3.StringUtils;
 import org.jvnet.hk2.annotations.Service;
@@ -34,6 +32,7 @@ import com.datastax.oss.driver.api.core.session.Session;
 import de.fiz.oai.backend.dao.DAOFormat;
 import de.fiz.oai.backend.exceptions.NotFoundException;
 import de.fiz.oai.backend.models.Format;
+import de.fiz.oai.backend.utils.CassandraUtils;
 import de.fiz.oai.backend.utils.ClusterManager;
 
 @Service
@@ -46,49 +45,32 @@ public class CassandraDAOFormat implements DAOFormat {
 
   public static final String TABLENAME_FORMAT = "oai_format";
 
-  private Map<String, PreparedStatement> preparedStatements = new HashMap<String, PreparedStatement>();
-
   public Format read(String metadataPrefix) throws IOException {
+    return CassandraUtils.await(readAsync(metadataPrefix));
+  }
+
+  @Override
+  public CompletionStage<Format> readAsync(String metadataPrefix) {
     ClusterManager manager = ClusterManager.getInstance();
     CqlSession session = manager.getCassandraSession();
 
-    PreparedStatement prepared = preparedStatements.get("read");
-    if (prepared == null) {
-      final StringBuilder selectStmt = new StringBuilder();
-      selectStmt.append("SELECT * FROM ");
-      selectStmt.append(TABLENAME_FORMAT);
-      selectStmt.append(" WHERE metadataprefix=?");
-
-      prepared = session.prepare(selectStmt.toString());
-      preparedStatements.put("read", prepared);
-    }
+    PreparedStatement prepared = manager.getPreparedStatement(session, CqlStatement.FORMAT_READ);
     BoundStatement bound = prepared.bind(metadataPrefix);
 
-    ResultSet rs = session.execute(bound);
-    Row resultRow = rs.one();
-    if (resultRow != null) {
-      final Format format = populateFormat(resultRow);
-
-      return format;
-    }
-    return null;
+    return CassandraUtils.one(session.executeAsync(bound), this::populateFormat);
   }
 
   public List<Format> readAll() throws IOException {
+    return CassandraUtils.await(readAllAsync());
+  }
+
+  @Override
+  public CompletionStage<List<Format>> readAllAsync() {
     ClusterManager manager = ClusterManager.getInstance();
     CqlSession session = manager.getCassandraSession();
 
-    final List<Format> allFormats = new ArrayList<Format>();
-
-    String query = "SELECT * FROM " + TABLENAME_FORMAT;
-    ResultSet rs = session.execute(query);
-    for (final Row row : rs) {
-      final Format format = populateFormat(row);
-
-      allFormats.add(format);
-    }
-
-    return allFormats;
+    BoundStatement bound = manager.getPreparedStatement(session, CqlStatement.FORMAT_READ_ALL).bind();
+    return CassandraUtils.all(session.executeAsync(bound), this::populateFormat);
   }
 
   private Format populateFormat(Row row) {
@@ -101,36 +83,23 @@ public class CassandraDAOFormat implements DAOFormat {
   }
 
   public Format create(Format format) throws IOException {
+    return CassandraUtils.await(createAsync(format));
+  }
+
+  @Override
+  public CompletionStage<Format> createAsync(Format format) {
     ClusterManager manager = ClusterManager.getInstance();
     CqlSession session = manager.getCassandraSession();
 
     if (StringUtils.isBlank(format.getMetadataPrefix())) {
-      throw new IOException("Format's MetadataPrefix cannot be empty!");
+      return CassandraUtils.failed("Format's MetadataPrefix cannot be empty!");
     }
 
-    PreparedStatement prepared = preparedStatements.get("create");
-    if (prepared == null) {
-      StringBuilder insertStmt = new StringBuilder();
-      insertStmt.append("INSERT INTO ");
-      insertStmt.append(TABLENAME_FORMAT);
-      insertStmt.append(" (");
-      insertStmt.append(FORMAT_IDENTIFIERXPATH);
-      insertStmt.append(", ");
-      insertStmt.append(FORMAT_METADATAPREFIX);
-      insertStmt.append(", ");
-      insertStmt.append(FORMAT_SCHEMALOCATION);
-      insertStmt.append(", ");
-      insertStmt.append(FORMAT_SCHEMANAMESPACE);
-      insertStmt.append(") VALUES (?, ?, ?, ?)");
-
-      prepared = session.prepare(insertStmt.toString());
-      preparedStatements.put("create", prepared);
-    }
+    PreparedStatement prepared = manager.getPreparedStatement(session, CqlStatement.FORMAT_CREATE);
     BoundStatement bound = prepared.bind(format.getIdentifierXpath(), format.getMetadataPrefix(),
         format.getSchemaLocation(), format.getSchemaNamespace());
-    session.execute(bound);
 
-    return format;
+    return session.executeAsync(bound).thenApply(result -> format);
   }
 
   public void delete(String metadataPrefix) throws IOException {
@@ -142,18 +111,7 @@ public class CassandraDAOFormat implements DAOFormat {
     ClusterManager manager = ClusterManager.getInstance();
     CqlSession session = manager.getCassandraSession();
 
-    PreparedStatement prepared = preparedStatements.get("delete");
-    if (prepared == null) {
-      StringBuilder deleteStmt = new StringBuilder();
-      deleteStmt.append("DELETE FROM ");
-      deleteStmt.append(TABLENAME_FORMAT);
-      deleteStmt.append(" WHERE ");
-      deleteStmt.append(FORMAT_METADATAPREFIX);
-      deleteStmt.append("=?");
-
-      prepared = session.prepare(deleteStmt.toString());
-      preparedStatements.put("delete", prepared);
-    }
+    PreparedStatement prepared = manager.getPreparedStatement(session, CqlStatement.FORMAT_DELETE);
     BoundStatement bound = prepared.bind(metadataPrefix);
     ResultSet result = session.execute(bound);
 
@@ -0,0 +1,223 @@
+/*
+ * Copyright 2019 FIZ Karlsruhe - Leibniz-Institut fuer Informationsinfrastruktur GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.fiz.oai.backend.dao.impl;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang3.StringUtils;
+import org.jvnet.hk2.annotations.Service;
+
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.cql.BoundStatement;
+import com.datastax.oss.driver.api.core.cql.Row;
+
+import de.fiz.oai.backend.dao.DAOIndexQueue;
+import de.fiz.oai.backend.models.index.IndexQueueEntry;
+import de.fiz.oai.backend.utils.CassandraUtils;
+import de.fiz.oai.backend.utils.ClusterManager;
+import de.fiz.oai.backend.utils.Configuration;
+
+/**
+ * The queue is spread over a fixed number of partitions by the hash of the identifier,
+ * so no partition grows with the backlog. A queued identifier is a single row, queuing it
+ * again overwrites the row.
+ */
+@Service
+public class CassandraDAOIndexQueue implements DAOIndexQueue {
+
+  public static final String INDEX_QUEUE_SHARD = "shard";
+  public static final String INDEX_QUEUE_IDENTIFIER = "identifier";
+  public static final String INDEX_QUEUE_QUEUED = "queued";
+  public static final String INDEX_QUEUE_ATTEMPTS = "attempts";
+  public static final String INDEX_QUEUE_NEXT_ATTEMPT = "nextAttempt";
+
+  public static final String DEAD_LETTER_IDENTIFIER = "identifier";
+  public static final String DEAD_LETTER_ATTEMPTS = "attempts";
+  public static final String DEAD_LETTER_FAILED = "failed";
+  public static final String DEAD_LETTER_ERROR = "error";
+
+  public static final String LEASE_SHARD = "shard";
+  public static final String LEASE_OWNER = "owner";
+
+  public static final String INDEXER_NODE = "node";
+
+  public static final String TABLENAME_INDEX_QUEUE = "oai_index_queue";
+  public static final String TABLENAME_INDEX_DEAD_LETTER = "oai_index_dead_letter";
+  public static final String TABLENAME_INDEX_LEASE = "oai_index_lease";
+  public static final String TABLENAME_INDEXER = "oai_indexer";
+
+  private final int shards = Integer
+      .parseInt(Configuration.getInstance().getProperty("index.queue.shards", "16"));
+
+  @Override
+  public int getShards() {
+    return shards;
+  }
+
+  @Override
+  public void add(List<String> identifiers) throws IOException {
+    ClusterManager manager = ClusterManager.getInstance();
+    CqlSession session = manager.getCassandraSession();
+
+    long queued = System.currentTimeMillis();
+    CassandraUtils.readWindowed(identifiers, identifier -> {
+      if (StringUtils.isBlank(identifier)) {
+        return CassandraUtils.failed("Item identifier cannot be empty!");
+      }
+      BoundStatement bound = manager.getPreparedStatement(session, CqlStatement.INDEX_QUEUE_ADD)
+          .bind(shardOf(identifier), identifier, queued);
+      return session.executeAsync(bound).thenApply(result -> (Void) null);
+    });
+  }
+
+  private int shardOf(String identifier) {
+    return Math.floorMod(identifier.hashCode(), shards);
+  }
+
+  @Override
+  public List<IndexQueueEntry> read(int shard, String after, int limit) throws IOException {
+    ClusterManager manager = ClusterManager.getInstance();
+    CqlSession session = manager.getCassandraSession();
+
+    BoundStatement bound = after == null
+        ? manager.getPreparedStatement(session, CqlStatement.INDEX_QUEUE_READ).bind(shard, limit)
+        : manager.getPreparedStatement(session, CqlStatement.INDEX_QUEUE_READ_AFTER).bind(shard, after, limit);
+    return CassandraUtils.await(CassandraUtils.all(session.executeAsync(bound), this::populateEntry));
+  }
+
+  private IndexQueueEntry populateEntry(Row row) {
+    // Entries queued before attempts were counted have neither, which reads as 0
+    return new IndexQueueEntry(row.getInt(INDEX_QUEUE_SHARD), row.getString(INDEX_QUEUE_IDENTIFIER),
+        row.getLong(INDEX_QUEUE_QUEUED), row.getLong(3), row.getInt(INDEX_QUEUE_ATTEMPTS),
+        row.getLong(INDEX_QUEUE_NEXT_ATTEMPT));
+  }
+
+  @Override
+  public void remove(List<IndexQueueEntry> entries) throws IOException {
+    ClusterManager manager = ClusterManager.getInstance();
+    CqlSession session = manager.getCassandraSession();
+
+    // The delete carries the write time of the entry read, a newer write of the same
+    // identifier wins over it and stays queued
+    CassandraUtils.readWindowed(entries, entry -> {
+      BoundStatement bound = manager.getPreparedStatement(session, CqlStatement.INDEX_QUEUE_REMOVE)
+          .bind(entry.getWriteTime(), entry.getShard(), entry.getIdentifier());
+      return session.executeAsync(bound).thenApply(result -> (Void) null);
+    });
+  }
+
+  @Override
+  public void retry(List<IndexQueueEntry> entries) throws IOException {
+    ClusterManager manager = ClusterManager.getInstance();
+    CqlSession session = manager.getCassandraSession();
+
+    // Written with the write time of the entry read: a newer write of the identifier starts
+    // over with no attempts, a removal of the entry read wins. On the equal timestamp the
+    // greater value wins, attempts and next attempt only grow.
+    CassandraUtils.readWindowed(entries, entry -> {
+      BoundStatement bound = manager.getPreparedStatement(session, CqlStatement.INDEX_QUEUE_RETRY).bind(
+          entry.getWriteTime(), entry.getAttempts(), entry.getNextAttempt(), entry.getShard(), entry.getIdentifier());
+      return session.executeAsync(bound).thenApply(result -> (Void) null);
+    });
+  }
+
+  @Override
+  public void deadLetter(IndexQueueEntry entry, String error) throws IOException {
+    ClusterManager manager = ClusterManager.getInstance();
+    CqlSession session = manager.getCassandraSession();
+
+    BoundStatement bound = manager.getPreparedStatement(session, CqlStatement.INDEX_DEAD_LETTER_ADD)
+        .bind(entry.getIdentifier(), entry.getAttempts(), System.currentTimeMillis(), error);
+    CassandraUtils.await(session.executeAsync(bound));
+    remove(Collections.singletonList(entry));
+  }
+
+  @Override
+  public void registerIndexer(String node, long ttlMillis) throws IOException {
+    ClusterManager manager = ClusterManager.getInstance();
+    CqlSession session = manager.getCassandraSession();
+
+    BoundStatement bound = manager.getPreparedStatement(session, CqlStatement.INDEXER_REGISTER)
+        .bind(node, ttlSeconds(ttlMillis));
+    CassandraUtils.await(session.executeAsync(bound));
+  }
+
+  @Override
+  public void unregisterIndexer(String node) throws IOException {
+    ClusterManager manager = ClusterManager.getInstance();
+    CqlSession session = manager.getCassandraSession();
+
+    BoundStatement bound = manager.getPreparedStatement(session, CqlStatement.INDEXER_UNREGISTER).bind(node);
+    CassandraUtils.await(session.executeAsync(bound));
+  }
+
+  @Override
+  public List<String> readIndexers() throws IOException {
+    ClusterManager manager = ClusterManager.getInstance();
+    CqlSession session = manager.getCassandraSession();
+
+    BoundStatement bound = manager.getPreparedStatement(session, CqlStatement.INDEXER_READ_ALL).bind();
+    return CassandraUtils.await(CassandraUtils.all(session.executeAsync(bound), row -> row.getString(INDEXER_NODE)));
+  }
+
+  @Override
+  public Map<Integer, String> readLeases() throws IOException {
+    ClusterManager manager = ClusterManager.getInstance();
+    CqlSession session = manager.getCassandraSession();
+
+    BoundStatement bound = manager.getPreparedStatement(session, CqlStatement.INDEX_LEASE_READ_ALL).bind();
+    Map<Integer, String> leases = new HashMap<>();
+    for (Row row : CassandraUtils.await(CassandraUtils.all(session.executeAsync(bound), row -> row))) {
+      leases.put(row.getInt(LEASE_SHARD), row.getString(LEASE_OWNER));
+    }
+    return leases;
+  }
+
+  @Override
+  public boolean lease(int shard, String node, long ttlMillis) throws IOException {
+    ClusterManager manager = ClusterManager.getInstance();
+    CqlSession session = manager.getCassandraSession();
+
+    // Renew the own lease, else take the partition if no node holds it. An expired lease
+    // is gone with its TTL.
+    int ttl = ttlSeconds(ttlMillis);
+    BoundStatement renew = manager.getPreparedStatement(session, CqlStatement.INDEX_LEASE_RENEW)
+        .bind(ttl, node, shard, node);
+    if (CassandraUtils.await(session.executeAsync(renew).thenApply(result -> result.wasApplied()))) {
+      return true;
+    }
+    BoundStatement take = manager.getPreparedStatement(session, CqlStatement.INDEX_LEASE_TAKE)
+        .bind(shard, node, ttl);
+    return CassandraUtils.await(session.executeAsync(take).thenApply(result -> result.wasApplied()));
+  }
+
+  @Override
+  public void release(int shard, String node) throws IOException {
+    ClusterManager manager = ClusterManager.getInstance();
+    CqlSession session = manager.getCassandraSession();
+
+    BoundStatement bound = manager.getPreparedStatement(session, CqlStatement.INDEX_LEASE_RELEASE).bind(shard, node);
+    CassandraUtils.await(session.executeAsync(bound));
+  }
+
+  private static int ttlSeconds(long ttlMillis) {
+    return (int) Math.max(1, (ttlMillis + 999) / 1000);
+  }
+}
@@ -16,10 +16,12 @@
 package de.fiz.oai.backend.dao.impl;
 
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.time.Instant;
+import java.util.Date;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
 
 import org.apache.commons.lang3.StringUtils;
 import org.jvnet.hk2.annotations.Service;
@@ -29,57 +31,76 @@ import com.datastax.oss.driver.api.core.cql.BoundStatement;
 import com.datastax.oss.driver.api.core.cql.PreparedStatement;
 import com.datastax.oss.driver.api.core.cql.ResultSet;
 import com.datastax.oss.driver.api.core.cql.Row;
-import com.datastax.oss.driver.api.core.cql.SimpleStatement;
 
 import de.fiz.oai.backend.dao.DAOItem;
+import de.fiz.oai.backend.dao.ItemScan;
 import de.fiz.oai.backend.exceptions.NotFoundException;
 import de.fiz.oai.backend.models.Item;
+import de.fiz.oai.backend.models.scan.ScanCheckpoint;
+import de.fiz.oai.backend.utils.CassandraUtils;
 import de.fiz.oai.backend.utils.ClusterManager;
+import de.fiz.oai.backend.utils.Configuration;
 
 @Service
 public class CassandraDAOItem implements DAOItem {
 
   public static final String ITEM_IDENTIFIER = "identifier";
   public static final String ITEM_DATESTAMP = "datestamp";
+  public static final String ITEM_DATESTAMP_MILLIS = "datestampMillis";
   public static final String ITEM_DELETEFLAG = "deleteflag";
   public static final String ITEM_INGESTFORMAT = "ingestFormat";
   public static final String ITEM_TAGS = "tags";
 
   public static final String TABLENAME_ITEM = "oai_item";
 
-  private Map<String, PreparedStatement> preparedStatements = new HashMap<String, PreparedStatement>();
+  public static final String ITEM_COUNT_NAME = "name";
+  public static final String ITEM_COUNT_ITEMS = "items";
+
+  public static final String TABLENAME_ITEM_COUNT = "oai_item_count";
+
+  public static final String ITEM_COUNT_SEED_NAME = "name";
+  public static final String ITEM_COUNT_SEED_SEEDED = "seeded";
+  public static final String ITEM_COUNT_SEED_STATE = "state";
+  public static final String ITEM_COUNT_SEED_HEARTBEAT = "heartbeat";
+
+  // States of the count seed claim, a claim without a state was completed by an earlier version
+  private static final String COUNT_SEED_CLAIMED = "claimed";
+  private static final String COUNT_SEED_DONE = "done";
+
+  public static final String TABLENAME_ITEM_COUNT_SEED = "oai_item_count_seed";
+
+  // Token ranges of a full scan, more ranges than readers keep all readers busy to the end
+  private int scanSplits = Integer.parseInt(Configuration.getInstance().getProperty("cassandra.scan.splits", "256"));
+
+  private int scanConcurrency = Integer.parseInt(Configuration.getInstance().getProperty("cassandra.scan.concurrency", "8"));
+
+  private int scanPageSize = Integer.parseInt(Configuration.getInstance().getProperty("cassandra.scan.page.size", "1000"));
 
   public Item read(String identifier) throws IOException {
+    return CassandraUtils.await(readAsync(identifier));
+  }
+
+  @Override
+  public CompletionStage<Item> readAsync(String identifier) {
     ClusterManager manager = ClusterManager.getInstance();
     CqlSession session = manager.getCassandraSession();
 
-    PreparedStatement prepared = preparedStatements.get("read");
-    if (prepared == null) {
-      final StringBuilder selectStmt = new StringBuilder();
-      selectStmt.append("SELECT * FROM ");
-      selectStmt.append(TABLENAME_ITEM);
-      selectStmt.append(" WHERE identifier=?");
-
-      prepared = session.prepare(selectStmt.toString());
-      preparedStatements.put("read", prepared);
-    }
+    BoundStatement bound = manager.getPreparedStatement(session, CqlStatement.ITEM_READ).bind(identifier);
 
-    BoundStatement bound = prepared.bind(identifier);
-
-    ResultSet rs = session.execute(bound);
-    Row resultRow = rs.one();
-    if (resultRow != null) {
-      final Item item = populateItem(resultRow);
+    return CassandraUtils.one(session.executeAsync(bound), this::populateItem);
+  }
 
-      return item;
-    }
-    return null;
+  @Override
+  public List<Item> read(List<String> identifiers) throws IOException {
+    return CassandraUtils.readWindowed(identifiers, this::readAsync);
   }
 
   private Item populateItem(Row resultRow) {
     final Item item = new Item();
     item.setIdentifier(resultRow.getString(ITEM_IDENTIFIER));
-    item.setDatestamp(resultRow.getString(ITEM_DATESTAMP));
+    // Rows written before the millis column existed have the text only
+    item.setDatestamp(resultRow.getString(ITEM_DATESTAMP),
+        resultRow.isNull(ITEM_DATESTAMP_MILLIS) ? null : resultRow.getLong(ITEM_DATESTAMP_MILLIS));
     item.setDeleteFlag(resultRow.getBoolean(ITEM_DELETEFLAG));
     item.setIngestFormat(resultRow.getString(ITEM_INGESTFORMAT));
     item.setTags(resultRow.getList(ITEM_TAGS, String.class));
@@ -88,47 +109,33 @@ public class CassandraDAOItem implements DAOItem {
   }
 
   public Item create(Item item) throws IOException {
+    return CassandraUtils.await(createAsync(item));
+  }
+
+  @Override
+  public CompletionStage<Item> createAsync(Item item) {
     ClusterManager manager = ClusterManager.getInstance();
     CqlSession session = manager.getCassandraSession();
 
     if (StringUtils.isBlank(item.getIdentifier())) {
-      throw new IllegalArgumentException("Item's identifier cannot be empty!");
+      return CompletableFuture.failedFuture(new IllegalArgumentException("Item's identifier cannot be empty!"));
     }
 
     if (item.isDeleteFlag() == null) {
       item.setDeleteFlag(false);
     }
 
-    PreparedStatement prepared = preparedStatements.get("create");
-    if (prepared == null) {
-      StringBuilder insertStmt = new StringBuilder();
-      insertStmt.append("INSERT INTO ");
-      insertStmt.append(TABLENAME_ITEM);
-      insertStmt.append(" (");
-      insertStmt.append(ITEM_IDENTIFIER);
-      insertStmt.append(", ");
-      insertStmt.append(ITEM_DATESTAMP);
-      insertStmt.append(", ");
-      insertStmt.append(ITEM_DELETEFLAG);
-      insertStmt.append(", ");
-      insertStmt.append(ITEM_TAGS);
-      insertStmt.append(", ");
-      insertStmt.append(ITEM_INGESTFORMAT);
-      insertStmt.append(") VALUES (?, ?, ?, ?, ?)");
-
-      prepared = session.prepare(insertStmt.toString());
-      preparedStatements.put("create", prepared);
-    }
+    PreparedStatement prepared = manager.getPreparedStatement(session, CqlStatement.ITEM_CREATE);
 
-    BoundStatement bound = prepared.bind(item.getIdentifier(), item.getDatestamp(), item.isDeleteFlag(), item.getTags(),
-        item.getIngestFormat());
-    ResultSet result = session.execute(bound);
+    BoundStatement bound = prepared.bind(item.getIdentifier(), item.getDatestamp(), item.getDatestampMillis(),
+        item.isDeleteFlag(), item.getTags(), item.getIngestFormat());
 
-    if (!result.wasApplied()) {
-      throw new NotFoundException("The creation was not applied for the given item.");
-    }
-
-    return item;
+    return session.executeAsync(bound).thenApply(result -> {
+      if (!result.wasApplied()) {
+        throw new CompletionException(new NotFoundException("The creation was not applied for the given item."));
+      }
+      return item;
+    });
   }
 
   public void delete(String identifier) throws IOException {
@@ -140,20 +147,7 @@ public class CassandraDAOItem implements DAOItem {
     ClusterManager manager = ClusterManager.getInstance();
     CqlSession session = manager.getCassandraSession();
 
-    PreparedStatement prepared = preparedStatements.get("delete");
-    if (prepared == null) {
-      StringBuilder updateStmt = new StringBuilder();
-      updateStmt.append("UPDATE ");
-      updateStmt.append(TABLENAME_ITEM);
-      updateStmt.append(" SET ");
-      updateStmt.append(ITEM_DELETEFLAG);
-      updateStmt.append("=? WHERE ");
-      updateStmt.append(ITEM_IDENTIFIER);
-      updateStmt.append("=?");
-
-      prepared = session.prepare(updateStmt.toString());
-      preparedStatements.put("delete", prepared);
-    }
+    PreparedStatement prepared = manager.getPreparedStatement(session, CqlStatement.ITEM_DELETE);
 
     BoundStatement bound = prepared.bind(true, identifier);
     ResultSet result = session.execute(bound);
@@ -163,54 +157,91 @@ public class CassandraDAOItem implements DAOItem {
     }
   }
 
-  public long getCount() throws IOException {
+  @Override
+  public long getCountEstimate() throws IOException {
     ClusterManager manager = ClusterManager.getInstance();
     CqlSession session = manager.getCassandraSession();
 
-    StringBuilder selectStmt = new StringBuilder();
-    selectStmt.append("SELECT ");
-    selectStmt.append(ITEM_IDENTIFIER);
-    selectStmt.append(" FROM ");
-    selectStmt.append(TABLENAME_ITEM);
-    
-    SimpleStatement statement = SimpleStatement.newInstance(selectStmt.toString());
-    ResultSet prepareResult = session.execute(statement);
-    long i = 0;
-    
-    //TODO this is the slow asynchronous approach. Replace it with the async one, see https://docs.datastax.com/en/developer/java-driver/4.4/manual/core/paging/#asynchronous-paging
-    for (Row row : prepareResult) {
-      i++;
-    }
- 
-    return i;
+    BoundStatement bound = manager.getPreparedStatement(session, CqlStatement.ITEM_COUNTER_READ).bind(TABLENAME_ITEM);
+
+    Long count = CassandraUtils.await(CassandraUtils.one(session.executeAsync(bound), row -> row.getLong(0)));
+    return count != null ? count : 0;
   }
 
-  public ResultSet getAllItemsResultSet() throws IOException {
+  @Override
+  public CompletionStage<Void> incrementCountAsync(long delta) {
     ClusterManager manager = ClusterManager.getInstance();
     CqlSession session = manager.getCassandraSession();
 
-    StringBuilder selectStmt = new StringBuilder();
-    selectStmt.append("SELECT ");
-    selectStmt.append("*");
-    selectStmt.append(" FROM ");
-    selectStmt.append(TABLENAME_ITEM);
+    BoundStatement bound = manager.getPreparedStatement(session, CqlStatement.ITEM_COUNTER_ADD).bind(delta,
+        TABLENAME_ITEM);
 
-    return session.execute(selectStmt.toString());
+    return session.executeAsync(bound).thenApply(result -> null);
   }
 
-  public List<Item> getItemsFromResultSet(ResultSet resultSet, int itemsToRetrieve) throws IOException {
+  @Override
+  public boolean claimCountSeed(Date heartbeat, long timeoutMillis) throws IOException {
+    ClusterManager manager = ClusterManager.getInstance();
+    CqlSession session = manager.getCassandraSession();
 
-    List<Item> itemsRetrieved = new ArrayList<Item>();
-    int i = 0;
+    BoundStatement bound = manager.getPreparedStatement(session, CqlStatement.ITEM_COUNT_SEED_CLAIM)
+        .bind(TABLENAME_ITEM, COUNT_SEED_CLAIMED, heartbeat.toInstant());
+    if (CassandraUtils.await(session.executeAsync(bound)).wasApplied()) {
+      return true;
+    }
 
-    //TODO this is the slow asynchronous approach. Replace it with the async one, see https://docs.datastax.com/en/developer/java-driver/4.4/manual/core/paging/#asynchronous-paging
-    for (Row row : resultSet) {
-      itemsRetrieved.add(populateItem(row));
-      i++;
+    BoundStatement read = manager.getPreparedStatement(session, CqlStatement.ITEM_COUNT_SEED_READ)
+        .bind(TABLENAME_ITEM);
+    Row row = CassandraUtils.await(session.executeAsync(read)).one();
+    if (row == null || !COUNT_SEED_CLAIMED.equals(row.getString(ITEM_COUNT_SEED_STATE))) {
+      return false;
     }
-    
+    Instant current = row.getInstant(ITEM_COUNT_SEED_HEARTBEAT);
+    if (current != null && current.plusMillis(timeoutMillis).isAfter(heartbeat.toInstant())) {
+      return false;
+    }
+    return updateCountSeed(current, heartbeat.toInstant(), COUNT_SEED_CLAIMED);
+  }
+
+  @Override
+  public boolean updateCountSeed(Date heartbeat, Date renewed, boolean done) throws IOException {
+    return updateCountSeed(heartbeat.toInstant(), renewed.toInstant(), done ? COUNT_SEED_DONE : COUNT_SEED_CLAIMED);
+  }
+
+  private boolean updateCountSeed(Instant heartbeat, Instant renewed, String state) throws IOException {
+    ClusterManager manager = ClusterManager.getInstance();
+    CqlSession session = manager.getCassandraSession();
+
+    Instant seeded = COUNT_SEED_DONE.equals(state) ? Instant.now() : null;
+    BoundStatement bound = manager.getPreparedStatement(session, CqlStatement.ITEM_COUNT_SEED_UPDATE_IF)
+        .bind(state, renewed, seeded, TABLENAME_ITEM, COUNT_SEED_CLAIMED, heartbeat);
+    return CassandraUtils.await(session.executeAsync(bound)).wasApplied();
+  }
+
+  @Override
+  public long getCount() throws IOException {
+    long count = 0;
+    for (Long rangeCount : CassandraUtils.readWindowed(ScanCheckpoint.fullRing(scanSplits).getRanges(),
+        scanConcurrency, this::countAsync)) {
+      count += rangeCount;
+    }
+    return count;
+  }
+
+  private CompletionStage<Long> countAsync(ScanCheckpoint.Range range) {
+    ClusterManager manager = ClusterManager.getInstance();
+    CqlSession session = manager.getCassandraSession();
+
+    BoundStatement bound = manager.getPreparedStatement(session, CqlStatement.ITEM_COUNT).bind(range.getFrom(),
+        range.getTo());
+
+    return CassandraUtils.one(session.executeAsync(bound), row -> row.getLong(0));
+  }
 
-    return itemsRetrieved;
+  @Override
+  public ItemScan scan(ScanCheckpoint checkpoint) throws IOException {
+    return new CassandraItemScan(checkpoint != null ? checkpoint : ScanCheckpoint.fullRing(scanSplits),
+        scanConcurrency, scanPageSize, this::populateItem);
   }
 
 }
@@ -16,10 +16,8 @@
 package de.fiz.oai.backend.dao.impl;
 
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.CompletionStage;
 
 import org.apache.commons.lang3.StringUtils;
 import org.jvnet.hk2.annotations.Service;
@@ -34,6 +32,7 @@ import com.datastax.oss.driver.api.core.session.Session;
 import de.fiz.oai.backend.dao.DAOSet;
 import de.fiz.oai.backend.exceptions.NotFoundException;
 import de.fiz.oai.backend.models.Set;
+import de.fiz.oai.backend.utils.CassandraUtils;
 import de.fiz.oai.backend.utils.ClusterManager;
 
 @Service
@@ -47,32 +46,19 @@ public class CassandraDAOSet implements DAOSet {
 
   public static final String TABLENAME_SET = "oai_set";
 
-  private Map<String, PreparedStatement> preparedStatements = new HashMap<String, PreparedStatement>();
-
   public Set read(String name) throws IOException {
+    return CassandraUtils.await(readAsync(name));
+  }
+
+  @Override
+  public CompletionStage<Set> readAsync(String name) {
     ClusterManager manager = ClusterManager.getInstance();
     CqlSession session = manager.getCassandraSession();
 
-    PreparedStatement prepared = preparedStatements.get("read");
-    if (prepared == null) {
-      final StringBuilder selectStmt = new StringBuilder();
-      selectStmt.append("SELECT * FROM ");
-      selectStmt.append(TABLENAME_SET);
-      selectStmt.append(" WHERE name=?");
-
-      prepared = session.prepare(selectStmt.toString());
-      preparedStatements.put("read", prepared);
-    }
+    PreparedStatement prepared = manager.getPreparedStatement(session, CqlStatement.SET_READ);
     BoundStatement bound = prepared.bind(name);
 
-    ResultSet rs = session.execute(bound);
-    Row resultRow = rs.one();
-    if (resultRow != null) {
-      final Set set = populateSet(resultRow);
-
-      return set;
-    }
-    return null;
+    return CassandraUtils.one(session.executeAsync(bound), this::populateSet);
   }
 
   private Set populateSet(Row resultRow) {
@@ -86,54 +72,35 @@ public class CassandraDAOSet implements DAOSet {
   }
 
   public List<Set> readAll() throws IOException {
+    return CassandraUtils.await(readAllAsync());
+  }
+
+  @Override
+  public CompletionStage<List<Set>> readAllAsync() {
     ClusterManager manager = ClusterManager.getInstance();
     CqlSession session = manager.getCassandraSession();
 
-    final List<Set> allSets = new ArrayList<Set>();
-
-    String query = "SELECT * FROM " + TABLENAME_SET;
-    ResultSet rs = session.execute(query);
-    for (final Row row : rs) {
-      final Set set = populateSet(row);
-
-      allSets.add(set);
-    }
-
-    return allSets;
+    BoundStatement bound = manager.getPreparedStatement(session, CqlStatement.SET_READ_ALL).bind();
+    return CassandraUtils.all(session.executeAsync(bound), this::populateSet);
   }
 
   public Set create(Set set) throws IOException {
+    return CassandraUtils.await(createAsync(set));
+  }
+
+  @Override
+  public CompletionStage<Set> createAsync(Set set) {
     ClusterManager manager = ClusterManager.getInstance();
     CqlSession session = manager.getCassandraSession();
 
     if (StringUtils.isBlank(set.getName())) {
-      throw new IOException("Set's name cannot be empty!");
+      return CassandraUtils.failed("Set's name cannot be empty!");
     }
 
-    PreparedStatement prepared = preparedStatements.get("create");
-    if (prepared == null) {
-      StringBuilder insertStmt = new StringBuilder();
-      insertStmt.append("INSERT INTO ");
-      insertStmt.append(TABLENAME_SET);
-      insertStmt.append(" (");
-      insertStmt.append(SET_NAME);
-      insertStmt.append(", ");
-      insertStmt.append(SET_SPEC);
-      insertStmt.append(", ");
-      insertStmt.append(SET_DESCRIPTION);
-      insertStmt.append(", ");
-      insertStmt.append(SET_XPATHS);
-      insertStmt.append(", ");
-      insertStmt.append(SET_TAGS);
-      insertStmt.append(") VALUES (?, ?, ?, ?, ?)");
-
-      prepared = session.prepare(insertStmt.toString());
-      preparedStatements.put("create", prepared);
-    }
+    PreparedStatement prepared = manager.getPreparedStatement(session, CqlStatement.SET_CREATE);
     BoundStatement bound = prepared.bind(set.getName(), set.getSpec(), set.getDescription(), set.getxPaths(),set.getTags());
-    session.execute(bound);
 
-    return set;
+    return session.executeAsync(bound).thenApply(result -> set);
   }
 
   public void delete(String name) throws IOException {
@@ -145,18 +112,7 @@ public class CassandraDAOSet implements DAOSet {
     ClusterManager manager = ClusterManager.getInstance();
     CqlSession session = manager.getCassandraSession();
 
-    PreparedStatement prepared = preparedStatements.get("delete");
-    if (prepared == null) {
-      StringBuilder deleteStmt = new StringBuilder();
-      deleteStmt.append("DELETE FROM ");
-      deleteStmt.append(TABLENAME_SET);
-      deleteStmt.append(" WHERE ");
-      deleteStmt.append(SET_NAME);
-      deleteStmt.append("=?");
-
-      prepared = session.prepare(deleteStmt.toString());
-      preparedStatements.put("delete", prepared);
-    }
+    PreparedStatement prepared = manager.getPreparedStatement(session, CqlStatement.SET_DELETE);
     BoundStatement bound = prepared.bind(name);
     ResultSet result = session.execute(bound);
 
@@ -0,0 +1,268 @@
+/*
+ * Copyright 2019 FIZ Karlsruhe - Leibniz-Institut fuer Informationsinfrastruktur GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.fiz.oai.backend.dao.impl;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.cql.AsyncResultSet;
+import com.datastax.oss.driver.api.core.cql.BoundStatement;
+import com.datastax.oss.driver.api.core.cql.Row;
+
+import de.fiz.oai.backend.dao.ItemScan;
+import de.fiz.oai.backend.models.Item;
+import de.fiz.oai.backend.models.scan.ScanCheckpoint;
+import de.fiz.oai.backend.models.scan.ScanCheckpoint.Range;
+import de.fiz.oai.backend.utils.CassandraUtils;
+import de.fiz.oai.backend.utils.ClusterManager;
+
+/**
+ * Scans oai_item by token ranges. A fixed number of reader threads take the ranges one
+ * after the other and page through them, fetching the next page while the current one
+ * waits in a bounded queue, so the readers stay at most a few pages ahead of the consumer.
+ */
+final class CassandraItemScan implements ItemScan {
+
+  private static Logger LOGGER = LoggerFactory.getLogger(CassandraItemScan.class);
+
+  private static final AtomicInteger SCAN_NUMBER = new AtomicInteger();
+
+  private static final Page END = new Page(-1, Collections.emptyList(), new long[0], true);
+
+  private final List<Range> ranges;
+
+  private final int pageSize;
+
+  private final Function<Row, Item> mapper;
+
+  private final BlockingQueue<Page> pages;
+
+  private final ExecutorService readers;
+
+  private final AtomicInteger nextRange = new AtomicInteger();
+
+  private final AtomicInteger runningReaders;
+
+  private volatile boolean closed;
+
+  // Consumer side: the last token returned per range and the ranges returned completely
+  private final long[] positions;
+
+  private final boolean[] finished;
+
+  private Page current;
+
+  private int currentIndex;
+
+  private boolean exhausted;
+
+  CassandraItemScan(ScanCheckpoint checkpoint, int concurrency, int pageSize, Function<Row, Item> mapper) {
+    this.ranges = checkpoint.getRanges();
+    this.pageSize = pageSize;
+    this.mapper = mapper;
+    this.positions = new long[ranges.size()];
+    this.finished = new boolean[ranges.size()];
+    for (int i = 0; i < ranges.size(); i++) {
+      positions[i] = ranges.get(i).getFrom();
+    }
+
+    int readerCount = Math.max(1, Math.min(concurrency, ranges.size()));
+    this.pages = new ArrayBlockingQueue<>(readerCount * 2);
+    this.runningReaders = new AtomicInteger(readerCount);
+
+    String threadName = "item-scan-" + SCAN_NUMBER.incrementAndGet() + "-";
+    AtomicInteger threadNumber = new AtomicInteger();
+    this.readers = Executors.newFixedThreadPool(readerCount, runnable -> {
+      Thread thread = new Thread(runnable, threadName + threadNumber.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+    LOGGER.info("Scanning {} token ranges with {} readers", ranges.size(), readerCount);
+    for (int i = 0; i < readerCount; i++) {
+      readers.execute(this::read);
+    }
+  }
+
+  private void read() {
+    try {
+      int range;
+      while (!closed && (range = nextRange.getAndIncrement()) < ranges.size()) {
+        readRange(range);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (IOException | RuntimeException e) {
+      if (!closed) {
+        LOGGER.error("Scan of oai_item failed", e);
+        enqueue(new Page(e));
+      }
+    } finally {
+      if (runningReaders.decrementAndGet() == 0) {
+        enqueue(END);
+      }
+    }
+  }
+
+  private void readRange(int range) throws IOException, InterruptedException {
+    ClusterManager manager = ClusterManager.getInstance();
+    CqlSession session = manager.getCassandraSession();
+
+    Range tokens = ranges.get(range);
+    BoundStatement bound = manager.getPreparedStatement(session, CqlStatement.ITEM_SCAN)
+        .bind(tokens.getFrom(), tokens.getTo()).setPageSize(pageSize);
+
+    AsyncResultSet resultSet = CassandraUtils.await(session.executeAsync(bound));
+    while (true) {
+      // Fetch the next page while this one waits for the consumer
+      CompletionStage<AsyncResultSet> nextPage = resultSet.hasMorePages() ? resultSet.fetchNextPage() : null;
+
+      List<Item> items = new ArrayList<>(resultSet.remaining());
+      long[] itemTokens = new long[resultSet.remaining()];
+      for (Row row : resultSet.currentPage()) {
+        itemTokens[items.size()] = row.getLong(0);
+        items.add(mapper.apply(row));
+      }
+      pages.put(new Page(range, items, itemTokens, nextPage == null));
+
+      if (nextPage == null || closed) {
+        return;
+      }
+      resultSet = CassandraUtils.await(nextPage);
+    }
+  }
+
+  private void enqueue(Page page) {
+    try {
+      pages.put(page);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @Override
+  public synchronized boolean hasNext() {
+    if (closed) {
+      return false;
+    }
+    while (!exhausted && (current == null || currentIndex >= current.items.size())) {
+      if (current != null && current.last) {
+        finished[current.range] = true;
+      }
+      current = null;
+
+      Page page;
+      try {
+        page = pages.take();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new UncheckedIOException(new InterruptedIOException("Interrupted while waiting for the scan"));
+      }
+      if (page == END) {
+        exhausted = true;
+      } else if (page.failure != null) {
+        close();
+        throw new UncheckedIOException(page.failure instanceof IOException ? (IOException) page.failure
+            : new IOException(page.failure));
+      } else {
+        current = page;
+        currentIndex = 0;
+      }
+    }
+    return !exhausted;
+  }
+
+  @Override
+  public synchronized Item next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    positions[current.range] = current.tokens[currentIndex];
+    return current.items.get(currentIndex++);
+  }
+
+  @Override
+  public synchronized ScanCheckpoint checkpoint() {
+    List<Range> remaining = new ArrayList<>();
+    for (int i = 0; i < ranges.size(); i++) {
+      boolean done = finished[i] || (current != null && current.range == i && current.last
+          && currentIndex >= current.items.size());
+      if (!done && positions[i] < ranges.get(i).getTo()) {
+        remaining.add(new Range(positions[i], ranges.get(i).getTo()));
+      }
+    }
+    return new ScanCheckpoint(remaining);
+  }
+
+  @Override
+  public void close() {
+    if (!closed) {
+      closed = true;
+      readers.shutdownNow();
+      // Wake up a consumer waiting for the next page
+      pages.clear();
+      pages.offer(END);
+    }
+  }
+
+  /**
+   * One page of one token range, or the failure of a reader.
+   */
+  private static final class Page {
+
+    final int range;
+
+    final List<Item> items;
+
+    final long[] tokens;
+
+    final boolean last;
+
+    final Exception failure;
+
+    Page(int range, List<Item> items, long[] tokens, boolean last) {
+      this.range = range;
+      this.items = items;
+      this.tokens = tokens;
+      this.last = last;
+      this.failure = null;
+    }
+
+    Page(Exception failure) {
+      this.range = -1;
+      this.items = Collections.emptyList();
+      this.tokens = new long[0];
+      this.last = true;
+      this.failure = failure;
+    }
+  }
+
+}
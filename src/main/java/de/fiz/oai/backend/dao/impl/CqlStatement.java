@@ -0,0 +1,203 @@
+/*
+ * Copyright 2019 FIZ Karlsruhe - Leibniz-Institut fuer Informationsinfrastruktur GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.fiz.oai.backend.dao.impl;
+
+import static de.fiz.oai.backend.dao.impl.CassandraDAOContent.CONTENT_CONTENT;
+import static de.fiz.oai.backend.dao.impl.CassandraDAOContent.CONTENT_FORMAT;
+import static de.fiz.oai.backend.dao.impl.CassandraDAOContent.CONTENT_IDENTIFIER;
+import static de.fiz.oai.backend.dao.impl.CassandraDAOContent.TABLENAME_CONTENT;
+import static de.fiz.oai.backend.dao.impl.CassandraDAOCrosswalk.CROSSWALK_FORMAT_FROM;
+import static de.fiz.oai.backend.dao.impl.CassandraDAOCrosswalk.CROSSWALK_FORMAT_TO;
+import static de.fiz.oai.backend.dao.impl.CassandraDAOCrosswalk.CROSSWALK_NAME;
+import static de.fiz.oai.backend.dao.impl.CassandraDAOCrosswalk.CROSSWALK_XSLT_STYLESHEET;
+import static de.fiz.oai.backend.dao.impl.CassandraDAOCrosswalk.TABLENAME_CROSSWALK;
+import static de.fiz.oai.backend.dao.impl.CassandraDAOCrosswalkJob.JOB_ENDTIME;
+import static de.fiz.oai.backend.dao.impl.CassandraDAOCrosswalkJob.JOB_FAILED;
+import static de.fiz.oai.backend.dao.impl.CassandraDAOCrosswalkJob.JOB_FROM;
+import static de.fiz.oai.backend.dao.impl.CassandraDAOCrosswalkJob.JOB_HEARTBEAT;
+import static de.fiz.oai.backend.dao.impl.CassandraDAOCrosswalkJob.JOB_NAME;
+import static de.fiz.oai.backend.dao.impl.CassandraDAOCrosswalkJob.JOB_PROCESSED;
+import static de.fiz.oai.backend.dao.impl.CassandraDAOCrosswalkJob.JOB_SEARCHMARK;
+import static de.fiz.oai.backend.dao.impl.CassandraDAOCrosswalkJob.JOB_STARTTIME;
+import static de.fiz.oai.backend.dao.impl.CassandraDAOCrosswalkJob.JOB_STATE;
+import static de.fiz.oai.backend.dao.impl.CassandraDAOCrosswalkJob.JOB_TOTAL;
+import static de.fiz.oai.backend.dao.impl.CassandraDAOCrosswalkJob.JOB_UNTIL;
+import static de.fiz.oai.backend.dao.impl.CassandraDAOCrosswalkJob.JOB_UPDATEITEMTIMESTAMP;
+import static de.fiz.oai.backend.dao.impl.CassandraDAOCrosswalkJob.TABLENAME_CROSSWALK_JOB;
+import static de.fiz.oai.backend.dao.impl.CassandraDAOFormat.FORMAT_IDENTIFIERXPATH;
+import static de.fiz.oai.backend.dao.impl.CassandraDAOFormat.FORMAT_METADATAPREFIX;
+import static de.fiz.oai.backend.dao.impl.CassandraDAOIndexQueue.DEAD_LETTER_ATTEMPTS;
+import static de.fiz.oai.backend.dao.impl.CassandraDAOIndexQueue.DEAD_LETTER_ERROR;
+import static de.fiz.oai.backend.dao.impl.CassandraDAOIndexQueue.DEAD_LETTER_FAILED;
+import static de.fiz.oai.backend.dao.impl.CassandraDAOIndexQueue.DEAD_LETTER_IDENTIFIER;
+import static de.fiz.oai.backend.dao.impl.CassandraDAOIndexQueue.INDEX_QUEUE_ATTEMPTS;
+import static de.fiz.oai.backend.dao.impl.CassandraDAOIndexQueue.INDEX_QUEUE_IDENTIFIER;
+import static de.fiz.oai.backend.dao.impl.CassandraDAOIndexQueue.INDEX_QUEUE_NEXT_ATTEMPT;
+import static de.fiz.oai.backend.dao.impl.CassandraDAOIndexQueue.INDEX_QUEUE_QUEUED;
+import static de.fiz.oai.backend.dao.impl.CassandraDAOIndexQueue.INDEX_QUEUE_SHARD;
+import static de.fiz.oai.backend.dao.impl.CassandraDAOIndexQueue.INDEXER_NODE;
+import static de.fiz.oai.backend.dao.impl.CassandraDAOIndexQueue.LEASE_OWNER;
+import static de.fiz.oai.backend.dao.impl.CassandraDAOIndexQueue.LEASE_SHARD;
+import static de.fiz.oai.backend.dao.impl.CassandraDAOIndexQueue.TABLENAME_INDEXER;
+import static de.fiz.oai.backend.dao.impl.CassandraDAOIndexQueue.TABLENAME_INDEX_DEAD_LETTER;
+import static de.fiz.oai.backend.dao.impl.CassandraDAOIndexQueue.TABLENAME_INDEX_LEASE;
+import static de.fiz.oai.backend.dao.impl.CassandraDAOIndexQueue.TABLENAME_INDEX_QUEUE;
+import static de.fiz.oai.backend.dao.impl.CassandraDAOFormat.FORMAT_SCHEMALOCATION;
+import static de.fiz.oai.backend.dao.impl.CassandraDAOFormat.FORMAT_SCHEMANAMESPACE;
+import static de.fiz.oai.backend.dao.impl.CassandraDAOFormat.TABLENAME_FORMAT;
+import static de.fiz.oai.backend.dao.impl.CassandraDAOItem.ITEM_COUNT_ITEMS;
+import static de.fiz.oai.backend.dao.impl.CassandraDAOItem.ITEM_COUNT_NAME;
+import static de.fiz.oai.backend.dao.impl.CassandraDAOItem.ITEM_COUNT_SEED_NAME;
+import static de.fiz.oai.backend.dao.impl.CassandraDAOItem.ITEM_COUNT_SEED_HEARTBEAT;
+import static de.fiz.oai.backend.dao.impl.CassandraDAOItem.ITEM_COUNT_SEED_SEEDED;
+import static de.fiz.oai.backend.dao.impl.CassandraDAOItem.ITEM_COUNT_SEED_STATE;
+import static de.fiz.oai.backend.dao.impl.CassandraDAOItem.ITEM_DATESTAMP;
+import static de.fiz.oai.backend.dao.impl.CassandraDAOItem.ITEM_DATESTAMP_MILLIS;
+import static de.fiz.oai.backend.dao.impl.CassandraDAOItem.ITEM_DELETEFLAG;
+import static de.fiz.oai.backend.dao.impl.CassandraDAOItem.ITEM_IDENTIFIER;
+import static de.fiz.oai.backend.dao.impl.CassandraDAOItem.ITEM_INGESTFORMAT;
+import static de.fiz.oai.backend.dao.impl.CassandraDAOItem.ITEM_TAGS;
+import static de.fiz.oai.backend.dao.impl.CassandraDAOItem.TABLENAME_ITEM;
+import static de.fiz.oai.backend.dao.impl.CassandraDAOItem.TABLENAME_ITEM_COUNT;
+import static de.fiz.oai.backend.dao.impl.CassandraDAOItem.TABLENAME_ITEM_COUNT_SEED;
+import static de.fiz.oai.backend.dao.impl.CassandraDAOSet.SET_DESCRIPTION;
+import static de.fiz.oai.backend.dao.impl.CassandraDAOSet.SET_NAME;
+import static de.fiz.oai.backend.dao.impl.CassandraDAOSet.SET_SPEC;
+import static de.fiz.oai.backend.dao.impl.CassandraDAOSet.SET_TAGS;
+import static de.fiz.oai.backend.dao.impl.CassandraDAOSet.SET_XPATHS;
+import static de.fiz.oai.backend.dao.impl.CassandraDAOSet.TABLENAME_SET;
+
+/**
+ * All CQL statements the DAOs prepare. They are prepared once per session when the
+ * session is opened, see {@link de.fiz.oai.backend.utils.PreparedStatementRegistry}.
+ */
+public enum CqlStatement {
+
+  ITEM_READ(TABLENAME_ITEM, "SELECT * FROM " + TABLENAME_ITEM + " WHERE " + ITEM_IDENTIFIER + "=?"),
+  ITEM_CREATE(TABLENAME_ITEM, "INSERT INTO " + TABLENAME_ITEM + " (" + ITEM_IDENTIFIER + ", " + ITEM_DATESTAMP + ", "
+      + ITEM_DATESTAMP_MILLIS + ", " + ITEM_DELETEFLAG + ", " + ITEM_TAGS + ", " + ITEM_INGESTFORMAT
+      + ") VALUES (?, ?, ?, ?, ?, ?)"),
+  ITEM_DELETE(TABLENAME_ITEM, "UPDATE " + TABLENAME_ITEM + " SET " + ITEM_DELETEFLAG + "=? WHERE " + ITEM_IDENTIFIER + "=?"),
+  ITEM_SCAN(TABLENAME_ITEM, "SELECT token(" + ITEM_IDENTIFIER + "), " + ITEM_IDENTIFIER + ", " + ITEM_DATESTAMP + ", "
+      + ITEM_DATESTAMP_MILLIS + ", " + ITEM_DELETEFLAG + ", " + ITEM_TAGS + ", " + ITEM_INGESTFORMAT + " FROM "
+      + TABLENAME_ITEM + " WHERE token(" + ITEM_IDENTIFIER + ") > ? AND token(" + ITEM_IDENTIFIER + ") <= ?"),
+  ITEM_COUNT(TABLENAME_ITEM, "SELECT count(*) FROM " + TABLENAME_ITEM + " WHERE token(" + ITEM_IDENTIFIER + ") > ? AND token("
+      + ITEM_IDENTIFIER + ") <= ?"),
+  ITEM_COUNTER_READ(TABLENAME_ITEM_COUNT, "SELECT " + ITEM_COUNT_ITEMS + " FROM " + TABLENAME_ITEM_COUNT + " WHERE "
+      + ITEM_COUNT_NAME + "=?"),
+  ITEM_COUNTER_ADD(TABLENAME_ITEM_COUNT, "UPDATE " + TABLENAME_ITEM_COUNT + " SET " + ITEM_COUNT_ITEMS + " = "
+      + ITEM_COUNT_ITEMS + " + ? WHERE " + ITEM_COUNT_NAME + "=?"),
+  ITEM_COUNT_SEED_CLAIM(TABLENAME_ITEM_COUNT_SEED, "INSERT INTO " + TABLENAME_ITEM_COUNT_SEED + " ("
+      + ITEM_COUNT_SEED_NAME + ", " + ITEM_COUNT_SEED_STATE + ", " + ITEM_COUNT_SEED_HEARTBEAT
+      + ") VALUES (?, ?, ?) IF NOT EXISTS"),
+  ITEM_COUNT_SEED_READ(TABLENAME_ITEM_COUNT_SEED, "SELECT " + ITEM_COUNT_SEED_STATE + ", "
+      + ITEM_COUNT_SEED_HEARTBEAT + " FROM " + TABLENAME_ITEM_COUNT_SEED + " WHERE " + ITEM_COUNT_SEED_NAME + "=?"),
+  ITEM_COUNT_SEED_UPDATE_IF(TABLENAME_ITEM_COUNT_SEED, "UPDATE " + TABLENAME_ITEM_COUNT_SEED + " SET "
+      + ITEM_COUNT_SEED_STATE + "=?, " + ITEM_COUNT_SEED_HEARTBEAT + "=?, " + ITEM_COUNT_SEED_SEEDED + "=? WHERE "
+      + ITEM_COUNT_SEED_NAME + "=? IF " + ITEM_COUNT_SEED_STATE + "=? AND " + ITEM_COUNT_SEED_HEARTBEAT + "=?"),
+
+  CONTENT_READ(TABLENAME_CONTENT, "SELECT * FROM " + TABLENAME_CONTENT + " WHERE " + CONTENT_IDENTIFIER + "=? AND "
+      + CONTENT_FORMAT + "=?"),
+  CONTENT_READ_FORMATS(TABLENAME_CONTENT, "SELECT * FROM " + TABLENAME_CONTENT + " WHERE " + CONTENT_IDENTIFIER + "=?"),
+  CONTENT_CREATE(TABLENAME_CONTENT, "INSERT INTO " + TABLENAME_CONTENT + " (" + CONTENT_IDENTIFIER + ", " + CONTENT_FORMAT
+      + ", " + CONTENT_CONTENT + ") VALUES (?, ?, ?)"),
+  CONTENT_DELETE(TABLENAME_CONTENT, "DELETE FROM " + TABLENAME_CONTENT + " WHERE " + CONTENT_IDENTIFIER + "=? AND "
+      + CONTENT_FORMAT + "=?"),
+
+  SET_READ(TABLENAME_SET, "SELECT * FROM " + TABLENAME_SET + " WHERE " + SET_NAME + "=?"),
+  SET_READ_ALL(TABLENAME_SET, "SELECT * FROM " + TABLENAME_SET),
+  SET_CREATE(TABLENAME_SET, "INSERT INTO " + TABLENAME_SET + " (" + SET_NAME + ", " + SET_SPEC + ", " + SET_DESCRIPTION
+      + ", " + SET_XPATHS + ", " + SET_TAGS + ") VALUES (?, ?, ?, ?, ?)"),
+  SET_DELETE(TABLENAME_SET, "DELETE FROM " + TABLENAME_SET + " WHERE " + SET_NAME + "=?"),
+
+  FORMAT_READ(TABLENAME_FORMAT, "SELECT * FROM " + TABLENAME_FORMAT + " WHERE " + FORMAT_METADATAPREFIX + "=?"),
+  FORMAT_READ_ALL(TABLENAME_FORMAT, "SELECT * FROM " + TABLENAME_FORMAT),
+  FORMAT_CREATE(TABLENAME_FORMAT, "INSERT INTO " + TABLENAME_FORMAT + " (" + FORMAT_IDENTIFIERXPATH + ", "
+      + FORMAT_METADATAPREFIX + ", " + FORMAT_SCHEMALOCATION + ", " + FORMAT_SCHEMANAMESPACE + ") VALUES (?, ?, ?, ?)"),
+  FORMAT_DELETE(TABLENAME_FORMAT, "DELETE FROM " + TABLENAME_FORMAT + " WHERE " + FORMAT_METADATAPREFIX + "=?"),
+
+  CROSSWALK_READ(TABLENAME_CROSSWALK, "SELECT * FROM " + TABLENAME_CROSSWALK + " WHERE " + CROSSWALK_NAME + "=?"),
+  CROSSWALK_READ_ALL(TABLENAME_CROSSWALK, "SELECT * FROM " + TABLENAME_CROSSWALK),
+  CROSSWALK_CREATE(TABLENAME_CROSSWALK, "INSERT INTO " + TABLENAME_CROSSWALK + " (" + CROSSWALK_NAME + ", "
+      + CROSSWALK_FORMAT_FROM + ", " + CROSSWALK_FORMAT_TO + ", " + CROSSWALK_XSLT_STYLESHEET + ") VALUES (?, ?, ?, ?)"),
+  CROSSWALK_DELETE(TABLENAME_CROSSWALK, "DELETE FROM " + TABLENAME_CROSSWALK + " WHERE " + CROSSWALK_NAME + "=?"),
+
+  CROSSWALK_JOB_READ(TABLENAME_CROSSWALK_JOB, "SELECT * FROM " + TABLENAME_CROSSWALK_JOB + " WHERE " + JOB_NAME + "=?"),
+  CROSSWALK_JOB_READ_ALL(TABLENAME_CROSSWALK_JOB, "SELECT * FROM " + TABLENAME_CROSSWALK_JOB),
+  CROSSWALK_JOB_CREATE(TABLENAME_CROSSWALK_JOB, "INSERT INTO " + TABLENAME_CROSSWALK_JOB + " (" + JOB_NAME + ", "
+      + JOB_UPDATEITEMTIMESTAMP + ", " + JOB_FROM + ", " + JOB_UNTIL + ", " + JOB_SEARCHMARK + ", " + JOB_STATE + ", "
+      + JOB_TOTAL + ", " + JOB_PROCESSED + ", " + JOB_FAILED + ", " + JOB_STARTTIME + ", " + JOB_ENDTIME + ", "
+      + JOB_HEARTBEAT + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)"),
+  CROSSWALK_JOB_CREATE_IF_NOT_EXISTS(TABLENAME_CROSSWALK_JOB, "INSERT INTO " + TABLENAME_CROSSWALK_JOB + " ("
+      + JOB_NAME + ", " + JOB_UPDATEITEMTIMESTAMP + ", " + JOB_FROM + ", " + JOB_UNTIL + ", " + JOB_SEARCHMARK + ", "
+      + JOB_STATE + ", " + JOB_TOTAL + ", " + JOB_PROCESSED + ", " + JOB_FAILED + ", " + JOB_STARTTIME + ", "
+      + JOB_ENDTIME + ", " + JOB_HEARTBEAT + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) IF NOT EXISTS"),
+  CROSSWALK_JOB_UPDATE_IF(TABLENAME_CROSSWALK_JOB, "UPDATE " + TABLENAME_CROSSWALK_JOB + " SET "
+      + JOB_UPDATEITEMTIMESTAMP + "=?, " + JOB_FROM + "=?, " + JOB_UNTIL + "=?, " + JOB_SEARCHMARK + "=?, " + JOB_STATE
+      + "=?, " + JOB_TOTAL + "=?, " + JOB_PROCESSED + "=?, " + JOB_FAILED + "=?, " + JOB_STARTTIME + "=?, "
+      + JOB_ENDTIME + "=?, " + JOB_HEARTBEAT + "=? WHERE " + JOB_NAME + "=? IF " + JOB_STATE + "=? AND "
+      + JOB_HEARTBEAT + "=?"),
+  CROSSWALK_JOB_DELETE(TABLENAME_CROSSWALK_JOB, "DELETE FROM " + TABLENAME_CROSSWALK_JOB + " WHERE " + JOB_NAME + "=?"),
+
+  INDEX_QUEUE_ADD(TABLENAME_INDEX_QUEUE, "INSERT INTO " + TABLENAME_INDEX_QUEUE + " (" + INDEX_QUEUE_SHARD + ", "
+      + INDEX_QUEUE_IDENTIFIER + ", " + INDEX_QUEUE_QUEUED + ", " + INDEX_QUEUE_ATTEMPTS + ", "
+      + INDEX_QUEUE_NEXT_ATTEMPT + ") VALUES (?, ?, ?, 0, 0)"),
+  INDEX_QUEUE_READ(TABLENAME_INDEX_QUEUE, "SELECT " + INDEX_QUEUE_SHARD + ", " + INDEX_QUEUE_IDENTIFIER + ", "
+      + INDEX_QUEUE_QUEUED + ", WRITETIME(" + INDEX_QUEUE_QUEUED + "), " + INDEX_QUEUE_ATTEMPTS + ", "
+      + INDEX_QUEUE_NEXT_ATTEMPT + " FROM " + TABLENAME_INDEX_QUEUE + " WHERE " + INDEX_QUEUE_SHARD + "=? LIMIT ?"),
+  INDEX_QUEUE_READ_AFTER(TABLENAME_INDEX_QUEUE, "SELECT " + INDEX_QUEUE_SHARD + ", " + INDEX_QUEUE_IDENTIFIER + ", "
+      + INDEX_QUEUE_QUEUED + ", WRITETIME(" + INDEX_QUEUE_QUEUED + "), " + INDEX_QUEUE_ATTEMPTS + ", "
+      + INDEX_QUEUE_NEXT_ATTEMPT + " FROM " + TABLENAME_INDEX_QUEUE + " WHERE " + INDEX_QUEUE_SHARD + "=? AND "
+      + INDEX_QUEUE_IDENTIFIER + ">? LIMIT ?"),
+  INDEX_QUEUE_RETRY(TABLENAME_INDEX_QUEUE, "UPDATE " + TABLENAME_INDEX_QUEUE + " USING TIMESTAMP ? SET "
+      + INDEX_QUEUE_ATTEMPTS + "=?, " + INDEX_QUEUE_NEXT_ATTEMPT + "=? WHERE " + INDEX_QUEUE_SHARD + "=? AND "
+      + INDEX_QUEUE_IDENTIFIER + "=?"),
+  INDEX_QUEUE_REMOVE(TABLENAME_INDEX_QUEUE, "DELETE FROM " + TABLENAME_INDEX_QUEUE + " USING TIMESTAMP ? WHERE "
+      + INDEX_QUEUE_SHARD + "=? AND " + INDEX_QUEUE_IDENTIFIER + "=?"),
+  INDEX_DEAD_LETTER_ADD(TABLENAME_INDEX_DEAD_LETTER, "INSERT INTO " + TABLENAME_INDEX_DEAD_LETTER + " ("
+      + DEAD_LETTER_IDENTIFIER + ", " + DEAD_LETTER_ATTEMPTS + ", " + DEAD_LETTER_FAILED + ", " + DEAD_LETTER_ERROR
+      + ") VALUES (?, ?, ?, ?)"),
+  INDEX_LEASE_READ_ALL(TABLENAME_INDEX_LEASE, "SELECT " + LEASE_SHARD + ", " + LEASE_OWNER + " FROM "
+      + TABLENAME_INDEX_LEASE),
+  INDEX_LEASE_TAKE(TABLENAME_INDEX_LEASE, "INSERT INTO " + TABLENAME_INDEX_LEASE + " (" + LEASE_SHARD + ", "
+      + LEASE_OWNER + ") VALUES (?, ?) IF NOT EXISTS USING TTL ?"),
+  INDEX_LEASE_RENEW(TABLENAME_INDEX_LEASE, "UPDATE " + TABLENAME_INDEX_LEASE + " USING TTL ? SET " + LEASE_OWNER
+      + "=? WHERE " + LEASE_SHARD + "=? IF " + LEASE_OWNER + "=?"),
+  INDEX_LEASE_RELEASE(TABLENAME_INDEX_LEASE, "DELETE FROM " + TABLENAME_INDEX_LEASE + " WHERE " + LEASE_SHARD
+      + "=? IF " + LEASE_OWNER + "=?"),
+  INDEXER_REGISTER(TABLENAME_INDEXER, "INSERT INTO " + TABLENAME_INDEXER + " (" + INDEXER_NODE
+      + ") VALUES (?) USING TTL ?"),
+  INDEXER_UNREGISTER(TABLENAME_INDEXER, "DELETE FROM " + TABLENAME_INDEXER + " WHERE " + INDEXER_NODE + "=?"),
+  INDEXER_READ_ALL(TABLENAME_INDEXER, "SELECT " + INDEXER_NODE + " FROM " + TABLENAME_INDEXER);
+
+  private final String table;
+
+  private final String cql;
+
+  CqlStatement(String table, String cql) {
+    this.table = table;
+    this.cql = cql;
+  }
+
+  public String getTable() {
+    return table;
+  }
+
+  public String getCql() {
+    return cql;
+  }
+
+}
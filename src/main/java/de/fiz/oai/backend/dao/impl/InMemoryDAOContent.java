@@ -0,0 +1,134 @@
+/*
+ * Copyright 2019 FIZ Karlsruhe - Leibniz-Institut fuer Informationsinfrastruktur GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.fiz.oai.backend.dao.impl;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.lang3.StringUtils;
+import org.jvnet.hk2.annotations.Service;
+
+import de.fiz.oai.backend.dao.DAOContent;
+import de.fiz.oai.backend.exceptions.NotFoundException;
+import de.fiz.oai.backend.models.Content;
+import de.fiz.oai.backend.utils.CassandraUtils;
+
+/**
+ * Contents held in memory by identifier and format, uncompressed.
+ */
+@Service
+public class InMemoryDAOContent implements DAOContent {
+
+  private final Map<String, Map<String, Content>> contents = new ConcurrentHashMap<>();
+
+  @Override
+  public Content read(String identifier, String format) {
+    Map<String, Content> formats = contents.get(identifier);
+    Content content = formats != null ? formats.get(format) : null;
+    return content != null ? copy(content) : null;
+  }
+
+  @Override
+  public CompletionStage<Content> readAsync(String identifier, String format) {
+    return CompletableFuture.completedFuture(read(identifier, format));
+  }
+
+  @Override
+  public List<Content> read(List<String> identifiers, String format) {
+    List<Content> result = new ArrayList<>(identifiers.size());
+    for (String identifier : identifiers) {
+      Content content = read(identifier, format);
+      if (content != null) {
+        result.add(content);
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public Content create(Content content) throws IOException {
+    return CassandraUtils.await(createAsync(content));
+  }
+
+  @Override
+  public CompletionStage<Content> createAsync(Content content) {
+    if (StringUtils.isBlank(content.getIdentifier())) {
+      return CassandraUtils.failed("Contents name cannot be empty!");
+    }
+
+    if (StringUtils.isBlank(content.getFormat())) {
+      return CassandraUtils.failed("Contents format cannot be empty!");
+    }
+
+    if (content.getBytes() == null || content.getBytes().length == 0) {
+      return CassandraUtils.failed("Contents value cannot be empty!");
+    }
+
+    contents.computeIfAbsent(content.getIdentifier(), identifier -> new ConcurrentHashMap<>())
+        .put(content.getFormat(), copy(content));
+    return CompletableFuture.completedFuture(content);
+  }
+
+  @Override
+  public List<Content> readFormats(String identifier) {
+    List<Content> result = new ArrayList<>();
+    Map<String, Content> formats = contents.get(identifier);
+    if (formats != null) {
+      for (Content content : formats.values()) {
+        result.add(copy(content));
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public CompletionStage<List<Content>> readFormatsAsync(String identifier) {
+    return CompletableFuture.completedFuture(readFormats(identifier));
+  }
+
+  @Override
+  public void delete(String identifier, String format) throws IOException {
+    if (StringUtils.isBlank(identifier)) {
+      throw new IOException("Content identifier to delete cannot be empty!");
+    }
+
+    if (StringUtils.isBlank(format)) {
+      throw new IOException("Content format to delete cannot be empty!");
+    }
+
+    Map<String, Content> formats = contents.get(identifier);
+    if (formats == null || formats.remove(format) == null) {
+      throw new NotFoundException("The deletion was not applied for the given identifier and format.");
+    }
+  }
+
+  /**
+   * The bytes are shared, they are never changed in place.
+   */
+  private static Content copy(Content content) {
+    Content copy = new Content();
+    copy.setIdentifier(content.getIdentifier());
+    copy.setFormat(content.getFormat());
+    copy.setBytes(content.getBytes());
+    return copy;
+  }
+
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2019 FIZ Karlsruhe - Leibniz-Institut fuer Informationsinfrastruktur GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.fiz.oai.backend.dao.impl;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.lang3.StringUtils;
+import org.jvnet.hk2.annotations.Service;
+
+import de.fiz.oai.backend.dao.DAOCrosswalk;
+import de.fiz.oai.backend.exceptions.NotFoundException;
+import de.fiz.oai.backend.models.Crosswalk;
+import de.fiz.oai.backend.utils.CassandraUtils;
+
+@Service
+public class InMemoryDAOCrosswalk implements DAOCrosswalk {
+
+  private final Map<String, Crosswalk> crosswalks = new ConcurrentHashMap<>();
+
+  @Override
+  public Crosswalk read(String name) {
+    return crosswalks.get(name);
+  }
+
+  @Override
+  public CompletionStage<Crosswalk> readAsync(String name) {
+    return CompletableFuture.completedFuture(read(name));
+  }
+
+  @Override
+  public Crosswalk create(Crosswalk crosswalk) throws IOException {
+    return CassandraUtils.await(createAsync(crosswalk));
+  }
+
+  @Override
+  public CompletionStage<Crosswalk> createAsync(Crosswalk crosswalk) {
+    if (StringUtils.isBlank(crosswalk.getName())) {
+      return CassandraUtils.failed("Crosswalk name cannot be empty!");
+    }
+
+    crosswalks.put(crosswalk.getName(), crosswalk);
+    return CompletableFuture.completedFuture(crosswalk);
+  }
+
+  @Override
+  public List<Crosswalk> readAll() {
+    return new ArrayList<>(crosswalks.values());
+  }
+
+  @Override
+  public CompletionStage<List<Crosswalk>> readAllAsync() {
+    return CompletableFuture.completedFuture(readAll());
+  }
+
+  @Override
+  public void delete(String name) throws IOException {
+    if (StringUtils.isBlank(name)) {
+      throw new IOException("Crosswalk name must not be empty!");
+    }
+
+    if (crosswalks.remove(name) == null) {
+      throw new NotFoundException("The deletion was not applied for the given name.");
+    }
+  }
+
+}
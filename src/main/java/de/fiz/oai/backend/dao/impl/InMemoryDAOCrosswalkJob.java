@@ -0,0 +1,108 @@
+/*
+ * Copyright 2019 FIZ Karlsruhe - Leibniz-Institut fuer Informationsinfrastruktur GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.fiz.oai.backend.dao.impl;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.lang3.StringUtils;
+import org.jvnet.hk2.annotations.Service;
+
+import de.fiz.oai.backend.dao.DAOCrosswalkJob;
+import de.fiz.oai.backend.models.crosswalk.CrosswalkJob;
+
+@Service
+public class InMemoryDAOCrosswalkJob implements DAOCrosswalkJob {
+
+  // Copies of the jobs stored, the running job keeps changing until its next checkpoint
+  private final Map<String, CrosswalkJob> jobs = new ConcurrentHashMap<>();
+
+  @Override
+  public CrosswalkJob read(String name) {
+    CrosswalkJob job = jobs.get(name);
+    return job != null ? copy(job) : null;
+  }
+
+  @Override
+  public CrosswalkJob create(CrosswalkJob job) throws IOException {
+    if (StringUtils.isBlank(job.getName())) {
+      throw new IOException("Crosswalk name cannot be empty!");
+    }
+
+    jobs.put(job.getName(), copy(job));
+    return job;
+  }
+
+  @Override
+  public boolean createIfNotExists(CrosswalkJob job) throws IOException {
+    if (StringUtils.isBlank(job.getName())) {
+      throw new IOException("Crosswalk name cannot be empty!");
+    }
+
+    return jobs.putIfAbsent(job.getName(), copy(job)) == null;
+  }
+
+  @Override
+  public boolean update(CrosswalkJob job, CrosswalkJob.State state, Date heartbeat) throws IOException {
+    if (StringUtils.isBlank(job.getName())) {
+      throw new IOException("Crosswalk name cannot be empty!");
+    }
+
+    CrosswalkJob stored = jobs.get(job.getName());
+    return stored != null && stored.getState() == state && Objects.equals(stored.getHeartbeat(), heartbeat)
+        && jobs.replace(job.getName(), stored, copy(job));
+  }
+
+  @Override
+  public List<CrosswalkJob> readAll() {
+    List<CrosswalkJob> result = new ArrayList<>();
+    for (CrosswalkJob job : jobs.values()) {
+      result.add(copy(job));
+    }
+    return result;
+  }
+
+  private static CrosswalkJob copy(CrosswalkJob job) {
+    CrosswalkJob copy = new CrosswalkJob();
+    copy.setName(job.getName());
+    copy.setUpdateItemTimestamp(job.isUpdateItemTimestamp());
+    copy.setFrom(job.getFrom());
+    copy.setUntil(job.getUntil());
+    copy.setSearchMark(job.getSearchMark());
+    copy.setState(job.getState());
+    copy.setTotalCount(job.getTotalCount());
+    copy.setProcessedCount(job.getProcessedCount());
+    copy.setFailedCount(job.getFailedCount());
+    copy.setStartTime(job.getStartTime());
+    copy.setEndTime(job.getEndTime());
+    copy.setHeartbeat(job.getHeartbeat());
+    return copy;
+  }
+
+  @Override
+  public void delete(String name) throws IOException {
+    if (StringUtils.isBlank(name)) {
+      throw new IOException("Crosswalk name must not be empty!");
+    }
+
+    jobs.remove(name);
+  }
+}
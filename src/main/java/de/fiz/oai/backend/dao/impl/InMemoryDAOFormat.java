@@ -0,0 +1,85 @@
+/*
+ * Copyright 2019 FIZ Karlsruhe - Leibniz-Institut fuer Informationsinfrastruktur GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.fiz.oai.backend.dao.impl;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.lang3.StringUtils;
+import org.jvnet.hk2.annotations.Service;
+
+import de.fiz.oai.backend.dao.DAOFormat;
+import de.fiz.oai.backend.exceptions.NotFoundException;
+import de.fiz.oai.backend.models.Format;
+import de.fiz.oai.backend.utils.CassandraUtils;
+
+@Service
+public class InMemoryDAOFormat implements DAOFormat {
+
+  private final Map<String, Format> formats = new ConcurrentHashMap<>();
+
+  @Override
+  public Format read(String metadataPrefix) {
+    return formats.get(metadataPrefix);
+  }
+
+  @Override
+  public CompletionStage<Format> readAsync(String metadataPrefix) {
+    return CompletableFuture.completedFuture(read(metadataPrefix));
+  }
+
+  @Override
+  public Format create(Format format) throws IOException {
+    return CassandraUtils.await(createAsync(format));
+  }
+
+  @Override
+  public CompletionStage<Format> createAsync(Format format) {
+    if (StringUtils.isBlank(format.getMetadataPrefix())) {
+      return CassandraUtils.failed("Format's MetadataPrefix cannot be empty!");
+    }
+
+    formats.put(format.getMetadataPrefix(), format);
+    return CompletableFuture.completedFuture(format);
+  }
+
+  @Override
+  public List<Format> readAll() {
+    return new ArrayList<>(formats.values());
+  }
+
+  @Override
+  public CompletionStage<List<Format>> readAllAsync() {
+    return CompletableFuture.completedFuture(readAll());
+  }
+
+  @Override
+  public void delete(String metadataPrefix) throws IOException {
+    if (StringUtils.isBlank(metadataPrefix)) {
+      throw new IOException("Format's MetadataPrefix to delete cannot be empty!");
+    }
+
+    if (formats.remove(metadataPrefix) == null) {
+      throw new NotFoundException("The deletion was not applied for the given identifier and format.");
+    }
+  }
+
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2019 FIZ Karlsruhe - Leibniz-Institut fuer Informationsinfrastruktur GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.fiz.oai.backend.dao.impl;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.lang3.StringUtils;
+import org.jvnet.hk2.annotations.Service;
+
+import de.fiz.oai.backend.dao.DAOIndexQueue;
+import de.fiz.oai.backend.models.index.IndexQueueEntry;
+import de.fiz.oai.backend.utils.Configuration;
+
+/**
+ * The queue held in memory, sharded like the Cassandra queue. An entry is removed or
+ * updated only if it was not queued again after it was read, the write times handed out
+ * are unique for that.
+ */
+@Service
+public class InMemoryDAOIndexQueue implements DAOIndexQueue {
+
+  private final int shards = Integer
+      .parseInt(Configuration.getInstance().getProperty("index.queue.shards", "16"));
+
+  private final List<ConcurrentSkipListMap<String, IndexQueueEntry>> queue = new ArrayList<>(shards);
+
+  private final Map<String, String> deadLetters = new ConcurrentHashMap<>();
+
+  private final AtomicLong lastWriteTime = new AtomicLong();
+
+  // The expiry time per node and per lease
+  private final Map<String, Long> indexers = new ConcurrentHashMap<>();
+
+  private final Map<Integer, Lease> leases = new ConcurrentHashMap<>();
+
+  public InMemoryDAOIndexQueue() {
+    for (int i = 0; i < shards; i++) {
+      queue.add(new ConcurrentSkipListMap<>());
+    }
+  }
+
+  @Override
+  public int getShards() {
+    return shards;
+  }
+
+  @Override
+  public void add(List<String> identifiers) throws IOException {
+    long queued = System.currentTimeMillis();
+    for (String identifier : identifiers) {
+      if (StringUtils.isBlank(identifier)) {
+        throw new IOException("Item identifier cannot be empty!");
+      }
+      int shard = shardOf(identifier);
+      long writeTime = lastWriteTime.updateAndGet(last -> Math.max(last + 1, queued * 1000));
+      queue.get(shard).put(identifier, new IndexQueueEntry(shard, identifier, queued, writeTime));
+    }
+  }
+
+  private int shardOf(String identifier) {
+    return Math.floorMod(identifier.hashCode(), shards);
+  }
+
+  @Override
+  public List<IndexQueueEntry> read(int shard, String after, int limit) {
+    List<IndexQueueEntry> entries = new ArrayList<>(limit);
+    ConcurrentNavigableMap<String, IndexQueueEntry> entriesAfter = after == null ? queue.get(shard)
+        : queue.get(shard).tailMap(after, false);
+    for (IndexQueueEntry entry : entriesAfter.values()) {
+      if (entries.size() == limit) {
+        break;
+      }
+      entries.add(entry);
+    }
+    return entries;
+  }
+
+  @Override
+  public void remove(List<IndexQueueEntry> entries) {
+    // An entry queued again since has a later write time and stays
+    for (IndexQueueEntry entry : entries) {
+      queue.get(entry.getShard()).computeIfPresent(entry.getIdentifier(),
+          (identifier, stored) -> stored.getWriteTime() == entry.getWriteTime() ? null : stored);
+    }
+  }
+
+  @Override
+  public void retry(List<IndexQueueEntry> entries) {
+    for (IndexQueueEntry entry : entries) {
+      queue.get(entry.getShard()).computeIfPresent(entry.getIdentifier(),
+          (identifier, stored) -> stored.getWriteTime() == entry.getWriteTime() ? entry : stored);
+    }
+  }
+
+  @Override
+  public void deadLetter(IndexQueueEntry entry, String error) {
+    deadLetters.put(entry.getIdentifier(), error);
+    remove(Collections.singletonList(entry));
+  }
+
+  @Override
+  public void registerIndexer(String node, long ttlMillis) {
+    indexers.put(node, System.currentTimeMillis() + ttlMillis);
+  }
+
+  @Override
+  public void unregisterIndexer(String node) {
+    indexers.remove(node);
+  }
+
+  @Override
+  public List<String> readIndexers() {
+    long now = System.currentTimeMillis();
+    List<String> nodes = new ArrayList<>();
+    indexers.forEach((node, expires) -> {
+      if (expires > now) {
+        nodes.add(node);
+      }
+    });
+    return nodes;
+  }
+
+  @Override
+  public Map<Integer, String> readLeases() {
+    long now = System.currentTimeMillis();
+    Map<Integer, String> owners = new HashMap<>();
+    leases.forEach((shard, lease) -> {
+      if (lease.expires > now) {
+        owners.put(shard, lease.owner);
+      }
+    });
+    return owners;
+  }
+
+  @Override
+  public boolean lease(int shard, String node, long ttlMillis) {
+    long now = System.currentTimeMillis();
+    Lease lease = leases.compute(shard, (key, current) -> current == null || current.expires <= now
+        || current.owner.equals(node) ? new Lease(node, now + ttlMillis) : current);
+    return lease.owner.equals(node);
+  }
+
+  @Override
+  public void release(int shard, String node) {
+    leases.computeIfPresent(shard, (key, current) -> current.owner.equals(node) ? null : current);
+  }
+
+  private static class Lease {
+
+    private final String owner;
+
+    private final long expires;
+
+    Lease(String owner, long expires) {
+      this.owner = owner;
+      this.expires = expires;
+    }
+  }
+}
@@ -0,0 +1,249 @@
+/*
+ * Copyright 2019 FIZ Karlsruhe - Leibniz-Institut fuer Informationsinfrastruktur GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.fiz.oai.backend.dao.impl;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.lang3.StringUtils;
+import org.jvnet.hk2.annotations.Service;
+
+import de.fiz.oai.backend.dao.DAOItem;
+import de.fiz.oai.backend.dao.ItemScan;
+import de.fiz.oai.backend.exceptions.NotFoundException;
+import de.fiz.oai.backend.models.Item;
+import de.fiz.oai.backend.models.scan.ScanCheckpoint;
+
+/**
+ * Items held in memory, for load tests of the application without Cassandra. Like a
+ * Cassandra row, an Item read is a copy, so callers can change it freely.
+ */
+@Service
+public class InMemoryDAOItem implements DAOItem {
+
+  private final Map<String, Item> items = new ConcurrentHashMap<>();
+
+  private final AtomicLong countEstimate = new AtomicLong();
+
+  // The claim on seeding the count, guarded by this
+  private boolean countSeedDone;
+
+  private Date countSeedHeartbeat;
+
+  @Override
+  public Item read(String identifier) {
+    Item item = items.get(identifier);
+    return item != null ? copy(item) : null;
+  }
+
+  @Override
+  public CompletionStage<Item> readAsync(String identifier) {
+    return CompletableFuture.completedFuture(read(identifier));
+  }
+
+  @Override
+  public List<Item> read(List<String> identifiers) {
+    List<Item> result = new ArrayList<>(identifiers.size());
+    for (String identifier : identifiers) {
+      Item item = read(identifier);
+      if (item != null) {
+        result.add(item);
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public Item create(Item item) throws IOException {
+    if (StringUtils.isBlank(item.getIdentifier())) {
+      throw new IllegalArgumentException("Item's identifier cannot be empty!");
+    }
+
+    if (item.isDeleteFlag() == null) {
+      item.setDeleteFlag(false);
+    }
+
+    items.put(item.getIdentifier(), copy(item));
+    return item;
+  }
+
+  @Override
+  public CompletionStage<Item> createAsync(Item item) {
+    try {
+      return CompletableFuture.completedFuture(create(item));
+    } catch (IOException | RuntimeException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+  }
+
+  @Override
+  public void delete(String identifier) throws IOException {
+    if (StringUtils.isBlank(identifier)) {
+      throw new IllegalArgumentException("identifier cannot be empty!");
+    }
+
+    // Items are flagged as deleted, as in Cassandra
+    if (items.computeIfPresent(identifier, (key, item) -> {
+      Item deleted = copy(item);
+      deleted.setDeleteFlag(true);
+      return deleted;
+    }) == null) {
+      throw new NotFoundException("The deletion was not applied for the given identifier and format.");
+    }
+  }
+
+  @Override
+  public long getCount() {
+    return items.size();
+  }
+
+  @Override
+  public long getCountEstimate() {
+    return countEstimate.get();
+  }
+
+  @Override
+  public CompletionStage<Void> incrementCountAsync(long delta) {
+    countEstimate.addAndGet(delta);
+    return CompletableFuture.completedFuture(null);
+  }
+
+  @Override
+  public synchronized boolean claimCountSeed(Date heartbeat, long timeoutMillis) {
+    if (countSeedDone || countSeedHeartbeat != null
+        && countSeedHeartbeat.getTime() + timeoutMillis > heartbeat.getTime()) {
+      return false;
+    }
+    countSeedHeartbeat = heartbeat;
+    return true;
+  }
+
+  @Override
+  public synchronized boolean updateCountSeed(Date heartbeat, Date renewed, boolean done) {
+    if (countSeedDone || !heartbeat.equals(countSeedHeartbeat)) {
+      return false;
+    }
+    countSeedHeartbeat = renewed;
+    countSeedDone = done;
+    return true;
+  }
+
+  @Override
+  public ItemScan scan(ScanCheckpoint checkpoint) {
+    return new InMemoryItemScan(checkpoint != null ? checkpoint : ScanCheckpoint.fullRing(1));
+  }
+
+  private static Item copy(Item item) {
+    Item copy = new Item();
+    copy.setIdentifier(item.getIdentifier());
+    copy.setDatestamp(item.getDatestamp(), item.getDatestampMillis());
+    copy.setDeleteFlag(item.isDeleteFlag());
+    copy.setIngestFormat(item.getIngestFormat());
+    copy.setTags(item.getTags() != null ? new ArrayList<>(item.getTags()) : null);
+    return copy;
+  }
+
+  /**
+   * The token of an identifier, standing in for the Cassandra partitioner. Long.MIN_VALUE
+   * is not a token, as no range includes it.
+   */
+  private static long token(String identifier) {
+    long hash = 1125899906842597L;
+    for (int i = 0; i < identifier.length(); i++) {
+      hash = 31 * hash + identifier.charAt(i);
+    }
+    // Spread the hash over the whole ring
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    return hash != Long.MIN_VALUE ? hash : Long.MAX_VALUE;
+  }
+
+  /**
+   * A scan of a snapshot of the Items in token order, the checkpoint cuts the ranges at the
+   * token of the last Item returned.
+   */
+  private class InMemoryItemScan implements ItemScan {
+
+    private final List<ScanCheckpoint.Range> ranges;
+
+    private final List<Item> snapshot = new ArrayList<>();
+
+    private int position;
+
+    private Long lastToken;
+
+    InMemoryItemScan(ScanCheckpoint checkpoint) {
+      ranges = checkpoint.getRanges();
+      for (Item item : items.values()) {
+        long token = token(item.getIdentifier());
+        for (ScanCheckpoint.Range range : ranges) {
+          if (token > range.getFrom() && token <= range.getTo()) {
+            snapshot.add(copy(item));
+            break;
+          }
+        }
+      }
+      snapshot.sort(Comparator.comparingLong(item -> token(item.getIdentifier())));
+    }
+
+    @Override
+    public boolean hasNext() {
+      return position < snapshot.size();
+    }
+
+    @Override
+    public Item next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      Item item = snapshot.get(position++);
+      lastToken = token(item.getIdentifier());
+      return item;
+    }
+
+    @Override
+    public ScanCheckpoint checkpoint() {
+      if (!hasNext()) {
+        return new ScanCheckpoint(List.of());
+      }
+      List<ScanCheckpoint.Range> left = new ArrayList<>(ranges.size());
+      for (ScanCheckpoint.Range range : ranges) {
+        if (lastToken == null || range.getFrom() >= lastToken) {
+          left.add(range);
+        } else if (range.getTo() > lastToken) {
+          left.add(new ScanCheckpoint.Range(lastToken, range.getTo()));
+        }
+      }
+      return new ScanCheckpoint(left);
+    }
+
+    @Override
+    public void close() {
+      // Nothing runs in the background
+    }
+  }
+
+}
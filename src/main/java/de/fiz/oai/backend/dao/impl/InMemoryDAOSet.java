@@ -0,0 +1,85 @@
+/*
+ * Copyright 2019 FIZ Karlsruhe - Leibniz-Institut fuer Informationsinfrastruktur GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.fiz.oai.backend.dao.impl;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.lang3.StringUtils;
+import org.jvnet.hk2.annotations.Service;
+
+import de.fiz.oai.backend.dao.DAOSet;
+import de.fiz.oai.backend.exceptions.NotFoundException;
+import de.fiz.oai.backend.models.Set;
+import de.fiz.oai.backend.utils.CassandraUtils;
+
+@Service
+public class InMemoryDAOSet implements DAOSet {
+
+  private final Map<String, Set> sets = new ConcurrentHashMap<>();
+
+  @Override
+  public Set read(String name) {
+    return sets.get(name);
+  }
+
+  @Override
+  public CompletionStage<Set> readAsync(String name) {
+    return CompletableFuture.completedFuture(read(name));
+  }
+
+  @Override
+  public Set create(Set set) throws IOException {
+    return CassandraUtils.await(createAsync(set));
+  }
+
+  @Override
+  public CompletionStage<Set> createAsync(Set set) {
+    if (StringUtils.isBlank(set.getName())) {
+      return CassandraUtils.failed("Set's name cannot be empty!");
+    }
+
+    sets.put(set.getName(), set);
+    return CompletableFuture.completedFuture(set);
+  }
+
+  @Override
+  public List<Set> readAll() {
+    return new ArrayList<>(sets.values());
+  }
+
+  @Override
+  public CompletionStage<List<Set>> readAllAsync() {
+    return CompletableFuture.completedFuture(readAll());
+  }
+
+  @Override
+  public void delete(String name) throws IOException {
+    if (StringUtils.isBlank(name)) {
+      throw new IOException("Set's name to delete cannot be empty!");
+    }
+
+    if (sets.remove(name) == null) {
+      throw new NotFoundException("The deletion was not applied for the given identifier and format.");
+    }
+  }
+
+}
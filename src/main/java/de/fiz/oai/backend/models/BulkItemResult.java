@@ -0,0 +1,68 @@
+/*
+ * Copyright 2019 FIZ Karlsruhe - Leibniz-Institut fuer Informationsinfrastruktur GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.fiz.oai.backend.models;
+
+/**
+ * The outcome of one item of a bulk ingest. The status is the HTTP status the
+ * item would have got from a single create.
+ */
+public class BulkItemResult {
+
+  private String identifier;
+
+  private int status;
+
+  private String message;
+
+  public BulkItemResult() {
+  }
+
+  public BulkItemResult(String identifier, int status, String message) {
+    this.identifier = identifier;
+    this.status = status;
+    this.message = message;
+  }
+
+  public String getIdentifier() {
+    return identifier;
+  }
+
+  public void setIdentifier(String identifier) {
+    this.identifier = identifier;
+  }
+
+  public int getStatus() {
+    return status;
+  }
+
+  public void setStatus(int status) {
+    this.status = status;
+  }
+
+  public String getMessage() {
+    return message;
+  }
+
+  public void setMessage(String message) {
+    this.message = message;
+  }
+
+  @Override
+  public String toString() {
+    return "BulkItemResult [identifier=" + identifier + ", status=" + status + ", message=" + message + "]";
+  }
+
+}
@@ -15,10 +15,19 @@
  */
 package de.fiz.oai.backend.models;
 
+import java.nio.charset.StandardCharsets;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * The XML of an item in one format. The content is held as UTF-8 bytes, the form it
+ * is stored in. The String form is created on first use only.
+ */
 public class Content {
 
     private String identifier;
     private String format;
+    private byte[] bytes;
     private String content;
     
     
@@ -39,16 +48,70 @@ public class Content {
     }
     
     public String getContent() {
+      if (content == null && bytes != null) {
+        content = new String(bytes, StandardCharsets.UTF_8);
+      }
       return content;
     }
     
     public void setContent(String content) {
       this.content = content;
+      this.bytes = content != null ? content.getBytes(StandardCharsets.UTF_8) : null;
+    }
+
+    /**
+     * @return the content as UTF-8, not a copy
+     */
+    @JsonIgnore
+    public byte[] getBytes() {
+      return bytes;
+    }
+
+    /**
+     * @param bytes the content as UTF-8, used without copying
+     */
+    @JsonIgnore
+    public void setBytes(byte[] bytes) {
+      this.bytes = bytes;
+      this.content = null;
+    }
+
+    /**
+     * @return whether the content contains the given text, without decoding the content
+     */
+    public boolean contains(String text) {
+      if (bytes == null || text == null) {
+        return false;
+      }
+      byte[] search = text.getBytes(StandardCharsets.UTF_8);
+      outer: for (int i = 0; i <= bytes.length - search.length; i++) {
+        for (int j = 0; j < search.length; j++) {
+          if (bytes[i + j] != search[j]) {
+            continue outer;
+          }
+        }
+        return true;
+      }
+      return false;
+    }
+
+    /**
+     * @return whether the UTF-8 bytes are empty or whitespace only
+     */
+    public static boolean isBlank(byte[] bytes) {
+      if (bytes != null) {
+        for (byte b : bytes) {
+          if (!Character.isWhitespace(b)) {
+            return false;
+          }
+        }
+      }
+      return true;
     }
 
 	@Override
 	public String toString() {
-		return "Content [identifier=" + identifier + ", format=" + format + ", content=" + content + "]";
+		return "Content [identifier=" + identifier + ", format=" + format + ", content=" + getContent() + "]";
 	}
 
   
@@ -15,16 +15,24 @@
  */
 package de.fiz.oai.backend.models;
 
+import java.text.ParseException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import de.fiz.oai.backend.utils.Datestamps;
+
 public class Item {
 
   private String identifier;
 
   private String datestamp;
 
+  // The datestamp in epoch milliseconds, parsed on first use
+  private Long datestampMillis;
+
   private Boolean deleteFlag;
 
   private List<String> sets;
@@ -51,6 +59,42 @@ public class Item {
 
   public void setDatestamp(String datestamp) {
     this.datestamp = datestamp;
+    this.datestampMillis = null;
+  }
+
+  /**
+   * Set the datestamp as read from the database, which stores both forms.
+   *
+   * @param datestamp the datestamp as sent by the client
+   * @param datestampMillis the datestamp in epoch milliseconds, null if not stored
+   */
+  public void setDatestamp(String datestamp, Long datestampMillis) {
+    this.datestamp = datestamp;
+    this.datestampMillis = datestampMillis;
+  }
+
+  /**
+   * @return the datestamp in epoch milliseconds, null if there is none or it is invalid
+   */
+  @JsonIgnore
+  public Long getDatestampMillis() {
+    if (datestampMillis == null && datestamp != null) {
+      try {
+        datestampMillis = Datestamps.parse(datestamp);
+      } catch (ParseException e) {
+        return null;
+      }
+    }
+    return datestampMillis;
+  }
+
+  /**
+   * @param datestampMillis the datestamp in epoch milliseconds
+   */
+  @JsonIgnore
+  public void setDatestampMillis(long datestampMillis) {
+    this.datestamp = Datestamps.format(datestampMillis);
+    this.datestampMillis = datestampMillis;
   }
 
   public Boolean isDeleteFlag() {
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2019 FIZ Karlsruhe - Leibniz-Institut fuer Informationsinfrastruktur GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.fiz.oai.backend.models;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import de.fiz.oai.backend.utils.Datestamps;
+
+/**
+ * The part of an indexed item a harvest needs, taken directly from a search hit.
+ */
+public class ItemHit {
+
+  public static final String[] FIELDS = { "identifier", "datestamp", "deleteFlag", "sets", "formats" };
+
+  private String identifier;
+
+  private String datestamp;
+
+  private Boolean deleteFlag;
+
+  private List<String> sets;
+
+  private List<String> formats;
+
+  public ItemHit() {
+  }
+
+  public ItemHit(String identifier) {
+    this.identifier = identifier;
+  }
+
+  /**
+   * Build a hit from an index document. Single and multi valued fields are
+   * accepted since Elasticsearch and Solr return them differently.
+   *
+   * @param identifier the document id
+   * @param document the (filtered) document source
+   * @return the hit
+   */
+  public static ItemHit fromDocument(String identifier, Map<String, Object> document) {
+    ItemHit hit = new ItemHit(identifier);
+    Object datestamp = first(document.get("datestamp"));
+    if (datestamp instanceof Date) {
+      hit.setDatestamp(Datestamps.format(((Date) datestamp).getTime()));
+    } else if (datestamp != null) {
+      hit.setDatestamp(datestamp.toString());
+    }
+    Object deleteFlag = first(document.get("deleteFlag"));
+    if (deleteFlag != null) {
+      hit.setDeleteFlag(deleteFlag instanceof Boolean ? (Boolean) deleteFlag : Boolean.valueOf(deleteFlag.toString()));
+    }
+    hit.setSets(asList(document.get("sets")));
+    hit.setFormats(asList(document.get("formats")));
+    return hit;
+  }
+
+  private static Object first(Object value) {
+    if (value instanceof Collection<?>) {
+      Collection<?> values = (Collection<?>) value;
+      return values.isEmpty() ? null : values.iterator().next();
+    }
+    return value;
+  }
+
+  private static List<String> asList(Object value) {
+    if (value == null) {
+      return null;
+    }
+    List<String> list = new ArrayList<>();
+    if (value instanceof Collection<?>) {
+      for (Object element : (Collection<?>) value) {
+        list.add(String.valueOf(element));
+      }
+    } else {
+      list.add(value.toString());
+    }
+    return list;
+  }
+
+  public String getIdentifier() {
+    return identifier;
+  }
+
+  public void setIdentifier(String identifier) {
+    this.identifier = identifier;
+  }
+
+  public String getDatestamp() {
+    return datestamp;
+  }
+
+  public void setDatestamp(String datestamp) {
+    this.datestamp = datestamp;
+  }
+
+  public Boolean isDeleteFlag() {
+    return deleteFlag;
+  }
+
+  public void setDeleteFlag(Boolean deleteFlag) {
+    this.deleteFlag = deleteFlag;
+  }
+
+  public List<String> getSets() {
+    return sets;
+  }
+
+  public void setSets(List<String> sets) {
+    this.sets = sets;
+  }
+
+  public List<String> getFormats() {
+    return formats;
+  }
+
+  public void setFormats(List<String> formats) {
+    this.formats = formats;
+  }
+
+  @Override
+  public String toString() {
+    return "ItemHit [identifier=" + identifier + ", datestamp=" + datestamp + ", deleteFlag=" + deleteFlag + ", sets=" + sets
+        + ", formats=" + formats + "]";
+  }
+
+}
@@ -0,0 +1,292 @@
+/*
+ * Copyright 2019 FIZ Karlsruhe - Leibniz-Institut fuer Informationsinfrastruktur GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.fiz.oai.backend.models.crosswalk;
+
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A run of a crosswalk over the items of its source format. The searchMark is the
+ * checkpoint: it points behind the last page that was completely processed, so a job
+ * stopped or interrupted by a restart continues from there.
+ */
+public class CrosswalkJob {
+
+  public enum State {
+    RUNNING, STOPPED, FINISHED, FAILED
+  }
+
+  private String name;
+
+  private boolean updateItemTimestamp;
+
+  private Date from;
+
+  private Date until;
+
+  private volatile String searchMark;
+
+  private volatile State state;
+
+  private volatile long totalCount;
+
+  // Updated concurrently by the crosswalk pool threads
+  private final AtomicLong processedCount = new AtomicLong();
+
+  private final AtomicLong failedCount = new AtomicLong();
+
+  // The processed count when this run started, a resumed job has processed items before
+  private volatile long processedAtStart;
+
+  private volatile String startTime;
+
+  private volatile String endTime;
+
+  private volatile boolean stopSignalReceived;
+
+  // Renewed with every checkpoint by the node running the job
+  private volatile Date heartbeat;
+
+  /**
+   * @return the name of the crosswalk
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * @param name the name of the crosswalk
+   */
+  public void setName(String name) {
+    this.name = name;
+  }
+
+  /**
+   * @return whether the datestamps of the items are updated
+   */
+  public boolean isUpdateItemTimestamp() {
+    return updateItemTimestamp;
+  }
+
+  /**
+   * @param updateItemTimestamp whether the datestamps of the items are updated
+   */
+  public void setUpdateItemTimestamp(boolean updateItemTimestamp) {
+    this.updateItemTimestamp = updateItemTimestamp;
+  }
+
+  /**
+   * @return the lower datestamp bound, null if none
+   */
+  public Date getFrom() {
+    return from;
+  }
+
+  /**
+   * @param from the lower datestamp bound
+   */
+  public void setFrom(Date from) {
+    this.from = from;
+  }
+
+  /**
+   * @return the upper datestamp bound, null if none
+   */
+  public Date getUntil() {
+    return until;
+  }
+
+  /**
+   * @param until the upper datestamp bound
+   */
+  public void setUntil(Date until) {
+    this.until = until;
+  }
+
+  /**
+   * @return the searchMark of the next page, null before the first page
+   */
+  public String getSearchMark() {
+    return searchMark;
+  }
+
+  /**
+   * @param searchMark the searchMark of the next page
+   */
+  public void setSearchMark(String searchMark) {
+    this.searchMark = searchMark;
+  }
+
+  /**
+   * @return the state
+   */
+  public State getState() {
+    return state;
+  }
+
+  /**
+   * @param state the state to set
+   */
+  public void setState(State state) {
+    this.state = state;
+  }
+
+  /**
+   * @return the totalCount
+   */
+  public long getTotalCount() {
+    return totalCount;
+  }
+
+  /**
+   * @param totalCount the totalCount to set
+   */
+  public void setTotalCount(long totalCount) {
+    this.totalCount = totalCount;
+  }
+
+  /**
+   * @return the number of items processed, including those that failed
+   */
+  public long getProcessedCount() {
+    return processedCount.get();
+  }
+
+  /**
+   * @param processedCount the processedCount to set
+   */
+  public void setProcessedCount(long processedCount) {
+    this.processedCount.set(processedCount);
+    this.processedAtStart = processedCount;
+  }
+
+  /**
+   * @param delta the number of items processed since the last call
+   */
+  public void addProcessedCount(long delta) {
+    processedCount.addAndGet(delta);
+  }
+
+  /**
+   * @return the number of items that could not be processed
+   */
+  public long getFailedCount() {
+    return failedCount.get();
+  }
+
+  /**
+   * @param failedCount the failedCount to set
+   */
+  public void setFailedCount(long failedCount) {
+    this.failedCount.set(failedCount);
+  }
+
+  /**
+   * @param delta the number of items failed since the last call
+   */
+  public void addFailedCount(long delta) {
+    failedCount.addAndGet(delta);
+  }
+
+  /**
+   * @return the processed items per second of this run, up to the end if finished
+   */
+  public double getThroughput() {
+    if (startTime == null) {
+      return 0;
+    }
+    ZonedDateTime end = endTime == null ? ZonedDateTime.now(ZoneOffset.UTC) : ZonedDateTime.parse(endTime);
+    long millis = Duration.between(ZonedDateTime.parse(startTime), end).toMillis();
+    return millis > 0 ? (getProcessedCount() - processedAtStart) * 1000d / millis : 0;
+  }
+
+  /**
+   * @return the estimated seconds until the job is done, -1 if unknown
+   */
+  public long getEstimatedSecondsLeft() {
+    double throughput = getThroughput();
+    if (throughput <= 0 || totalCount <= 0) {
+      return -1;
+    }
+    return (long) (Math.max(0, totalCount - getProcessedCount()) / throughput);
+  }
+
+  /**
+   * @return the startTime of this run
+   */
+  public String getStartTime() {
+    return startTime;
+  }
+
+  /**
+   * @param startTime the startTime to set
+   */
+  public void setStartTime(String startTime) {
+    this.startTime = startTime;
+  }
+
+  /**
+   * @return the endTime
+   */
+  public String getEndTime() {
+    return endTime;
+  }
+
+  /**
+   * @param endTime the endTime to set
+   */
+  public void setEndTime(String endTime) {
+    this.endTime = endTime;
+  }
+
+  /**
+   * @return the stopSignalReceived
+   */
+  public boolean isStopSignalReceived() {
+    return stopSignalReceived;
+  }
+
+  /**
+   * @param stopSignalReceived the stopSignalReceived to set
+   */
+  public void setStopSignalReceived(boolean stopSignalReceived) {
+    this.stopSignalReceived = stopSignalReceived;
+  }
+
+  /**
+   * @return the time the running job was last stored, null if never
+   */
+  public Date getHeartbeat() {
+    return heartbeat;
+  }
+
+  /**
+   * @param heartbeat the time the running job was last stored
+   */
+  public void setHeartbeat(Date heartbeat) {
+    this.heartbeat = heartbeat;
+  }
+
+  @Override
+  public String toString() {
+    return "CrosswalkJob [name=" + name + ", state=" + state + ", processedCount=" + getProcessedCount()
+        + ", failedCount=" + getFailedCount() + ", totalCount=" + totalCount + ", searchMark=" + searchMark + "]";
+  }
+
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2019 FIZ Karlsruhe - Leibniz-Institut fuer Informationsinfrastruktur GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.fiz.oai.backend.models.index;
+
+/**
+ * An item waiting to be (re)indexed. There is at most one entry per identifier, the
+ * indexer always sends the current state of the item, so several changes of an item
+ * queued before the indexer gets to it result in one index write.
+ */
+public class IndexQueueEntry {
+
+  private final int shard;
+
+  private final String identifier;
+
+  private final long queued;
+
+  private final long writeTime;
+
+  private final int attempts;
+
+  private final long nextAttempt;
+
+  /**
+   * @param shard the queue partition
+   * @param identifier the item identifier
+   * @param queued when the item was queued last, epoch milliseconds
+   * @param writeTime the write timestamp of the entry, epoch microseconds
+   */
+  public IndexQueueEntry(int shard, String identifier, long queued, long writeTime) {
+    this(shard, identifier, queued, writeTime, 0, 0);
+  }
+
+  /**
+   * @param shard the queue partition
+   * @param identifier the item identifier
+   * @param queued when the item was queued last, epoch milliseconds
+   * @param writeTime the write timestamp of the entry, epoch microseconds
+   * @param attempts the failed attempts to index the item since it was queued
+   * @param nextAttempt when to try again, epoch milliseconds
+   */
+  public IndexQueueEntry(int shard, String identifier, long queued, long writeTime, int attempts, long nextAttempt) {
+    this.shard = shard;
+    this.identifier = identifier;
+    this.queued = queued;
+    this.writeTime = writeTime;
+    this.attempts = attempts;
+    this.nextAttempt = nextAttempt;
+  }
+
+  public int getShard() {
+    return shard;
+  }
+
+  public String getIdentifier() {
+    return identifier;
+  }
+
+  public long getQueued() {
+    return queued;
+  }
+
+  /**
+   * @return the write timestamp, removing the entry with it keeps a later change queued
+   */
+  public long getWriteTime() {
+    return writeTime;
+  }
+
+  /**
+   * @return the failed attempts to index the item since it was queued
+   */
+  public int getAttempts() {
+    return attempts;
+  }
+
+  /**
+   * @return when to try again after a failed attempt, epoch milliseconds
+   */
+  public long getNextAttempt() {
+    return nextAttempt;
+  }
+
+  /**
+   * @param nextAttempt when to try again, epoch milliseconds
+   * @return this entry with one more failed attempt
+   */
+  public IndexQueueEntry failed(long nextAttempt) {
+    return new IndexQueueEntry(shard, identifier, queued, writeTime, attempts + 1, nextAttempt);
+  }
+
+  @Override
+  public String toString() {
+    return "IndexQueueEntry [shard=" + shard + ", identifier=" + identifier + ", queued=" + queued + ", attempts="
+        + attempts + "]";
+  }
+
+}
@@ -1,26 +1,30 @@
 package de.fiz.oai.backend.models.reindex;
 
-import com.datastax.oss.driver.api.core.cql.ResultSet;
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class ReindexStatus {
 
-  private ResultSet itemResultSet = null;
-
   private String aliasName = null;
 
   private String originalIndexName = null;
 
   private String newIndexName = null;
 
-  private long totalCount;
+  private volatile long totalCount;
+
+  // Updated concurrently by the bulk listener threads
+  private final AtomicLong indexedCount = new AtomicLong();
 
-  private long indexedCount;
+  private final AtomicLong failedCount = new AtomicLong();
 
-  private String startTime;
+  private volatile String startTime;
 
-  private String endTime;
+  private volatile String endTime;
 
-  private boolean stopSignalReceived;
+  private volatile boolean stopSignalReceived;
 
   /**
    * @return the aliasName
@@ -82,14 +86,47 @@ public class ReindexStatus {
    * @return the indexedCount
    */
   public long getIndexedCount() {
-    return indexedCount;
+    return indexedCount.get();
   }
 
   /**
    * @param indexedCount the indexedCount to set
    */
   public void setIndexedCount(long indexedCount) {
-    this.indexedCount = indexedCount;
+    this.indexedCount.set(indexedCount);
+  }
+
+  /**
+   * @param delta the number of items indexed since the last call
+   */
+  public void addIndexedCount(long delta) {
+    indexedCount.addAndGet(delta);
+  }
+
+  /**
+   * @return the number of items that could not be indexed
+   */
+  public long getFailedCount() {
+    return failedCount.get();
+  }
+
+  /**
+   * @param delta the number of items failed since the last call
+   */
+  public void addFailedCount(long delta) {
+    failedCount.addAndGet(delta);
+  }
+
+  /**
+   * @return the indexed items per second since the start, up to the end if finished
+   */
+  public double getThroughput() {
+    if (startTime == null) {
+      return 0;
+    }
+    ZonedDateTime end = endTime == null ? ZonedDateTime.now(ZoneOffset.UTC) : ZonedDateTime.parse(endTime);
+    long millis = Duration.between(ZonedDateTime.parse(startTime), end).toMillis();
+    return millis > 0 ? getIndexedCount() * 1000d / millis : 0;
   }
 
   /**
@@ -120,20 +157,6 @@ public class ReindexStatus {
     this.endTime = endTime;
   }
 
-  /**
-   * @return the itemResultSet
-   */
-  public ResultSet getItemResultSet() {
-    return itemResultSet;
-  }
-
-  /**
-   * @param itemResultSet the itemResultSet to set
-   */
-  public void setItemResultSet(ResultSet itemResultSet) {
-    this.itemResultSet = itemResultSet;
-  }
-
   /**
    * @return the stopSignalReceived
    */
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2019 FIZ Karlsruhe - Leibniz-Institut fuer Informationsinfrastruktur GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.fiz.oai.backend.models.scan;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * The token ranges a full table scan still has to read. Tokens are those of the
+ * Murmur3Partitioner, a range (from, to] includes its upper bound only.
+ * <p>
+ * The string form "from:to,from:to" can be stored and parsed again to resume a scan.
+ */
+public class ScanCheckpoint {
+
+  private final List<Range> ranges;
+
+  public ScanCheckpoint(List<Range> ranges) {
+    this.ranges = Collections.unmodifiableList(new ArrayList<>(ranges));
+  }
+
+  /**
+   * Split the whole token ring into ranges of equal size.
+   *
+   * @param splits the number of ranges
+   * @return a checkpoint of a scan that has not read anything yet
+   */
+  public static ScanCheckpoint fullRing(int splits) {
+    if (splits < 1) {
+      throw new IllegalArgumentException("splits must be positive: " + splits);
+    }
+    BigInteger min = BigInteger.valueOf(Long.MIN_VALUE);
+    BigInteger size = BigInteger.valueOf(Long.MAX_VALUE).subtract(min);
+    List<Range> ranges = new ArrayList<>(splits);
+    long from = Long.MIN_VALUE;
+    for (int i = 1; i <= splits; i++) {
+      long to = i == splits ? Long.MAX_VALUE
+          : min.add(size.multiply(BigInteger.valueOf(i)).divide(BigInteger.valueOf(splits))).longValueExact();
+      ranges.add(new Range(from, to));
+      from = to;
+    }
+    return new ScanCheckpoint(ranges);
+  }
+
+  /**
+   * @param checkpoint a checkpoint in its string form
+   * @return the checkpoint
+   */
+  public static ScanCheckpoint parse(String checkpoint) {
+    List<Range> ranges = new ArrayList<>();
+    if (StringUtils.isNotBlank(checkpoint)) {
+      for (String range : checkpoint.split(",")) {
+        String[] bounds = range.trim().split(":");
+        if (bounds.length != 2) {
+          throw new IllegalArgumentException("Invalid scan checkpoint range: " + range);
+        }
+        ranges.add(new Range(Long.parseLong(bounds[0]), Long.parseLong(bounds[1])));
+      }
+    }
+    return new ScanCheckpoint(ranges);
+  }
+
+  /**
+   * @return the ranges still to read
+   */
+  public List<Range> getRanges() {
+    return ranges;
+  }
+
+  /**
+   * @return whether the scan has read everything
+   */
+  public boolean isComplete() {
+    return ranges.isEmpty();
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder checkpoint = new StringBuilder();
+    for (Range range : ranges) {
+      if (checkpoint.length() > 0) {
+        checkpoint.append(',');
+      }
+      checkpoint.append(range.getFrom()).append(':').append(range.getTo());
+    }
+    return checkpoint.toString();
+  }
+
+  /**
+   * A token range (from, to].
+   */
+  public static class Range {
+
+    private final long from;
+
+    private final long to;
+
+    public Range(long from, long to) {
+      if (from >= to) {
+        throw new IllegalArgumentException("Empty token range (" + from + ", " + to + "]");
+      }
+      this.from = from;
+      this.to = to;
+    }
+
+    /**
+     * @return the exclusive lower bound
+     */
+    public long getFrom() {
+      return from;
+    }
+
+    /**
+     * @return the inclusive upper bound
+     */
+    public long getTo() {
+      return to;
+    }
+  }
+
+}
@@ -52,16 +52,43 @@ public interface CrosswalkService {
 
   
   /**
-   * Process a Crosswalk for a set of items
+   * Start processing a Crosswalk for a set of items in the background
    *
    * @param content String name of the Crosswalk to process
    * @param updateItemTimestamp <code>true</true> if the related item timestamp should be updated
    * @param from together with the until parameter, it defines a time range for searching items by the datestamp, where the related crosswalk should be processed
    * @param until together with the from parameter, it defines a time range for searching item by the datestamps, where the related crosswalk should be processed
    * 
-   * @return the Crosswalk created
+   * @return <code>false</code> if a process of the Crosswalk is already running
+   */
+  boolean process(String name, boolean keepItemTimestamp, Date from, Date until) throws IOException;
+
+  /**
+   * Continue a stopped, failed or interrupted process of a Crosswalk from its last checkpoint.
+   *
+   * @param name name of a crosswalk
+   * @return <code>false</code> if the process is running or there is nothing to resume
+   */
+  boolean resumeProcess(String name) throws IOException;
+
+  /**
+   * Stop the running process of a Crosswalk after the current page of items.
+   *
+   * @param name name of a crosswalk
+   * @return <code>false</code> if no process of the Crosswalk is running
+   */
+  boolean stopProcess(String name);
+
+  /**
+   * Stop all processes running on this node after their current page, e.g. on shutdown.
+   */
+  void stopAllProcesses();
+
+  /**
+   * @param name name of a crosswalk
+   * @return a human readable status of the last process of the Crosswalk
    */
-  void process(String name, boolean keepItemTimestamp, Date from, Date until) throws IOException;
+  String getProcessStatusVerbose(String name) throws IOException;
 
   
   /**
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2019 FIZ Karlsruhe - Leibniz-Institut fuer Informationsinfrastruktur GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.fiz.oai.backend.service;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import org.jvnet.hk2.annotations.Contract;
+
+import de.fiz.oai.backend.models.Item;
+
+/**
+ * Brings the search index up to date with the stored items. With the indexing queue
+ * enabled (index.queue.enabled, the default) a changed item is only queued and a
+ * background indexer sends the current state of the queued items in bulk requests,
+ * otherwise the index is updated immediately.
+ */
+@Contract
+public interface IndexingService {
+
+  /**
+   * Index an item that is already stored.
+   *
+   * @param item the item with its formats and sets
+   */
+  void index(Item item) throws IOException;
+
+  /**
+   * Index several items that are already stored.
+   *
+   * @param items the items with their formats and sets
+   * @return an error message per item that could not be indexed, keyed by item identifier
+   */
+  Map<String, String> index(List<Item> items) throws IOException;
+
+  /**
+   * Index the stored item with the given identifier, e.g. after a content of it changed.
+   *
+   * @param identifier the item identifier
+   */
+  void index(String identifier) throws IOException;
+
+  /**
+   * Start the background indexer, if the queue is enabled.
+   */
+  void start();
+
+  /**
+   * Stop the background indexer. Queued items are indexed after the next start.
+   */
+  void stop();
+
+  /**
+   * @return indexer counters since startup and the lag of the index in milliseconds
+   */
+  Map<String, Long> getStatistics();
+}
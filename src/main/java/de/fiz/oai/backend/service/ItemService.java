@@ -21,6 +21,7 @@ import java.util.List;
 
 import org.jvnet.hk2.annotations.Contract;
 
+import de.fiz.oai.backend.models.BulkItemResult;
 import de.fiz.oai.backend.models.Item;
 import de.fiz.oai.backend.models.SearchResult;
 
@@ -43,6 +44,15 @@ public interface ItemService {
    */
   Item create(Item item) throws IOException;
 
+  /**
+   * Create several new Items. Items are validated and written independently, one
+   * failing item does not fail the others.
+   *
+   * @param items the items, each with its content
+   * @return the result of each item, in the order of the given items
+   */
+  List<BulkItemResult> createAll(List<Item> items) throws IOException;
+
   /**
    * Updates an existing Item.
    *
@@ -90,5 +100,33 @@ public interface ItemService {
    * @throws IOException
    */
   void addFormatsAndSets(Item item) throws IOException;
+
+  /**
+   * Count the Items, the maintained count is not changed.
+   *
+   * @param exact false for the maintained count, a single read, true to count all Items
+   * @return the count
+   */
+  long getCount(boolean exact) throws IOException;
+
+  /**
+   * Correct the maintained count to an exact count. Items created while counting are
+   * counted twice or not at all, so the maintained count is only corrected if it did not
+   * change since the estimate was read.
+   *
+   * @param count the exact count
+   * @param estimate the maintained count read before counting
+   * @return whether the maintained count is now the exact count
+   */
+  boolean correctCount(long count, long estimate) throws IOException;
+
+  /**
+   * Seed the maintained count with the exact count on the first start of the cluster, e.g.
+   * after an upgrade from a version without the count. Only one node counts, on the other
+   * nodes and on later starts this does nothing. The count is retried up to
+   * item.count.seed.attempts times. A node started once the claim of a node that gave up or
+   * died was not renewed for item.count.seed.timeout.millis takes seeding over.
+   */
+  void seedCount() throws IOException;
   
 }
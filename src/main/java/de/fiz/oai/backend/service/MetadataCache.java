@@ -0,0 +1,64 @@
+/*
+ * Copyright 2019 FIZ Karlsruhe - Leibniz-Institut fuer Informationsinfrastruktur GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.fiz.oai.backend.service;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import org.jvnet.hk2.annotations.Contract;
+
+import de.fiz.oai.backend.models.Crosswalk;
+import de.fiz.oai.backend.models.Format;
+import de.fiz.oai.backend.models.Set;
+
+/**
+ * Read-through cache of the small, rarely changing tables read on every item write:
+ * sets, formats and crosswalks. The Set-, Format- and CrosswalkService invalidate it
+ * on every change. Entries also expire after metadata.cache.ttl seconds so changes
+ * made on other nodes are picked up.
+ */
+@Contract
+public interface MetadataCache {
+
+  /**
+   * @return all Sets
+   */
+  List<Set> getSets() throws IOException;
+
+  /**
+   * @param metadataPrefix the metadataPrefix
+   * @return the Format, null if not found
+   */
+  Format getFormat(String metadataPrefix) throws IOException;
+
+  /**
+   * @return all Crosswalks
+   */
+  List<Crosswalk> getCrosswalks() throws IOException;
+
+  void invalidateSets();
+
+  void invalidateFormats();
+
+  void invalidateCrosswalks();
+
+  /**
+   * @return hits and misses per table
+   */
+  Map<String, Map<String, Long>> getStatistics();
+
+}
@@ -17,11 +17,13 @@ package de.fiz.oai.backend.service;
 
 import java.io.IOException;
 import java.util.Date;
+import java.util.List;
 import java.util.Map;
 
 import org.jvnet.hk2.annotations.Contract;
 
 import de.fiz.oai.backend.models.Item;
+import de.fiz.oai.backend.models.ItemHit;
 import de.fiz.oai.backend.models.SearchResult;
 
 @Contract
@@ -58,6 +60,14 @@ public interface SearchService {
    */
   void createDocument(Item item) throws IOException;
 
+  /**
+   * Create the documents of several items with a single request.
+   *
+   * @param items
+   * @return an error message per item that could not be indexed, keyed by item identifier
+   */
+  Map<String, String> createDocuments(List<Item> items) throws IOException;
+
   /**
    * 
    * @param item
@@ -75,7 +85,7 @@ public interface SearchService {
    * @param item
    */
   Map<String, Object> readDocument(Item item) throws IOException;
-  
+
   /**
    * 
    * @param rows
@@ -89,6 +99,22 @@ public interface SearchService {
    */
   SearchResult<String> search(Integer rows, String set, String format, Date fromDate, Date untilDate, String searchMark)
       throws IOException;
+
+  /**
+   * Same as {@link #search(Integer, String, String, Date, Date, String)} but returns the
+   * identifier, datestamp, deleteFlag, sets and formats of each hit from the same response.
+   *
+   * @param rows
+   * @param set
+   * @param format
+   * @param fromDate
+   * @param untilDate
+   * @param searchMark
+   * @return
+   * @throws IOException
+   */
+  SearchResult<ItemHit> searchHits(Integer rows, String set, String format, Date fromDate, Date untilDate,
+      String searchMark) throws IOException;
   
   /**
    * Commit Changes
@@ -1,6 +1,9 @@
 package de.fiz.oai.backend.service;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Map;
 
 import org.jvnet.hk2.annotations.Contract;
 
@@ -18,14 +21,39 @@ public interface TransformerService {
     public String transform(String xml, String name) throws IOException;
 
     /**
-     * @return Information about pool
+     * Transform XML using crosswalk stylesheet.
+     *
+     * @param xml XML to transform as UTF-8
+     * @param name Name of the crosswalk
+     * @return Transformed XML as UTF-8
+     * @throws IOException
+     */
+    public byte[] transform(byte[] xml, String name) throws IOException;
+
+    /**
+     * Transform XML using crosswalk stylesheet without buffering input or result.
+     *
+     * @param xml XML to transform as UTF-8
+     * @param result receives the transformed XML as UTF-8
+     * @param name Name of the crosswalk
+     * @throws IOException
+     */
+    public void transform(InputStream xml, OutputStream result, String name) throws IOException;
+
+    /**
+     * @return Information about the compiled crosswalks and transformations
      */
     public String info();
 
     /**
-     * Updates the XSLT transformer in the pool
+     * @return count, failures and timings of the transformations since startup, by crosswalk name
+     */
+    public Map<String, Map<String, Long>> getStatistics();
+
+    /**
+     * Recompiles the XSLT stylesheet of a crosswalk after it was changed or deleted
      * 
-     * @param name the name of the transformer
+     * @param name the name of the crosswalk
      */
     public void updateTransformer(String name)  throws Exception;
 }
@@ -30,8 +30,8 @@ import de.fiz.oai.backend.models.Format;
 import de.fiz.oai.backend.models.Item;
 import de.fiz.oai.backend.service.ContentService;
 import de.fiz.oai.backend.service.FormatService;
+import de.fiz.oai.backend.service.IndexingService;
 import de.fiz.oai.backend.service.ItemService;
-import de.fiz.oai.backend.service.SearchService;
 
 @Service
 public class ContentServiceImpl implements ContentService {
@@ -46,7 +46,7 @@ public class ContentServiceImpl implements ContentService {
   FormatService formatService;
   
   @Inject
-  SearchService searchService;
+  IndexingService indexingService;
   
   @Override
   public Content read(String identifier, String format) throws IOException {
@@ -77,10 +77,8 @@ public class ContentServiceImpl implements ContentService {
 	//Save content
     Content newContent = daoContent.create(content);
 
-    //Reread item and store it in the search index
-    item = itemService.read(content.getIdentifier(), null, false);
-    itemService.addFormatsAndSets(item);
-    searchService.updateDocument(item);
+    //Store the item with the new format in the search index
+    indexingService.index(content.getIdentifier());
     
     return newContent;
   }
@@ -97,10 +95,8 @@ public class ContentServiceImpl implements ContentService {
 	daoContent.delete(item.getIdentifier(), content.getFormat());
     Content newContent = daoContent.create(content);
 
-    //Reread item and store it in the search index
-    item = itemService.read(content.getIdentifier(), null, false);
-    itemService.addFormatsAndSets(item);
-    searchService.updateDocument(item);
+    //Store the item with the new content in the search index
+    indexingService.index(content.getIdentifier());
     
     return newContent;
   }
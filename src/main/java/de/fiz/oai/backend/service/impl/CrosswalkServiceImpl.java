@@ -16,15 +16,24 @@
 package de.fiz.oai.backend.service.impl;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.security.InvalidParameterException;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
 import java.util.Date;
-import java.util.Iterator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
 
 import javax.inject.Inject;
 
 import org.apache.commons.lang.StringUtils;
-import org.apache.tinkerpop.shaded.minlog.Log;
 import org.jvnet.hk2.annotations.Service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -32,6 +41,7 @@ import org.slf4j.LoggerFactory;
 import de.fiz.oai.backend.controller.CrosswalkController;
 import de.fiz.oai.backend.dao.DAOContent;
 import de.fiz.oai.backend.dao.DAOCrosswalk;
+import de.fiz.oai.backend.dao.DAOCrosswalkJob;
 import de.fiz.oai.backend.dao.DAOItem;
 import de.fiz.oai.backend.exceptions.AlreadyExistsException;
 import de.fiz.oai.backend.exceptions.NotFoundException;
@@ -40,13 +50,18 @@ import de.fiz.oai.backend.models.Crosswalk;
 import de.fiz.oai.backend.models.Format;
 import de.fiz.oai.backend.models.Item;
 import de.fiz.oai.backend.models.SearchResult;
+import de.fiz.oai.backend.models.crosswalk.CrosswalkJob;
 import de.fiz.oai.backend.service.ContentService;
 import de.fiz.oai.backend.service.CrosswalkService;
 import de.fiz.oai.backend.service.FormatService;
 import de.fiz.oai.backend.service.ItemService;
+import de.fiz.oai.backend.service.MetadataCache;
 import de.fiz.oai.backend.service.SearchService;
 import de.fiz.oai.backend.service.TransformerService;
+import de.fiz.oai.backend.utils.CassandraUtils;
 import de.fiz.oai.backend.utils.Configuration;
+import de.fiz.oai.backend.utils.Datestamps;
+import de.fiz.oai.backend.utils.ThreadPoolManager;
 
 @Service
 public class CrosswalkServiceImpl implements CrosswalkService {
@@ -77,6 +92,22 @@ public class CrosswalkServiceImpl implements CrosswalkService {
     @Inject
     TransformerService transformerService;
 
+    @Inject
+    MetadataCache metadataCache;
+
+    @Inject
+    DAOCrosswalkJob daoCrosswalkJob;
+
+    private final int processPageSize = Integer.parseInt(
+        Configuration.getInstance().getProperty("crosswalk.process.page.size", "500"));
+
+    // A job stored as running without a checkpoint for this long is no longer running on any node
+    private final long heartbeatTimeoutMillis = Long.parseLong(
+        Configuration.getInstance().getProperty("crosswalk.process.heartbeat.timeout.millis", "600000"));
+
+    // The processes running on this node by crosswalk name
+    private final ConcurrentMap<String, CrosswalkJob> runningJobs = new ConcurrentHashMap<>();
+
     @Override
     public Crosswalk read(String name) throws IOException {
         Crosswalk crosswalk = daoCrosswalk.read(name);
@@ -104,6 +135,8 @@ public class CrosswalkServiceImpl implements CrosswalkService {
         }
 
         Crosswalk newCrosswalk = daoCrosswalk.create(crosswalk);
+        metadataCache.invalidateCrosswalks();
+        updateTransformer(crosswalk.getName());
         return newCrosswalk;
     }
 
@@ -129,16 +162,23 @@ public class CrosswalkServiceImpl implements CrosswalkService {
 
         daoCrosswalk.delete(crosswalk.getName());
         Crosswalk newCrosswalk = daoCrosswalk.create(crosswalk);
+        metadataCache.invalidateCrosswalks();
 
-        //Update pool entry in TransformerService
+        updateTransformer(crosswalk.getName());
+        
+        return newCrosswalk;
+    }
+
+    /**
+     * Recompile the stylesheet of a created, changed or deleted crosswalk.
+     */
+    private void updateTransformer(String name) {
         try {
-            LOGGER.error("Update Crosswalk in transformerService pool " + crosswalk.getName());
-            transformerService.updateTransformer(crosswalk.getName());
+            LOGGER.info("Update Crosswalk in transformerService " + name);
+            transformerService.updateTransformer(name);
         } catch (Exception e) {
-            LOGGER.error("Cannot update Crosswalk in transformerService pool", e);
+            LOGGER.error("Cannot update Crosswalk in transformerService", e);
         }
-        
-        return newCrosswalk;
     }
 
     @Override
@@ -150,91 +190,298 @@ public class CrosswalkServiceImpl implements CrosswalkService {
 
     @Override
     public void delete(String name) throws IOException {
+        stopProcess(name);
         daoCrosswalk.delete(name);
+        metadataCache.invalidateCrosswalks();
+        updateTransformer(name);
     }
 
-    /**
-     * Process a Crosswalk for a set of items
-     *
-     * @param content             String name of the Crosswalk to process
-     * @param updateItemTimestamp <code>true</true> if the related item timestamp should be updated
-     * @param from                together with the until parameter, it defines a time range for searching items by the
-     *                            datestamp, where the related crosswalkshould be processed
-     * @param until               together with the from parameter, it defines a time range for searching item by the
-     *                            datestamps, where the related crosswalkshould be processed
-     * 
-     */
-    public void process(String name, boolean updateItemTimestamp, Date from, Date until) throws IOException {
-        Log.info("Start process crosswalk for " + name);
-        Log.info("updateItemTimestamp " + updateItemTimestamp);
-        Log.info("from " + from);
-        Log.info("until " + until);
+    @Override
+    public boolean process(String name, boolean updateItemTimestamp, Date from, Date until) throws IOException {
+        Crosswalk crosswalk = read(name);
+        if (crosswalk == null) {
+            throw new InvalidParameterException("Cannot find crosswalk by the given name");
+        }
+
+        CrosswalkJob job = new CrosswalkJob();
+        job.setName(name);
+        job.setUpdateItemTimestamp(updateItemTimestamp);
+        job.setFrom(from);
+        job.setUntil(until);
+        return startJob(crosswalk, job, daoCrosswalkJob.read(name));
+    }
 
+    @Override
+    public boolean resumeProcess(String name) throws IOException {
         Crosswalk crosswalk = read(name);
         if (crosswalk == null) {
             throw new InvalidParameterException("Cannot find crosswalk by the given name");
         }
 
-        String searchMark = "";
+        CrosswalkJob job = daoCrosswalkJob.read(name);
+        if (job == null || job.getState() == CrosswalkJob.State.FINISHED) {
+            LOGGER.warn("No process of crosswalk {} to resume", name);
+            return false;
+        }
+        return startJob(crosswalk, job, job);
+    }
 
-        do {
-            Log.info("search more items to process with searchMark " + searchMark);
+    /**
+     * Claim the job against the stored one, so a job is run by one node only, and run it on
+     * the process pool.
+     *
+     * @param stored the job stored when the request came in, null if none
+     */
+    private boolean startJob(Crosswalk crosswalk, CrosswalkJob job, CrosswalkJob stored) throws IOException {
+        // The job to start may be the stored one
+        CrosswalkJob.State storedState = stored != null ? stored.getState() : null;
+        Date storedHeartbeat = stored != null ? stored.getHeartbeat() : null;
+
+        if ((stored != null && isAlive(stored)) || runningJobs.putIfAbsent(job.getName(), job) != null) {
+            LOGGER.warn("Process of crosswalk {} already running", job.getName());
+            return false;
+        }
 
-            final SearchResult<String> result = searchService.search(100, null, crosswalk.getFormatFrom(), from, until, searchMark);
-            Log.info("result total: " + result.getTotal());
-            Log.info("result size: " + result.getSize());
-            
-            if (result.getSize() > 0) {
-                Iterator<String> itemIterator = result.getData().iterator();
-                String itemId = null;
-                while (itemIterator.hasNext()) {
-                    itemId = itemIterator.next();
-                    processCrosswalkForItem(crosswalk, itemId, updateItemTimestamp);
-                }
+        job.setState(CrosswalkJob.State.RUNNING);
+        job.setStopSignalReceived(false);
+        job.setStartTime(ZonedDateTime.now(ZoneOffset.UTC).toString());
+        job.setEndTime(null);
+        job.setHeartbeat(new Date());
+        try {
+            boolean claimed = stored == null ? daoCrosswalkJob.createIfNotExists(job)
+                : daoCrosswalkJob.update(job, storedState, storedHeartbeat);
+            if (!claimed) {
+                LOGGER.warn("Process of crosswalk {} was started by another node", job.getName());
+                runningJobs.remove(job.getName());
+                return false;
             }
+            ThreadPoolManager.getInstance().getProcessPool().execute(() -> runJob(crosswalk, job));
+        } catch (IOException | RuntimeException e) {
+            runningJobs.remove(job.getName());
+            throw e;
+        }
+        return true;
+    }
 
-            searchMark = result.getSearchMark();
-        } while (StringUtils.isNotBlank(searchMark));
+    /**
+     * @return whether the stored job runs on some node, a running job whose heartbeat is too
+     *         old was interrupted
+     */
+    private boolean isAlive(CrosswalkJob stored) {
+        return stored.getState() == CrosswalkJob.State.RUNNING && stored.getHeartbeat() != null
+            && System.currentTimeMillis() - stored.getHeartbeat().getTime() < heartbeatTimeoutMillis;
+    }
+
+    /**
+     * Store the job with a new heartbeat, unless another node has taken it over since the
+     * last checkpoint.
+     *
+     * @return <code>false</code> if the job was taken over
+     */
+    private boolean checkpoint(CrosswalkJob job) throws IOException {
+        Date lastHeartbeat = job.getHeartbeat();
+        job.setHeartbeat(new Date());
+        try {
+            return daoCrosswalkJob.update(job, CrosswalkJob.State.RUNNING, lastHeartbeat);
+        } catch (IOException | RuntimeException e) {
+            job.setHeartbeat(lastHeartbeat);
+            throw e;
+        }
+    }
 
-        Log.info("End process crosswalk for " + name);
+    /**
+     * Process a Crosswalk page by page. After each page the job is stored with the
+     * searchMark of the next page as checkpoint.
+     */
+    private void runJob(Crosswalk crosswalk, CrosswalkJob job) {
+        LOGGER.info("Start process crosswalk {}: updateItemTimestamp {}, from {}, until {}, searchMark {}",
+            job.getName(), job.isUpdateItemTimestamp(), job.getFrom(), job.getUntil(), job.getSearchMark());
 
-        if (updateItemTimestamp) {
-            Log.warn("You have to reindex your search index manually to refresh the items timestamps!");
+        boolean owned = true;
+        try {
+            String searchMark = job.getSearchMark();
+            do {
+                final SearchResult<String> result = searchService.search(processPageSize, null,
+                    crosswalk.getFormatFrom(), job.getFrom(), job.getUntil(), searchMark);
+                job.setTotalCount(result.getTotal());
+
+                if (result.getSize() > 0) {
+                    processPage(crosswalk, job, result.getData());
+                }
+
+                searchMark = result.getSearchMark();
+                job.setSearchMark(searchMark);
+                owned = checkpoint(job);
+                LOGGER.debug("Process crosswalk {}: {} of {} items", job.getName(), job.getProcessedCount(),
+                    job.getTotalCount());
+            } while (owned && StringUtils.isNotBlank(searchMark) && !job.isStopSignalReceived());
+
+            job.setState(StringUtils.isNotBlank(searchMark) ? CrosswalkJob.State.STOPPED : CrosswalkJob.State.FINISHED);
+        } catch (Exception e) {
+            LOGGER.error("Process crosswalk " + job.getName() + " failed", e);
+            job.setState(CrosswalkJob.State.FAILED);
+        } finally {
+            job.setEndTime(ZonedDateTime.now(ZoneOffset.UTC).toString());
+            try {
+                owned = owned && checkpoint(job);
+            } catch (Exception e) {
+                LOGGER.error("Cannot store process of crosswalk " + job.getName(), e);
+            }
+            runningJobs.remove(job.getName());
         }
 
-        return;
+        if (!owned) {
+            LOGGER.warn("Process of crosswalk {} was taken over by another node", job.getName());
+            return;
+        }
+        LOGGER.info("End process crosswalk {}", job);
+
+        if (job.isUpdateItemTimestamp()) {
+            LOGGER.warn("You have to reindex your search index manually to refresh the items timestamps!");
+        }
     }
 
-    private void processCrosswalkForItem(Crosswalk crosswalk, String itemId, boolean updateItemTimestamp)
-            throws IOException {
-        Log.info("processCrosswalkForItem " + itemId);
-        try {
-            // Update content
-            Content content = contentService.read(itemId, crosswalk.getFormatFrom());
-            String newXml = transformerService.transform(content.getContent(), crosswalk.getName());
-            Log.debug("newXml " + newXml);
-            if (StringUtils.isNotBlank(newXml)) {
-                Content crosswalkConten = new Content();
-                crosswalkConten.setContent(newXml);
-                crosswalkConten.setIdentifier(itemId);
-                crosswalkConten.setFormat(crosswalk.getFormatTo());
-                daoContent.create(crosswalkConten); //In Cassandra create and update are the same!
+    /**
+     * Read the source contents of a page at once, transform them on the crosswalk pool and
+     * write each result as soon as it is done.
+     */
+    private void processPage(Crosswalk crosswalk, CrosswalkJob job, List<String> itemIds) throws IOException {
+        List<Content> contents = daoContent.read(itemIds, crosswalk.getFormatFrom());
+
+        // Update item timestamp
+        // Do NOT update the index document here. Otherwise the changed item will popup again during paginated search!
+        // Reindex must be done after all items are processed
+        Map<String, Item> items = new HashMap<>();
+        if (job.isUpdateItemTimestamp()) {
+            for (Item item : daoItem.read(itemIds)) {
+                items.put(item.getIdentifier(), item);
             }
+        }
 
-            // Update item timestamp
-            // Do NOT update the index document here. Otherwise the changed item will popup again during paginated search!
-            // Reindex must be done after all items are processed
-            if (updateItemTimestamp) {
-                Item item = itemService.read(itemId, null, false);
-                String datestamp = Configuration.getDateformat().format(new Date());
-                Log.info("Updateing item datestamp " + datestamp);
-                item.setDatestamp(datestamp);
-                daoItem.create(item); //In Cassandra create and update are the same!
+        long missing = itemIds.size() - contents.size();
+        if (missing > 0) {
+            LOGGER.warn("{} items of the page have no {} content", missing, crosswalk.getFormatFrom());
+            job.addFailedCount(missing);
+            job.addProcessedCount(missing);
+        }
+
+        ExecutorService crosswalkPool = ThreadPoolManager.getInstance().getCrosswalkPool();
+        List<CompletionStage<Item>> writes = new ArrayList<>(contents.size());
+        for (Content content : contents) {
+            writes.add(CompletableFuture.supplyAsync(() -> transform(crosswalk, content), crosswalkPool)
+                .thenCompose(crosswalkContent -> crosswalkContent != null ? daoContent.createAsync(crosswalkContent)
+                    : CompletableFuture.completedFuture(null))
+                .thenCompose(written -> updateDatestamp(items.get(content.getIdentifier()))));
+        }
+
+        for (int i = 0; i < writes.size(); i++) {
+            try {
+                CassandraUtils.await(writes.get(i));
+            } catch (IOException | RuntimeException e) {
+                LOGGER.error("Cannot process crosswalk " + crosswalk.getName() + " for item "
+                    + contents.get(i).getIdentifier(), e);
+                job.addFailedCount(1);
             }
-        } catch (Exception e) {
-            Log.error("Exception", e);
-            throw e;
+            job.addProcessedCount(1);
+        }
+    }
+
+    /**
+     * @return the crosswalk content, null if the transformation result is empty
+     */
+    private Content transform(Crosswalk crosswalk, Content content) {
+        byte[] newXml;
+        try {
+            newXml = transformerService.transform(content.getBytes(), crosswalk.getName());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (Content.isBlank(newXml)) {
+            return null;
+        }
+        Content crosswalkConten = new Content();
+        crosswalkConten.setBytes(newXml);
+        crosswalkConten.setIdentifier(content.getIdentifier());
+        crosswalkConten.setFormat(crosswalk.getFormatTo());
+        return crosswalkConten;
+    }
+
+    private CompletionStage<Item> updateDatestamp(Item item) {
+        if (item == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        item.setDatestampMillis(Datestamps.now());
+        return daoItem.createAsync(item); //In Cassandra create and update are the same!
+    }
+
+    @Override
+    public boolean stopProcess(String name) {
+        CrosswalkJob job = runningJobs.get(name);
+        if (job == null) {
+            return false;
+        }
+        LOGGER.info("Stopping process of crosswalk {}", name);
+        job.setStopSignalReceived(true);
+        return true;
+    }
+
+    @Override
+    public void stopAllProcesses() {
+        for (String name : runningJobs.keySet()) {
+            stopProcess(name);
+        }
+    }
+
+    @Override
+    public String getProcessStatusVerbose(String name) throws IOException {
+        CrosswalkJob job = runningJobs.get(name);
+        // A job stored as running without a recent heartbeat was interrupted by a restart
+        boolean interrupted = false;
+        if (job == null) {
+            job = daoCrosswalkJob.read(name);
+            interrupted = job != null && job.getState() == CrosswalkJob.State.RUNNING && !isAlive(job);
+        }
+
+        if (job == null) {
+            return "Crosswalk " + name + " not processed.";
+        }
+
+        StringBuilder statusString = new StringBuilder();
+        statusString.append("Process of crosswalk ");
+        statusString.append(name);
+        statusString.append(interrupted ? " INTERRUPTED" : " " + job.getState());
+        statusString.append(", started on ");
+        statusString.append(job.getStartTime());
+        if (StringUtils.isNotBlank(job.getEndTime())) {
+            statusString.append(", ended on ");
+            statusString.append(job.getEndTime());
+        }
+        statusString.append(".\n");
+        statusString.append("Processed items ");
+        statusString.append(job.getProcessedCount());
+        statusString.append(" out of ");
+        statusString.append(job.getTotalCount());
+        statusString.append(", failed ");
+        statusString.append(job.getFailedCount());
+        statusString.append(".\n");
+
+        if (interrupted || job.getState() == CrosswalkJob.State.STOPPED || job.getState() == CrosswalkJob.State.FAILED) {
+            statusString.append("Resume with POST /crosswalk/");
+            statusString.append(name);
+            statusString.append("/process/resume.\n");
+            return statusString.toString();
+        }
+
+        statusString.append("Throughput: ");
+        statusString.append(String.format("%.1f", job.getThroughput()));
+        statusString.append(" items/s.\n");
+
+        long secondsLeft = job.getEstimatedSecondsLeft();
+        if (job.getState() == CrosswalkJob.State.RUNNING && secondsLeft >= 0) {
+            statusString.append(String.format("Estimated time left: %d:%02d:%02d.\n", secondsLeft / 3600,
+                (secondsLeft / 60) % 60, secondsLeft % 60));
         }
+        return statusString.toString();
     }
 
 }
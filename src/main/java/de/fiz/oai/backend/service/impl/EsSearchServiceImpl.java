@@ -16,17 +16,21 @@
 package de.fiz.oai.backend.service.impl;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.time.Duration;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.Date;
-import java.util.Iterator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 import javax.inject.Inject;
 import javax.inject.Provider;
@@ -41,6 +45,11 @@ import org.elasticsearch.action.admin.indices.create.CreateIndexResponse;
 import org.elasticsearch.action.admin.indices.delete.DeleteIndexRequest;
 import org.elasticsearch.client.indices.GetIndexResponse;
 import org.elasticsearch.action.admin.indices.refresh.RefreshRequest;
+import org.elasticsearch.action.bulk.BackoffPolicy;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkProcessor;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
 import org.elasticsearch.action.delete.DeleteRequest;
 import org.elasticsearch.action.get.GetRequest;
 import org.elasticsearch.action.get.GetResponse;
@@ -55,10 +64,12 @@ import org.elasticsearch.client.ResponseException;
 import org.elasticsearch.client.RestClient;
 import org.elasticsearch.client.RestHighLevelClient;
 import org.elasticsearch.client.indices.GetIndexRequest;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.index.query.BoolQueryBuilder;
 import org.elasticsearch.index.query.QueryBuilders;
 import org.elasticsearch.search.SearchHit;
-import org.elasticsearch.search.SearchHits;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
 import org.elasticsearch.search.sort.FieldSortBuilder;
 import org.elasticsearch.search.sort.SortBuilders;
@@ -70,13 +81,18 @@ import de.fiz.oai.backend.dao.DAOContent;
 import de.fiz.oai.backend.dao.DAOFormat;
 import de.fiz.oai.backend.dao.DAOItem;
 import de.fiz.oai.backend.dao.DAOSet;
+import de.fiz.oai.backend.dao.ItemScan;
 import de.fiz.oai.backend.models.Item;
+import de.fiz.oai.backend.models.ItemHit;
 import de.fiz.oai.backend.models.SearchResult;
 import de.fiz.oai.backend.models.reindex.ReindexStatus;
 import de.fiz.oai.backend.service.ItemService;
 import de.fiz.oai.backend.service.SearchService;
 import de.fiz.oai.backend.utils.Configuration;
+import de.fiz.oai.backend.utils.Datestamps;
+import de.fiz.oai.backend.utils.MetricsManager;
 import de.fiz.oai.backend.utils.ResourcesUtils;
+import de.fiz.oai.backend.utils.SearchMarkCodec;
 
 @Service
 public class EsSearchServiceImpl implements SearchService {
@@ -87,6 +103,23 @@ public class EsSearchServiceImpl implements SearchService {
 
   int elastisearchPort = Integer.parseInt(Configuration.getInstance().getProperty("elasticsearch.port", "8082"));
 
+  // Items per bulk request and per worker task
+  int reindexBatchSize = Integer.parseInt(Configuration.getInstance().getProperty("reindex.batch.size", "500"));
+
+  int reindexBulkSizeMb = Integer.parseInt(Configuration.getInstance().getProperty("reindex.bulk.size.mb", "10"));
+
+  // Bulk requests in flight, adding documents blocks beyond that
+  int reindexBulkConcurrency = Integer.parseInt(Configuration.getInstance().getProperty("reindex.bulk.concurrency", "2"));
+
+  // Threads computing formats and sets
+  int reindexWorkers = Integer.parseInt(Configuration.getInstance().getProperty("reindex.workers",
+      String.valueOf(Runtime.getRuntime().availableProcessors())));
+
+  // Retries of bulk requests rejected by Elasticsearch, with exponential backoff
+  int reindexBackoffMillis = Integer.parseInt(Configuration.getInstance().getProperty("reindex.backoff.millis", "100"));
+
+  int reindexBackoffRetries = Integer.parseInt(Configuration.getInstance().getProperty("reindex.backoff.retries", "8"));
+
   public static String ITEMS_ALIAS_INDEX_NAME = "items";
 
   public static String ITEMS_MAPPING_V7_FILENAME = "/WEB-INF/classes/elasticsearch/item_mapping_es_v7";
@@ -125,7 +158,8 @@ public class EsSearchServiceImpl implements SearchService {
   public Map<String, Object> readDocument(Item item) throws IOException {
       GetRequest getRequest = new GetRequest(ITEMS_ALIAS_INDEX_NAME, "_doc", item.getIdentifier());
 
-      GetResponse getResponse = elasticsearchClient.get(getRequest, RequestOptions.DEFAULT);
+      GetResponse getResponse = MetricsManager.getInstance().time(MetricsManager.SEARCH_REQUESTS,
+          () -> elasticsearchClient.get(getRequest, RequestOptions.DEFAULT), "operation", "readDocument");
       Map<String, Object> sourceAsMap = getResponse.getSourceAsMap();
 
       return sourceAsMap;
@@ -143,10 +177,38 @@ public class EsSearchServiceImpl implements SearchService {
       LOGGER.info("Added item " + item.getIdentifier() + " to search index.");
   }
 
+  @Override
+  public Map<String, String> createDocuments(List<Item> items) throws IOException {
+      Map<String, String> failures = new HashMap<>();
+      if (items.isEmpty()) {
+          return failures;
+      }
+      BulkRequest bulkRequest = new BulkRequest();
+      for (Item item : items) {
+          bulkRequest.add(toIndexRequest(item, ITEMS_ALIAS_INDEX_NAME));
+      }
+      BulkResponse bulkResponse = MetricsManager.getInstance().time(MetricsManager.SEARCH_REQUESTS,
+          () -> elasticsearchClient.bulk(bulkRequest, RequestOptions.DEFAULT), "operation", "createDocuments");
+      if (bulkResponse.hasFailures()) {
+          for (BulkItemResponse itemResponse : bulkResponse.getItems()) {
+              if (itemResponse.isFailed()) {
+                  failures.put(itemResponse.getId(), itemResponse.getFailureMessage());
+              }
+          }
+      }
+      LOGGER.info("Added {} items to search index, {} failed.", items.size() - failures.size(), failures.size());
+      return failures;
+  }
+
 
 
   
   private void indexDocument(Item item, String indexName, RestHighLevelClient client) throws IOException {
+	    MetricsManager.getInstance().time(MetricsManager.SEARCH_REQUESTS,
+	        () -> client.index(toIndexRequest(item, indexName), RequestOptions.DEFAULT), "operation", "createDocument");
+	  }
+
+  private IndexRequest toIndexRequest(Item item, String indexName) {
       Map<String, Object> itemMap = item.toMap();
 
 	    IndexRequest indexRequest = new IndexRequest();
@@ -154,8 +216,7 @@ public class EsSearchServiceImpl implements SearchService {
 	    indexRequest.type("_doc");
 	    indexRequest.source(itemMap);
 	    indexRequest.id(item.getIdentifier());
-
-	    client.index(indexRequest, RequestOptions.DEFAULT);
+	    return indexRequest;
 	  }
   
   /**
@@ -174,7 +235,8 @@ public class EsSearchServiceImpl implements SearchService {
       updateRequest.id(item.getIdentifier());
       updateRequest.doc(itemMap);
 
-      elasticsearchClient.update(updateRequest, RequestOptions.DEFAULT);
+      MetricsManager.getInstance().time(MetricsManager.SEARCH_REQUESTS,
+          () -> elasticsearchClient.update(updateRequest, RequestOptions.DEFAULT), "operation", "updateDocument");
       LOGGER.info("Updated item " + item.getIdentifier() + " in search index.");
   }
   
@@ -189,12 +251,31 @@ public class EsSearchServiceImpl implements SearchService {
       request.type("_doc");
       request.id(item.getIdentifier());
 
-      elasticsearchClient.delete(request, RequestOptions.DEFAULT);
+      MetricsManager.getInstance().time(MetricsManager.SEARCH_REQUESTS,
+          () -> elasticsearchClient.delete(request, RequestOptions.DEFAULT), "operation", "deleteDocument");
   }
 
   @Override
   public SearchResult<String> search(Integer rows, String set, String format, Date fromDate, Date untilDate,
       String searchMark) throws IOException {
+    SearchResult<ItemHit> hitResult = search(rows, set, format, fromDate, untilDate, searchMark, false);
+
+    SearchResult<String> idResult = new SearchResult<>();
+    idResult.setSize(hitResult.getSize());
+    idResult.setTotal(hitResult.getTotal());
+    idResult.setData(hitResult.getData().stream().map(ItemHit::getIdentifier).collect(Collectors.toList()));
+    idResult.setSearchMark(hitResult.getSearchMark());
+    return idResult;
+  }
+
+  @Override
+  public SearchResult<ItemHit> searchHits(Integer rows, String set, String format, Date fromDate, Date untilDate,
+      String searchMark) throws IOException {
+    return search(rows, set, format, fromDate, untilDate, searchMark, true);
+  }
+
+  private SearchResult<ItemHit> search(Integer rows, String set, String format, Date fromDate, Date untilDate,
+      String searchMark, boolean withSource) throws IOException {
 
     if (LOGGER.isDebugEnabled()) {
         LOGGER.debug("rows: {}", rows);
@@ -205,19 +286,11 @@ public class EsSearchServiceImpl implements SearchService {
     try {
       final BoolQueryBuilder queryBuilder = new BoolQueryBuilder();
 
-      Date finalFromDate = new SimpleDateFormat("yyyy-MM-dd").parse("0001-01-01");
-      Date finalUntilDate = new SimpleDateFormat("yyyy-MM-dd").parse("9999-12-31");
-
-      if (fromDate != null) {
-        finalFromDate = fromDate;
-      }
-      if (untilDate != null) {
-        finalUntilDate = untilDate;
-      }
+      long finalFromDate = fromDate != null ? fromDate.getTime() : Datestamps.MIN;
+      long finalUntilDate = untilDate != null ? untilDate.getTime() : Datestamps.MAX;
 
-      queryBuilder
-          .filter(QueryBuilders.rangeQuery("datestamp").from(Configuration.getDateformat().format(finalFromDate))
-              .to(Configuration.getDateformat().format(finalUntilDate)));
+      queryBuilder.filter(QueryBuilders.rangeQuery("datestamp").from(Datestamps.format(finalFromDate))
+          .to(Datestamps.format(finalUntilDate)));
       queryBuilder.filter(QueryBuilders.termQuery("formats", format));
 
       if (StringUtils.isNotBlank(set)) {
@@ -231,26 +304,17 @@ public class EsSearchServiceImpl implements SearchService {
       searchSourceBuilder.query(queryBuilder);
       searchSourceBuilder.sort(datestampBuilder);
       searchSourceBuilder.sort(identifierBuilder);
-      searchSourceBuilder.size(rows);
-      searchSourceBuilder.fetchSource(false);
+      // One hit more than requested tells whether there is a next page
+      searchSourceBuilder.size(rows + 1);
+      if (withSource) {
+        searchSourceBuilder.fetchSource(ItemHit.FIELDS, null);
+      } else {
+        searchSourceBuilder.fetchSource(false);
+      }
       searchSourceBuilder.trackTotalHits(true);
 
-      
       if (StringUtils.isNotBlank(searchMark)) {
-        Item lastItem = daoItem.read(searchMark);
-        
-        //Read the timestamp from the Index!!! Reading the timestamp from the cassandra item can return adifferent value 
-        //and than search_after will not work any more
-        Map<String,Object> itemDoc = readDocument(lastItem);
-        LOGGER.info("itemDoc: " + itemDoc);
-        
-        Long timestamp = null;
-        try {
-          timestamp = Configuration.getDateformat().parse((String)itemDoc.get("datestamp")).getTime();
-        } catch (ParseException e) {
-          LOGGER.warn(e.getMessage());
-        }
-        searchSourceBuilder.searchAfter(new Object[] { timestamp, lastItem.getIdentifier() });
+        searchSourceBuilder.searchAfter(searchAfter(searchMark));
         searchSourceBuilder.from(0);
       }
 
@@ -259,55 +323,30 @@ public class EsSearchServiceImpl implements SearchService {
 
       LOGGER.debug("searchRequest: {}", searchRequest.toString());
 
-      SearchResponse searchResponse = elasticsearchClient.search(searchRequest, RequestOptions.DEFAULT);
+      SearchResponse searchResponse = MetricsManager.getInstance().time(MetricsManager.SEARCH_REQUESTS,
+          () -> elasticsearchClient.search(searchRequest, RequestOptions.DEFAULT), "operation", "search");
 
       LOGGER.debug("searchResponse: {}", searchResponse.toString());
       
-      SearchHits searchHits = searchResponse.getHits();
-      Iterator<SearchHit> iterator = searchHits.iterator();
-      List<String> idsRetrieved = new ArrayList<>();
+      SearchHit[] searchHits = searchResponse.getHits().getHits();
+      List<ItemHit> hitsRetrieved = new ArrayList<>();
 
-      while (iterator.hasNext()) {
-        SearchHit searchHit = iterator.next();
-        idsRetrieved.add(searchHit.getId());
+      for (int i = 0; i < searchHits.length && i < rows; i++) {
+        SearchHit searchHit = searchHits[i];
+        hitsRetrieved.add(withSource ? ItemHit.fromDocument(searchHit.getId(), searchHit.getSourceAsMap())
+            : new ItemHit(searchHit.getId()));
       }
 
-      SearchResult<String> idResult = new SearchResult<>();
-      idResult.setSize(idsRetrieved.size());
+      SearchResult<ItemHit> idResult = new SearchResult<>();
+      idResult.setSize(hitsRetrieved.size());
       idResult.setTotal(searchResponse.getHits().getTotalHits().value);
-      idResult.setData(idsRetrieved);
+      idResult.setData(hitsRetrieved);
 
-      // Send the searchMark if there are elements after it
-      String newSearchMark = null;
-      if (idsRetrieved.size() > 0) {
-        newSearchMark = idsRetrieved.get(idsRetrieved.size() - 1);
-        idResult.setSearchMark(newSearchMark);
-      }
-      Item newLastItem = null;
-      if (StringUtils.isNotBlank(newSearchMark)) {
-
-        newLastItem = daoItem.read(newSearchMark);
-        LOGGER.info("searchSourceBuilder: {}", searchSourceBuilder);
-        LOGGER.info("searchMark: {}", newSearchMark);
-        LOGGER.info("newLastItem: {}", newLastItem);
-
-        Long timestamp = null;
-        try {
-          timestamp = Configuration.getDateformat().parse(newLastItem.getDatestamp()).getTime();
-        } catch (ParseException e) {
-          e.printStackTrace();
-        }
-        searchSourceBuilder.searchAfter(new Object[] { timestamp, newLastItem.getIdentifier() });
-        searchRequest.source(searchSourceBuilder);
-
-        if (LOGGER.isDebugEnabled()) {
-            LOGGER.debug("newSearchMark: {}", newSearchMark);
-            LOGGER.debug("searchRequest next elements?: {}", searchRequest.toString());
-        }
-        searchResponse = elasticsearchClient.search(searchRequest, RequestOptions.DEFAULT);
-        if (searchResponse.getHits().getHits().length == 0) {
-          idResult.setSearchMark(null);
-        }
+      // Send the searchMark if there are elements after it, made of the sort values of the last hit
+      if (searchHits.length > rows && rows > 0) {
+        Object[] sortValues = searchHits[rows - 1].getSortValues();
+        idResult.setSearchMark(SearchMarkCodec.encode(String.valueOf(sortValues[0]), String.valueOf(sortValues[1])));
+        LOGGER.debug("newSearchMark: {}", idResult.getSearchMark());
       }
 
       return idResult;
@@ -318,6 +357,29 @@ public class EsSearchServiceImpl implements SearchService {
 
   }
 
+  /**
+   * The search_after values of a searchMark: the datestamp in milliseconds and the
+   * identifier of the last hit of the previous page.
+   */
+  private Object[] searchAfter(String searchMark) throws IOException, ParseException {
+    if (SearchMarkCodec.isEncoded(searchMark)) {
+      String[] values = SearchMarkCodec.decode(searchMark, 2);
+      return new Object[] { Long.parseLong(values[0]), values[1] };
+    }
+
+    // A searchMark handed out before, the plain identifier of the last hit. Read the timestamp
+    // from the index, the one of the Cassandra item can differ and search_after would not work.
+    LOGGER.info("Resolving legacy searchMark {}", searchMark);
+    Item lastItem = new Item();
+    lastItem.setIdentifier(searchMark);
+    Map<String, Object> itemDoc = readDocument(lastItem);
+    if (itemDoc == null) {
+      throw new IOException("Invalid searchMark: " + searchMark);
+    }
+    long timestamp = Datestamps.parse((String) itemDoc.get("datestamp"));
+    return new Object[] { timestamp, searchMark };
+  }
+
   @SuppressWarnings("deprecation")
   @Override
   public boolean createIndex(final String indexName, final String mapping) throws IOException {
@@ -409,6 +471,7 @@ public class EsSearchServiceImpl implements SearchService {
     reindexStatus.setAliasName(ITEMS_ALIAS_INDEX_NAME);
     LOGGER.info("REINDEX status: Alias name: {}", reindexStatus.getAliasName());
 
+    final ReindexStatus status = reindexStatus;
     reindexAllFuture = CompletableFuture.supplyAsync(() -> {
 
       try {
@@ -428,7 +491,7 @@ public class EsSearchServiceImpl implements SearchService {
     		  int pickedNumIndexFound = Integer.parseInt(suffixIndex);
     		  if (pickedNumIndexFound > maximumIndexFound) {
     			maximumIndexFound = pickedNumIndexFound;
-    			reindexStatus.setOriginalIndexName(pickedIndex);
+    			status.setOriginalIndexName(pickedIndex);
     		  }
     		}
     	  }
@@ -438,12 +501,12 @@ public class EsSearchServiceImpl implements SearchService {
     	final StringBuilder newIndexName = new StringBuilder();
     	newIndexName.append(ITEMS_ALIAS_INDEX_NAME);
     	newIndexName.append(String.valueOf(newIndexVersion));
-    	reindexStatus.setNewIndexName(newIndexName.toString());
-    	LOGGER.info("REINDEX status: New index name: {}", reindexStatus.getNewIndexName());
+    	status.setNewIndexName(newIndexName.toString());
+    	LOGGER.info("REINDEX status: New index name: {}", status.getNewIndexName());
 
-    	if (StringUtils.isBlank(reindexStatus.getNewIndexName())) {
-    	  LOGGER.error("Not able to determine index names: original (" + reindexStatus.getOriginalIndexName()
-    	  + ") or new (" + reindexStatus.getNewIndexName() + ")");
+    	if (StringUtils.isBlank(status.getNewIndexName())) {
+    	  LOGGER.error("Not able to determine index names: original (" + status.getOriginalIndexName()
+    	  + ") or new (" + status.getNewIndexName() + ")");
     	  return false;
     	}
 
@@ -455,75 +518,53 @@ public class EsSearchServiceImpl implements SearchService {
     	
     	RestClient lowLevelClient = elasticsearchClient.getLowLevelClient();
     	
-        if (StringUtils.isBlank(reindexStatus.getOriginalIndexName())) {
+        if (StringUtils.isBlank(status.getOriginalIndexName())) {
         	LOGGER.warn("No previous indices found.");
-        	reindexStatus.setOriginalIndexName(ITEMS_ALIAS_INDEX_NAME + "0");
-        	if (!createIndex(reindexStatus.getOriginalIndexName(), mapping)) {
-                LOGGER.error("REINDEX status: Something went wrong while creating the first index " + reindexStatus.getOriginalIndexName());
+        	status.setOriginalIndexName(ITEMS_ALIAS_INDEX_NAME + "0");
+        	if (!createIndex(status.getOriginalIndexName(), mapping)) {
+                LOGGER.error("REINDEX status: Something went wrong while creating the first index " + status.getOriginalIndexName());
                 return false;
             }
         	Request requestNewAlias = new Request("POST", "/_aliases");
             requestNewAlias.setJsonEntity(
-                "{\n" + "    \"actions\" : [\n" + "        { \"add\" : { \"index\" : \"" + reindexStatus.getOriginalIndexName()
+                "{\n" + "    \"actions\" : [\n" + "        { \"add\" : { \"index\" : \"" + status.getOriginalIndexName()
                     + "\", \"alias\" : \"" + ITEMS_ALIAS_INDEX_NAME + "\" } }\n" + "    ]\n" + "}");
             lowLevelClient.performRequest(requestNewAlias);
         }
         
-        if (!createIndex(reindexStatus.getNewIndexName(), mapping)) {
+        if (!createIndex(status.getNewIndexName(), mapping)) {
           LOGGER.error(
-              "REINDEX status: Something went wrong while creating the new index " + reindexStatus.getNewIndexName());
-          return false;
-        }
-
-        reindexStatus.setTotalCount(daoItem.getCount());
-        reindexStatus.setItemResultSet(daoItem.getAllItemsResultSet());
-        LOGGER.info("REINDEX status: Total Items count: {}", reindexStatus.getTotalCount());
-
-        if (reindexStatus.getTotalCount() < 1) {
-          LOGGER.warn("No items to reindex {}", reindexStatus.getNewIndexName());
+              "REINDEX status: Something went wrong while creating the new index " + status.getNewIndexName());
           return false;
         }
 
-        reindexStatus.setIndexedCount(0);
-        LOGGER.info("REINDEX status: Indexed Items count: {}", reindexStatus.getIndexedCount());
-
-        reindexStatus.setStartTime(ZonedDateTime.now(ZoneOffset.UTC).toString());
-        LOGGER.info("REINDEX status: Start Time: {}", reindexStatus.getStartTime());
+        // Only needed for the progress, the exact count is known at the end of the scan
+        long countEstimate = daoItem.getCountEstimate();
+        status.setTotalCount(countEstimate);
+        LOGGER.info("REINDEX status: Total Items count (estimated): {}", status.getTotalCount());
 
-        Item mostRecentItem = null;
+        status.setIndexedCount(0);
+        LOGGER.info("REINDEX status: Indexed Items count: {}", status.getIndexedCount());
 
-        do {
-          List<Item> bufferListItems = daoItem.getItemsFromResultSet(reindexStatus.getItemResultSet(), 100);
+        status.setStartTime(ZonedDateTime.now(ZoneOffset.UTC).toString());
+        LOGGER.info("REINDEX status: Start Time: {}", status.getStartTime());
 
-          for (final Item pickedItem : bufferListItems) {
-            try {
-                LOGGER.debug("Reindex now " + pickedItem.getIdentifier());
-                
-            	itemService.addFormatsAndSets(pickedItem);
-                indexDocument(pickedItem, reindexStatus.getNewIndexName(), elasticsearchClient);
-                reindexStatus.setIndexedCount(reindexStatus.getIndexedCount() + 1);
-                // Keep the most recent Item
-                if (mostRecentItem == null) {
-                  mostRecentItem = pickedItem;
-                } else {
-                    if (Configuration.getDateformat().parse(mostRecentItem.getDatestamp())
-                        .before(Configuration.getDateformat().parse(pickedItem.getDatestamp()))) {
-                      mostRecentItem = pickedItem;
-                    }
-                }
-            } catch (Exception e) {
-                // leave mostRecentItem as it is
-                  LOGGER.error("Reindex fails for " + pickedItem.getIdentifier() , e);
-            }
-          }
+        long scannedCount = indexAll(itemService, status);
+        status.setTotalCount(scannedCount);
+        if (!status.isStopSignalReceived()) {
+          itemService.correctCount(scannedCount, countEstimate);
+        }
+        LOGGER.info("REINDEX status: " + status.getIndexedCount() + " indexed and " + status.getFailedCount()
+            + " failed out of " + scannedCount + ", " + String.format("%.1f", status.getThroughput()) + " items/s.");
 
-          LOGGER.info("REINDEX status: " + reindexStatus.getIndexedCount() + " indexed out of "
-              + reindexStatus.getTotalCount() + ".");
-        } while (reindexStatus.getIndexedCount() < reindexStatus.getTotalCount()
-            && !reindexStatus.isStopSignalReceived());
+        if (scannedCount < 1 && !status.isStopSignalReceived()) {
+          LOGGER.warn("No items to reindex {}", status.getNewIndexName());
+          dropIndex(status.getNewIndexName());
+          return false;
+        }
 
         // If in the meanwhile some new object has been inserted, reindex the new Items
-        if (!reindexStatus.isStopSignalReceived()) {
+        if (!status.isStopSignalReceived()) {
 
           // Switch alias from old index to new one
           LOGGER.info("REINDEX status: Remove all old aliases of {}", ITEMS_ALIAS_INDEX_NAME);
@@ -550,10 +591,10 @@ public class EsSearchServiceImpl implements SearchService {
           }
 
           LOGGER.info("REINDEX status: Add new alias " + ITEMS_ALIAS_INDEX_NAME + " to index "
-              + reindexStatus.getNewIndexName());
+              + status.getNewIndexName());
           Request requestNewAlias = new Request("POST", "/_aliases");
           requestNewAlias.setJsonEntity(
-              "{\n" + "    \"actions\" : [\n" + "        { \"add\" : { \"index\" : \"" + reindexStatus.getNewIndexName()
+              "{\n" + "    \"actions\" : [\n" + "        { \"add\" : { \"index\" : \"" + status.getNewIndexName()
                   + "\", \"alias\" : \"" + ITEMS_ALIAS_INDEX_NAME + "\" } }\n" + "    ]\n" + "}");
           LOGGER.info("REINDEX status: execute new alias");
           Response responseNewAlias = lowLevelClient.performRequest(requestNewAlias);
@@ -562,28 +603,29 @@ public class EsSearchServiceImpl implements SearchService {
 
           if (responseNewAlias.getStatusLine().getStatusCode() < 300) {
             // Delete old index
-            dropIndex(reindexStatus.getOriginalIndexName());
+            dropIndex(status.getOriginalIndexName());
           }
         } else {
           // Stop signal received, log all the informations
           LOGGER.warn("REINDEX status: stop signal received. Current reindex status so far:");
-          LOGGER.warn("REINDEX status: Alias: {}", reindexStatus.getAliasName());
-          LOGGER.warn("REINDEX status: New index (to drop): {}", reindexStatus.getNewIndexName());
-          LOGGER.warn("REINDEX status: Previous index: {}", reindexStatus.getOriginalIndexName());
-          LOGGER.warn("REINDEX status: Count total: {}", reindexStatus.getTotalCount());
-          LOGGER.warn("REINDEX status: Count indexed: {}", reindexStatus.getIndexedCount());
-          LOGGER.warn("REINDEX status: Start time: {}", reindexStatus.getStartTime());
-          dropIndex(reindexStatus.getNewIndexName());
+          LOGGER.warn("REINDEX status: Alias: {}", status.getAliasName());
+          LOGGER.warn("REINDEX status: New index (to drop): {}", status.getNewIndexName());
+          LOGGER.warn("REINDEX status: Previous index: {}", status.getOriginalIndexName());
+          LOGGER.warn("REINDEX status: Count total: {}", status.getTotalCount());
+          LOGGER.warn("REINDEX status: Count indexed: {}", status.getIndexedCount());
+          LOGGER.warn("REINDEX status: Count failed: {}", status.getFailedCount());
+          LOGGER.warn("REINDEX status: Start time: {}", status.getStartTime());
+          dropIndex(status.getNewIndexName());
         }
 
       } catch (IOException e) {
         LOGGER.error(
-            "REINDEX status: Something went wrong while processing the new index " + reindexStatus.getNewIndexName(),
+            "REINDEX status: Something went wrong while processing the new index " + status.getNewIndexName(),
             e);
         return false;
       } finally {
-        reindexStatus.setEndTime(ZonedDateTime.now(ZoneOffset.UTC).toString());
-        LOGGER.info("REINDEX status: End Time: {}", reindexStatus.getEndTime());
+        status.setEndTime(ZonedDateTime.now(ZoneOffset.UTC).toString());
+        LOGGER.info("REINDEX status: End Time: {}", status.getEndTime());
       }
       return true;
 
@@ -592,6 +634,111 @@ public class EsSearchServiceImpl implements SearchService {
     return true;
   }
 
+  /**
+   * Index all items into the new index of the status.
+   * <p>
+   * The calling thread takes the items of a token range scan of oai_item page by page
+   * and hands every page to a pool of reindex.workers threads, which compute formats and
+   * sets and add the documents to a BulkProcessor. When all workers are busy and their queue is full the calling thread
+   * runs the page itself, and the BulkProcessor blocks once reindex.bulk.concurrency bulk
+   * requests are in flight, so the scan never runs ahead of Elasticsearch. Bulk requests
+   * rejected by Elasticsearch are retried with an exponential backoff.
+   *
+   * @return the number of items read from Cassandra
+   */
+  private long indexAll(final ItemService itemService, final ReindexStatus status) throws IOException {
+    BulkProcessor bulkProcessor = BulkProcessor
+        .builder((request, bulkListener) -> elasticsearchClient.bulkAsync(request, RequestOptions.DEFAULT, bulkListener),
+            new ReindexBulkListener(status), "reindex")
+        .setBulkActions(reindexBatchSize)
+        .setBulkSize(new ByteSizeValue(reindexBulkSizeMb, ByteSizeUnit.MB))
+        .setConcurrentRequests(reindexBulkConcurrency)
+        .setFlushInterval(TimeValue.timeValueSeconds(10))
+        .setBackoffPolicy(
+            BackoffPolicy.exponentialBackoff(TimeValue.timeValueMillis(reindexBackoffMillis), reindexBackoffRetries))
+        .build();
+
+    ThreadPoolExecutor workers = new ThreadPoolExecutor(reindexWorkers, reindexWorkers, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<Runnable>(reindexWorkers * 2), new ThreadPoolExecutor.CallerRunsPolicy());
+
+    long scannedCount = 0;
+    try (ItemScan scan = daoItem.scan(null)) {
+      List<Item> page = scan.next(reindexBatchSize);
+      while (!page.isEmpty() && !status.isStopSignalReceived()) {
+        scannedCount += page.size();
+        final List<Item> items = page;
+        workers.execute(() -> indexItems(itemService, items, status, bulkProcessor));
+        page = scan.next(reindexBatchSize);
+      }
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    } finally {
+      workers.shutdown();
+      try {
+        workers.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        bulkProcessor.awaitClose(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException("Interrupted while waiting for the reindex workers", e);
+      }
+    }
+    return scannedCount;
+  }
+
+  private void indexItems(ItemService itemService, List<Item> items, ReindexStatus status,
+      BulkProcessor bulkProcessor) {
+    for (final Item pickedItem : items) {
+      if (status.isStopSignalReceived()) {
+        return;
+      }
+      try {
+        LOGGER.debug("Reindex now " + pickedItem.getIdentifier());
+        itemService.addFormatsAndSets(pickedItem);
+        bulkProcessor.add(toIndexRequest(pickedItem, status.getNewIndexName()));
+      } catch (Exception e) {
+        status.addFailedCount(1);
+        LOGGER.error("Reindex fails for " + pickedItem.getIdentifier(), e);
+      }
+    }
+  }
+
+  /**
+   * Counts the outcome of the reindex bulk requests.
+   */
+  private static final class ReindexBulkListener implements BulkProcessor.Listener {
+
+    private final ReindexStatus status;
+
+    ReindexBulkListener(ReindexStatus status) {
+      this.status = status;
+    }
+
+    @Override
+    public void beforeBulk(long executionId, BulkRequest request) {
+    }
+
+    @Override
+    public void afterBulk(long executionId, BulkRequest request, BulkResponse response) {
+      long failed = 0;
+      for (BulkItemResponse itemResponse : response) {
+        if (itemResponse.isFailed()) {
+          failed++;
+          LOGGER.error("Reindex fails for " + itemResponse.getId() + ": " + itemResponse.getFailureMessage());
+        }
+      }
+      status.addIndexedCount(response.getItems().length - failed);
+      status.addFailedCount(failed);
+      LOGGER.info("REINDEX status: " + status.getIndexedCount() + " indexed out of " + status.getTotalCount() + ", "
+          + status.getFailedCount() + " failed.");
+    }
+
+    @Override
+    public void afterBulk(long executionId, BulkRequest request, Throwable failure) {
+      status.addFailedCount(request.numberOfActions());
+      LOGGER.error("REINDEX status: bulk request of " + request.numberOfActions() + " items failed", failure);
+    }
+  }
+
   @Override
   public String getReindexStatusVerbose() {
     StringBuilder statusString = new StringBuilder();
@@ -618,7 +765,12 @@ public class EsSearchServiceImpl implements SearchService {
       statusString.append(reindexStatus.getIndexedCount());
       statusString.append(" out of ");
       statusString.append(reindexStatus.getTotalCount());
+      statusString.append(", failed ");
+      statusString.append(reindexStatus.getFailedCount());
       statusString.append(".\n");
+      statusString.append("Throughput: ");
+      statusString.append(String.format("%.1f", reindexStatus.getThroughput()));
+      statusString.append(" items/s.\n");
 
       double percProgress = 0;
       if (reindexStatus.getIndexedCount() > 0 && reindexStatus.getTotalCount() > 0) {
@@ -28,12 +28,16 @@ import de.fiz.oai.backend.dao.DAOFormat;
 import de.fiz.oai.backend.exceptions.AlreadyExistsException;
 import de.fiz.oai.backend.models.Format;
 import de.fiz.oai.backend.service.FormatService;
+import de.fiz.oai.backend.service.MetadataCache;
 
 @Service
 public class FormatServiceImpl implements FormatService {
 
   @Inject
   private DAOFormat daoFormat;
+
+  @Inject
+  private MetadataCache metadataCache;
   
   @Override
   public Format read(String metadataPrefix) throws IOException {
@@ -52,6 +56,7 @@ public class FormatServiceImpl implements FormatService {
 	}
 		
     Format newFormat = daoFormat.create(format);
+    metadataCache.invalidateFormats();
     return newFormat;
   }
 
@@ -65,6 +70,7 @@ public class FormatServiceImpl implements FormatService {
     
     //In Cassandra create and update are the same
     Format updatedFormat = daoFormat.create(format);
+    metadataCache.invalidateFormats();
     return updatedFormat;
   }
   
@@ -77,6 +83,7 @@ public class FormatServiceImpl implements FormatService {
   @Override
   public void delete(String metadataPrefix) throws IOException {
     daoFormat.delete(metadataPrefix);
+    metadataCache.invalidateFormats();
   }
 
 }
@@ -0,0 +1,269 @@
+/*
+ * Copyright 2019 FIZ Karlsruhe - Leibniz-Institut fuer Informationsinfrastruktur GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.fiz.oai.backend.service.impl;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Collectors;
+
+import org.apache.commons.lang3.StringUtils;
+import org.jvnet.hk2.annotations.Service;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.fiz.oai.backend.models.Item;
+import de.fiz.oai.backend.models.ItemHit;
+import de.fiz.oai.backend.models.SearchResult;
+import de.fiz.oai.backend.service.SearchService;
+import de.fiz.oai.backend.utils.Datestamps;
+import de.fiz.oai.backend.utils.SearchMarkCodec;
+
+/**
+ * A search index held in memory, for load tests of the application without Elasticsearch
+ * or Solr. Documents are sorted by datestamp and identifier and searchMarks are built like
+ * the ones of {@link EsSearchServiceImpl}.
+ * <p>
+ * A search walks all documents of its datestamp range to count the total, it is not meant
+ * to measure search itself.
+ */
+@Service
+public class InMemorySearchServiceImpl implements SearchService {
+
+  private static Logger LOGGER = LoggerFactory.getLogger(InMemorySearchServiceImpl.class);
+
+  private final Map<String, SortKey> keys = new ConcurrentHashMap<>();
+
+  private final ConcurrentSkipListMap<SortKey, Map<String, Object>> documents = new ConcurrentSkipListMap<>();
+
+  @Override
+  public boolean createIndex(String indexName, String mapping) {
+    return true;
+  }
+
+  @Override
+  public void dropIndex(String indexName) {
+    keys.clear();
+    documents.clear();
+  }
+
+  @Override
+  public boolean reindexAll() {
+    LOGGER.warn("Reindex is not supported by the in-memory search index");
+    return false;
+  }
+
+  @Override
+  public String getReindexStatusVerbose() {
+    return "Reindex process not supported by the in-memory search index.";
+  }
+
+  @Override
+  public boolean stopReindexAll(int stopAttempts, int millisecondsAttemptsDelay) {
+    return true;
+  }
+
+  @Override
+  public void createDocument(Item item) throws IOException {
+    if (!indexDocument(item)) {
+      throw new IOException("Invalid datestamp of item " + item.getIdentifier() + ": " + item.getDatestamp());
+    }
+  }
+
+  @Override
+  public Map<String, String> createDocuments(List<Item> items) {
+    Map<String, String> failures = new HashMap<>();
+    for (Item item : items) {
+      if (!indexDocument(item)) {
+        failures.put(item.getIdentifier(), "Invalid datestamp: " + item.getDatestamp());
+      }
+    }
+    return failures;
+  }
+
+  /**
+   * @return false if the datestamp of the item is invalid
+   */
+  private boolean indexDocument(Item item) {
+    Long millis = item.getDatestampMillis();
+    if (millis == null) {
+      return false;
+    }
+    SortKey key = new SortKey(millis, item.getIdentifier());
+    Map<String, Object> document = item.toMap();
+    keys.compute(item.getIdentifier(), (identifier, oldKey) -> {
+      if (oldKey != null) {
+        documents.remove(oldKey);
+      }
+      documents.put(key, document);
+      return key;
+    });
+    return true;
+  }
+
+  @Override
+  public void updateDocument(Item item) throws IOException {
+    createDocument(item);
+  }
+
+  @Override
+  public void deleteDocument(Item item) {
+    keys.computeIfPresent(item.getIdentifier(), (identifier, oldKey) -> {
+      documents.remove(oldKey);
+      return null;
+    });
+  }
+
+  @Override
+  public Map<String, Object> readDocument(Item item) {
+    SortKey key = keys.get(item.getIdentifier());
+    Map<String, Object> document = key != null ? documents.get(key) : null;
+    return document != null ? new HashMap<>(document) : null;
+  }
+
+  @Override
+  public SearchResult<String> search(Integer rows, String set, String format, Date fromDate, Date untilDate,
+      String searchMark) throws IOException {
+    SearchResult<ItemHit> hitResult = searchHits(rows, set, format, fromDate, untilDate, searchMark);
+
+    SearchResult<String> idResult = new SearchResult<>();
+    idResult.setSize(hitResult.getSize());
+    idResult.setTotal(hitResult.getTotal());
+    idResult.setData(hitResult.getData().stream().map(ItemHit::getIdentifier).collect(Collectors.toList()));
+    idResult.setSearchMark(hitResult.getSearchMark());
+    return idResult;
+  }
+
+  @Override
+  public SearchResult<ItemHit> searchHits(Integer rows, String set, String format, Date fromDate, Date untilDate,
+      String searchMark) throws IOException {
+    // Datestamps are compared in seconds, as the datestamp query of Elasticsearch does
+    long from = toSeconds(fromDate != null ? fromDate.getTime() : Datestamps.MIN);
+    long until = toSeconds(untilDate != null ? untilDate.getTime() : Datestamps.MAX) + 999;
+    SortKey after = StringUtils.isNotBlank(searchMark) ? searchAfter(searchMark) : null;
+
+    NavigableMap<SortKey, Map<String, Object>> range = documents.subMap(new SortKey(from, ""), true,
+        new SortKey(until, null), true);
+
+    long total = 0;
+    List<ItemHit> hits = new ArrayList<>();
+    SortKey lastKey = null;
+    boolean more = false;
+    for (Map.Entry<SortKey, Map<String, Object>> entry : range.entrySet()) {
+      Map<String, Object> document = entry.getValue();
+      if (!contains(document.get("formats"), format)
+          || (StringUtils.isNotBlank(set) && !contains(document.get("sets"), set))) {
+        continue;
+      }
+      total++;
+      if (after != null && entry.getKey().compareTo(after) <= 0) {
+        continue;
+      }
+      if (hits.size() < rows) {
+        hits.add(ItemHit.fromDocument(entry.getKey().identifier, document));
+        lastKey = entry.getKey();
+      } else {
+        more = true;
+      }
+    }
+
+    SearchResult<ItemHit> result = new SearchResult<>();
+    result.setSize(hits.size());
+    result.setTotal(total);
+    result.setData(hits);
+    if (more && lastKey != null) {
+      result.setSearchMark(SearchMarkCodec.encode(String.valueOf(lastKey.millis), lastKey.identifier));
+    }
+    return result;
+  }
+
+  private static long toSeconds(long millis) {
+    return millis - Math.floorMod(millis, 1000L);
+  }
+
+  private static boolean contains(Object values, String value) {
+    if (values instanceof Collection<?>) {
+      return ((Collection<?>) values).contains(value);
+    }
+    return value != null && value.equals(values);
+  }
+
+  private SortKey searchAfter(String searchMark) throws IOException {
+    if (SearchMarkCodec.isEncoded(searchMark)) {
+      try {
+        String[] values = SearchMarkCodec.decode(searchMark, 2);
+        return new SortKey(Long.parseLong(values[0]), values[1]);
+      } catch (IllegalArgumentException e) {
+        throw new IOException("Invalid searchMark: " + searchMark, e);
+      }
+    }
+
+    // A searchMark handed out before, the plain identifier of the last hit
+    SortKey key = keys.get(searchMark);
+    if (key == null) {
+      throw new IOException("Invalid searchMark: " + searchMark);
+    }
+    return key;
+  }
+
+  @Override
+  public void commit() {
+    // Documents are visible as soon as they are added
+  }
+
+  /**
+   * The sort values of a document. A null identifier sorts after all identifiers of the
+   * same datestamp.
+   */
+  private static class SortKey implements Comparable<SortKey> {
+
+    private static final Comparator<SortKey> ORDER = Comparator.<SortKey>comparingLong(key -> key.millis)
+        .thenComparing(key -> key.identifier, Comparator.nullsLast(Comparator.naturalOrder()));
+
+    private final long millis;
+
+    private final String identifier;
+
+    SortKey(long millis, String identifier) {
+      this.millis = millis;
+      this.identifier = identifier;
+    }
+
+    @Override
+    public int compareTo(SortKey other) {
+      return ORDER.compare(this, other);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      return other instanceof SortKey && compareTo((SortKey) other) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+      return Long.hashCode(millis) * 31 + (identifier != null ? identifier.hashCode() : 0);
+    }
+  }
+
+}
@@ -0,0 +1,476 @@
+/*
+ * Copyright 2019 FIZ Karlsruhe - Leibniz-Institut fuer Informationsinfrastruktur GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.fiz.oai.backend.service.impl;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+
+import org.jvnet.hk2.annotations.Service;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.fiz.oai.backend.dao.DAOIndexQueue;
+import de.fiz.oai.backend.dao.DAOItem;
+import de.fiz.oai.backend.models.Item;
+import de.fiz.oai.backend.models.index.IndexQueueEntry;
+import de.fiz.oai.backend.service.IndexingService;
+import de.fiz.oai.backend.service.ItemService;
+import de.fiz.oai.backend.service.SearchService;
+import de.fiz.oai.backend.utils.Configuration;
+import de.fiz.oai.backend.utils.MetricsManager;
+import de.fiz.oai.backend.utils.ThreadPoolManager;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * The queue holds one entry per identifier and the indexer reads the item when it gets to
+ * the entry, so the index always receives the latest stored state of an item, regardless
+ * in which order its changes were queued. An entry is removed only if it was not queued
+ * again while its item was indexed.
+ * <p>
+ * An item that cannot be indexed stays queued and is retried with a delay growing with its
+ * failed attempts, other items are not held up by it. After
+ * index.queue.retry.max.attempts the entry is moved to the dead letters. If the search
+ * index cannot be reached at all, the indexer as a whole backs off instead.
+ * <p>
+ * The nodes share the partitions: every node registers its indexer and leases its share of
+ * the partitions, which it renews every index.queue.lease.renew.millis. The leases of a node
+ * that stops or fails expire after index.queue.lease.millis and the other nodes take the
+ * partitions over. A node holding more than its share, e.g. after another node joined,
+ * gives up the surplus. Should two nodes still index an item, removing the entry by its
+ * write time keeps that correct.
+ * <p>
+ * An entry is indexed once its item was not changed for index.queue.coalesce.millis, so a
+ * burst of changes of one item, e.g. content, tags and an added format, results in one
+ * index write. An item that keeps changing is indexed after
+ * index.queue.coalesce.max.millis at the latest.
+ */
+@Service
+public class IndexingServiceImpl implements IndexingService {
+
+  private static Logger LOGGER = LoggerFactory.getLogger(IndexingServiceImpl.class);
+
+  @Inject
+  DAOIndexQueue daoIndexQueue;
+
+  @Inject
+  DAOItem daoItem;
+
+  @Inject
+  SearchService searchService;
+
+  // ItemService indexes through this service
+  @Inject
+  Provider<ItemService> itemServiceProvider;
+
+  private final boolean queueEnabled;
+
+  private final int batchSize;
+
+  private final long pollMillis;
+
+  private final long retryMillis;
+
+  private final long maxRetryMillis;
+
+  private final int maxAttempts;
+
+  private final long coalesceMillis;
+
+  private final long maxCoalesceMillis;
+
+  private final long leaseMillis;
+
+  private final long leaseRenewMillis;
+
+  // Identifies the indexer of this node in the leases
+  private final String node = UUID.randomUUID().toString();
+
+  // The partitions leased by this node, renewed by the indexer thread
+  private final Set<Integer> leasedShards = new ConcurrentSkipListSet<>();
+
+  private long leasesRenewed;
+
+  // When the indexer first held back an entry, only used by the indexer thread
+  private final Map<String, Long> heldBack = new HashMap<>();
+
+  // The identifier to read a partition after in the next pass, only used by the indexer thread
+  private final Map<Integer, String> cursors = new HashMap<>();
+
+  private final AtomicLong queued = new AtomicLong();
+
+  private final AtomicLong indexed = new AtomicLong();
+
+  private final AtomicLong failed = new AtomicLong();
+
+  private final AtomicLong deadLettered = new AtomicLong();
+
+  // Age of the oldest entry the indexer saw in its last pass over the queue
+  private volatile long lagMillis;
+
+  private volatile long deferred;
+
+  private volatile Thread indexer;
+
+  public IndexingServiceImpl() {
+    Configuration config = Configuration.getInstance();
+    queueEnabled = Boolean.parseBoolean(config.getProperty("index.queue.enabled", "true"));
+    batchSize = Integer.parseInt(config.getProperty("index.queue.batch.size", "500"));
+    pollMillis = Long.parseLong(config.getProperty("index.queue.poll.millis", "1000"));
+    retryMillis = Long.parseLong(config.getProperty("index.queue.retry.millis", "1000"));
+    maxRetryMillis = Long.parseLong(config.getProperty("index.queue.retry.max.millis", "60000"));
+    maxAttempts = Integer.parseInt(config.getProperty("index.queue.retry.max.attempts", "20"));
+    coalesceMillis = Long.parseLong(config.getProperty("index.queue.coalesce.millis", "2000"));
+    maxCoalesceMillis = Long.parseLong(config.getProperty("index.queue.coalesce.max.millis", "30000"));
+    leaseMillis = Long.parseLong(config.getProperty("index.queue.lease.millis", "30000"));
+    leaseRenewMillis = Long.parseLong(config.getProperty("index.queue.lease.renew.millis",
+        String.valueOf(leaseMillis / 3)));
+
+    MeterRegistry registry = MetricsManager.getInstance().getRegistry();
+    FunctionCounter.builder("oai.indexing.queued", queued, AtomicLong::get).register(registry);
+    FunctionCounter.builder("oai.indexing.indexed", indexed, AtomicLong::get).register(registry);
+    FunctionCounter.builder("oai.indexing.failed", failed, AtomicLong::get).register(registry);
+    FunctionCounter.builder("oai.indexing.dead.lettered", deadLettered, AtomicLong::get).register(registry);
+    Gauge.builder("oai.indexing.lag", this, service -> service.lagMillis).baseUnit("milliseconds")
+        .register(registry);
+    Gauge.builder("oai.indexing.deferred", this, service -> service.deferred).register(registry);
+    Gauge.builder("oai.indexing.shards", leasedShards, Set::size).register(registry);
+  }
+
+  @Override
+  public void index(Item item) throws IOException {
+    if (!queueEnabled) {
+      searchService.createDocument(item);
+      return;
+    }
+    daoIndexQueue.add(Collections.singletonList(item.getIdentifier()));
+    queued.incrementAndGet();
+  }
+
+  @Override
+  public Map<String, String> index(List<Item> items) throws IOException {
+    if (!queueEnabled) {
+      return searchService.createDocuments(items);
+    }
+    List<String> identifiers = new ArrayList<>(items.size());
+    for (Item item : items) {
+      identifiers.add(item.getIdentifier());
+    }
+    daoIndexQueue.add(identifiers);
+    queued.addAndGet(identifiers.size());
+    return Collections.emptyMap();
+  }
+
+  @Override
+  public void index(String identifier) throws IOException {
+    if (!queueEnabled) {
+      Item item = daoItem.read(identifier);
+      if (item != null) {
+        itemServiceProvider.get().addFormatsAndSets(item);
+        searchService.createDocument(item);
+      }
+      return;
+    }
+    daoIndexQueue.add(Collections.singletonList(identifier));
+    queued.incrementAndGet();
+  }
+
+  @Override
+  public synchronized void start() {
+    if (!queueEnabled || indexer != null) {
+      return;
+    }
+    indexer = new Thread(this::drain, "oai-indexer");
+    indexer.setDaemon(true);
+    indexer.start();
+    LOGGER.info("Started indexer with batch size {}", batchSize);
+  }
+
+  @Override
+  public synchronized void stop() {
+    Thread thread = indexer;
+    if (thread == null) {
+      return;
+    }
+    indexer = null;
+    thread.interrupt();
+    try {
+      thread.join(30000);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    releaseLeases();
+    LOGGER.info("Stopped indexer");
+  }
+
+  /**
+   * Unregister the indexer of this node and give up its leases, so the other nodes take the
+   * partitions over without waiting for the leases to expire.
+   */
+  void releaseLeases() {
+    try {
+      daoIndexQueue.unregisterIndexer(node);
+      for (Integer shard : leasedShards) {
+        daoIndexQueue.release(shard, node);
+      }
+    } catch (IOException e) {
+      LOGGER.warn("Cannot release the index queue leases, they expire after " + leaseMillis + " ms", e);
+    }
+    leasedShards.clear();
+    cursors.clear();
+  }
+
+  /**
+   * Pass over all queue partitions until stopped, pause when nothing is due and back off
+   * while the queue or the search index cannot be reached.
+   */
+  private void drain() {
+    long delay = 0;
+    while (indexer == Thread.currentThread()) {
+      try {
+        int ready = drainOnce();
+        delay = 0;
+        // Partitions with further pages are read on without a pause
+        if (ready == 0 && cursors.isEmpty()) {
+          Thread.sleep(deferred == 0 ? pollMillis : Math.min(pollMillis, coalesceMillis));
+        }
+      } catch (InterruptedException e) {
+        break;
+      } catch (Exception e) {
+        delay = delay == 0 ? retryMillis : Math.min(delay * 2, maxRetryMillis);
+        LOGGER.error("Indexer failed, retry in " + delay + " ms", e);
+        try {
+          Thread.sleep(delay);
+        } catch (InterruptedException ie) {
+          break;
+        }
+      }
+    }
+  }
+
+  /**
+   * Read a page of each queue partition leased by this node and index the entries that are
+   * due. A partition larger than a page is read page by page in the following passes, so
+   * entries waiting for their next attempt do not hide the ones behind them.
+   *
+   * @return the number of entries that were due
+   */
+  int drainOnce() throws IOException {
+    int entries = 0;
+    int ready = 0;
+    long oldest = Long.MAX_VALUE;
+    long now = System.currentTimeMillis();
+    renewLeases();
+    for (Integer shard : new ArrayList<>(leasedShards)) {
+      // Long batches must not let the leases expire
+      renewLeases();
+      if (!leasedShards.contains(shard)) {
+        continue;
+      }
+      List<IndexQueueEntry> batch = daoIndexQueue.read(shard, cursors.get(shard), batchSize);
+      if (batch.size() == batchSize) {
+        cursors.put(shard, batch.get(batch.size() - 1).getIdentifier());
+      } else {
+        cursors.remove(shard);
+      }
+      for (IndexQueueEntry entry : batch) {
+        oldest = Math.min(oldest, entry.getQueued());
+      }
+      entries += batch.size();
+      batch = due(batch, now);
+      if (!batch.isEmpty()) {
+        ready += batch.size();
+        indexBatch(batch);
+      }
+    }
+    lagMillis = entries > 0 ? System.currentTimeMillis() - oldest : 0;
+    deferred = entries - ready;
+    // Forget entries indexed elsewhere, e.g. after their partition moved to another node. An entry still
+    // queued is held back again when read, its queued time has passed the window by then.
+    heldBack.values().removeIf(since -> now - since > 2 * maxCoalesceMillis);
+    return ready;
+  }
+
+  /**
+   * Register the indexer of this node, renew its leases and lease or give up partitions
+   * until it holds its share of them, at most once per index.queue.lease.renew.millis.
+   */
+  private void renewLeases() throws IOException {
+    long now = System.currentTimeMillis();
+    if (now - leasesRenewed < leaseRenewMillis) {
+      return;
+    }
+    leasesRenewed = now;
+
+    daoIndexQueue.registerIndexer(node, leaseMillis);
+    int shards = daoIndexQueue.getShards();
+    int nodes = Math.max(1, daoIndexQueue.readIndexers().size());
+    int share = (shards + nodes - 1) / nodes;
+
+    for (Integer shard : new ArrayList<>(leasedShards)) {
+      if (leasedShards.size() > share) {
+        daoIndexQueue.release(shard, node);
+        dropShard(shard);
+      } else if (!daoIndexQueue.lease(shard, node, leaseMillis)) {
+        LOGGER.warn("Lost the lease of index queue partition {}", shard);
+        dropShard(shard);
+      }
+    }
+    if (leasedShards.size() < share) {
+      Map<Integer, String> leases = daoIndexQueue.readLeases();
+      for (int shard = 0; shard < shards && leasedShards.size() < share; shard++) {
+        if (!leases.containsKey(shard) && daoIndexQueue.lease(shard, node, leaseMillis)) {
+          leasedShards.add(shard);
+        }
+      }
+    }
+  }
+
+  private void dropShard(Integer shard) {
+    leasedShards.remove(shard);
+    cursors.remove(shard);
+  }
+
+  /**
+   * @return the entries past their next attempt time of items not changed within the
+   *         coalesce window, or held back for the maximum time
+   */
+  private List<IndexQueueEntry> due(List<IndexQueueEntry> batch, long now) {
+    List<IndexQueueEntry> due = new ArrayList<>(batch.size());
+    for (IndexQueueEntry entry : batch) {
+      if (entry.getNextAttempt() > now) {
+        continue;
+      }
+      if (now - entry.getQueued() >= coalesceMillis
+          || now - heldBack.computeIfAbsent(entry.getIdentifier(), identifier -> now) >= maxCoalesceMillis) {
+        heldBack.remove(entry.getIdentifier());
+        due.add(entry);
+      }
+    }
+    return due;
+  }
+
+  /**
+   * @return the delay before the next attempt after the given number of failed attempts
+   */
+  private long retryDelay(int attempts) {
+    long delay = retryMillis;
+    for (int i = 1; i < attempts && delay < maxRetryMillis; i++) {
+      delay *= 2;
+    }
+    return Math.min(delay, maxRetryMillis);
+  }
+
+  /**
+   * Index the current state of the items of a batch with one bulk request and remove the
+   * entries of the items indexed. The entries of items that failed are retried later on
+   * their own, or moved to the dead letters after the maximum attempts.
+   *
+   * @throws IOException if the search index cannot be reached, all entries stay queued
+   */
+  private void indexBatch(List<IndexQueueEntry> batch) throws IOException {
+    Map<String, IndexQueueEntry> entries = new LinkedHashMap<>();
+    for (IndexQueueEntry entry : batch) {
+      entries.put(entry.getIdentifier(), entry);
+    }
+
+    // Formats and sets are matched on the worker pool
+    ItemService itemService = itemServiceProvider.get();
+    ExecutorService workers = ThreadPoolManager.getInstance().getWorkerPool();
+    Map<String, CompletableFuture<Item>> prepared = new LinkedHashMap<>();
+    for (Item item : daoItem.read(new ArrayList<>(entries.keySet()))) {
+      prepared.put(item.getIdentifier(), CompletableFuture.supplyAsync(() -> {
+        try {
+          itemService.addFormatsAndSets(item);
+          return item;
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      }, workers));
+    }
+
+    Map<String, String> failures = new HashMap<>();
+    List<Item> items = new ArrayList<>(prepared.size());
+    for (Map.Entry<String, CompletableFuture<Item>> item : prepared.entrySet()) {
+      try {
+        items.add(item.getValue().join());
+      } catch (CompletionException e) {
+        failures.put(item.getKey(), e.getCause().getMessage());
+      }
+    }
+    Map<String, String> indexFailures = searchService.createDocuments(items);
+    failures.putAll(indexFailures);
+
+    // Entries of items no longer stored are removed as well
+    long now = System.currentTimeMillis();
+    List<IndexQueueEntry> done = new ArrayList<>(entries.size());
+    List<IndexQueueEntry> retries = new ArrayList<>(failures.size());
+    for (IndexQueueEntry entry : entries.values()) {
+      String failure = failures.get(entry.getIdentifier());
+      if (failure == null) {
+        done.add(entry);
+        continue;
+      }
+      IndexQueueEntry failedEntry = entry.failed(now + retryDelay(entry.getAttempts() + 1));
+      if (failedEntry.getAttempts() >= maxAttempts) {
+        LOGGER.error("Cannot index item {} after {} attempts, moved to the dead letters: {}",
+            entry.getIdentifier(), failedEntry.getAttempts(), failure);
+        daoIndexQueue.deadLetter(failedEntry, failure);
+        deadLettered.incrementAndGet();
+      } else {
+        LOGGER.warn("Cannot index item {}, attempt {}, retry in {} ms: {}", entry.getIdentifier(),
+            failedEntry.getAttempts(), failedEntry.getNextAttempt() - now, failure);
+        retries.add(failedEntry);
+      }
+    }
+    daoIndexQueue.remove(done);
+    daoIndexQueue.retry(retries);
+
+    indexed.addAndGet(items.size() - indexFailures.size());
+    failed.addAndGet(failures.size());
+  }
+
+  @Override
+  public Map<String, Long> getStatistics() {
+    Map<String, Long> statistics = new LinkedHashMap<>();
+    statistics.put("queued", queued.get());
+    statistics.put("indexed", indexed.get());
+    statistics.put("failed", failed.get());
+    statistics.put("deadLettered", deadLettered.get());
+    statistics.put("lagMillis", lagMillis);
+    statistics.put("deferred", deferred);
+    statistics.put("shards", (long) leasedShards.size());
+    return statistics;
+  }
+
+}
@@ -18,15 +18,22 @@ package de.fiz.oai.backend.service.impl;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.StringReader;
+import java.io.UncheckedIOException;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
-import java.util.HashSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import javax.inject.Inject;
 import javax.ws.rs.WebApplicationException;
@@ -46,24 +53,29 @@ import org.slf4j.LoggerFactory;
 import org.xml.sax.SAXException;
 
 import de.fiz.oai.backend.dao.DAOContent;
-import de.fiz.oai.backend.dao.DAOCrosswalk;
-import de.fiz.oai.backend.dao.DAOFormat;
 import de.fiz.oai.backend.dao.DAOItem;
-import de.fiz.oai.backend.dao.DAOSet;
 import de.fiz.oai.backend.exceptions.AlreadyExistsException;
 import de.fiz.oai.backend.exceptions.FormatValidationException;
 import de.fiz.oai.backend.exceptions.NotFoundException;
 import de.fiz.oai.backend.exceptions.UnknownFormatException;
+import de.fiz.oai.backend.models.BulkItemResult;
 import de.fiz.oai.backend.models.Content;
 import de.fiz.oai.backend.models.Crosswalk;
 import de.fiz.oai.backend.models.Format;
 import de.fiz.oai.backend.models.Item;
+import de.fiz.oai.backend.models.ItemHit;
 import de.fiz.oai.backend.models.SearchResult;
+import de.fiz.oai.backend.service.IndexingService;
 import de.fiz.oai.backend.service.ItemService;
+import de.fiz.oai.backend.service.MetadataCache;
 import de.fiz.oai.backend.service.SearchService;
 import de.fiz.oai.backend.service.TransformerService;
+import de.fiz.oai.backend.utils.CassandraUtils;
 import de.fiz.oai.backend.utils.Configuration;
-import de.fiz.oai.backend.utils.XPathHelper;
+import de.fiz.oai.backend.utils.Datestamps;
+import de.fiz.oai.backend.utils.MetricsManager;
+import de.fiz.oai.backend.utils.SetMembershipEngine;
+import de.fiz.oai.backend.utils.ThreadPoolManager;
 
 @Service
 public class ItemServiceImpl implements ItemService {
@@ -77,23 +89,24 @@ public class ItemServiceImpl implements ItemService {
   DAOContent daoContent;
 
   @Inject
-  DAOFormat daoFormat;
+  MetadataCache metadataCache;
 
   @Inject
-  DAOCrosswalk daoCrosswalk;
-
-  @Inject
-  DAOSet daoSet;
+  SearchService searchService;
 
   @Inject
-  SearchService searchService;
+  IndexingService indexingService;
 
   @Inject
   TransformerService transformerService;
 
   @Override
   public Item read(String identifier, String format, Boolean readContent) throws IOException {
-    Item item = daoItem.read(identifier);
+    // With a known format item and content are read concurrently
+    CompletionStage<Item> itemStage = daoItem.readAsync(identifier);
+    CompletionStage<Content> contentStage = readContent && format != null ? daoContent.readAsync(identifier, format) : null;
+
+    Item item = CassandraUtils.await(itemStage);
     if (LOGGER.isDebugEnabled()) {
       LOGGER.debug("getItem: {}", item);
     }
@@ -101,47 +114,106 @@ public class ItemServiceImpl implements ItemService {
     if (item != null) {
 
       if (readContent) {
-        if (format == null) {
-          format = item.getIngestFormat();
+        if (contentStage == null) {
+          contentStage = daoContent.readAsync(identifier, item.getIngestFormat());
         }
 
-        Content content = daoContent.read(identifier, format);
+        Content content = CassandraUtils.await(contentStage);
         item.setContent(content);
       }
 
-      // Retrieve sets and formats from search-server
+      // Retrieve sets and formats from search-server, a new item may not be indexed yet
       Map<String, Object> searchResponse = searchService.readDocument(item);
       if (searchResponse != null) {
-        if (searchResponse.get("sets") != null) {
-          List<String> sets = searchResponse.get("sets") instanceof List<?> ? (List<String>) searchResponse.get("sets") : List.of((String) searchResponse.get("sets"));
-          item.setSets(sets);
-        }
-        if (searchResponse.get("formats") != null) {
-          List<String> formats = searchResponse.get("formats") instanceof List<?> ? (List<String>) searchResponse.get("formats") : List.of((String) searchResponse.get("formats"));
-          item.setFormats(formats);
-        }
+        applyIndexDocument(item, searchResponse);
       } else {
-        LOGGER.warn("Couldn't find item ${item} in index.");
-        item = null;
+        LOGGER.info("Couldn't find item {} in index, returned without sets and formats.", identifier);
       }
     } else {
-        LOGGER.warn("Couldn't find item ${item} in backend.");
+        LOGGER.warn("Couldn't find item {} in backend.", identifier);
       }
 
     return item;
   }
 
+  /**
+   * Read all items of a result page with one multi-get per table. Sets and
+   * formats are taken from the search hits. Items missing in the backend are skipped.
+   *
+   * @param hits the search hits in result order
+   * @param format the content format to read, the ingest format of each item if null
+   * @param readContent whether to read the content
+   * @return the items in the order of the given hits
+   * @throws IOException
+   */
+  private List<Item> readItems(List<ItemHit> hits, String format, Boolean readContent) throws IOException {
+    Map<String, ItemHit> hitsById = new HashMap<>();
+    for (ItemHit hit : hits) {
+      hitsById.put(hit.getIdentifier(), hit);
+    }
+    List<String> identifiers = hits.stream().map(ItemHit::getIdentifier).collect(Collectors.toList());
+
+    List<Item> items = daoItem.read(identifiers);
+    if (items.size() < identifiers.size()) {
+      LOGGER.warn("Couldn't find {} of {} items in backend.", identifiers.size() - items.size(), identifiers.size());
+    }
+
+    if (readContent) {
+      // Group the content reads by format, usually all items share one ingest format
+      Map<String, List<Item>> itemsByFormat = new HashMap<>();
+      for (Item item : items) {
+        String contentFormat = format != null ? format : item.getIngestFormat();
+        itemsByFormat.computeIfAbsent(contentFormat, key -> new ArrayList<>()).add(item);
+      }
+      for (Map.Entry<String, List<Item>> entry : itemsByFormat.entrySet()) {
+        List<String> ids = entry.getValue().stream().map(Item::getIdentifier).collect(Collectors.toList());
+        Map<String, Content> contents = new HashMap<>();
+        for (Content content : daoContent.read(ids, entry.getKey())) {
+          contents.put(content.getIdentifier(), content);
+        }
+        for (Item item : entry.getValue()) {
+          item.setContent(contents.get(item.getIdentifier()));
+        }
+      }
+    }
+
+    // Sets and formats as indexed
+    for (Item item : items) {
+      ItemHit hit = hitsById.get(item.getIdentifier());
+      if (hit.getSets() != null) {
+        item.setSets(hit.getSets());
+      }
+      if (hit.getFormats() != null) {
+        item.setFormats(hit.getFormats());
+      }
+    }
+
+    return items;
+  }
+
+  @SuppressWarnings("unchecked")
+  private void applyIndexDocument(Item item, Map<String, Object> document) {
+    if (document.get("sets") != null) {
+      List<String> sets = document.get("sets") instanceof List<?> ? (List<String>) document.get("sets") : List.of((String) document.get("sets"));
+      item.setSets(sets);
+    }
+    if (document.get("formats") != null) {
+      List<String> formats = document.get("formats") instanceof List<?> ? (List<String>) document.get("formats") : List.of((String) document.get("formats"));
+      item.setFormats(formats);
+    }
+  }
+
   @Override
   public Item create(Item item) throws IOException {
 	  
-	// Check for existing item
-	Item oldItem = read(item.getIdentifier(), item.getIngestFormat(), false);
+	// Check for existing item, in the backend as the index may lag behind
+	Item oldItem = daoItem.read(item.getIdentifier());
 	if (oldItem != null) {
 		throw new AlreadyExistsException("item " + oldItem.getIdentifier() + " already exists");
 	}
 
     // IngestFormat exists?
-    Format ingestFormat = daoFormat.read(item.getIngestFormat());
+    Format ingestFormat = metadataCache.getFormat(item.getIngestFormat());
     if (ingestFormat == null) {
       throw new UnknownFormatException("Cannot find a Format for the given ingestFormat: " + item.getIngestFormat());
     }
@@ -151,35 +223,132 @@ public class ItemServiceImpl implements ItemService {
     // String(item.getContent().getContent(), "UTF-8"));
 
     // Overwrite datestamp!
-    item.setDatestamp(StringUtils.isNotEmpty(item.getDatestamp()) ? item.getDatestamp() : Configuration.getDateformat().format(new Date()));
-
-    // Create Item
-    Item newItem = daoItem.create(item);
-
-    // Create Content
-    daoContent.create(item.getContent());
+    if (StringUtils.isEmpty(item.getDatestamp())) {
+      item.setDatestampMillis(Datestamps.now());
+    }
 
-    Set<String> itemFormats = Stream.of(item.getIngestFormat()).collect(Collectors.toCollection(HashSet::new));
+    // Create Item and Content, count the Item once it is written
+    CompletionStage<Item> itemStage = daoItem.createAsync(item)
+        .thenCompose(created -> daoItem.incrementCountAsync(1).thenApply(counted -> created));
+    CompletionStage<Content> contentStage = daoContent.createAsync(item.getContent());
+    Item newItem = CassandraUtils.await(itemStage);
+    CassandraUtils.await(contentStage);
 
     // Create Crosswalk content
-    createCrosswalks(item, itemFormats);
+    List<Content> contents = createCrosswalks(item);
+    contents.add(0, item.getContent());
 
-    addFormatsAndSets(newItem);
-    searchService.createDocument(newItem);
+    addFormatsAndSets(newItem, contents);
+    indexingService.index(newItem);
 
     return newItem;
   }
 
+  @Override
+  public List<BulkItemResult> createAll(List<Item> items) throws IOException {
+    BulkItemResult[] results = new BulkItemResult[items.size()];
+
+    // Position of each valid item, an identifier repeated within the batch is a conflict
+    Map<String, Integer> positions = new LinkedHashMap<>();
+    for (int i = 0; i < items.size(); i++) {
+      Item item = items.get(i);
+      String identifier = item.getIdentifier();
+      if (StringUtils.isBlank(identifier) || item.getContent() == null
+          || Content.isBlank(item.getContent().getBytes())) {
+        results[i] = new BulkItemResult(identifier, Status.BAD_REQUEST.getStatusCode(),
+            "identifier and content cannot be empty");
+      } else if (metadataCache.getFormat(item.getIngestFormat()) == null) {
+        results[i] = new BulkItemResult(identifier, Status.BAD_REQUEST.getStatusCode(),
+            "Cannot find a Format for the given ingestFormat: " + item.getIngestFormat());
+      } else if (positions.putIfAbsent(identifier, i) != null) {
+        results[i] = new BulkItemResult(identifier, Status.CONFLICT.getStatusCode(),
+            "item " + identifier + " appears more than once");
+      }
+    }
+
+    // Check for existing items with one multi-get
+    for (Item existing : daoItem.read(new ArrayList<>(positions.keySet()))) {
+      int i = positions.remove(existing.getIdentifier());
+      results[i] = new BulkItemResult(existing.getIdentifier(), Status.CONFLICT.getStatusCode(),
+          "item " + existing.getIdentifier() + " already exists");
+    }
+
+    // Transform and write the items on the worker pool
+    ExecutorService workers = ThreadPoolManager.getInstance().getWorkerPool();
+    long datestamp = Datestamps.now();
+    Map<String, CompletableFuture<Item>> writes = new LinkedHashMap<>();
+    for (int i : positions.values()) {
+      Item item = items.get(i);
+      writes.put(item.getIdentifier(), CompletableFuture.supplyAsync(() -> writeItem(item, datestamp), workers));
+    }
+
+    List<Item> created = new ArrayList<>(writes.size());
+    for (Map.Entry<String, CompletableFuture<Item>> write : writes.entrySet()) {
+      try {
+        created.add(write.getValue().join());
+      } catch (CompletionException e) {
+        Throwable cause = e.getCause() instanceof UncheckedIOException ? e.getCause().getCause() : e.getCause();
+        LOGGER.error("Bulk create of item {} failed", write.getKey(), cause);
+        results[positions.get(write.getKey())] = new BulkItemResult(write.getKey(),
+            Status.INTERNAL_SERVER_ERROR.getStatusCode(), cause.getMessage());
+      }
+    }
+    if (created.isEmpty()) {
+      return Arrays.asList(results);
+    }
+
+    // Count and index all written items at once
+    CompletionStage<Void> counted = daoItem.incrementCountAsync(created.size());
+    Map<String, String> indexFailures = indexingService.index(created);
+    for (Item item : created) {
+      String failure = indexFailures.get(item.getIdentifier());
+      results[positions.get(item.getIdentifier())] = failure == null
+          ? new BulkItemResult(item.getIdentifier(), Status.CREATED.getStatusCode(), null)
+          : new BulkItemResult(item.getIdentifier(), Status.INTERNAL_SERVER_ERROR.getStatusCode(),
+              "item stored but not indexed: " + failure);
+    }
+    CassandraUtils.await(counted);
+    LOGGER.info("Bulk create: {} of {} items created", created.size() - indexFailures.size(), items.size());
+
+    return Arrays.asList(results);
+  }
+
+  /**
+   * Write item, content and crosswalk content of a new item, runs on a worker thread.
+   */
+  private Item writeItem(Item item, long datestamp) {
+    try {
+      if (StringUtils.isEmpty(item.getDatestamp())) {
+        item.setDatestampMillis(datestamp);
+      }
+
+      CompletionStage<Item> itemStage = daoItem.createAsync(item);
+      CompletionStage<Content> contentStage = daoContent.createAsync(item.getContent());
+
+      // Transform while item and content are written
+      List<Content> contents = createCrosswalks(item);
+      contents.add(0, item.getContent());
+
+      CassandraUtils.await(itemStage);
+      CassandraUtils.await(contentStage);
+
+      addFormatsAndSets(item, contents);
+      return item;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
   @Override
   public Item update(Item item) throws IOException {
-    Item oldItem = read(item.getIdentifier(), null, false);
+    Item oldItem = daoItem.read(item.getIdentifier());
 
     if (oldItem == null) {
       throw new WebApplicationException(Status.NOT_FOUND);
     }
 
     // Format exists?
-    Format ingestFormat = daoFormat.read(item.getIngestFormat());
+    Format ingestFormat = metadataCache.getFormat(item.getIngestFormat());
     if (ingestFormat == null) {
       throw new UnknownFormatException("Cannot find a Fomat for the given ingestFormat: " + item.getIngestFormat());
     }
@@ -188,23 +357,27 @@ public class ItemServiceImpl implements ItemService {
     deleteAllContent(oldItem);
 
     // Overwrite datestamp!
-    item.setDatestamp(StringUtils.isNotEmpty(item.getDatestamp()) ? item.getDatestamp() : Configuration.getDateformat().format(new Date()));
+    if (StringUtils.isEmpty(item.getDatestamp())) {
+      item.setDatestampMillis(Datestamps.now());
+    }
 
-    Item updateItem = daoItem.create(item);
-    daoContent.create(item.getContent());
+    CompletionStage<Item> itemStage = daoItem.createAsync(item);
+    CompletionStage<Content> contentStage = daoContent.createAsync(item.getContent());
+    Item updateItem = CassandraUtils.await(itemStage);
+    CassandraUtils.await(contentStage);
 
-    Set<String> itemFormats = Stream.of(item.getIngestFormat()).collect(Collectors.toCollection(HashSet::new));
-    createCrosswalks(item, itemFormats);
+    List<Content> contents = createCrosswalks(item);
+    contents.add(0, item.getContent());
 
-    addFormatsAndSets(updateItem);
-    searchService.updateDocument(updateItem);
+    addFormatsAndSets(updateItem, contents);
+    indexingService.index(updateItem);
 
     return updateItem;
   }
 
     @Override
     public Item updateTags(String identifier, List<String> tags) throws IOException {
-        Item item = read(identifier, null, false);
+        Item item = daoItem.read(identifier);
 
         if (item == null) {
             throw new WebApplicationException(Status.NOT_FOUND);
@@ -214,7 +387,7 @@ public class ItemServiceImpl implements ItemService {
         Item updateItem = daoItem.create(item);
 
         addFormatsAndSets(updateItem);
-        searchService.updateDocument(updateItem);
+        indexingService.index(updateItem);
 
         return updateItem;
     }
@@ -231,16 +404,9 @@ public class ItemServiceImpl implements ItemService {
       throw new IOException("rows parameter must NOT be greater than 1000!");
     }
 
-    final SearchResult<String> idResult = searchService.search(rows, setName, format, from, until, searchMark);
+    final SearchResult<ItemHit> idResult = searchService.searchHits(rows, setName, format, from, until, searchMark);
 
-    List<Item> itemList = new ArrayList<>();
-
-    for (String s : idResult.getData()) {
-      Item item = read(s, format, readContent);
-      if (item != null) {
-          itemList.add(item);
-      }
-    }
+    List<Item> itemList = readItems(idResult.getData(), format, readContent);
 
     SearchResult<Item> itemResult = new SearchResult<>();
     itemResult.setData(itemList);
@@ -261,65 +427,103 @@ public class ItemServiceImpl implements ItemService {
     }
 
     itemToDelete.setDeleteFlag(true);
-    itemToDelete.setDatestamp(Configuration.getDateformat().format(new Date()));
+    itemToDelete.setDatestampMillis(Datestamps.now());
 
     daoItem.create(itemToDelete);
 
-    addFormatsAndSets(itemToDelete);
-
-    searchService.updateDocument(itemToDelete);
+    indexingService.index(identifier);
   }
   
   public void addFormatsAndSets(Item item) throws IOException {
-      try {
-          // Add all available formats
-          List<Content> allContents = daoContent.readFormats(item.getIdentifier());
-          List<String> itemFormats = new ArrayList<>();
-          if (allContents != null && !allContents.isEmpty()) {
-              for (final Content pickedContent : allContents) {
-                  itemFormats.add(pickedContent.getFormat());
-              }
+      addFormatsAndSets(item, daoContent.readFormats(item.getIdentifier()));
+  }
+
+  /**
+   * Same as {@link #addFormatsAndSets(Item)} with the contents already at hand.
+   */
+  private void addFormatsAndSets(Item item, List<Content> allContents) throws IOException {
+      // Add all available formats
+      List<String> itemFormats = new ArrayList<>();
+      if (allContents != null && !allContents.isEmpty()) {
+          for (final Content pickedContent : allContents) {
+              itemFormats.add(pickedContent.getFormat());
           }
-          item.setFormats(itemFormats);
-    
-          // Add all the matching sets
-          List<de.fiz.oai.backend.models.Set> allSets = daoSet.readAll();
-          List<String> itemSets = new ArrayList<>();
-          if (allSets != null && !allSets.isEmpty()) {
-    
-              for (final de.fiz.oai.backend.models.Set pickedSet : allSets) {
-                  // Check set membership via xPath
-                  Map<String, String> xPaths = pickedSet.getxPaths();
-                  if (allContents != null && !allContents.isEmpty()) {
-                      for (final Content pickedContent : allContents) {
-                          if (xPaths.containsKey(pickedContent.getFormat())) {
-                              final String xPathToCheck = xPaths.get(pickedContent.getFormat());
-                              if (XPathHelper.isTextValueMatching(pickedContent.getContent(), xPathToCheck)) {
-                                  itemSets.add(pickedSet.getName());
-                              }
-                          }
-                      }
-                  }
-    
-                  // Check set membership via item tags
-                  List<String> setTags = pickedSet.getTags();
-    
-                  if (setTags != null && !setTags.isEmpty()) {
-                      for (String setTag : setTags) {
-                          LOGGER.debug("item.getTags() " + item.getTags());
-                          if (item.getTags() != null && item.getTags().contains(setTag)) {
-                              itemSets.add(pickedSet.getSpec());
-                          }
-                      }
-                  }
-              }
-    
+      }
+      Collections.sort(itemFormats);
+      item.setFormats(itemFormats);
+
+      // Add all the matching sets
+      List<de.fiz.oai.backend.models.Set> allSets = metadataCache.getSets();
+      item.setSets(MetricsManager.getInstance().time("oai.sets.evaluation", () -> {
+          try {
+              return SetMembershipEngine.matchingSets(allSets, allContents, item.getTags());
+          } catch(SAXException| XPathExpressionException e) {
+              //Rethrow Exceptions from SetMembershipEngine as IOException
+              throw new IOException(e);
           }
-          item.setSets(itemSets);
-      } catch(SAXException| XPathExpressionException e) {
-          //Rethrow Exceptions from XPathHelper as IOException
-          throw new IOException(e);
+      }));
+  }
+
+  @Override
+  public long getCount(boolean exact) throws IOException {
+    return exact ? daoItem.getCount() : daoItem.getCountEstimate();
+  }
+
+  @Override
+  public boolean correctCount(long count, long estimate) throws IOException {
+    long current = daoItem.getCountEstimate();
+    if (current != estimate) {
+      LOGGER.warn("Item count changed from {} to {} while counting, not corrected to {}", estimate, current, count);
+      return false;
+    }
+    if (count != estimate) {
+      LOGGER.info("Correcting the item count from {} to {}", estimate, count);
+      CassandraUtils.await(daoItem.incrementCountAsync(count - estimate));
+    }
+    return true;
+  }
+
+  @Override
+  public void seedCount() throws IOException {
+    Configuration config = Configuration.getInstance();
+    long timeoutMillis = Long.parseLong(config.getProperty("item.count.seed.timeout.millis", "3600000"));
+    int maxAttempts = Integer.parseInt(config.getProperty("item.count.seed.attempts", "5"));
+    long retryMillis = Long.parseLong(config.getProperty("item.count.seed.retry.millis", "60000"));
+
+    Date heartbeat = new Date();
+    if (!daoItem.claimCountSeed(heartbeat, timeoutMillis)) {
+      return;
+    }
+    LOGGER.info("Seeding the item count");
+    for (int attempt = 1;; attempt++) {
+      // The count is retried when items were written while counting or the count failed
+      try {
+        long estimate = daoItem.getCountEstimate();
+        if (correctCount(daoItem.getCount(), estimate)) {
+          daoItem.updateCountSeed(heartbeat, new Date(), true);
+          return;
+        }
+      } catch (IOException e) {
+        LOGGER.warn("Cannot count the items, attempt " + attempt, e);
       }
+      if (attempt >= maxAttempts) {
+        LOGGER.warn("Item count not seeded after {} attempts, a node started after {} ms retries, "
+            + "or correct it with POST /info/items/recount", attempt, timeoutMillis);
+        return;
+      }
+      try {
+        Thread.sleep(retryMillis);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+      Date renewed = new Date();
+      if (!daoItem.updateCountSeed(heartbeat, renewed, false)) {
+        LOGGER.info("Seeding the item count was taken over by another node");
+        return;
+      }
+      heartbeat = renewed;
+    }
   }
 
   /**
@@ -349,24 +553,55 @@ public class ItemServiceImpl implements ItemService {
     }
   }
 
-  private void createCrosswalks(Item item, Set<String> itemFormats) throws IOException {
-    List<Crosswalk> crosswalks = daoCrosswalk.readAll();
-    for (Crosswalk currentWalk : crosswalks) {
-      if (currentWalk.getFormatFrom().equals(item.getIngestFormat())) {
-        String newXml = transformerService.transform(item.getContent().getContent(), currentWalk.getName());
-        if (StringUtils.isNotBlank(newXml)) {
-            Content crosswalkConten = new Content();
-            crosswalkConten.setContent(newXml);
-            crosswalkConten.setIdentifier(item.getIdentifier());
-            crosswalkConten.setFormat(currentWalk.getFormatTo());
-            daoContent.create(crosswalkConten);
-            itemFormats.add(currentWalk.getFormatTo());
-        }
-        else {
-            LOGGER.warn("XML IS EMPTY: " + currentWalk.getFormatTo() + ", " + item.getIdentifier());
-        }
+  /**
+   * @return the crosswalk contents written
+   */
+  private List<Content> createCrosswalks(Item item) throws IOException {
+    List<Crosswalk> crosswalks = metadataCache.getCrosswalks().stream()
+        .filter(currentWalk -> currentWalk.getFormatFrom().equals(item.getIngestFormat()))
+        .collect(Collectors.toList());
+
+    // Transform concurrently, the calling thread runs the last crosswalk itself. Each
+    // content is written as soon as its transformation is done.
+    ExecutorService crosswalkPool = ThreadPoolManager.getInstance().getCrosswalkPool();
+    List<CompletionStage<Content>> writes = new ArrayList<>(crosswalks.size());
+    for (int i = 0; i < crosswalks.size(); i++) {
+      Crosswalk currentWalk = crosswalks.get(i);
+      Executor executor = i < crosswalks.size() - 1 ? crosswalkPool : Runnable::run;
+      writes.add(CompletableFuture.supplyAsync(() -> transformCrosswalk(item, currentWalk), executor)
+          .thenCompose(crosswalkContent -> crosswalkContent != null ? daoContent.createAsync(crosswalkContent)
+              : CompletableFuture.completedFuture(null)));
+    }
+
+    List<Content> contents = new ArrayList<>(crosswalks.size());
+    for (CompletionStage<Content> write : writes) {
+      Content crosswalkContent = CassandraUtils.await(write);
+      if (crosswalkContent != null) {
+        contents.add(crosswalkContent);
       }
     }
+    return contents;
+  }
+
+  /**
+   * @return the crosswalk content, null if the transformation result is empty
+   */
+  private Content transformCrosswalk(Item item, Crosswalk currentWalk) {
+    byte[] newXml;
+    try {
+      newXml = transformerService.transform(item.getContent().getBytes(), currentWalk.getName());
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    if (Content.isBlank(newXml)) {
+      LOGGER.warn("XML IS EMPTY: " + currentWalk.getFormatTo() + ", " + item.getIdentifier());
+      return null;
+    }
+    Content crosswalkConten = new Content();
+    crosswalkConten.setBytes(newXml);
+    crosswalkConten.setIdentifier(item.getIdentifier());
+    crosswalkConten.setFormat(currentWalk.getFormatTo());
+    return crosswalkConten;
   }
   
   
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2019 FIZ Karlsruhe - Leibniz-Institut fuer Informationsinfrastruktur GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.fiz.oai.backend.service.impl;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.inject.Inject;
+
+import org.jvnet.hk2.annotations.Service;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.fiz.oai.backend.dao.DAOCrosswalk;
+import de.fiz.oai.backend.dao.DAOFormat;
+import de.fiz.oai.backend.dao.DAOSet;
+import de.fiz.oai.backend.models.Crosswalk;
+import de.fiz.oai.backend.models.Format;
+import de.fiz.oai.backend.models.Set;
+import de.fiz.oai.backend.service.MetadataCache;
+import de.fiz.oai.backend.utils.Configuration;
+
+@Service
+public class MetadataCacheImpl implements MetadataCache {
+
+  private static Logger LOGGER = LoggerFactory.getLogger(MetadataCacheImpl.class);
+
+  @Inject
+  DAOSet daoSet;
+
+  @Inject
+  DAOFormat daoFormat;
+
+  @Inject
+  DAOCrosswalk daoCrosswalk;
+
+  private final long ttlNanos;
+
+  private final CachedTable<List<Set>> sets = new CachedTable<>();
+
+  private final CachedTable<Map<String, Format>> formats = new CachedTable<>();
+
+  private final CachedTable<List<Crosswalk>> crosswalks = new CachedTable<>();
+
+  public MetadataCacheImpl() {
+    long ttl = Long.parseLong(Configuration.getInstance().getProperty("metadata.cache.ttl", "60"));
+    LOGGER.info("Metadata cache ttl {}s", ttl);
+    ttlNanos = ttl > 0 ? TimeUnit.SECONDS.toNanos(ttl) : Long.MAX_VALUE;
+  }
+
+  @Override
+  public List<Set> getSets() throws IOException {
+    return new ArrayList<>(sets.get(() -> daoSet.readAll()));
+  }
+
+  @Override
+  public Format getFormat(String metadataPrefix) throws IOException {
+    return formats.get(() -> {
+      Map<String, Format> allFormats = new HashMap<>();
+      for (Format format : daoFormat.readAll()) {
+        allFormats.put(format.getMetadataPrefix(), format);
+      }
+      return allFormats;
+    }).get(metadataPrefix);
+  }
+
+  @Override
+  public List<Crosswalk> getCrosswalks() throws IOException {
+    return new ArrayList<>(crosswalks.get(() -> daoCrosswalk.readAll()));
+  }
+
+  @Override
+  public void invalidateSets() {
+    sets.invalidate();
+  }
+
+  @Override
+  public void invalidateFormats() {
+    formats.invalidate();
+  }
+
+  @Override
+  public void invalidateCrosswalks() {
+    crosswalks.invalidate();
+  }
+
+  @Override
+  public Map<String, Map<String, Long>> getStatistics() {
+    Map<String, Map<String, Long>> statistics = new LinkedHashMap<>();
+    statistics.put("sets", sets.getStatistics());
+    statistics.put("formats", formats.getStatistics());
+    statistics.put("crosswalks", crosswalks.getStatistics());
+    return statistics;
+  }
+
+  private interface Loader<T> {
+    T load() throws IOException;
+  }
+
+  private static final class Entry<T> {
+
+    final T value;
+
+    final long loadedAt;
+
+    Entry(T value, long loadedAt) {
+      this.value = value;
+      this.loadedAt = loadedAt;
+    }
+  }
+
+  private final class CachedTable<T> {
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private volatile Entry<T> entry;
+
+    // Incremented on every invalidation, a load started before it must not be stored
+    private final AtomicLong generation = new AtomicLong();
+
+    T get(Loader<T> loader) throws IOException {
+      Entry<T> current = entry;
+      if (current != null && System.nanoTime() - current.loadedAt < ttlNanos) {
+        hits.incrementAndGet();
+        return current.value;
+      }
+      misses.incrementAndGet();
+      long loadGeneration = generation.get();
+      T loaded = loader.load();
+      synchronized (this) {
+        if (loadGeneration == generation.get()) {
+          entry = new Entry<>(loaded, System.nanoTime());
+        }
+      }
+      return loaded;
+    }
+
+    synchronized void invalidate() {
+      generation.incrementAndGet();
+      entry = null;
+    }
+
+    Map<String, Long> getStatistics() {
+      Map<String, Long> statistics = new LinkedHashMap<>();
+      statistics.put("hits", hits.get());
+      statistics.put("misses", misses.get());
+      return statistics;
+    }
+  }
+
+}
@@ -29,6 +29,7 @@ import org.slf4j.LoggerFactory;
 import de.fiz.oai.backend.dao.DAOSet;
 import de.fiz.oai.backend.exceptions.AlreadyExistsException;
 import de.fiz.oai.backend.models.Set;
+import de.fiz.oai.backend.service.MetadataCache;
 import de.fiz.oai.backend.service.SearchService;
 import de.fiz.oai.backend.service.SetService;
 
@@ -43,6 +44,9 @@ public class SetServiceImpl implements SetService {
   @Inject
   SearchService searchService;
 
+  @Inject
+  MetadataCache metadataCache;
+
   @Override
   public Set read(String name) throws IOException {
     Set set = daoSet.read(name);
@@ -60,6 +64,7 @@ public class SetServiceImpl implements SetService {
 	}
 	
     daoSet.create(set);
+    metadataCache.invalidateSets();
 
     LOGGER.info("Creating Set " + set.getName() + ". Triggering complete reindexing.");
 
@@ -74,6 +79,7 @@ public class SetServiceImpl implements SetService {
       throw new NotFoundException();
     }
     daoSet.create(set);
+    metadataCache.invalidateSets();
 
     return set;
   }
@@ -89,6 +95,7 @@ public class SetServiceImpl implements SetService {
   @Override
   public void delete(String name) throws IOException {
     daoSet.delete(name);
+    metadataCache.invalidateSets();
   }
 
 }
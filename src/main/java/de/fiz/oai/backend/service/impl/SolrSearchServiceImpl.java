@@ -17,7 +17,6 @@ package de.fiz.oai.backend.service.impl;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Base64;
 import java.util.Collection;
@@ -27,6 +26,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 import javax.servlet.ServletContext;
 import javax.ws.rs.core.Context;
@@ -34,6 +34,7 @@ import javax.ws.rs.core.Context;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClients;
+import org.apache.solr.client.solrj.SolrClient;
 import org.apache.solr.client.solrj.SolrQuery;
 import org.apache.solr.client.solrj.SolrQuery.ORDER;
 import org.apache.solr.client.solrj.SolrServerException;
@@ -42,6 +43,7 @@ import org.apache.solr.client.solrj.impl.HttpSolrClient.Builder;
 import org.apache.solr.client.solrj.response.QueryResponse;
 import org.apache.solr.client.solrj.util.ClientUtils;
 import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.SolrException;
 import org.apache.solr.common.SolrInputDocument;
 import org.apache.solr.common.params.CursorMarkParams;
 import org.jvnet.hk2.annotations.Service;
@@ -49,16 +51,20 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import de.fiz.oai.backend.models.Item;
+import de.fiz.oai.backend.models.ItemHit;
 import de.fiz.oai.backend.models.SearchResult;
 import de.fiz.oai.backend.service.SearchService;
 import de.fiz.oai.backend.utils.Configuration;
+import de.fiz.oai.backend.utils.Datestamps;
+import de.fiz.oai.backend.utils.MetricsManager;
+import de.fiz.oai.backend.utils.SearchMarkCodec;
 
 @Service
 public class SolrSearchServiceImpl implements SearchService {
 
     private static Logger LOGGER = LoggerFactory.getLogger(SolrSearchServiceImpl.class);
 
-    private HttpSolrClient solrClient;
+    private SolrClient solrClient;
 
     private int commitWithin;
 
@@ -69,8 +75,17 @@ public class SolrSearchServiceImpl implements SearchService {
      * Constructor
      */
     public SolrSearchServiceImpl() {
+        this(null);
+    }
+
+    /**
+     * Constructor for tests
+     *
+     * @param solrClient the client to use, null to create one for solr.url
+     */
+    SolrSearchServiceImpl(SolrClient solrClient) {
         commitWithin = Integer.parseInt(Configuration.getInstance().getProperty("solr.commit.within", "30000"));
-        solrClient = initSolrClient();
+        this.solrClient = solrClient != null ? solrClient : initSolrClient();
     }
 
     /**
@@ -79,23 +94,17 @@ public class SolrSearchServiceImpl implements SearchService {
      */
     @Override
     public Map<String, Object> readDocument(Item item) throws IOException {
-        Map<String, Object> resultMap = new HashMap<>();
         try {
-            SolrDocument doc = solrClient.getById(item.getIdentifier());
+            SolrDocument doc = MetricsManager.getInstance().time(MetricsManager.SEARCH_REQUESTS,
+                () -> solrClient.getById(item.getIdentifier()), "operation", "readDocument");
             if (doc == null) {
                 return null;
             }
-            Collection<String> fieldNames = doc.getFieldNames();
-            for (String fieldName: fieldNames) {
-                Collection<Object> values = doc.getFieldValues(fieldName);
-                resultMap.put(fieldName, values);
-            }
+            return toMap(doc);
         }
         catch (Exception e) {
             throw new IOException(e.getMessage());
         }
-
-        return resultMap;
     }
 
     /**
@@ -107,12 +116,8 @@ public class SolrSearchServiceImpl implements SearchService {
     @Override
     public void createDocument(Item item) throws IOException {
         try {
-            Map<String, Object> itemMap = item.toMap();
-            SolrInputDocument solrDocument = new SolrInputDocument();
-            for (Entry<String, Object> entry : itemMap.entrySet()) {
-                solrDocument.addField(entry.getKey(), entry.getValue());
-            }
-            solrClient.add(solrDocument, commitWithin);
+            MetricsManager.getInstance().time(MetricsManager.SEARCH_REQUESTS,
+                () -> solrClient.add(toSolrDocument(item), commitWithin), "operation", "createDocument");
         }
         catch (Exception e) {
             throw new IOException(e.getMessage());
@@ -120,6 +125,60 @@ public class SolrSearchServiceImpl implements SearchService {
         LOGGER.info("Added/Updated item " + item.getIdentifier() + " to search index.");
     }
 
+    /**
+     * Solr adds a batch as a whole. If Solr rejects the batch, e.g. for a single bad document,
+     * the items are added one by one so only the bad ones are reported as failed. If Solr
+     * cannot be reached an IOException is thrown.
+     */
+    @Override
+    public Map<String, String> createDocuments(List<Item> items) throws IOException {
+        Map<String, String> failures = new HashMap<>();
+        if (items.isEmpty()) {
+            return failures;
+        }
+        List<SolrInputDocument> solrDocuments = new ArrayList<>(items.size());
+        for (Item item : items) {
+            solrDocuments.add(toSolrDocument(item));
+        }
+        try {
+            MetricsManager.getInstance().time(MetricsManager.SEARCH_REQUESTS,
+                () -> solrClient.add(solrDocuments, commitWithin), "operation", "createDocuments");
+            LOGGER.info("Added/Updated {} items to search index.", items.size());
+            return failures;
+        }
+        catch (SolrException e) {
+            LOGGER.warn("Adding {} items to search index failed, adding them one by one: {}", items.size(),
+                e.getMessage());
+        }
+        catch (Exception e) {
+            throw new IOException(e.getMessage(), e);
+        }
+
+        for (int i = 0; i < items.size(); i++) {
+            SolrInputDocument solrDocument = solrDocuments.get(i);
+            try {
+                MetricsManager.getInstance().time(MetricsManager.SEARCH_REQUESTS,
+                    () -> solrClient.add(solrDocument, commitWithin), "operation", "createDocument");
+            }
+            catch (SolrException e) {
+                failures.put(items.get(i).getIdentifier(), e.getMessage());
+            }
+            catch (Exception e) {
+                throw new IOException(e.getMessage(), e);
+            }
+        }
+        LOGGER.info("Added {} items to search index, {} failed.", items.size() - failures.size(), failures.size());
+        return failures;
+    }
+
+    private SolrInputDocument toSolrDocument(Item item) {
+        SolrInputDocument solrDocument = new SolrInputDocument();
+        for (Entry<String, Object> entry : item.toMap().entrySet()) {
+            solrDocument.addField(entry.getKey(), entry.getValue());
+        }
+        return solrDocument;
+    }
+
     /**
      * Update item in index.
      *
@@ -134,6 +193,24 @@ public class SolrSearchServiceImpl implements SearchService {
     @Override
     public SearchResult<String> search(
         Integer rows, String set, String format, Date fromDate, Date untilDate, String searchMark) throws IOException {
+        SearchResult<ItemHit> hitResult = search(rows, set, format, fromDate, untilDate, searchMark, false);
+
+        SearchResult<String> idResult = new SearchResult<>();
+        idResult.setSize(hitResult.getSize());
+        idResult.setTotal(hitResult.getTotal());
+        idResult.setData(hitResult.getData().stream().map(ItemHit::getIdentifier).collect(Collectors.toList()));
+        idResult.setSearchMark(hitResult.getSearchMark());
+        return idResult;
+    }
+
+    @Override
+    public SearchResult<ItemHit> searchHits(
+        Integer rows, String set, String format, Date fromDate, Date untilDate, String searchMark) throws IOException {
+        return search(rows, set, format, fromDate, untilDate, searchMark, true);
+    }
+
+    private SearchResult<ItemHit> search(Integer rows, String set, String format, Date fromDate, Date untilDate,
+        String searchMark, boolean withFields) throws IOException {
         String decodedSearchMark = null;
 
         if (LOGGER.isDebugEnabled()) {
@@ -143,26 +220,27 @@ public class SolrSearchServiceImpl implements SearchService {
         }
 
         StringBuilder query = new StringBuilder();
-        SearchResult<String> idResult = new SearchResult<>();
+        SearchResult<ItemHit> idResult = new SearchResult<>();
         try {
-            //URL-Encode + decode searchMark.
+            // The searchMark holds the cursorMark
             if (StringUtils.isBlank(searchMark)) {
                 decodedSearchMark = CursorMarkParams.CURSOR_MARK_START;
             }
+            else if (SearchMarkCodec.isEncoded(searchMark)) {
+                decodedSearchMark = SearchMarkCodec.decode(searchMark, 1)[0];
+                // searchMarks handed out before carried the number of hits returned in front,
+                // a cursorMark contains no ':'
+                decodedSearchMark = decodedSearchMark.substring(decodedSearchMark.indexOf(':') + 1);
+            }
             else {
+                // searchMark handed out before, the URL-encoded cursorMark only
                 decodedSearchMark = new String(Base64.getUrlDecoder().decode(searchMark), StandardCharsets.UTF_8);
             }
-            Date finalFromDate = new SimpleDateFormat("yyyy-MM-dd").parse("0001-01-01");
-            Date finalUntilDate = new SimpleDateFormat("yyyy-MM-dd").parse("9999-12-31");
+            long finalFromDate = fromDate != null ? fromDate.getTime() : Datestamps.MIN;
+            long finalUntilDate = untilDate != null ? untilDate.getTime() : Datestamps.MAX;
 
-            if (fromDate != null) {
-                finalFromDate = fromDate;
-            }
-            if (untilDate != null) {
-                finalUntilDate = untilDate;
-            }
-            query.append("datestamp:[").append(Configuration.getDateformat().format(finalFromDate));
-            query.append(" TO ").append(Configuration.getDateformat().format(finalUntilDate)).append("]");
+            query.append("datestamp:[").append(Datestamps.format(finalFromDate));
+            query.append(" TO ").append(Datestamps.format(finalUntilDate)).append("]");
             if (StringUtils.isNotBlank(format)) {
                 query.append(" AND formats:").append(ClientUtils.escapeQueryChars(format));
             }
@@ -171,7 +249,12 @@ public class SolrSearchServiceImpl implements SearchService {
             }
             SolrQuery solrQuery = new SolrQuery();
             solrQuery.setQuery(query.toString());
-            solrQuery.setFields("identifier");
+            if (withFields) {
+                solrQuery.setFields(ItemHit.FIELDS);
+            }
+            else {
+                solrQuery.setFields("identifier");
+            }
             solrQuery.setRows(rows);
             solrQuery.addSort("datestamp", ORDER.asc);
             solrQuery.addSort("identifier", ORDER.asc);
@@ -179,28 +262,27 @@ public class SolrSearchServiceImpl implements SearchService {
 
             LOGGER.debug("searchRequest: {}", solrQuery.toString());
 
-            QueryResponse rsp = solrClient.query(solrQuery);
+            QueryResponse rsp = MetricsManager.getInstance().time(MetricsManager.SEARCH_REQUESTS,
+                () -> solrClient.query(solrQuery), "operation", "search");
 
             LOGGER.debug("searchResponse: {}", rsp.toString());
 
-            List<String> idsRetrieved = new ArrayList<>();
+            List<ItemHit> idsRetrieved = new ArrayList<>();
 
             for (SolrDocument doc : rsp.getResults()) {
-                idsRetrieved.add((String) doc.getFieldValue("identifier"));
+                String identifier = (String) doc.getFirstValue("identifier");
+                idsRetrieved.add(withFields ? ItemHit.fromDocument(identifier, toMap(doc)) : new ItemHit(identifier));
             }
 
             idResult.setSize(idsRetrieved.size());
             idResult.setTotal(rsp.getResults().getNumFound());
             idResult.setData(idsRetrieved);
 
-            // Retry solrQuery with nextCursorMark. If there are results, send the searchMark
-            String nextCursorMark = rsp.getNextCursorMark();
-            solrQuery.set(CursorMarkParams.CURSOR_MARK_PARAM, nextCursorMark);
-            solrQuery.setRows(1);
-            rsp = solrClient.query(solrQuery);
-            if (!rsp.getResults().isEmpty()) {
-                //URL-Encode + decode searchMark.
-                idResult.setSearchMark(Base64.getUrlEncoder().encodeToString(nextCursorMark.getBytes()));
+            // Send the searchMark after every full page. The cursor reached the end on a short
+            // page or if it did not move. numFound cannot tell, it changes while harvesting when
+            // items leave or enter the datestamp range, so a full last page costs one empty page.
+            if (idsRetrieved.size() == rows && !decodedSearchMark.equals(rsp.getNextCursorMark())) {
+                idResult.setSearchMark(SearchMarkCodec.encode(rsp.getNextCursorMark()));
             }
         }
         catch (Exception e) {
@@ -216,7 +298,8 @@ public class SolrSearchServiceImpl implements SearchService {
     @Override
     public void deleteDocument(Item item) throws IOException {
         try {
-            solrClient.deleteById(item.getIdentifier(), commitWithin);
+            MetricsManager.getInstance().time(MetricsManager.SEARCH_REQUESTS,
+                () -> solrClient.deleteById(item.getIdentifier(), commitWithin), "operation", "deleteDocument");
         }
         catch (Exception e) {
             throw new IOException(e.getMessage());
@@ -258,6 +341,16 @@ public class SolrSearchServiceImpl implements SearchService {
         return "Not Possible";
     }
 
+    private Map<String, Object> toMap(SolrDocument doc) {
+        Map<String, Object> resultMap = new HashMap<>();
+        Collection<String> fieldNames = doc.getFieldNames();
+        for (String fieldName: fieldNames) {
+            Collection<Object> values = doc.getFieldValues(fieldName);
+            resultMap.put(fieldName, values);
+        }
+        return resultMap;
+    }
+
     private HttpSolrClient initSolrClient() {
         Builder builder = new Builder(Configuration.getInstance().getProperty("solr.url"));
         CloseableHttpClient httpclient =
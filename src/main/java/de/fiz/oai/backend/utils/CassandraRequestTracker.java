@@ -0,0 +1,99 @@
+/*
+ * Copyright 2019 FIZ Karlsruhe - Leibniz-Institut fuer Informationsinfrastruktur GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.fiz.oai.backend.utils;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.datastax.oss.driver.api.core.config.DriverExecutionProfile;
+import com.datastax.oss.driver.api.core.cql.BatchStatement;
+import com.datastax.oss.driver.api.core.cql.BoundStatement;
+import com.datastax.oss.driver.api.core.metadata.Node;
+import com.datastax.oss.driver.api.core.session.Request;
+import com.datastax.oss.driver.api.core.tracker.RequestTracker;
+
+import de.fiz.oai.backend.dao.impl.CqlStatement;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Times every request of the Cassandra sessions, tagged by table and statement. Prepared
+ * statements are recognized by their CQL, all other requests are tagged "other".
+ */
+public class CassandraRequestTracker implements RequestTracker {
+
+  private static final String TIMER_NAME = "oai.cassandra.requests";
+
+  private static final String OTHER = "other";
+
+  private final Map<String, CqlStatement> statementsByCql = new HashMap<>();
+
+  // Timers by statement, success at index 0, error at index 1
+  private final Map<CqlStatement, Timer[]> timers = new EnumMap<>(CqlStatement.class);
+
+  private final Timer[] batchTimers;
+
+  private final Timer[] otherTimers;
+
+  public CassandraRequestTracker(MeterRegistry registry) {
+    for (CqlStatement statement : CqlStatement.values()) {
+      statementsByCql.put(statement.getCql(), statement);
+      timers.put(statement, timers(registry, statement.getTable(), statement.name()));
+    }
+    batchTimers = timers(registry, OTHER, "BATCH");
+    otherTimers = timers(registry, OTHER, OTHER);
+  }
+
+  private static Timer[] timers(MeterRegistry registry, String table, String statement) {
+    Timer[] timers = new Timer[2];
+    timers[0] = Timer.builder(TIMER_NAME).tags("table", table, "statement", statement, MetricsManager.OUTCOME,
+        MetricsManager.SUCCESS).register(registry);
+    timers[1] = Timer.builder(TIMER_NAME).tags("table", table, "statement", statement, MetricsManager.OUTCOME,
+        MetricsManager.ERROR).register(registry);
+    return timers;
+  }
+
+  private Timer[] timersOf(Request request) {
+    if (request instanceof BoundStatement) {
+      CqlStatement statement = statementsByCql.get(((BoundStatement) request).getPreparedStatement().getQuery());
+      if (statement != null) {
+        return timers.get(statement);
+      }
+    } else if (request instanceof BatchStatement) {
+      return batchTimers;
+    }
+    return otherTimers;
+  }
+
+  @Override
+  public void onSuccess(Request request, long latencyNanos, DriverExecutionProfile executionProfile, Node node,
+      String requestLogPrefix) {
+    timersOf(request)[0].record(latencyNanos, TimeUnit.NANOSECONDS);
+  }
+
+  @Override
+  public void onError(Request request, Throwable error, long latencyNanos, DriverExecutionProfile executionProfile,
+      Node node, String requestLogPrefix) {
+    timersOf(request)[1].record(latencyNanos, TimeUnit.NANOSECONDS);
+  }
+
+  @Override
+  public void close() {
+  }
+
+}
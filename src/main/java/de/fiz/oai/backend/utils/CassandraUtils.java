@@ -15,19 +15,134 @@
  */
 package de.fiz.oai.backend.utils;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+
 import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.cql.AsyncResultSet;
 import com.datastax.oss.driver.api.core.cql.ResultSet;
 import com.datastax.oss.driver.api.core.cql.Row;
 import com.datastax.oss.driver.api.core.cql.SimpleStatement;
+import com.datastax.oss.driver.api.core.metadata.Metadata;
+import com.datastax.oss.driver.api.core.servererrors.InvalidQueryException;
 
 import de.fiz.oai.backend.dao.impl.CassandraDAOContent;
 import de.fiz.oai.backend.dao.impl.CassandraDAOCrosswalk;
+import de.fiz.oai.backend.dao.impl.CassandraDAOCrosswalkJob;
 import de.fiz.oai.backend.dao.impl.CassandraDAOFormat;
+import de.fiz.oai.backend.dao.impl.CassandraDAOIndexQueue;
 import de.fiz.oai.backend.dao.impl.CassandraDAOItem;
 import de.fiz.oai.backend.dao.impl.CassandraDAOSet;
 
 public class CassandraUtils {
 
+    /**
+     * Maximum number of asynchronous queries a single multi-get keeps in flight.
+     */
+    public static final int MAX_CONCURRENT_READS = 128;
+
+    /**
+     * Wait for an asynchronous driver result. The failure is rethrown unwrapped if it is an
+     * IOException or a RuntimeException, so callers see the same exceptions as with a
+     * synchronous call.
+     */
+    public static <T> T await(CompletionStage<T> stage) throws IOException {
+        try {
+            return stage.toCompletableFuture().get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        }
+        catch (ExecutionException e) {
+            Throwable cause = e.getCause() instanceof CompletionException ? e.getCause().getCause() : e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) cause).getCause();
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Run an asynchronous read per key with at most {@link #MAX_CONCURRENT_READS} reads in flight.
+     *
+     * @return the non-null results in the order of the given keys
+     */
+    public static <K, T> List<T> readWindowed(List<K> keys, Function<K, CompletionStage<T>> read) throws IOException {
+        return readWindowed(keys, MAX_CONCURRENT_READS, read);
+    }
+
+    /**
+     * Run an asynchronous read per key with at most window reads in flight.
+     *
+     * @return the non-null results in the order of the given keys
+     */
+    public static <K, T> List<T> readWindowed(List<K> keys, int window, Function<K, CompletionStage<T>> read)
+            throws IOException {
+        List<T> results = new ArrayList<T>(keys.size());
+        List<CompletionStage<T>> pending = new ArrayList<CompletionStage<T>>();
+        for (int i = 0; i < keys.size(); i += window) {
+            pending.clear();
+            for (K key : keys.subList(i, Math.min(keys.size(), i + window))) {
+                pending.add(read.apply(key));
+            }
+            for (CompletionStage<T> stage : pending) {
+                T result = await(stage);
+                if (result != null) {
+                    results.add(result);
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Map the first row of an asynchronous result, null if there is none.
+     */
+    public static <T> CompletionStage<T> one(CompletionStage<AsyncResultSet> stage, Function<Row, T> mapper) {
+        return stage.thenApply(rs -> {
+            Row row = rs.one();
+            return row != null ? mapper.apply(row) : null;
+        });
+    }
+
+    /**
+     * Map all rows of an asynchronous result, fetching the following pages without blocking.
+     */
+    public static <T> CompletionStage<List<T>> all(CompletionStage<AsyncResultSet> stage, Function<Row, T> mapper) {
+        return stage.thenCompose(rs -> collectPages(rs, mapper, new ArrayList<T>()));
+    }
+
+    private static <T> CompletionStage<List<T>> collectPages(AsyncResultSet rs, Function<Row, T> mapper, List<T> results) {
+        for (Row row : rs.currentPage()) {
+            results.add(mapper.apply(row));
+        }
+        if (rs.hasMorePages()) {
+            return rs.fetchNextPage().thenCompose(next -> collectPages(next, mapper, results));
+        }
+        return CompletableFuture.completedFuture(results);
+    }
+
+    /**
+     * A stage failed with an IOException, for argument checks of asynchronous DAO methods.
+     */
+    public static <T> CompletionStage<T> failed(String message) {
+        return CompletableFuture.failedFuture(new IOException(message));
+    }
+
     public static String getClusterTopologyInformation(CqlSession  session) {
         StringBuilder resultBuilder = new StringBuilder();
         SimpleStatement statement =
@@ -40,6 +155,37 @@ public class CassandraUtils {
         return resultBuilder.toString();
     }
 
+    /**
+     * Add a column to a table created by an older version. Nodes starting at the same time
+     * all see the column missing, the ALTER TABLE of all but the first fails then. A column
+     * that exists after all counts as added.
+     */
+    static void addColumnIfMissing(CqlSession session, String keyspace, String table, String column, String type) {
+        if (hasColumn(session.getMetadata(), keyspace, table, column)) {
+            return;
+        }
+        try {
+            session.execute("ALTER TABLE " + table + " ADD " + column + " " + type + ";");
+        }
+        catch (InvalidQueryException e) {
+            if (e.getMessage() != null && e.getMessage().contains("conflicts with an existing column")) {
+                return;
+            }
+            // Wait for the schema change of the other node to reach this one and look again
+            session.checkSchemaAgreement();
+            if (!hasColumn(session.refreshSchema(), keyspace, table, column)) {
+                throw e;
+            }
+        }
+    }
+
+    private static boolean hasColumn(Metadata metadata, String keyspace, String table, String column) {
+        return metadata.getKeyspace(keyspace)
+            .flatMap(keyspaceMetadata -> keyspaceMetadata.getTable(table))
+            .map(tableMetadata -> tableMetadata.getColumn(column).isPresent())
+            .orElse(false);
+    }
+
     public static void createTables(CqlSession session, String keyspace) {
     	
         // Create tables
@@ -56,6 +202,8 @@ public class CassandraUtils {
         createTableItemStmt.append(" text, ");
         createTableItemStmt.append(CassandraDAOItem.ITEM_DATESTAMP);
         createTableItemStmt.append(" text, ");
+        createTableItemStmt.append(CassandraDAOItem.ITEM_DATESTAMP_MILLIS);
+        createTableItemStmt.append(" bigint, ");
         createTableItemStmt.append(CassandraDAOItem.ITEM_DELETEFLAG);
         createTableItemStmt.append(" boolean, ");
         createTableItemStmt.append(CassandraDAOItem.ITEM_TAGS);
@@ -67,6 +215,44 @@ public class CassandraUtils {
         createTableItemStmt.append("));");
         session.execute(createTableItemStmt.toString());
 
+        // Item tables created before the datestamp was stored in milliseconds
+        addColumnIfMissing(session, keyspace, CassandraDAOItem.TABLENAME_ITEM, CassandraDAOItem.ITEM_DATESTAMP_MILLIS,
+            "bigint");
+
+        final StringBuilder createTableItemCountStmt = new StringBuilder();
+        createTableItemCountStmt.append("CREATE TABLE IF NOT EXISTS ");
+        createTableItemCountStmt.append(CassandraDAOItem.TABLENAME_ITEM_COUNT);
+        createTableItemCountStmt.append(" (");
+        createTableItemCountStmt.append(CassandraDAOItem.ITEM_COUNT_NAME);
+        createTableItemCountStmt.append(" text, ");
+        createTableItemCountStmt.append(CassandraDAOItem.ITEM_COUNT_ITEMS);
+        createTableItemCountStmt.append(" counter, PRIMARY KEY (");
+        createTableItemCountStmt.append(CassandraDAOItem.ITEM_COUNT_NAME);
+        createTableItemCountStmt.append("));");
+        session.execute(createTableItemCountStmt.toString());
+
+        final StringBuilder createTableItemCountSeedStmt = new StringBuilder();
+        createTableItemCountSeedStmt.append("CREATE TABLE IF NOT EXISTS ");
+        createTableItemCountSeedStmt.append(CassandraDAOItem.TABLENAME_ITEM_COUNT_SEED);
+        createTableItemCountSeedStmt.append(" (");
+        createTableItemCountSeedStmt.append(CassandraDAOItem.ITEM_COUNT_SEED_NAME);
+        createTableItemCountSeedStmt.append(" text, ");
+        createTableItemCountSeedStmt.append(CassandraDAOItem.ITEM_COUNT_SEED_SEEDED);
+        createTableItemCountSeedStmt.append(" timestamp, ");
+        createTableItemCountSeedStmt.append(CassandraDAOItem.ITEM_COUNT_SEED_STATE);
+        createTableItemCountSeedStmt.append(" text, ");
+        createTableItemCountSeedStmt.append(CassandraDAOItem.ITEM_COUNT_SEED_HEARTBEAT);
+        createTableItemCountSeedStmt.append(" timestamp, PRIMARY KEY (");
+        createTableItemCountSeedStmt.append(CassandraDAOItem.ITEM_COUNT_SEED_NAME);
+        createTableItemCountSeedStmt.append("));");
+        session.execute(createTableItemCountSeedStmt.toString());
+
+        // Seed tables created before the claim had a state
+        addColumnIfMissing(session, keyspace, CassandraDAOItem.TABLENAME_ITEM_COUNT_SEED,
+            CassandraDAOItem.ITEM_COUNT_SEED_STATE, "text");
+        addColumnIfMissing(session, keyspace, CassandraDAOItem.TABLENAME_ITEM_COUNT_SEED,
+            CassandraDAOItem.ITEM_COUNT_SEED_HEARTBEAT, "timestamp");
+
         final StringBuilder createTableSetStmt = new StringBuilder();
         createTableSetStmt.append("CREATE TABLE IF NOT EXISTS ");
         createTableSetStmt.append(CassandraDAOSet.TABLENAME_SET);
@@ -130,6 +316,108 @@ public class CassandraUtils {
         createTableCrosswalkStmt.append(CassandraDAOCrosswalk.CROSSWALK_NAME);
         createTableCrosswalkStmt.append("));");
         session.execute(createTableCrosswalkStmt.toString());
+
+        final StringBuilder createTableCrosswalkJobStmt = new StringBuilder();
+        createTableCrosswalkJobStmt.append("CREATE TABLE IF NOT EXISTS ");
+        createTableCrosswalkJobStmt.append(CassandraDAOCrosswalkJob.TABLENAME_CROSSWALK_JOB);
+        createTableCrosswalkJobStmt.append(" (");
+        createTableCrosswalkJobStmt.append(CassandraDAOCrosswalkJob.JOB_NAME);
+        createTableCrosswalkJobStmt.append(" text, ");
+        createTableCrosswalkJobStmt.append(CassandraDAOCrosswalkJob.JOB_UPDATEITEMTIMESTAMP);
+        createTableCrosswalkJobStmt.append(" boolean, ");
+        createTableCrosswalkJobStmt.append(CassandraDAOCrosswalkJob.JOB_FROM);
+        createTableCrosswalkJobStmt.append(" timestamp, ");
+        createTableCrosswalkJobStmt.append(CassandraDAOCrosswalkJob.JOB_UNTIL);
+        createTableCrosswalkJobStmt.append(" timestamp, ");
+        createTableCrosswalkJobStmt.append(CassandraDAOCrosswalkJob.JOB_SEARCHMARK);
+        createTableCrosswalkJobStmt.append(" text, ");
+        createTableCrosswalkJobStmt.append(CassandraDAOCrosswalkJob.JOB_STATE);
+        createTableCrosswalkJobStmt.append(" text, ");
+        createTableCrosswalkJobStmt.append(CassandraDAOCrosswalkJob.JOB_TOTAL);
+        createTableCrosswalkJobStmt.append(" bigint, ");
+        createTableCrosswalkJobStmt.append(CassandraDAOCrosswalkJob.JOB_PROCESSED);
+        createTableCrosswalkJobStmt.append(" bigint, ");
+        createTableCrosswalkJobStmt.append(CassandraDAOCrosswalkJob.JOB_FAILED);
+        createTableCrosswalkJobStmt.append(" bigint, ");
+        createTableCrosswalkJobStmt.append(CassandraDAOCrosswalkJob.JOB_STARTTIME);
+        createTableCrosswalkJobStmt.append(" text, ");
+        createTableCrosswalkJobStmt.append(CassandraDAOCrosswalkJob.JOB_ENDTIME);
+        createTableCrosswalkJobStmt.append(" text, ");
+        createTableCrosswalkJobStmt.append(CassandraDAOCrosswalkJob.JOB_HEARTBEAT);
+        createTableCrosswalkJobStmt.append(" timestamp, PRIMARY KEY (");
+        createTableCrosswalkJobStmt.append(CassandraDAOCrosswalkJob.JOB_NAME);
+        createTableCrosswalkJobStmt.append("));");
+        session.execute(createTableCrosswalkJobStmt.toString());
+
+        // Job tables created before jobs were claimed by a node
+        addColumnIfMissing(session, keyspace, CassandraDAOCrosswalkJob.TABLENAME_CROSSWALK_JOB,
+            CassandraDAOCrosswalkJob.JOB_HEARTBEAT, "timestamp");
+
+        final StringBuilder createTableIndexQueueStmt = new StringBuilder();
+        createTableIndexQueueStmt.append("CREATE TABLE IF NOT EXISTS ");
+        createTableIndexQueueStmt.append(CassandraDAOIndexQueue.TABLENAME_INDEX_QUEUE);
+        createTableIndexQueueStmt.append(" (");
+        createTableIndexQueueStmt.append(CassandraDAOIndexQueue.INDEX_QUEUE_SHARD);
+        createTableIndexQueueStmt.append(" int, ");
+        createTableIndexQueueStmt.append(CassandraDAOIndexQueue.INDEX_QUEUE_IDENTIFIER);
+        createTableIndexQueueStmt.append(" text, ");
+        createTableIndexQueueStmt.append(CassandraDAOIndexQueue.INDEX_QUEUE_QUEUED);
+        createTableIndexQueueStmt.append(" bigint, ");
+        createTableIndexQueueStmt.append(CassandraDAOIndexQueue.INDEX_QUEUE_ATTEMPTS);
+        createTableIndexQueueStmt.append(" int, ");
+        createTableIndexQueueStmt.append(CassandraDAOIndexQueue.INDEX_QUEUE_NEXT_ATTEMPT);
+        createTableIndexQueueStmt.append(" bigint, PRIMARY KEY (");
+        createTableIndexQueueStmt.append(CassandraDAOIndexQueue.INDEX_QUEUE_SHARD);
+        createTableIndexQueueStmt.append(", ");
+        createTableIndexQueueStmt.append(CassandraDAOIndexQueue.INDEX_QUEUE_IDENTIFIER);
+        // Entries are short lived, tombstones of indexed entries need not be kept long
+        createTableIndexQueueStmt.append(")) WITH gc_grace_seconds = 3600;");
+        session.execute(createTableIndexQueueStmt.toString());
+
+        // Queue tables created before failed attempts were counted
+        addColumnIfMissing(session, keyspace, CassandraDAOIndexQueue.TABLENAME_INDEX_QUEUE,
+            CassandraDAOIndexQueue.INDEX_QUEUE_ATTEMPTS, "int");
+        addColumnIfMissing(session, keyspace, CassandraDAOIndexQueue.TABLENAME_INDEX_QUEUE,
+            CassandraDAOIndexQueue.INDEX_QUEUE_NEXT_ATTEMPT, "bigint");
+
+        final StringBuilder createTableIndexDeadLetterStmt = new StringBuilder();
+        createTableIndexDeadLetterStmt.append("CREATE TABLE IF NOT EXISTS ");
+        createTableIndexDeadLetterStmt.append(CassandraDAOIndexQueue.TABLENAME_INDEX_DEAD_LETTER);
+        createTableIndexDeadLetterStmt.append(" (");
+        createTableIndexDeadLetterStmt.append(CassandraDAOIndexQueue.DEAD_LETTER_IDENTIFIER);
+        createTableIndexDeadLetterStmt.append(" text, ");
+        createTableIndexDeadLetterStmt.append(CassandraDAOIndexQueue.DEAD_LETTER_ATTEMPTS);
+        createTableIndexDeadLetterStmt.append(" int, ");
+        createTableIndexDeadLetterStmt.append(CassandraDAOIndexQueue.DEAD_LETTER_FAILED);
+        createTableIndexDeadLetterStmt.append(" bigint, ");
+        createTableIndexDeadLetterStmt.append(CassandraDAOIndexQueue.DEAD_LETTER_ERROR);
+        createTableIndexDeadLetterStmt.append(" text, PRIMARY KEY (");
+        createTableIndexDeadLetterStmt.append(CassandraDAOIndexQueue.DEAD_LETTER_IDENTIFIER);
+        createTableIndexDeadLetterStmt.append("));");
+        session.execute(createTableIndexDeadLetterStmt.toString());
+
+        // Leases and registrations expire with their TTL
+        final StringBuilder createTableIndexLeaseStmt = new StringBuilder();
+        createTableIndexLeaseStmt.append("CREATE TABLE IF NOT EXISTS ");
+        createTableIndexLeaseStmt.append(CassandraDAOIndexQueue.TABLENAME_INDEX_LEASE);
+        createTableIndexLeaseStmt.append(" (");
+        createTableIndexLeaseStmt.append(CassandraDAOIndexQueue.LEASE_SHARD);
+        createTableIndexLeaseStmt.append(" int, ");
+        createTableIndexLeaseStmt.append(CassandraDAOIndexQueue.LEASE_OWNER);
+        createTableIndexLeaseStmt.append(" text, PRIMARY KEY (");
+        createTableIndexLeaseStmt.append(CassandraDAOIndexQueue.LEASE_SHARD);
+        createTableIndexLeaseStmt.append(")) WITH gc_grace_seconds = 3600;");
+        session.execute(createTableIndexLeaseStmt.toString());
+
+        final StringBuilder createTableIndexerStmt = new StringBuilder();
+        createTableIndexerStmt.append("CREATE TABLE IF NOT EXISTS ");
+        createTableIndexerStmt.append(CassandraDAOIndexQueue.TABLENAME_INDEXER);
+        createTableIndexerStmt.append(" (");
+        createTableIndexerStmt.append(CassandraDAOIndexQueue.INDEXER_NODE);
+        createTableIndexerStmt.append(" text, PRIMARY KEY (");
+        createTableIndexerStmt.append(CassandraDAOIndexQueue.INDEXER_NODE);
+        createTableIndexerStmt.append(")) WITH gc_grace_seconds = 3600;");
+        session.execute(createTableIndexerStmt.toString());
     }
 
 
@@ -19,6 +19,10 @@ import java.net.InetSocketAddress;
 import java.time.Duration;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
@@ -28,17 +32,31 @@ import com.datastax.oss.driver.api.core.CqlSession;
 import com.datastax.oss.driver.api.core.CqlSessionBuilder;
 import com.datastax.oss.driver.api.core.config.DefaultDriverOption;
 import com.datastax.oss.driver.api.core.config.DriverConfigLoader;
+import com.datastax.oss.driver.api.core.cql.PreparedStatement;
 
+import de.fiz.oai.backend.dao.impl.CqlStatement;
+
+/**
+ * Holds the Cassandra sessions. A CqlSession is thread-safe and multiplexes many requests
+ * over each connection, so one session is enough for most deployments. With more than one
+ * session configured the DAO calls are spread round-robin without locking.
+ */
 public class ClusterManager {
 
     private static final int CASSANDRA_DEFAULT_PORT = 9042;
 
-    private static ClusterManager instance;
+    private static volatile ClusterManager instance;
 
-    private static int DEFAULT_CASSANDRA_SESSIONS = 20;
+    private static int DEFAULT_CASSANDRA_SESSIONS = 1;
     
     private static long DEFAULT_REQUEST_TIMEOUT = 2;
 
+    private static int DEFAULT_CONNECTIONS_LOCAL = 2;
+
+    private static int DEFAULT_CONNECTIONS_REMOTE = 1;
+
+    private static int DEFAULT_MAX_REQUESTS_PER_CONNECTION = 1024;
+
     private final int numberOfCassandraSessions;
 
     private final String keyspace;
@@ -47,9 +65,12 @@ public class ClusterManager {
 
     private final String datacenter;
 
-    private CqlSession[] sessions = null;
+    // Written under the lock of openSession, read without
+    private final AtomicReferenceArray<CqlSession> sessions;
+
+    private final Map<CqlSession, PreparedStatementRegistry> preparedStatements = new ConcurrentHashMap<>();
 
-    private int rrSessionCounter = 0;
+    private final AtomicInteger nextSession = new AtomicInteger();
 
     CqlSessionBuilder sessionBuilder;
     
@@ -78,6 +99,7 @@ public class ClusterManager {
         sessionBuilder = CqlSession.builder();
         sessionBuilder.withKeyspace(keyspace);
         sessionBuilder.withLocalDatacenter(datacenter);
+        sessionBuilder.withRequestTracker(new CassandraRequestTracker(MetricsManager.getInstance().getRegistry()));
 
         if (!StringUtils.isBlank(username) && !StringUtils.isBlank(password)) {
             sessionBuilder.withAuthCredentials(username, password);
@@ -91,23 +113,44 @@ public class ClusterManager {
             sessionBuilder.addContactPoint(new InetSocketAddress(address.getHostString(), containerPort));
         }
 
-        String cassandraSessionsStr = config.getProperty("cassandra.sessions");
-        int cassandraSessions = DEFAULT_CASSANDRA_SESSIONS;
-        if (StringUtils.isNotBlank(cassandraSessionsStr)) {
-            try {
-                cassandraSessions = Integer.parseInt(cassandraSessionsStr);
-            }
-            catch (NumberFormatException e) {
-                LOGGER.warn("Invalid value of property: cassandra.sessions", e);
-            }
-        }
-        numberOfCassandraSessions = cassandraSessions;
-        sessions = new CqlSession[numberOfCassandraSessions];
+        numberOfCassandraSessions = Math.max(1, getIntProperty(config, "cassandra.sessions", DEFAULT_CASSANDRA_SESSIONS));
+        LOGGER.info("Found sessions {}", numberOfCassandraSessions);
+        sessions = new AtomicReferenceArray<>(numberOfCassandraSessions);
 
         // Check and create keyspace and tables if not exists
         CqlSession session = sessionBuilder.withConfigLoader(getConfigLoader()).build();
         CassandraUtils.createTables(session, keyspace);
         session.close();
+
+        // Open all sessions and prepare the statements before the first request arrives
+        for (int i = 0; i < numberOfCassandraSessions; i++) {
+            openSession(i);
+        }
+    }
+
+    private int getIntProperty(Configuration config, String key, int defaultValue) {
+        try {
+            return Integer.parseInt(config.getProperty(key, String.valueOf(defaultValue)));
+        }
+        catch (NumberFormatException e) {
+            LOGGER.warn("Invalid value of property: " + key, e);
+            return defaultValue;
+        }
+    }
+
+    private synchronized CqlSession openSession(int index) {
+        CqlSession session = sessions.get(index);
+        if (session == null || session.isClosed()) {
+            if (session != null) {
+                preparedStatements.remove(session);
+            }
+            PreparedStatementRegistry registry = new PreparedStatementRegistry(keyspace);
+            session = sessionBuilder.withConfigLoader(getConfigLoader()).withSchemaChangeListener(registry).build();
+            registry.prepareAll(session);
+            preparedStatements.put(session, registry);
+            sessions.set(index, session);
+        }
+        return session;
     }
 
     private DriverConfigLoader getConfigLoader() {
@@ -122,11 +165,21 @@ public class ClusterManager {
                 LOGGER.warn("Invalid value of property: cassandra.requesttimeout", e);
             }
             LOGGER.info("Found requesttimeout {}", requestTimeout);
+
+            int connectionsLocal = getIntProperty(config, "cassandra.connections.local", DEFAULT_CONNECTIONS_LOCAL);
+            int connectionsRemote = getIntProperty(config, "cassandra.connections.remote", DEFAULT_CONNECTIONS_REMOTE);
+            int maxRequests = getIntProperty(config, "cassandra.max.requests.per.connection",
+                DEFAULT_MAX_REQUESTS_PER_CONNECTION);
+            LOGGER.info("Found connections per node {} local, {} remote, max requests per connection {}",
+                connectionsLocal, connectionsRemote, maxRequests);
             
              configLoader =
                 DriverConfigLoader
                     .programmaticBuilder()
                     .withDuration(DefaultDriverOption.REQUEST_TIMEOUT, Duration.ofSeconds(requestTimeout))
+                    .withInt(DefaultDriverOption.CONNECTION_POOL_LOCAL_SIZE, connectionsLocal)
+                    .withInt(DefaultDriverOption.CONNECTION_POOL_REMOTE_SIZE, connectionsRemote)
+                    .withInt(DefaultDriverOption.CONNECTION_MAX_REQUESTS, maxRequests)
                     .withString(DefaultDriverOption.RECONNECTION_POLICY_CLASS, "ExponentialReconnectionPolicy")
                     .withDuration(DefaultDriverOption.RECONNECTION_BASE_DELAY, Duration.ofSeconds(1))
                     .withDuration(DefaultDriverOption.RECONNECTION_MAX_DELAY, Duration.ofSeconds(60))
@@ -136,31 +189,43 @@ public class ClusterManager {
         return configLoader;
     }
     
-    public static synchronized ClusterManager getInstance() {
-        if (instance == null) {
-            instance = new ClusterManager();
+    public static ClusterManager getInstance() {
+        ClusterManager manager = instance;
+        if (manager == null) {
+            synchronized (ClusterManager.class) {
+                manager = instance;
+                if (manager == null) {
+                    manager = new ClusterManager();
+                    instance = manager;
+                }
+            }
         }
-        return instance;
+        return manager;
     }
 
     public CqlSession getCassandraSession() {
-        int currentSession;
-        synchronized (this) {
-            currentSession = rrSessionCounter++;
-            if (rrSessionCounter == numberOfCassandraSessions) {
-                rrSessionCounter = 0;
-            }
-        }
-        CqlSession session = sessions[currentSession];
+        int currentSession = numberOfCassandraSessions == 1 ? 0
+            : Math.floorMod(nextSession.getAndIncrement(), numberOfCassandraSessions);
+        CqlSession session = sessions.get(currentSession);
         if (session == null || session.isClosed()) {
-            synchronized (this) {
-                session = sessionBuilder.withConfigLoader(getConfigLoader()).build();
-                sessions[currentSession] = session;
-            }
+            session = openSession(currentSession);
         }
         return session;
     }
 
+    /**
+     * @param session a session returned by {@link #getCassandraSession()}
+     * @param statement the statement
+     * @return the statement prepared on the given session
+     */
+    public PreparedStatement getPreparedStatement(CqlSession session, CqlStatement statement) {
+        PreparedStatementRegistry registry = preparedStatements.get(session);
+        if (registry == null) {
+            throw new IllegalStateException("Session is not managed by the ClusterManager");
+        }
+        return registry.get(statement);
+    }
+
     private Collection<InetSocketAddress> parseCassandraHostConfig(String cassandraConfigStr, Configuration config) {
         // TODO: need to support IPv6 addresses here at some point
         Collection<InetSocketAddress> result = new HashSet<InetSocketAddress>();
@@ -181,7 +246,8 @@ public class ClusterManager {
     }
 
     public void shutdown() {
-        for (CqlSession session : sessions) {
+        for (int i = 0; i < sessions.length(); i++) {
+            CqlSession session = sessions.get(i);
             if (session != null && !session.isClosed()) {
                 session.close();
             }
@@ -0,0 +1,247 @@
+/*
+ * Copyright 2019 FIZ Karlsruhe - Leibniz-Institut fuer Informationsinfrastruktur GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.fiz.oai.backend.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Compression of stored content. A compressed blob starts with a zero byte, which never
+ * starts an XML document, followed by the id of the codec. Blobs without the header are
+ * stored as they are, so rows written before compression was enabled stay readable.
+ * <p>
+ * Contents smaller than the threshold, or that do not get smaller, are stored uncompressed.
+ */
+public class ContentCompressor {
+
+  private static Logger LOGGER = LoggerFactory.getLogger(ContentCompressor.class);
+
+  static final byte MARKER = 0;
+
+  private static final int HEADER_LENGTH = 2;
+
+  /**
+   * A compression algorithm. The id is stored with each blob and must never change.
+   */
+  public interface Codec {
+
+    byte getId();
+
+    String getName();
+
+    byte[] compress(byte[] raw, int offset);
+
+    byte[] decompress(byte[] compressed, int offset, int length) throws IOException;
+  }
+
+  public static final Codec DEFLATE = new DeflateCodec(Deflater.BEST_SPEED);
+
+  private static final Codec[] CODECS = { DEFLATE };
+
+  private static ContentCompressor instance;
+
+  private final Codec codec;
+
+  private final int threshold;
+
+  private final AtomicLong compressedCount = new AtomicLong();
+
+  private final AtomicLong uncompressedCount = new AtomicLong();
+
+  private final AtomicLong rawBytesWritten = new AtomicLong();
+
+  private final AtomicLong storedBytesWritten = new AtomicLong();
+
+  private final AtomicLong rawBytesRead = new AtomicLong();
+
+  private final AtomicLong storedBytesRead = new AtomicLong();
+
+  /**
+   * @param codec the codec for new contents, null to store them uncompressed
+   * @param threshold the minimum size in bytes to compress
+   */
+  public ContentCompressor(Codec codec, int threshold) {
+    this.codec = codec;
+    this.threshold = threshold;
+  }
+
+  public static synchronized ContentCompressor getInstance() {
+    if (instance == null) {
+      Configuration config = Configuration.getInstance();
+      String name = config.getProperty("content.compression", DEFLATE.getName());
+      Codec codec = Arrays.stream(CODECS).filter(candidate -> candidate.getName().equalsIgnoreCase(name)).findFirst()
+          .orElse(null);
+      if (codec == null && !"none".equalsIgnoreCase(name)) {
+        LOGGER.warn("Unknown content.compression {}, contents are stored uncompressed", name);
+      }
+      int threshold = Integer.parseInt(config.getProperty("content.compression.threshold", "1024"));
+      LOGGER.info("Content compression: {}, threshold {} bytes", codec != null ? codec.getName() : "none", threshold);
+      instance = new ContentCompressor(codec, threshold);
+      instance.bindTo(MetricsManager.getInstance().getRegistry());
+    }
+    return instance;
+  }
+
+  private void bindTo(MeterRegistry registry) {
+    FunctionCounter.builder("oai.content.contents", compressedCount, AtomicLong::get).tag("compressed", "true")
+        .register(registry);
+    FunctionCounter.builder("oai.content.contents", uncompressedCount, AtomicLong::get).tag("compressed", "false")
+        .register(registry);
+    FunctionCounter.builder("oai.content.bytes", rawBytesWritten, AtomicLong::get).baseUnit("bytes")
+        .tags("operation", "write", "size", "raw").register(registry);
+    FunctionCounter.builder("oai.content.bytes", storedBytesWritten, AtomicLong::get).baseUnit("bytes")
+        .tags("operation", "write", "size", "stored").register(registry);
+    FunctionCounter.builder("oai.content.bytes", rawBytesRead, AtomicLong::get).baseUnit("bytes")
+        .tags("operation", "read", "size", "raw").register(registry);
+    FunctionCounter.builder("oai.content.bytes", storedBytesRead, AtomicLong::get).baseUnit("bytes")
+        .tags("operation", "read", "size", "stored").register(registry);
+  }
+
+  /**
+   * @param raw the content
+   * @return the blob to store
+   */
+  public byte[] encode(byte[] raw) {
+    byte[] stored = raw;
+    if (codec != null && raw.length >= threshold) {
+      byte[] compressed = codec.compress(raw, HEADER_LENGTH);
+      if (compressed.length < raw.length) {
+        compressed[0] = MARKER;
+        compressed[1] = codec.getId();
+        stored = compressed;
+      }
+    }
+    (stored == raw ? uncompressedCount : compressedCount).incrementAndGet();
+    rawBytesWritten.addAndGet(raw.length);
+    storedBytesWritten.addAndGet(stored.length);
+    return stored;
+  }
+
+  /**
+   * @param stored a blob created by {@link #encode(byte[])} or an uncompressed blob
+   * @return the content
+   * @throws IOException if the blob is corrupt
+   */
+  public byte[] decode(byte[] stored) throws IOException {
+    byte[] raw = stored;
+    Codec storedCodec = stored.length >= HEADER_LENGTH && stored[0] == MARKER ? getCodec(stored[1]) : null;
+    if (storedCodec != null) {
+      raw = storedCodec.decompress(stored, HEADER_LENGTH, stored.length - HEADER_LENGTH);
+    }
+    rawBytesRead.addAndGet(raw.length);
+    storedBytesRead.addAndGet(stored.length);
+    return raw;
+  }
+
+  /**
+   * @return the codec, null if unknown, e.g. for an old UTF-16 content
+   */
+  private static Codec getCodec(byte id) {
+    for (Codec candidate : CODECS) {
+      if (candidate.getId() == id) {
+        return candidate;
+      }
+    }
+    return null;
+  }
+
+  public Map<String, Long> getStatistics() {
+    Map<String, Long> statistics = new LinkedHashMap<>();
+    statistics.put("compressedCount", compressedCount.get());
+    statistics.put("uncompressedCount", uncompressedCount.get());
+    statistics.put("rawBytesWritten", rawBytesWritten.get());
+    statistics.put("storedBytesWritten", storedBytesWritten.get());
+    statistics.put("rawBytesRead", rawBytesRead.get());
+    statistics.put("storedBytesRead", storedBytesRead.get());
+    return statistics;
+  }
+
+  /**
+   * Deflate without zlib header and checksum, Deflater and Inflater are reused per thread.
+   */
+  private static final class DeflateCodec implements Codec {
+
+    private final ThreadLocal<Deflater> deflaters;
+
+    private final ThreadLocal<Inflater> inflaters = ThreadLocal.withInitial(() -> new Inflater(true));
+
+    DeflateCodec(int level) {
+      this.deflaters = ThreadLocal.withInitial(() -> new Deflater(level, true));
+    }
+
+    @Override
+    public byte getId() {
+      return 1;
+    }
+
+    @Override
+    public String getName() {
+      return "deflate";
+    }
+
+    @Override
+    public byte[] compress(byte[] raw, int offset) {
+      Deflater deflater = deflaters.get();
+      deflater.reset();
+      deflater.setInput(raw);
+      deflater.finish();
+
+      ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 4 + offset + 64);
+      out.write(new byte[offset], 0, offset);
+      byte[] buffer = new byte[8192];
+      while (!deflater.finished()) {
+        out.write(buffer, 0, deflater.deflate(buffer));
+      }
+      return out.toByteArray();
+    }
+
+    @Override
+    public byte[] decompress(byte[] compressed, int offset, int length) throws IOException {
+      Inflater inflater = inflaters.get();
+      inflater.reset();
+      inflater.setInput(compressed, offset, length);
+
+      ByteArrayOutputStream out = new ByteArrayOutputStream(length * 4);
+      byte[] buffer = new byte[8192];
+      try {
+        while (!inflater.finished()) {
+          int inflated = inflater.inflate(buffer);
+          if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+            throw new IOException("Truncated compressed content");
+          }
+          out.write(buffer, 0, inflated);
+        }
+      } catch (DataFormatException e) {
+        throw new IOException("Corrupt compressed content", e);
+      }
+      return out.toByteArray();
+    }
+  }
+
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2019 FIZ Karlsruhe - Leibniz-Institut fuer Informationsinfrastruktur GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.fiz.oai.backend.utils;
+
+import java.text.ParseException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Date;
+import java.util.Locale;
+
+/**
+ * Conversion between datestamps in UTC seconds granularity, e.g. 2019-05-20T20:33:18Z, and
+ * epoch milliseconds. The formatter is immutable and shared by all threads.
+ * <p>
+ * Parsing also accepts fractions of a second, which clients have sent before.
+ */
+public final class Datestamps {
+
+  public static final String PATTERN = "yyyy-MM-dd'T'HH:mm:ss'Z'";
+
+  private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern(PATTERN, Locale.ROOT)
+      .withZone(ZoneOffset.UTC);
+
+  /**
+   * The lower bound of a search without from date, 0001-01-01T00:00:00Z.
+   */
+  public static final long MIN = Instant.parse("0001-01-01T00:00:00Z").toEpochMilli();
+
+  /**
+   * The upper bound of a search without until date, 9999-12-31T00:00:00Z.
+   */
+  public static final long MAX = Instant.parse("9999-12-31T00:00:00Z").toEpochMilli();
+
+  private Datestamps() {
+  }
+
+  /**
+   * @param millis epoch milliseconds
+   * @return the datestamp, milliseconds are cut off
+   */
+  public static String format(long millis) {
+    return FORMATTER.format(Instant.ofEpochMilli(millis));
+  }
+
+  /**
+   * @param datestamp the datestamp
+   * @return the epoch milliseconds
+   * @throws ParseException if the datestamp is invalid
+   */
+  public static long parse(String datestamp) throws ParseException {
+    try {
+      return DateTimeFormatter.ISO_INSTANT.parse(datestamp, Instant::from).toEpochMilli();
+    } catch (DateTimeParseException e) {
+      throw new ParseException("Invalid datestamp: " + datestamp, e.getErrorIndex());
+    }
+  }
+
+  /**
+   * @param datestamp the datestamp
+   * @return the date
+   * @throws ParseException if the datestamp is invalid
+   */
+  public static Date parseDate(String datestamp) throws ParseException {
+    return new Date(parse(datestamp));
+  }
+
+  /**
+   * @return the current time in epoch milliseconds, cut to the seconds a datestamp holds
+   */
+  public static long now() {
+    long millis = System.currentTimeMillis();
+    return millis - Math.floorMod(millis, 1000L);
+  }
+
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2019 FIZ Karlsruhe - Leibniz-Institut fuer Informationsinfrastruktur GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.fiz.oai.backend.utils;
+
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.JvmGcMetrics;
+import io.micrometer.core.instrument.binder.jvm.JvmMemoryMetrics;
+import io.micrometer.core.instrument.binder.jvm.JvmThreadMetrics;
+import io.micrometer.core.instrument.binder.system.ProcessorMetrics;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+
+/**
+ * Holds the meter registry all timers, counters and gauges are registered with. The
+ * registry is exported in the Prometheus text format by GET /metrics.
+ * <p>
+ * Timers are tagged with outcome=success or outcome=error, so failed calls do not distort
+ * the latencies of successful ones.
+ */
+public class MetricsManager {
+
+  public static final String OUTCOME = "outcome";
+
+  public static final String SUCCESS = "success";
+
+  public static final String ERROR = "error";
+
+  /**
+   * Timer of the requests to the search index, tagged by operation.
+   */
+  public static final String SEARCH_REQUESTS = "oai.search.requests";
+
+  private static MetricsManager instance;
+
+  private final PrometheusMeterRegistry registry;
+
+  private MetricsManager() {
+    registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+    new JvmMemoryMetrics().bindTo(registry);
+    new JvmGcMetrics().bindTo(registry);
+    new JvmThreadMetrics().bindTo(registry);
+    new ProcessorMetrics().bindTo(registry);
+  }
+
+  public static synchronized MetricsManager getInstance() {
+    if (instance == null) {
+      instance = new MetricsManager();
+    }
+    return instance;
+  }
+
+  public MeterRegistry getRegistry() {
+    return registry;
+  }
+
+  /**
+   * @return all meters in the Prometheus text format
+   */
+  public String scrape() {
+    return registry.scrape();
+  }
+
+  /**
+   * @param name the timer name
+   * @param tags tag names and values
+   * @return the timer, with a histogram for percentiles across instances
+   */
+  public Timer timer(String name, String... tags) {
+    return Timer.builder(name).tags(tags).publishPercentileHistogram().register(registry);
+  }
+
+  /**
+   * Time a call, the outcome tag is added to the given tags.
+   *
+   * @param name the timer name
+   * @param call the call
+   * @param tags tag names and values
+   * @return the result of the call
+   */
+  public <T, E extends Exception> T time(String name, TimedCall<T, E> call, String... tags) throws E {
+    long start = System.nanoTime();
+    String outcome = ERROR;
+    try {
+      T result = call.call();
+      outcome = SUCCESS;
+      return result;
+    } finally {
+      timer(name, withOutcome(tags, outcome)).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  private static String[] withOutcome(String[] tags, String outcome) {
+    String[] all = new String[tags.length + 2];
+    System.arraycopy(tags, 0, all, 0, tags.length);
+    all[tags.length] = OUTCOME;
+    all[tags.length + 1] = outcome;
+    return all;
+  }
+
+  /**
+   * A call to time, the exceptions it throws are passed on.
+   */
+  @FunctionalInterface
+  public interface TimedCall<T, E extends Exception> {
+    T call() throws E;
+  }
+
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2019 FIZ Karlsruhe - Leibniz-Institut fuer Informationsinfrastruktur GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.fiz.oai.backend.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.cql.PreparedStatement;
+import com.datastax.oss.driver.api.core.metadata.schema.SchemaChangeListenerBase;
+import com.datastax.oss.driver.api.core.metadata.schema.TableMetadata;
+
+import de.fiz.oai.backend.dao.impl.CqlStatement;
+
+/**
+ * The prepared statements of one Cassandra session. A PreparedStatement must be
+ * executed on the session that prepared it, otherwise the driver cannot re-prepare
+ * it after a node restart, so every session of the ClusterManager gets its own registry.
+ * <p>
+ * All statements are prepared when the session is opened. The registry is also the
+ * session's schema listener and re-prepares the statements of a table after it was
+ * altered, so "SELECT *" statements pick up the new columns.
+ */
+public class PreparedStatementRegistry extends SchemaChangeListenerBase {
+
+  private static Logger LOGGER = LoggerFactory.getLogger(PreparedStatementRegistry.class);
+
+  private final String keyspace;
+
+  private final ConcurrentMap<CqlStatement, PreparedStatement> statements = new ConcurrentHashMap<>();
+
+  private volatile CqlSession session;
+
+  public PreparedStatementRegistry(String keyspace) {
+    this.keyspace = keyspace;
+  }
+
+  /**
+   * Prepare all statements on the given session and wait for them.
+   *
+   * @param session the session this registry was registered with as schema listener
+   */
+  public void prepareAll(CqlSession session) {
+    this.session = session;
+    List<CompletionStage<PreparedStatement>> pending = new ArrayList<>();
+    for (CqlStatement statement : CqlStatement.values()) {
+      pending.add(session.prepareAsync(statement.getCql())
+          .whenComplete((prepared, error) -> {
+            if (prepared != null) {
+              statements.put(statement, prepared);
+            }
+          }));
+    }
+    for (CompletionStage<PreparedStatement> stage : pending) {
+      stage.toCompletableFuture().join();
+    }
+    LOGGER.info("Prepared {} statements", statements.size());
+  }
+
+  /**
+   * @param statement the statement
+   * @return the prepared statement, prepared now if it was invalidated
+   */
+  public PreparedStatement get(CqlStatement statement) {
+    PreparedStatement prepared = statements.get(statement);
+    if (prepared == null) {
+      prepared = statements.computeIfAbsent(statement, key -> session.prepare(key.getCql()));
+    }
+    return prepared;
+  }
+
+  @Override
+  public void onTableUpdated(TableMetadata current, TableMetadata previous) {
+    if (!current.getKeyspace().asInternal().equalsIgnoreCase(keyspace)) {
+      return;
+    }
+    String table = current.getName().asInternal();
+    for (CqlStatement statement : CqlStatement.values()) {
+      if (statement.getTable().equalsIgnoreCase(table)) {
+        LOGGER.info("Table {} changed, re-preparing {}", table, statement);
+        statements.remove(statement);
+        session.prepareAsync(statement.getCql()).thenAccept(prepared -> statements.put(statement, prepared));
+      }
+    }
+  }
+
+}
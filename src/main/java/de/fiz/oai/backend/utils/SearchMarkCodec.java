@@ -0,0 +1,83 @@
+/*
+ * Copyright 2019 FIZ Karlsruhe - Leibniz-Institut fuer Informationsinfrastruktur GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.fiz.oai.backend.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Self-contained searchMarks. The values a search needs to continue after the last hit
+ * are packed into an opaque, URL safe string, so resolving a searchMark needs no lookup.
+ * <p>
+ * Marks start with {@value #PREFIX}. Anything else is a searchMark of an older version,
+ * which was the plain identifier of the last hit.
+ */
+public final class SearchMarkCodec {
+
+  public static final String PREFIX = "v1.";
+
+  private static final char SEPARATOR = ':';
+
+  private SearchMarkCodec() {
+  }
+
+  /**
+   * @param values the values, only the last one may contain a ':'
+   * @return the searchMark
+   */
+  public static String encode(String... values) {
+    StringBuilder payload = new StringBuilder();
+    for (int i = 0; i < values.length; i++) {
+      if (i > 0) {
+        payload.append(SEPARATOR);
+      }
+      if (i < values.length - 1 && values[i].indexOf(SEPARATOR) >= 0) {
+        throw new IllegalArgumentException("Only the last value of a searchMark may contain a ':': " + values[i]);
+      }
+      payload.append(values[i]);
+    }
+    return PREFIX
+        + Base64.getUrlEncoder().withoutPadding().encodeToString(payload.toString().getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * @param searchMark the searchMark
+   * @return whether it was created by {@link #encode(String...)}
+   */
+  public static boolean isEncoded(String searchMark) {
+    return searchMark != null && searchMark.startsWith(PREFIX);
+  }
+
+  /**
+   * @param searchMark a searchMark created by {@link #encode(String...)}
+   * @param count the number of values encoded
+   * @return the values
+   * @throws IllegalArgumentException if the searchMark is invalid
+   */
+  public static String[] decode(String searchMark, int count) {
+    if (!isEncoded(searchMark)) {
+      throw new IllegalArgumentException("Invalid searchMark: " + searchMark);
+    }
+    String payload = new String(Base64.getUrlDecoder().decode(searchMark.substring(PREFIX.length())),
+        StandardCharsets.UTF_8);
+    String[] values = payload.split(String.valueOf(SEPARATOR), count);
+    if (values.length != count) {
+      throw new IllegalArgumentException("Invalid searchMark: " + searchMark);
+    }
+    return values;
+  }
+
+}
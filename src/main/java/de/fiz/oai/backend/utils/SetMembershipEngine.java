@@ -0,0 +1,287 @@
+/*
+ * Copyright 2019 FIZ Karlsruhe - Leibniz-Institut fuer Informationsinfrastruktur GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.fiz.oai.backend.utils;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.xml.XMLConstants;
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Attr;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.NodeList;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+import de.fiz.oai.backend.models.Content;
+import de.fiz.oai.backend.models.Set;
+
+/**
+ * Evaluates the set rules (xPaths per format and tags) of all sets against one item.
+ * <p>
+ * Every content is parsed at most twice, once plain and once namespace aware, no matter
+ * how many sets check it. As before, an xPath is evaluated namespace aware only if it
+ * contains a ':'. Compiled expressions are cached per thread, keyed by the xPath and the
+ * namespace declarations of the document element the prefixes are resolved against.
+ */
+public final class SetMembershipEngine {
+
+  private static Logger LOGGER = LoggerFactory.getLogger(SetMembershipEngine.class);
+
+  private static final int MAX_CACHED_EXPRESSIONS = 1024;
+
+  private static final ThreadLocal<DocumentBuilder> PLAIN_BUILDER = ThreadLocal.withInitial(() -> newBuilder(false));
+
+  private static final ThreadLocal<DocumentBuilder> NAMESPACE_AWARE_BUILDER = ThreadLocal.withInitial(() -> newBuilder(true));
+
+  private static final ThreadLocal<XPath> XPATH = ThreadLocal.withInitial(() -> XPathFactory.newInstance().newXPath());
+
+  @SuppressWarnings("serial")
+  private static final ThreadLocal<Map<String, XPathExpression>> EXPRESSIONS = ThreadLocal
+      .withInitial(() -> new LinkedHashMap<String, XPathExpression>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, XPathExpression> eldest) {
+          return size() > MAX_CACHED_EXPRESSIONS;
+        }
+      });
+
+  private SetMembershipEngine() {
+  }
+
+  /**
+   * Compute the sets of an item. A matching xPath adds the set's name, a matching tag
+   * adds the set's spec.
+   *
+   * @param sets all sets
+   * @param contents all contents of the item
+   * @param tags the tags of the item
+   * @return the matching sets
+   * @throws SAXException if a content that has to be checked is not well-formed
+   * @throws XPathExpressionException if an xPath is invalid
+   */
+  public static List<String> matchingSets(List<Set> sets, List<Content> contents, List<String> tags)
+      throws SAXException, XPathExpressionException {
+    List<String> itemSets = new ArrayList<>();
+    if (sets == null || sets.isEmpty()) {
+      return itemSets;
+    }
+
+    Map<String, ParsedContent> contentsByFormat = new HashMap<>();
+    if (contents != null) {
+      for (Content content : contents) {
+        contentsByFormat.put(content.getFormat(), new ParsedContent(content.getContent()));
+      }
+    }
+
+    for (Set set : sets) {
+      // Check set membership via xPath
+      Map<String, String> xPaths = set.getxPaths();
+      if (xPaths != null) {
+        for (Map.Entry<String, String> xPath : xPaths.entrySet()) {
+          ParsedContent content = contentsByFormat.get(xPath.getKey());
+          if (content != null && matches(content, xPath.getValue())) {
+            itemSets.add(set.getName());
+          }
+        }
+      }
+
+      // Check set membership via item tags
+      List<String> setTags = set.getTags();
+      if (setTags != null && tags != null) {
+        for (String setTag : setTags) {
+          if (tags.contains(setTag)) {
+            itemSets.add(set.getSpec());
+          }
+        }
+      }
+    }
+    return itemSets;
+  }
+
+  /**
+   * @param content the parsed content
+   * @param xPathStr the xPath
+   * @return whether the xPath selects at least one node
+   */
+  public static boolean matches(ParsedContent content, String xPathStr) throws SAXException, XPathExpressionException {
+    if (content.isBlank() || StringUtils.isBlank(xPathStr)) {
+      return false;
+    }
+    boolean namespaceAware = xPathStr.contains(":");
+    Document doc = content.getDocument(namespaceAware);
+    if (doc == null) {
+      return false;
+    }
+    XPathExpression expr = compile(xPathStr, namespaceAware ? content.getNamespaces() : null);
+    NodeList nodes = (NodeList) expr.evaluate(doc, XPathConstants.NODESET);
+    return nodes.getLength() > 0;
+  }
+
+  private static XPathExpression compile(String xPathStr, Map<String, String> namespaces) throws XPathExpressionException {
+    String key = namespaces == null ? xPathStr : xPathStr + '\u0000' + namespaces;
+    Map<String, XPathExpression> expressions = EXPRESSIONS.get();
+    XPathExpression expr = expressions.get(key);
+    if (expr == null) {
+      XPath xpath = XPATH.get();
+      xpath.setNamespaceContext(new NamespaceResolver(namespaces));
+      expr = xpath.compile(xPathStr);
+      expressions.put(key, expr);
+    }
+    return expr;
+  }
+
+  private static DocumentBuilder newBuilder(boolean namespaceAware) {
+    try {
+      DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+      factory.setAttribute(XMLConstants.ACCESS_EXTERNAL_DTD, "");
+      factory.setAttribute(XMLConstants.ACCESS_EXTERNAL_SCHEMA, "");
+      factory.setNamespaceAware(namespaceAware);
+      return factory.newDocumentBuilder();
+    } catch (ParserConfigurationException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * A content that is parsed on first use, separately for plain and namespace aware xPaths.
+   */
+  public static final class ParsedContent {
+
+    private final String xml;
+
+    private Document plainDocument;
+
+    private Document namespaceAwareDocument;
+
+    private Map<String, String> namespaces;
+
+    private boolean failed;
+
+    public ParsedContent(String xml) {
+      this.xml = xml;
+    }
+
+    boolean isBlank() {
+      return StringUtils.isBlank(xml);
+    }
+
+    Document getDocument(boolean namespaceAware) throws SAXException {
+      if (failed) {
+        return null;
+      }
+      if (namespaceAware) {
+        if (namespaceAwareDocument == null) {
+          namespaceAwareDocument = parse(NAMESPACE_AWARE_BUILDER.get());
+        }
+        return namespaceAwareDocument;
+      }
+      if (plainDocument == null) {
+        plainDocument = parse(PLAIN_BUILDER.get());
+      }
+      return plainDocument;
+    }
+
+    /**
+     * The namespaces declared on the document element, what a namespace resolver based on
+     * Document.lookupNamespaceURI sees.
+     */
+    Map<String, String> getNamespaces() {
+      if (namespaces == null) {
+        namespaces = new TreeMap<>();
+        Element root = namespaceAwareDocument.getDocumentElement();
+        if (root != null) {
+          NamedNodeMap attributes = root.getAttributes();
+          for (int i = 0; i < attributes.getLength(); i++) {
+            Attr attribute = (Attr) attributes.item(i);
+            if (XMLConstants.XMLNS_ATTRIBUTE_NS_URI.equals(attribute.getNamespaceURI())) {
+              String prefix = XMLConstants.XMLNS_ATTRIBUTE.equals(attribute.getName()) ? XMLConstants.DEFAULT_NS_PREFIX
+                  : attribute.getLocalName();
+              namespaces.put(prefix, attribute.getValue());
+            }
+          }
+          if (root.getNamespaceURI() != null) {
+            namespaces.putIfAbsent(root.getPrefix() != null ? root.getPrefix() : XMLConstants.DEFAULT_NS_PREFIX,
+                root.getNamespaceURI());
+          }
+        }
+      }
+      return namespaces;
+    }
+
+    private Document parse(DocumentBuilder builder) throws SAXException {
+      try {
+        return builder.parse(new InputSource(new StringReader(xml)));
+      } catch (IOException e) {
+        LOGGER.error("Error during parsing of content", e);
+        failed = true;
+        return null;
+      } finally {
+        builder.reset();
+      }
+    }
+  }
+
+  private static final class NamespaceResolver implements NamespaceContext {
+
+    private final Map<String, String> namespaces;
+
+    NamespaceResolver(Map<String, String> namespaces) {
+      this.namespaces = namespaces;
+    }
+
+    public String getNamespaceURI(String prefix) {
+      return namespaces != null ? namespaces.get(prefix) : null;
+    }
+
+    public String getPrefix(String namespaceURI) {
+      if (namespaces != null) {
+        for (Map.Entry<String, String> namespace : namespaces.entrySet()) {
+          if (namespace.getValue().equals(namespaceURI)) {
+            return namespace.getKey();
+          }
+        }
+      }
+      return null;
+    }
+
+    @SuppressWarnings("rawtypes")
+    public Iterator getPrefixes(String namespaceURI) {
+      return null;
+    }
+  }
+
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2019 FIZ Karlsruhe - Leibniz-Institut fuer Informationsinfrastruktur GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.fiz.oai.backend.utils;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+
+/**
+ * Holds the thread pools shared by the request threads for CPU bound work. Queues are
+ * bounded, when a queue is full the submitting thread runs the task itself, which slows
+ * the producer down instead of piling up work.
+ * <p>
+ * The worker pool runs whole items, e.g. of a bulk ingest, the crosswalk pool runs single
+ * crosswalk transformations of an item. Tasks on the worker pool wait for crosswalk tasks,
+ * so the two must not share threads.
+ */
+public class ThreadPoolManager {
+
+  private static Logger LOGGER = LoggerFactory.getLogger(ThreadPoolManager.class);
+
+  private static ThreadPoolManager instance;
+
+  private final ThreadPoolExecutor workerPool;
+
+  private final ThreadPoolExecutor crosswalkPool;
+
+  private final ThreadPoolExecutor processPool;
+
+  private ThreadPoolManager() {
+    workerPool = createPool("worker");
+    crosswalkPool = createPool("crosswalk");
+    processPool = createProcessPool();
+  }
+
+  private static ThreadPoolExecutor createPool(String name) {
+    Configuration config = Configuration.getInstance();
+    int threads = Integer.parseInt(
+        config.getProperty(name + ".threads", String.valueOf(Runtime.getRuntime().availableProcessors())));
+    int queueSize = Integer.parseInt(config.getProperty(name + ".queue.size", String.valueOf(threads * 4)));
+
+    AtomicInteger threadNumber = new AtomicInteger();
+    ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(queueSize), runnable -> {
+          Thread thread = new Thread(runnable, "oai-" + name + "-" + threadNumber.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        }, new ThreadPoolExecutor.CallerRunsPolicy());
+    new ExecutorServiceMetrics(pool, name, Tags.empty()).bindTo(MetricsManager.getInstance().getRegistry());
+    LOGGER.info("Started {} pool with {} threads", name, threads);
+    return pool;
+  }
+
+  /**
+   * The process pool runs the long running crosswalk processes, one thread each. It does not
+   * queue, a process must not wait for another one to end.
+   */
+  private static ThreadPoolExecutor createProcessPool() {
+    AtomicInteger threadNumber = new AtomicInteger();
+    return new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60L, TimeUnit.SECONDS, new SynchronousQueue<>(),
+        runnable -> {
+          Thread thread = new Thread(runnable, "oai-crosswalk-process-" + threadNumber.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        });
+  }
+
+  public static synchronized ThreadPoolManager getInstance() {
+    if (instance == null) {
+      instance = new ThreadPoolManager();
+    }
+    return instance;
+  }
+
+  public ExecutorService getWorkerPool() {
+    return workerPool;
+  }
+
+  public ExecutorService getCrosswalkPool() {
+    return crosswalkPool;
+  }
+
+  public ExecutorService getProcessPool() {
+    return processPool;
+  }
+
+  /**
+   * Running crosswalk processes must have received their stop signal before, they store
+   * their checkpoint after the current page and end.
+   */
+  public void shutdown() {
+    shutdown(processPool);
+    shutdown(workerPool);
+    shutdown(crosswalkPool);
+  }
+
+  private static void shutdown(ThreadPoolExecutor pool) {
+    pool.shutdown();
+    try {
+      if (!pool.awaitTermination(30, TimeUnit.SECONDS)) {
+        pool.shutdownNow();
+      }
+    } catch (InterruptedException e) {
+      pool.shutdownNow();
+      Thread.currentThread().interrupt();
+    }
+  }
+
+}
@@ -1,285 +1,276 @@
-/**
- * Copyright (c) 27.02.20 Fachinformationszentrum Karlsruhe
- */
-package de.fiz.oai.backend.utils;
-
-import java.io.IOException;
-import java.io.StringReader;
-import java.io.StringWriter;
-import java.nio.charset.StandardCharsets;
-import java.util.Map;
-import java.util.NoSuchElementException;
-
-import javax.inject.Inject;
-import javax.xml.XMLConstants;
-import javax.xml.transform.OutputKeys;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerConfigurationException;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.sax.SAXTransformerFactory;
-import javax.xml.transform.stream.StreamResult;
-import javax.xml.transform.stream.StreamSource;
-
-import org.apache.commons.lang3.StringUtils;
-import org.apache.commons.logging.Log;
-import org.apache.commons.logging.LogFactory;
-import org.apache.commons.pool2.KeyedObjectPool;
-import org.apache.commons.pool2.KeyedPooledObjectFactory;
-import org.apache.commons.pool2.PooledObject;
-import org.apache.commons.pool2.impl.DefaultPooledObject;
-import org.apache.commons.pool2.impl.GenericKeyedObjectPool;
-import org.jvnet.hk2.annotations.Service;
-
-import de.fiz.oai.backend.dao.DAOCrosswalk;
-import de.fiz.oai.backend.models.Crosswalk;
-import de.fiz.oai.backend.service.TransformerService;
-import net.sf.saxon.lib.FeatureKeys;
-
-/** Crosswalk transformations. */
-@Service
-public class TransformerServiceImpl implements TransformerService, KeyedObjectPool<String, Transformer> {
-
-    /** Logger. */
-    private static Log LOGGER = LogFactory.getLog(TransformerServiceImpl.class);
-
-    /** Maximum amount of transformer objects in the pool. */
-    private final static int MAX_ACTIVE = 50;
-
-    /** Maximum time to wait for borrowing an object. */
-    private final static long MAX_WAIT = 30000L;
-
-    /** Maximum time to live for a object in pool. */
-    private final static long MAX_TIME_TO_LIVE = 1000 * 60 * 30;
-
-    /** Time between eviction runs. */
-    private static final long TIME_BETWEEN_EVICTION_RUNS = MAX_TIME_TO_LIVE / 2;
-
-    /** Test for eviction while idle. */
-    private static final boolean TEST_WHILE_IDLE = true;
-
-    @Inject
-    DAOCrosswalk daoCrosswalk;
-
-    /** Pool for Transformer-Objects. */
-    private GenericKeyedObjectPool<String, Transformer> pool;
-
-    /** TransformerFactory for XSLT transforming. */
-    private SAXTransformerFactory saxTransformerFactory;
-
-    public TransformerServiceImpl() {
-        LOGGER.info("Initialize TransformerPool ...");
-
-        // Create transformerFactory as singleton.
-        TransformerFactory tf = TransformerFactory.newInstance("net.sf.saxon.TransformerFactoryImpl", null);
-        if (tf.getFeature(SAXTransformerFactory.FEATURE)) {
-            try {
-                tf.setAttribute(
-                    FeatureKeys.XML_PARSER_FEATURE + "http://xml.org/sax/features/external-general-entities", false);
-                tf.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
-            } catch (TransformerConfigurationException e) {
-                LOGGER.error(e.getMessage(), e);
-            }
-            saxTransformerFactory = (SAXTransformerFactory) tf;
-
-        } else {
-            LOGGER.error("Couldn't instantiate a SAXTransformerFactory.");
-            throw new RuntimeException("Couldn't instantiate a SAXTransformerFactory.");
-        }
-        assert saxTransformerFactory != null;
-
-        // Create the pool
-        LOGGER.info("Creating new transformerPool ...");
-        this.pool = new GenericKeyedObjectPool<String, Transformer>(new KeyedPooledObjectFactory<String, Transformer>() {
-
-            /** ${@inheritDoc} */
-            @Override
-            public void activateObject(String key, PooledObject<Transformer> trans) throws Exception {
-                trans.getObject().clearParameters();
-            }
-
-            /** ${@inheritDoc} */
-            @Override
-            public void destroyObject(String key, PooledObject<Transformer> trans) throws Exception {
-                // Do nothing here
-            }
-
-            /** ${@inheritDoc} */
-            @Override
-            public PooledObject<Transformer> makeObject(String key) throws Exception {
-                Crosswalk crosswalk = daoCrosswalk.read(key);
-                if (crosswalk == null) {
-                    throw new RuntimeException("Couldn't find crosswalk for name " + key);
-                }
-
-                StreamSource xslSource = new StreamSource(new StringReader(crosswalk.getXsltStylesheet()));
-                Transformer transformer = saxTransformerFactory.newTransformer(xslSource);
-                transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
-                transformer.setOutputProperty(OutputKeys.METHOD, "xml");
-                transformer.setOutputProperty(OutputKeys.ENCODING, String.valueOf(StandardCharsets.UTF_8));
-                transformer.setOutputProperty("{http://xml.apache.org/xslt}indent-amount", "2");
-                transformer.setOutputProperty(OutputKeys.INDENT, "yes");
-                LOGGER.info("Created new transformer for crosswalk " + key);
-                return new DefaultPooledObject<>(transformer);
-            }
-
-            /** ${@inheritDoc} */
-            @Override
-            public void passivateObject(String key, PooledObject<Transformer> trans) throws Exception {
-                trans.getObject().clearParameters();
-            }
-
-            /** ${@inheritDoc} */
-            @Override
-            public boolean validateObject(String key, PooledObject<Transformer> trans) {
-                // If time to live is over, return false
-                if (System.currentTimeMillis() - trans.getCreateTime() > MAX_TIME_TO_LIVE) {
-                    return false;
-                }
-                return true;
-            }
-
-        });
-        assert this.pool != null;
-        this.pool.setMaxTotal(MAX_ACTIVE);
-        this.pool.setMaxWaitMillis(MAX_WAIT);
-        this.pool.setTestWhileIdle(TEST_WHILE_IDLE);
-        this.pool.setTimeBetweenEvictionRunsMillis(TIME_BETWEEN_EVICTION_RUNS);
-    }
-
-    @Override
-    public String transform(String xml, String name) throws IOException {
-        Transformer transformer = null;
-        try (StringReader xmlReader = new StringReader(xml)) {
-
-            transformer = borrowObject(name);
-
-            final StreamResult result = new StreamResult(new StringWriter());
-            final StreamSource source = new StreamSource(xmlReader);
-            // do the transformation
-            transformer.transform(source, result);
-
-            String resultString = result.getWriter().toString();
-            return resultString;
-        } catch (Exception e) {
-            if (transformer != null) {
-                try {
-                    invalidateObject(name, transformer);
-                } catch (Exception ex) {
-                    LOGGER.error(ex.getMessage(), e);
-                }
-            }
-            throw new IOException(e);
-        } finally {
-            if (transformer != null) {
-                try {
-                    returnObject(name, transformer);
-                } catch (Exception e) {
-                    throw new IOException(e);
-                }
-            }
-        }
-    }
-
-    /** ${@inheritDoc} 
-     * @throws Exception */
-    @Override
-    public void updateTransformer(String key) throws Exception {
-        try {
-            this.pool.addObject(key);
-        } catch (Exception ex) {
-            LOGGER.error(ex.getMessage(), ex);
-            throw ex;
-        }
-    }
-    
-    
-    /** ${@inheritDoc} */
-    @Override
-    public void addObject(String key) throws Exception, IllegalStateException, UnsupportedOperationException {
-        this.pool.addObject(key);
-    }
-
-    /** ${@inheritDoc} */
-    @Override
-    public Transformer borrowObject(String key) throws Exception, NoSuchElementException, IllegalStateException {
-        return this.pool.borrowObject(key);
-    }
-
-    /** ${@inheritDoc} */
-    @Override
-    public void clear() throws Exception, UnsupportedOperationException {
-        this.pool.clear();
-    }
-
-    /** ${@inheritDoc} */
-    @Override
-    public void clear(String key) throws Exception, UnsupportedOperationException {
-        this.pool.clear(key);
-    }
-
-    /** ${@inheritDoc} */
-    @Override
-    public void close() {
-        this.pool.close();
-    }
-
-    /** ${@inheritDoc} */
-    @Override
-    public int getNumActive() {
-        return this.pool.getNumActive();
-    }
-
-    /** ${@inheritDoc} */
-    @Override
-    public int getNumActive(String key) {
-        return this.pool.getNumActive(key);
-    }
-
-    /** ${@inheritDoc} */
-    @Override
-    public int getNumIdle() {
-        return this.pool.getNumIdle();
-    }
-
-    /** ${@inheritDoc} */
-    @Override
-    public int getNumIdle(String key) {
-        return this.pool.getNumIdle(key);
-    }
-
-    /** ${@inheritDoc} */
-    @Override
-    public void invalidateObject(String key, Transformer transformer) throws Exception {
-        this.pool.invalidateObject(key, transformer);
-    }
-
-    /** ${@inheritDoc} */
-    @Override
-    public void returnObject(String key, Transformer transformer) throws Exception {
-        this.pool.returnObject(key, transformer);
-    }
-
-    @Override
-    public String info() {
-        final int pad = 30;
-        Map<String, Integer> activeMap = this.pool.getNumActivePerKey();
-        Map<String, Integer> waiterMap = this.pool.getNumWaitersByKey();
-        StringBuilder buf = new StringBuilder("TransformerPool\n")
-                .append(StringUtils.leftPad("active: ", pad)).append(getNumActive()).append("\n")
-                .append(StringUtils.leftPad("idle: ", pad)).append(getNumIdle()).append("\n")
-                .append(StringUtils.leftPad("created: ", pad)).append(this.pool.getCreatedCount()).append("\n")
-                .append(StringUtils.leftPad("borrowed: ", pad)).append(this.pool.getBorrowedCount()).append("\n")
-                .append(StringUtils.leftPad("destroyed: ", pad)).append(this.pool.getDestroyedCount()).append("\n")
-                .append(StringUtils.leftPad("max total: ", pad)).append(this.pool.getMaxTotal()).append("\n")
-                .append(StringUtils.leftPad("max total per key: ", pad)).append(this.pool.getMaxTotalPerKey()).append("\n");
-        for (String key : activeMap.keySet()) {
-            buf.append(StringUtils.leftPad("active " + key + ": ", pad)).append(activeMap.get(key)).append("\n");
-            buf.append(StringUtils.leftPad("idle " + key + ": ", pad)).append(this.pool.getNumIdle(key)).append("\n");
-        }
-        for (String key : waiterMap.keySet()) {
-            buf.append(StringUtils.leftPad("waiters " + key + ": ", pad)).append(waiterMap.get(key)).append("\n");
-        }
-
-        return buf.toString();
-    }
-}
+/**
+ * Copyright (c) 27.02.20 Fachinformationszentrum Karlsruhe
+ */
+package de.fiz.oai.backend.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.inject.Inject;
+import javax.xml.transform.Source;
+import javax.xml.transform.stream.StreamSource;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.jvnet.hk2.annotations.Service;
+
+import de.fiz.oai.backend.dao.DAOCrosswalk;
+import de.fiz.oai.backend.models.Crosswalk;
+import de.fiz.oai.backend.service.TransformerService;
+import net.sf.saxon.lib.Feature;
+import net.sf.saxon.lib.FeatureKeys;
+import net.sf.saxon.s9api.Processor;
+import net.sf.saxon.s9api.QName;
+import net.sf.saxon.s9api.SaxonApiException;
+import net.sf.saxon.s9api.Serializer;
+import net.sf.saxon.s9api.XsltExecutable;
+
+/**
+ * Crosswalk transformations. Each crosswalk is compiled once into an {@link XsltExecutable},
+ * which is thread-safe, and a new lightweight transformer is loaded from it per call. So
+ * concurrent transformations of the same crosswalk never wait for each other.
+ * <p>
+ * A crosswalk changed on another node is only updated there, so a compiled stylesheet is
+ * checked against the stored one after metadata.cache.ttl seconds and compiled again if it
+ * changed.
+ */
+@Service
+public class TransformerServiceImpl implements TransformerService {
+
+    /** Logger. */
+    private static Log LOGGER = LogFactory.getLog(TransformerServiceImpl.class);
+
+    /** Indentation of the result as before with the JAXP transformer. */
+    private static final QName INDENT_AMOUNT = new QName("http://xml.apache.org/xslt", "indent-amount");
+
+    @Inject
+    DAOCrosswalk daoCrosswalk;
+
+    /** Saxon processor, shared by all compilations and transformations. */
+    private final Processor processor;
+
+    /** Compiled stylesheets by crosswalk name. */
+    private final Map<String, Compiled> executables = new ConcurrentHashMap<>();
+
+    private final long ttlNanos;
+
+    private final AtomicLong compileCount = new AtomicLong();
+
+    /** Transformation timings by crosswalk name. */
+    private final Map<String, CrosswalkStatistics> statistics = new ConcurrentHashMap<>();
+
+    public TransformerServiceImpl() {
+        LOGGER.info("Initialize Saxon processor ...");
+        processor = new Processor(false);
+        processor.setConfigurationProperty(
+            FeatureKeys.XML_PARSER_FEATURE + "http://xml.org/sax/features/external-general-entities", false);
+        processor.setConfigurationProperty(Feature.ALLOW_EXTERNAL_FUNCTIONS, false);
+
+        long ttl = Long.parseLong(Configuration.getInstance().getProperty("metadata.cache.ttl", "60"));
+        ttlNanos = ttl > 0 ? TimeUnit.SECONDS.toNanos(ttl) : Long.MAX_VALUE;
+    }
+
+    @Override
+    public String transform(String xml, String name) throws IOException {
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        transform(new StreamSource(new StringReader(xml)), result, name);
+        return new String(result.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public byte[] transform(byte[] xml, String name) throws IOException {
+        ByteArrayOutputStream result = new ByteArrayOutputStream(xml.length);
+        transform(new ByteArrayInputStream(xml), result, name);
+        return result.toByteArray();
+    }
+
+    @Override
+    public void transform(InputStream xml, OutputStream result, String name) throws IOException {
+        // Contents are stored as UTF-8 whatever their XML declaration says
+        transform(new StreamSource(new InputStreamReader(xml, StandardCharsets.UTF_8)), result, name);
+    }
+
+    private void transform(Source source, OutputStream result, String name) throws IOException {
+        XsltExecutable executable = getExecutable(name);
+        CrosswalkStatistics crosswalkStatistics = statistics.computeIfAbsent(name, key -> new CrosswalkStatistics());
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            Serializer serializer = processor.newSerializer(result);
+            serializer.setOutputProperty(Serializer.Property.OMIT_XML_DECLARATION, "yes");
+            serializer.setOutputProperty(Serializer.Property.METHOD, "xml");
+            serializer.setOutputProperty(Serializer.Property.ENCODING, StandardCharsets.UTF_8.name());
+            serializer.setOutputProperty(Serializer.Property.INDENT, "yes");
+            serializer.setOutputProperty(INDENT_AMOUNT, "2");
+
+            executable.load30().transform(source, serializer);
+            failed = false;
+        } catch (SaxonApiException e) {
+            throw new IOException(e);
+        } finally {
+            long nanos = System.nanoTime() - start;
+            crosswalkStatistics.add(nanos, failed);
+            MetricsManager.getInstance().timer("oai.crosswalk.transformations", "crosswalk", name,
+                MetricsManager.OUTCOME, failed ? MetricsManager.ERROR : MetricsManager.SUCCESS)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private XsltExecutable getExecutable(String name) throws IOException {
+        Compiled compiled = executables.get(name);
+        if (compiled != null && !compiled.isExpired()) {
+            return compiled.executable;
+        }
+        try {
+            // One thread checks the stored stylesheet, the others wait for its result
+            return executables.compute(name, (key, current) -> {
+                if (current != null && !current.isExpired()) {
+                    return current;
+                }
+                try {
+                    return load(name, current);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }).executable;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * @return the compiled stored stylesheet, the current one if the stylesheet did not change
+     */
+    private Compiled load(String name, Compiled current) throws IOException {
+        Crosswalk crosswalk = daoCrosswalk.read(name);
+        if (crosswalk == null) {
+            throw new IOException("Couldn't find crosswalk for name " + name);
+        }
+        String stylesheet = crosswalk.getXsltStylesheet();
+        if (current != null && current.stylesheet.equals(stylesheet)) {
+            return new Compiled(current.executable, stylesheet);
+        }
+        try {
+            // A compiler must not be shared between threads, a new one is cheap
+            XsltExecutable executable = processor.newXsltCompiler()
+                .compile(new StreamSource(new StringReader(stylesheet)));
+            compileCount.incrementAndGet();
+            MetricsManager.getInstance().getRegistry().counter("oai.crosswalk.compilations", "crosswalk", name)
+                .increment();
+            LOGGER.info("Compiled stylesheet of crosswalk " + name);
+            return new Compiled(executable, stylesheet);
+        } catch (SaxonApiException e) {
+            throw new IOException("Couldn't compile stylesheet of crosswalk " + name, e);
+        }
+    }
+
+    /** ${@inheritDoc} */
+    @Override
+    public void updateTransformer(String name) throws Exception {
+        executables.remove(name);
+        if (daoCrosswalk.read(name) != null) {
+            try {
+                executables.put(name, load(name, null));
+            } catch (IOException ex) {
+                LOGGER.error(ex.getMessage(), ex);
+                throw ex;
+            }
+        }
+    }
+
+    @Override
+    public String info() {
+        final int pad = 30;
+        StringBuilder buf = new StringBuilder("Transformer\n")
+                .append(StringUtils.leftPad("compiled crosswalks: ", pad)).append(executables.size()).append("\n")
+                .append(StringUtils.leftPad("compiled: ", pad)).append(compileCount.get()).append("\n");
+        for (Map.Entry<String, Map<String, Long>> entry : getStatistics().entrySet()) {
+            for (Map.Entry<String, Long> value : entry.getValue().entrySet()) {
+                buf.append(StringUtils.leftPad(value.getKey() + " " + entry.getKey() + ": ", pad))
+                    .append(value.getValue()).append("\n");
+            }
+        }
+
+        return buf.toString();
+    }
+
+    @Override
+    public Map<String, Map<String, Long>> getStatistics() {
+        Map<String, Map<String, Long>> result = new TreeMap<>();
+        for (Map.Entry<String, CrosswalkStatistics> entry : statistics.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().toMap());
+        }
+        return result;
+    }
+
+    /**
+     * A compiled stylesheet with the stylesheet text it was compiled from.
+     */
+    private final class Compiled {
+
+        private final XsltExecutable executable;
+
+        private final String stylesheet;
+
+        private final long loaded = System.nanoTime();
+
+        Compiled(XsltExecutable executable, String stylesheet) {
+            this.executable = executable;
+            this.stylesheet = stylesheet;
+        }
+
+        boolean isExpired() {
+            return System.nanoTime() - loaded > ttlNanos;
+        }
+    }
+
+    /**
+     * Timings of the transformations of one crosswalk.
+     */
+    private static final class CrosswalkStatistics {
+
+        private final LongAdder count = new LongAdder();
+
+        private final LongAdder failed = new LongAdder();
+
+        private final LongAdder totalNanos = new LongAdder();
+
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        void add(long nanos, boolean failure) {
+            count.increment();
+            if (failure) {
+                failed.increment();
+            }
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+        }
+
+        Map<String, Long> toMap() {
+            long transformations = count.sum();
+            Map<String, Long> map = new LinkedHashMap<>();
+            map.put("transformations", transformations);
+            map.put("failed", failed.sum());
+            map.put("totalMicros", TimeUnit.NANOSECONDS.toMicros(totalNanos.sum()));
+            map.put("averageMicros", transformations > 0 ? TimeUnit.NANOSECONDS.toMicros(totalNanos.sum() / transformations) : 0);
+            map.put("maxMicros", TimeUnit.NANOSECONDS.toMicros(maxNanos.get()));
+            return map;
+        }
+    }
+}
@@ -17,6 +17,7 @@ package de.fiz.oai.backend.integration;
 
 import static org.junit.Assert.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.when;
@@ -334,8 +335,44 @@ public class CrosswalkControllerIT extends JerseyTest {
 
     assertEquals("Http Response should be 400: ", Status.BAD_REQUEST.getStatusCode(), response.getStatus());
   }
-  
-  
+  @Test
+  public void testProcessCrosswalk() throws Exception {
+    when(crosswalkService.process(any(), anyBoolean(), any(), any())).thenReturn(true);
+
+    Response response = target("/crosswalk/Oai2Marc/process").queryParam("updateItemTimestamp", "false").request()
+        .put(Entity.text(""));
+
+    assertEquals("Http Response should be 202: ", Status.ACCEPTED.getStatusCode(), response.getStatus());
+  }
+
+  @Test
+  public void testProcessCrosswalkAlreadyRunning() throws Exception {
+    when(crosswalkService.process(any(), anyBoolean(), any(), any())).thenReturn(false);
+
+    Response response = target("/crosswalk/Oai2Marc/process").queryParam("updateItemTimestamp", "false").request()
+        .put(Entity.text(""));
+
+    assertEquals("Http Response should be 409: ", Status.CONFLICT.getStatusCode(), response.getStatus());
+  }
+
+  @Test
+  public void testStopProcessNotRunning() throws Exception {
+    when(crosswalkService.stopProcess(any())).thenReturn(false);
+
+    Response response = target("/crosswalk/Oai2Marc/process/stop").request().post(Entity.text(""));
+
+    assertEquals("Http Response should be 404: ", Status.NOT_FOUND.getStatusCode(), response.getStatus());
+  }
+
+  @Test
+  public void testGetProcessStatus() throws Exception {
+    when(crosswalkService.getProcessStatusVerbose(any())).thenReturn("Crosswalk Oai2Marc not processed.");
+
+    Response response = target("/crosswalk/Oai2Marc/process/status").request().get();
+
+    assertEquals("Http Response should be 200: ", Status.OK.getStatusCode(), response.getStatus());
+    assertEquals("Crosswalk Oai2Marc not processed.", response.readEntity(String.class));
+  }
   
   private List<Crosswalk> getTestCrosswalkList() {
     List<Crosswalk> formatList = new ArrayList<Crosswalk>();
@@ -16,7 +16,15 @@
 package de.fiz.oai.backend.integration;
 
 import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.ws.rs.client.Entity;
 import javax.ws.rs.core.Application;
 import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
@@ -35,6 +43,9 @@ import org.slf4j.LoggerFactory;
 
 import de.fiz.oai.backend.FizOaiExceptionMapper;
 import de.fiz.oai.backend.controller.InfoController;
+import de.fiz.oai.backend.service.IndexingService;
+import de.fiz.oai.backend.service.ItemService;
+import de.fiz.oai.backend.service.MetadataCache;
 import de.fiz.oai.backend.service.TransformerService;
 
 
@@ -42,6 +53,15 @@ public class InfoControllerIT extends JerseyTest {
 
   @Mock
   private TransformerService transformerService;
+
+  @Mock
+  private MetadataCache metadataCache;
+
+  @Mock
+  private ItemService itemService;
+
+  @Mock
+  private IndexingService indexingService;
   
   private Logger LOGGER = LoggerFactory.getLogger(InfoControllerIT.class);
 
@@ -55,6 +75,9 @@ public class InfoControllerIT extends JerseyTest {
       @Override
       protected void configure() {
         bind(transformerService).to(TransformerService.class);
+        bind(metadataCache).to(MetadataCache.class);
+        bind(itemService).to(ItemService.class);
+        bind(indexingService).to(IndexingService.class);
       }
     });
     config.register(FizOaiExceptionMapper.class);
@@ -70,5 +93,48 @@ public class InfoControllerIT extends JerseyTest {
     //During test this method will return a 204, as the MANIFEST file containing the real version ist not available!
     assertEquals("Http Response should be 204: ", Status.NO_CONTENT.getStatusCode(), response.getStatus());
   }
+
+  @Test
+  public void testItemCount() throws Exception {
+    LOGGER.info("testItemCount");
+    when(itemService.getCount(false)).thenReturn(42L);
+    when(itemService.getCount(true)).thenReturn(43L);
+
+    Response response = target("/info/items").request().get();
+    assertEquals("Http Response should be 200: ", Status.OK.getStatusCode(), response.getStatus());
+    assertEquals("{\"count\":42,\"exact\":false}", response.readEntity(String.class));
+
+    response = target("/info/items").queryParam("exact", "true").request().get();
+    assertEquals("{\"count\":43,\"exact\":true}", response.readEntity(String.class));
+    verify(itemService, never()).correctCount(anyLong(), anyLong());
+  }
+
+  @Test
+  public void testItemRecount() throws Exception {
+    LOGGER.info("testItemRecount");
+    when(itemService.getCount(false)).thenReturn(42L);
+    when(itemService.getCount(true)).thenReturn(43L);
+    when(itemService.correctCount(43L, 42L)).thenReturn(true);
+
+    Response response = target("/info/items/recount").request().post(Entity.text(""));
+    assertEquals("Http Response should be 200: ", Status.OK.getStatusCode(), response.getStatus());
+    assertEquals("{\"count\":43,\"corrected\":true}", response.readEntity(String.class));
+  }
+
+  @Test
+  public void testIndexing() throws Exception {
+    LOGGER.info("testIndexing");
+    Map<String, Long> statistics = new LinkedHashMap<>();
+    statistics.put("queued", 3L);
+    statistics.put("indexed", 2L);
+    statistics.put("failed", 0L);
+    statistics.put("lagMillis", 1500L);
+    when(indexingService.getStatistics()).thenReturn(statistics);
+
+    Response response = target("/info/indexing").request().get();
+    assertEquals("Http Response should be 200: ", Status.OK.getStatusCode(), response.getStatus());
+    assertEquals("{\"queued\":3,\"indexed\":2,\"failed\":0,\"lagMillis\":1500}",
+        response.readEntity(String.class));
+  }
   
 }
@@ -17,6 +17,7 @@ package de.fiz.oai.backend.integration;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
@@ -55,10 +56,12 @@ import de.fiz.oai.backend.FizOaiExceptionMapper;
 import de.fiz.oai.backend.controller.ItemController;
 import de.fiz.oai.backend.exceptions.AlreadyExistsException;
 import de.fiz.oai.backend.exceptions.NotFoundException;
+import de.fiz.oai.backend.models.BulkItemResult;
 import de.fiz.oai.backend.models.Content;
 import de.fiz.oai.backend.models.Item;
 import de.fiz.oai.backend.models.SearchResult;
 import de.fiz.oai.backend.service.ItemService;
+import de.fiz.oai.backend.utils.Configuration;
 
 public class ItemControllerIT extends JerseyTest {
 
@@ -182,6 +185,25 @@ public class ItemControllerIT extends JerseyTest {
     assertNotNull("result list must not be null", searchResult.getData());
   }
 
+  @Test
+  public void testExportItems() throws Exception {
+    SearchResult<Item> firstPage = getTestSearchResult();
+    firstPage.setSearchMark("mark");
+    SearchResult<Item> lastPage = getTestSearchResult();
+    when(itemService.search(any(), any(), eq("oai_dc"), any(), any(), eq(false), eq(null))).thenReturn(firstPage);
+    when(itemService.search(any(), any(), eq("oai_dc"), any(), any(), eq(false), eq("mark"))).thenReturn(lastPage);
+
+    Response response = target("/item/export").queryParam("format", "oai_dc").request().get();
+
+    assertEquals("Http Response should be 200: ", Status.OK.getStatusCode(), response.getStatus());
+    assertEquals("Http Content-Type should be: ", ItemController.APPLICATION_NDJSON,
+        response.getHeaderString(HttpHeaders.CONTENT_TYPE));
+    String[] lines = response.readEntity(String.class).split("\n");
+    assertEquals("Both pages must be exported", 200, lines.length);
+    assertTrue("Each line is one item", lines[0].startsWith("{\"identifier\":\"0\","));
+    assertTrue("Each line is one item", lines[199].startsWith("{\"identifier\":\"99\","));
+  }
+
   @Test
   public void testSearchItemsMissingFormatParameter() throws Exception {
     Response response = target("/item").queryParam("offset", 0).queryParam("rows", 20).queryParam("set", "abc")
@@ -314,6 +336,68 @@ public class ItemControllerIT extends JerseyTest {
     assertEquals("Http Response should be 400: ", Status.BAD_REQUEST.getStatusCode(), response.getStatus());
   }
 
+  @Test
+  public void testCreateItems() throws Exception {
+    String items = "{\"identifier\":\"1\",\"ingestFormat\":\"radar\",\"content\":{\"content\":\"<dc:identifier>1</dc:identifier>\"}}\n"
+        + "not json\n"
+        + "{\"identifier\":\"2\",\"ingestFormat\":\"radar\",\"content\":{\"content\":\"<dc:identifier>2</dc:identifier>\"}}\n"
+        + "{\"identifier\":\"3\",\"ingestFormat\":\"radar\",\"content\":{\"content\":\"<dc:identifier>4</dc:identifier>\"}}\n";
+
+    when(itemService.createAll(any())).thenAnswer(invocation -> {
+      List<Item> batch = invocation.getArgument(0);
+      assertEquals("Only valid items are created", 2, batch.size());
+      assertEquals("radar", batch.get(0).getContent().getFormat());
+      List<BulkItemResult> results = new ArrayList<>();
+      results.add(new BulkItemResult(batch.get(0).getIdentifier(), 201, null));
+      results.add(new BulkItemResult(batch.get(1).getIdentifier(), 409, "item 2 already exists"));
+      return results;
+    });
+
+    Response response = target("/item/bulk").request()
+        .post(Entity.entity(items, ItemController.APPLICATION_NDJSON));
+
+    assertEquals("Http Response should be 200: ", Status.OK.getStatusCode(), response.getStatus());
+    String results = response.readEntity(String.class);
+    assertTrue("Results are in input order", results.startsWith("[{\"identifier\":\"1\",\"status\":201,\"message\":null},"
+        + "{\"identifier\":null,\"status\":400,\"message\":\"Invalid item in line 2: "));
+    assertTrue("Results are in input order", results.contains(
+        "{\"identifier\":\"2\",\"status\":409,\"message\":\"item 2 already exists\"},"
+        + "{\"identifier\":\"3\",\"status\":400,\"message\":\"Cannot find the identifier in the content!\"}]"));
+  }
+
+  @Test
+  public void testCreateItemsBatchFails() throws Exception {
+    String items = "{\"identifier\":\"1\",\"ingestFormat\":\"radar\",\"content\":{\"content\":\"<dc:identifier>1</dc:identifier>\"}}\n"
+        + "{\"identifier\":\"2\",\"ingestFormat\":\"radar\",\"content\":{\"content\":\"<dc:identifier>2</dc:identifier>\"}}\n"
+        + "{\"identifier\":\"3\",\"ingestFormat\":\"radar\",\"content\":{\"content\":\"<dc:identifier>3</dc:identifier>\"}}\n";
+
+    when(itemService.createAll(any())).thenAnswer(invocation -> {
+      List<Item> batch = invocation.getArgument(0);
+      if (batch.get(0).getIdentifier().equals("2")) {
+        throw new IOException("Cassandra unavailable");
+      }
+      return List.of(new BulkItemResult(batch.get(0).getIdentifier(), 201, null));
+    });
+
+    String batchSize = Configuration.getInstance().getProperty("bulk.batch.size");
+    Configuration.getInstance().setProperty("bulk.batch.size", "1");
+    try {
+      Response response = target("/item/bulk").request()
+          .post(Entity.entity(items, ItemController.APPLICATION_NDJSON));
+
+      assertEquals("Http Response should be 200: ", Status.OK.getStatusCode(), response.getStatus());
+      assertEquals("Later batches are still created", "[{\"identifier\":\"1\",\"status\":201,\"message\":null},"
+          + "{\"identifier\":\"2\",\"status\":500,\"message\":\"Cannot create item: Cassandra unavailable\"},"
+          + "{\"identifier\":\"3\",\"status\":201,\"message\":null}]", response.readEntity(String.class));
+    } finally {
+      if (batchSize == null) {
+        Configuration.getInstance().getProperties().remove("bulk.batch.size");
+      } else {
+        Configuration.getInstance().setProperty("bulk.batch.size", batchSize);
+      }
+    }
+  }
+
   @Test
   public void testUpdateItem() throws Exception {
     Item item = new Item();
@@ -0,0 +1,369 @@
+/*
+ * Copyright 2019 FIZ Karlsruhe - Leibniz-Institut fuer Informationsinfrastruktur GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.fiz.oai.backend.integration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.Application;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+import org.glassfish.hk2.utilities.binding.AbstractBinder;
+import org.glassfish.jersey.client.ClientConfig;
+import org.glassfish.jersey.media.multipart.FormDataBodyPart;
+import org.glassfish.jersey.media.multipart.FormDataMultiPart;
+import org.glassfish.jersey.media.multipart.MultiPartFeature;
+import org.glassfish.jersey.server.ResourceConfig;
+import org.glassfish.jersey.test.JerseyTest;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import de.fiz.oai.backend.FizOAIBackendApplication;
+import de.fiz.oai.backend.FizOAIBackendBinder;
+import de.fiz.oai.backend.controller.ItemController;
+import de.fiz.oai.backend.models.Content;
+import de.fiz.oai.backend.models.Format;
+import de.fiz.oai.backend.models.Item;
+import de.fiz.oai.backend.models.Set;
+import de.fiz.oai.backend.service.impl.InMemorySearchServiceImpl;
+import de.fiz.oai.backend.utils.Configuration;
+import de.fiz.oai.backend.utils.Datestamps;
+
+/**
+ * Drives ingest and harvest workloads against the whole application with in-memory DAOs
+ * and search index, and reports throughput and latency of each workload. It measures the
+ * request handling, serialization, crosswalks, sets and the indexing queue, not the
+ * databases.
+ * <p>
+ * Runs only with -Dloadtest=true, the size is set by loadtest.items, loadtest.threads,
+ * loadtest.bulk.size and loadtest.harvests.
+ */
+public class LoadTestIT extends JerseyTest {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(LoadTestIT.class);
+
+  private static final int ITEMS = Integer.getInteger("loadtest.items", 2000);
+
+  private static final int THREADS = Integer.getInteger("loadtest.threads", 8);
+
+  private static final int BULK_SIZE = Integer.getInteger("loadtest.bulk.size", 100);
+
+  private static final int HARVESTS = Integer.getInteger("loadtest.harvests", THREADS);
+
+  private static final int ROWS = 100;
+
+  private static final String OAI_DC = "oai_dc";
+
+  private static final long FIRST_DATESTAMP = Instant.parse("2020-01-01T00:00:00Z").toEpochMilli();
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  @BeforeClass
+  public static void useInMemoryStandIns() {
+    Assume.assumeTrue("Load test runs with -Dloadtest=true only", Boolean.getBoolean("loadtest"));
+
+    Configuration config = Configuration.getInstance();
+    config.setProperty("dao.impl", FizOAIBackendBinder.DAO_IMPL_MEMORY);
+    config.setProperty("class.impl.search", InMemorySearchServiceImpl.class.getName());
+    // Index each change right away, so the harvest can start as soon as the queue is empty
+    config.setProperty("index.queue.coalesce.millis", "0");
+    config.setProperty("index.queue.poll.millis", "10");
+  }
+
+  @Override
+  protected Application configure() {
+    ResourceConfig config = new FizOAIBackendApplication();
+    config.packages("de.fiz.oai.backend");
+    config.register(new AbstractBinder() {
+
+      @Override
+      protected void configure() {
+        // The test container has no servlet objects, stubs do not record the calls
+        bind(mock(HttpServletRequest.class, withSettings().stubOnly())).to(HttpServletRequest.class);
+        bind(mock(HttpServletResponse.class, withSettings().stubOnly())).to(HttpServletResponse.class);
+      }
+    });
+    return config;
+  }
+
+  @Override
+  protected void configureClient(ClientConfig clientConfig) {
+    clientConfig.register(MultiPartFeature.class);
+  }
+
+  @Test
+  public void testIngestAndHarvest() throws Exception {
+    createFormatAndSets();
+
+    int singleItems = ITEMS / 2;
+    Workload ingest = new Workload("ingest");
+    run(ingest, singleItems, i -> {
+      FormDataMultiPart form = new FormDataMultiPart();
+      form.field("item", json(item(i, false)), MediaType.APPLICATION_JSON_TYPE);
+      form.bodyPart(new FormDataBodyPart("content", record(i), MediaType.TEXT_XML_TYPE));
+      ingest.request(1, () -> target("/item").request().post(Entity.entity(form, form.getMediaType())));
+    });
+
+    int batches = (ITEMS - singleItems + BULK_SIZE - 1) / BULK_SIZE;
+    Workload bulkIngest = new Workload("bulk ingest");
+    run(bulkIngest, batches, batch -> {
+      StringBuilder lines = new StringBuilder();
+      int end = Math.min(ITEMS, singleItems + (batch + 1) * BULK_SIZE);
+      for (int i = singleItems + batch * BULK_SIZE; i < end; i++) {
+        lines.append(json(item(i, true))).append('\n');
+      }
+      String results = bulkIngest.request(end - singleItems - batch * BULK_SIZE,
+          () -> target("/item/bulk").request().post(Entity.entity(lines.toString(), ItemController.APPLICATION_NDJSON)));
+      for (JsonNode result : readTree(results)) {
+        assertEquals("Bulk item " + result.path("identifier").asText() + ": " + result.path("message").asText(), 201,
+            result.path("status").asInt());
+      }
+    });
+
+    awaitIndexed();
+
+    Workload harvest = new Workload("harvest");
+    run(harvest, HARVESTS, number -> assertEquals(ITEMS, harvest(harvest, null)));
+
+    Workload setHarvest = new Workload("set harvest");
+    run(setHarvest, HARVESTS, number -> assertEquals((ITEMS + 1) / 2, harvest(setHarvest, "dataset")));
+
+    LOGGER.info("Load test with {} items, {} threads", ITEMS, THREADS);
+    for (Workload workload : Arrays.asList(ingest, bulkIngest, harvest, setHarvest)) {
+      LOGGER.info(workload.report());
+    }
+  }
+
+  private void createFormatAndSets() {
+    Format format = new Format();
+    format.setMetadataPrefix(OAI_DC);
+    format.setSchemaLocation("http://www.openarchives.org/OAI/2.0/oai_dc.xsd");
+    format.setSchemaNamespace("http://www.openarchives.org/OAI/2.0/oai_dc/");
+    format.setIdentifierXpath("/oai_dc:dc/dc:identifier");
+    assertSuccess(target("/format").request().post(Entity.json(json(format))));
+
+    for (String type : Arrays.asList("Dataset", "Text")) {
+      Set set = new Set();
+      set.setName(type.toLowerCase());
+      set.setSpec(type.toLowerCase());
+      set.setxPaths(Map.of(OAI_DC, "/oai_dc:dc/dc:type[text()='" + type + "']"));
+      assertSuccess(target("/set").request().post(Entity.json(json(set))));
+    }
+  }
+
+  /**
+   * Harvest all pages of oai_dc with content, as an OAI provider does.
+   *
+   * @return the number of items harvested
+   */
+  private long harvest(Workload workload, String set) {
+    long harvested = 0;
+    String searchMark = null;
+    do {
+      WebTarget page = target("/item").queryParam("format", OAI_DC).queryParam("rows", ROWS)
+          .queryParam("content", true);
+      if (set != null) {
+        page = page.queryParam("set", set);
+      }
+      if (searchMark != null) {
+        page = page.queryParam("searchMark", searchMark);
+      }
+      WebTarget request = page;
+      JsonNode result = readTree(workload.request(0, () -> request.request().get()));
+      workload.addItems(result.path("size").asInt());
+      harvested += result.path("size").asInt();
+      searchMark = result.path("searchMark").isTextual() ? result.path("searchMark").asText() : null;
+    } while (searchMark != null);
+    return harvested;
+  }
+
+  private void awaitIndexed() throws InterruptedException {
+    long deadline = System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(5);
+    long total;
+    do {
+      Thread.sleep(100);
+      Response response = target("/item").queryParam("format", OAI_DC).queryParam("rows", 1).request().get();
+      total = readTree(assertSuccess(response)).path("total").asLong();
+    } while (total < ITEMS && System.currentTimeMillis() < deadline);
+    assertEquals("Items indexed", ITEMS, total);
+  }
+
+  private static void run(Workload workload, int tasks, IntConsumer task) throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    try {
+      List<Future<?>> futures = new ArrayList<>(tasks);
+      workload.start();
+      for (int i = 0; i < tasks; i++) {
+        int number = i;
+        futures.add(executor.submit(() -> task.accept(number)));
+      }
+      for (Future<?> future : futures) {
+        try {
+          future.get();
+        } catch (ExecutionException e) {
+          throw e.getCause() instanceof Exception ? (Exception) e.getCause() : new AssertionError(e.getCause());
+        }
+      }
+      workload.end();
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static String identifier(int i) {
+    return String.format("oai:loadtest:%08d", i);
+  }
+
+  private static Item item(int i, boolean withContent) {
+    Item item = new Item();
+    item.setIdentifier(identifier(i));
+    item.setDatestamp(Datestamps.format(FIRST_DATESTAMP + i * 1000L));
+    item.setIngestFormat(OAI_DC);
+    item.setTags(Arrays.asList("loadtest"));
+    if (withContent) {
+      Content content = new Content();
+      content.setContent(record(i));
+      item.setContent(content);
+    }
+    return item;
+  }
+
+  /**
+   * @return an oai_dc record, the even ones are in the set dataset, the odd ones in text
+   */
+  private static String record(int i) {
+    return "<oai_dc:dc xmlns:oai_dc=\"http://www.openarchives.org/OAI/2.0/oai_dc/\""
+        + " xmlns:dc=\"http://purl.org/dc/elements/1.1/\">"
+        + "<dc:identifier>" + identifier(i) + "</dc:identifier>"
+        + "<dc:title>Load test record " + i + "</dc:title>"
+        + "<dc:type>" + (i % 2 == 0 ? "Dataset" : "Text") + "</dc:type>"
+        + "</oai_dc:dc>";
+  }
+
+  private static String json(Object value) {
+    try {
+      return MAPPER.writeValueAsString(value);
+    } catch (JsonProcessingException e) {
+      throw new IllegalArgumentException(e);
+    }
+  }
+
+  private static JsonNode readTree(String json) {
+    try {
+      return MAPPER.readTree(json);
+    } catch (JsonProcessingException e) {
+      throw new IllegalArgumentException(e);
+    }
+  }
+
+  private static String assertSuccess(Response response) {
+    String entity = response.readEntity(String.class);
+    assertTrue("Http Response should be successful: " + response.getStatus() + " " + entity,
+        response.getStatusInfo().getFamily() == Response.Status.Family.SUCCESSFUL);
+    return entity;
+  }
+
+  /**
+   * The latencies of the requests of one workload.
+   */
+  private static class Workload {
+
+    private final String name;
+
+    private final List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+
+    private final AtomicLong items = new AtomicLong();
+
+    private long startNanos;
+
+    private long endNanos;
+
+    Workload(String name) {
+      this.name = name;
+    }
+
+    void start() {
+      startNanos = System.nanoTime();
+    }
+
+    void end() {
+      endNanos = System.nanoTime();
+    }
+
+    void addItems(long count) {
+      items.addAndGet(count);
+    }
+
+    /**
+     * @param itemCount the items the request carries
+     * @return the entity of the response
+     */
+    String request(int itemCount, Supplier<Response> request) {
+      long start = System.nanoTime();
+      Response response = request.get();
+      String entity = assertSuccess(response);
+      latencies.add(System.nanoTime() - start);
+      addItems(itemCount);
+      return entity;
+    }
+
+    String report() {
+      long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+      double seconds = (endNanos - startNanos) / 1e9;
+      return String.format("%-12s %6d requests in %6.2f s: %8.1f requests/s, %8.1f items/s, latency p50 %7.2f ms,"
+          + " p99 %7.2f ms, max %7.2f ms", name, sorted.length, seconds, sorted.length / seconds,
+          items.get() / seconds, percentile(sorted, 0.50), percentile(sorted, 0.99), percentile(sorted, 1.0));
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+      if (sorted.length == 0) {
+        return 0;
+      }
+      int index = (int) Math.ceil(percentile * sorted.length) - 1;
+      return sorted[Math.max(0, index)] / 1e6;
+    }
+  }
+
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2019 FIZ Karlsruhe - Leibniz-Institut fuer Informationsinfrastruktur GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.fiz.oai.backend.integration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import javax.ws.rs.core.Application;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+
+import org.glassfish.jersey.server.ResourceConfig;
+import org.glassfish.jersey.test.JerseyTest;
+import org.glassfish.jersey.test.TestProperties;
+import org.junit.Test;
+
+import de.fiz.oai.backend.FizOaiExceptionMapper;
+import de.fiz.oai.backend.RequestMetricsFilter;
+import de.fiz.oai.backend.controller.MetricsController;
+
+public class MetricsControllerIT extends JerseyTest {
+
+  @Override
+  protected Application configure() {
+    enable(TestProperties.LOG_TRAFFIC);
+    ResourceConfig config = new ResourceConfig(MetricsController.class);
+    config.register(RequestMetricsFilter.class);
+    config.register(FizOaiExceptionMapper.class);
+    return config;
+  }
+
+  @Test
+  public void testMetrics() throws Exception {
+    Response response = target("/metrics").request().get();
+    assertEquals("Http Response should be 200: ", Status.OK.getStatusCode(), response.getStatus());
+    assertTrue(response.getHeaderString("Content-Type").startsWith("text/plain"));
+    assertTrue(response.readEntity(String.class).contains("jvm_memory_used_bytes"));
+
+    // The first request is timed once it is answered
+    String metrics = target("/metrics").request().get(String.class);
+    assertTrue(metrics.contains("oai_http_requests_seconds_count{method=\"GET\",resource=\"MetricsController.getMetrics\",status=\"200\",}"));
+  }
+
+}
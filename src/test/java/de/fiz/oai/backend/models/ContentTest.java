@@ -0,0 +1,49 @@
+package de.fiz.oai.backend.models;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+public class ContentTest {
+
+  private static final String XML = "<dc:title>Größenverhältnisse – ∑</dc:title><dc:identifier>oai:fiz:1</dc:identifier>";
+
+  @Test
+  public void testUtf8RoundTrip() {
+    Content content = new Content();
+    content.setContent(XML);
+
+    Content read = new Content();
+    read.setBytes(content.getBytes());
+
+    assertEquals(XML, read.getContent());
+    assertEquals(XML.getBytes(StandardCharsets.UTF_8).length, read.getBytes().length);
+  }
+
+  @Test
+  public void testBytesAreNotCopied() {
+    byte[] bytes = XML.getBytes(StandardCharsets.UTF_8);
+    Content content = new Content();
+    content.setBytes(bytes);
+
+    assertSame(bytes, content.getBytes());
+  }
+
+  @Test
+  public void testContains() {
+    Content content = new Content();
+    content.setBytes(XML.getBytes(StandardCharsets.UTF_8));
+
+    assertTrue(content.contains("oai:fiz:1"));
+    assertTrue(content.contains("Größen"));
+    assertFalse(content.contains("oai:fiz:2"));
+    assertFalse(content.contains(null));
+    assertFalse(new Content().contains("oai:fiz:1"));
+  }
+
+}
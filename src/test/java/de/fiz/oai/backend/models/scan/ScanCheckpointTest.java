@@ -0,0 +1,57 @@
+package de.fiz.oai.backend.models.scan;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import de.fiz.oai.backend.models.scan.ScanCheckpoint.Range;
+
+public class ScanCheckpointTest {
+
+  @Test
+  public void testFullRingCoversAllTokens() {
+    List<Range> ranges = ScanCheckpoint.fullRing(7).getRanges();
+
+    assertEquals(7, ranges.size());
+    assertEquals(Long.MIN_VALUE, ranges.get(0).getFrom());
+    assertEquals(Long.MAX_VALUE, ranges.get(6).getTo());
+    for (int i = 1; i < ranges.size(); i++) {
+      assertEquals(ranges.get(i - 1).getTo(), ranges.get(i).getFrom());
+    }
+  }
+
+  @Test
+  public void testSingleRange() {
+    List<Range> ranges = ScanCheckpoint.fullRing(1).getRanges();
+
+    assertEquals(1, ranges.size());
+    assertEquals(Long.MIN_VALUE, ranges.get(0).getFrom());
+    assertEquals(Long.MAX_VALUE, ranges.get(0).getTo());
+  }
+
+  @Test
+  public void testToStringAndParse() {
+    ScanCheckpoint checkpoint = ScanCheckpoint.fullRing(4);
+
+    ScanCheckpoint parsed = ScanCheckpoint.parse(checkpoint.toString());
+
+    assertEquals(checkpoint.toString(), parsed.toString());
+    assertEquals(4, parsed.getRanges().size());
+    assertEquals("-10:20,30:40", ScanCheckpoint.parse(" -10:20, 30:40").toString());
+  }
+
+  @Test
+  public void testComplete() {
+    assertTrue(ScanCheckpoint.parse("").isComplete());
+    assertTrue(ScanCheckpoint.parse(null).isComplete());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testEmptyRange() {
+    ScanCheckpoint.parse("20:20");
+  }
+
+}
@@ -0,0 +1,290 @@
+package de.fiz.oai.backend.service.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.fiz.oai.backend.dao.impl.InMemoryDAOIndexQueue;
+import de.fiz.oai.backend.dao.impl.InMemoryDAOItem;
+import de.fiz.oai.backend.models.Item;
+import de.fiz.oai.backend.models.index.IndexQueueEntry;
+import de.fiz.oai.backend.service.ItemService;
+import de.fiz.oai.backend.service.SearchService;
+import de.fiz.oai.backend.utils.Configuration;
+
+/**
+ * Passes of the indexer over the in-memory queue, with a search index that rejects some
+ * items.
+ */
+public class IndexingServiceImplTest {
+
+  private Properties configuration;
+
+  private InMemoryDAOIndexQueue daoIndexQueue;
+
+  private InMemoryDAOItem daoItem;
+
+  private SearchService searchService;
+
+  private ItemService itemService;
+
+  // Items the search index rejects
+  private final Set<String> rejected = new HashSet<>();
+
+  private final List<String> indexed = new ArrayList<>();
+
+  @Before
+  public void setUp() throws Exception {
+    configuration = (Properties) Configuration.getInstance().getProperties().clone();
+    Configuration config = Configuration.getInstance();
+    config.setProperty("index.queue.enabled", "true");
+    config.setProperty("index.queue.shards", "1");
+    config.setProperty("index.queue.batch.size", "10");
+    config.setProperty("index.queue.coalesce.millis", "0");
+    config.setProperty("index.queue.retry.millis", "100");
+    config.setProperty("index.queue.retry.max.millis", "400");
+    config.setProperty("index.queue.retry.max.attempts", "3");
+
+    daoIndexQueue = new InMemoryDAOIndexQueue();
+    daoItem = new InMemoryDAOItem();
+    itemService = mock(ItemService.class);
+    searchService = mock(SearchService.class);
+    when(searchService.createDocuments(anyList())).thenAnswer(invocation -> {
+      List<Item> items = invocation.getArgument(0);
+      Map<String, String> failures = new HashMap<>();
+      for (Item item : items) {
+        if (rejected.contains(item.getIdentifier())) {
+          failures.put(item.getIdentifier(), "rejected");
+        } else {
+          indexed.add(item.getIdentifier());
+        }
+      }
+      return failures;
+    });
+
+    for (String identifier : Arrays.asList("a", "b", "c")) {
+      Item item = new Item();
+      item.setIdentifier(identifier);
+      daoItem.create(item);
+    }
+  }
+
+  @After
+  public void tearDown() {
+    Configuration.getInstance().getProperties().clear();
+    Configuration.getInstance().getProperties().putAll(configuration);
+  }
+
+  private IndexingServiceImpl indexingService() {
+    IndexingServiceImpl indexingService = new IndexingServiceImpl();
+    indexingService.daoIndexQueue = daoIndexQueue;
+    indexingService.daoItem = daoItem;
+    indexingService.searchService = searchService;
+    indexingService.itemServiceProvider = () -> itemService;
+    return indexingService;
+  }
+
+  private List<IndexQueueEntry> queued() {
+    return daoIndexQueue.read(0, null, 100);
+  }
+
+  @Test
+  public void testIndexedEntriesRemoved() throws Exception {
+    IndexingServiceImpl indexingService = indexingService();
+    indexingService.index("a");
+    indexingService.index("b");
+
+    assertEquals(2, indexingService.drainOnce());
+    assertEquals(Arrays.asList("a", "b"), indexed);
+    assertTrue(queued().isEmpty());
+  }
+
+  @Test
+  public void testEntryQueuedAgainIsKept() throws Exception {
+    IndexingServiceImpl indexingService = indexingService();
+    indexingService.index("a");
+    // The item changes while the indexer sends it
+    when(searchService.createDocuments(anyList())).thenAnswer(invocation -> {
+      daoIndexQueue.add(Collections.singletonList("a"));
+      return Collections.emptyMap();
+    });
+
+    indexingService.drainOnce();
+    assertEquals(1, queued().size());
+    assertEquals(0, queued().get(0).getAttempts());
+  }
+
+  @Test
+  public void testFailedEntryRetriedWithBackoff() throws Exception {
+    IndexingServiceImpl indexingService = indexingService();
+    rejected.add("a");
+    indexingService.index("a");
+    indexingService.index("c");
+
+    long before = System.currentTimeMillis();
+    indexingService.drainOnce();
+    assertEquals(Collections.singletonList("c"), indexed);
+    IndexQueueEntry entry = queued().get(0);
+    assertEquals("a", entry.getIdentifier());
+    assertEquals(1, entry.getAttempts());
+    assertTrue(entry.getNextAttempt() >= before + 100);
+
+    // Not due yet
+    assertEquals(0, indexingService.drainOnce());
+
+    Thread.sleep(entry.getNextAttempt() - System.currentTimeMillis() + 10);
+    assertEquals(1, indexingService.drainOnce());
+    entry = queued().get(0);
+    assertEquals(2, entry.getAttempts());
+    assertTrue(entry.getNextAttempt() - System.currentTimeMillis() > 100);
+  }
+
+  @Test
+  public void testEntryQueuedAgainStartsOver() throws Exception {
+    IndexingServiceImpl indexingService = indexingService();
+    rejected.add("a");
+    indexingService.index("a");
+    indexingService.drainOnce();
+    assertEquals(1, queued().get(0).getAttempts());
+
+    indexingService.index("a");
+    assertEquals(0, queued().get(0).getAttempts());
+    assertEquals(1, indexingService.drainOnce());
+  }
+
+  @Test
+  public void testDeadLetter() throws Exception {
+    Configuration.getInstance().setProperty("index.queue.retry.millis", "0");
+    IndexingServiceImpl indexingService = indexingService();
+    rejected.add("a");
+    indexingService.index("a");
+
+    indexingService.drainOnce();
+    indexingService.drainOnce();
+    assertEquals(2, queued().get(0).getAttempts());
+    indexingService.drainOnce();
+    assertTrue(queued().isEmpty());
+    assertEquals(Long.valueOf(1), indexingService.getStatistics().get("deadLettered"));
+  }
+
+  @Test
+  public void testRejectedPageDoesNotBlockShard() throws Exception {
+    Configuration.getInstance().setProperty("index.queue.batch.size", "2");
+    IndexingServiceImpl indexingService = indexingService();
+    rejected.add("a");
+    rejected.add("b");
+    indexingService.index("a");
+    indexingService.index("b");
+    indexingService.index("c");
+
+    // The first page holds the rejected items only, the next pass reads on behind them
+    indexingService.drainOnce();
+    assertTrue(indexed.isEmpty());
+    indexingService.drainOnce();
+    assertEquals(Collections.singletonList("c"), indexed);
+  }
+
+  @Test
+  public void testUnreachableIndexLeavesEntriesQueued() throws Exception {
+    IndexingServiceImpl indexingService = indexingService();
+    indexingService.index("a");
+    indexingService.index("b");
+    when(searchService.createDocuments(anyList())).thenThrow(new IOException("connection refused"));
+
+    try {
+      indexingService.drainOnce();
+      fail("IOException expected");
+    } catch (IOException e) {
+      // The indexer backs off as a whole
+    }
+    assertEquals(2, queued().size());
+    // Not counted against the items
+    assertEquals(0, queued().get(0).getAttempts());
+  }
+
+  @Test
+  public void testPreparationFailureLeavesEntryQueued() throws Exception {
+    IndexingServiceImpl indexingService = indexingService();
+    indexingService.index("a");
+    doThrow(new IOException("no formats")).when(itemService).addFormatsAndSets(any(Item.class));
+
+    indexingService.drainOnce();
+    assertEquals(1, queued().size());
+    assertEquals(1, queued().get(0).getAttempts());
+    verify(searchService).createDocuments(Collections.emptyList());
+  }
+
+  @Test
+  public void testNodesShareShards() throws Exception {
+    Configuration.getInstance().setProperty("index.queue.shards", "2");
+    Configuration.getInstance().setProperty("index.queue.lease.renew.millis", "0");
+    daoIndexQueue = new InMemoryDAOIndexQueue();
+    IndexingServiceImpl first = indexingService();
+    IndexingServiceImpl second = indexingService();
+
+    // Alone the first node leases both shards, it gives one up once the second node is seen
+    first.drainOnce();
+    assertEquals(Long.valueOf(2), first.getStatistics().get("shards"));
+    second.drainOnce();
+    assertEquals(Long.valueOf(0), second.getStatistics().get("shards"));
+    first.drainOnce();
+    second.drainOnce();
+    assertEquals(Long.valueOf(1), first.getStatistics().get("shards"));
+    assertEquals(Long.valueOf(1), second.getStatistics().get("shards"));
+
+    // "a" and "b" are in different shards, each is indexed by one node only
+    first.index("a");
+    first.index("b");
+    assertEquals(1, first.drainOnce());
+    assertEquals(1, second.drainOnce());
+    assertEquals(2, indexed.size());
+    assertEquals(new HashSet<>(Arrays.asList("a", "b")), new HashSet<>(indexed));
+
+    // The shard of a stopped node is taken over
+    first.releaseLeases();
+    assertEquals(Long.valueOf(0), first.getStatistics().get("shards"));
+    first.index("a");
+    first.index("b");
+    assertEquals(2, second.drainOnce() + second.drainOnce());
+  }
+
+  @Test
+  public void testQueueDisabled() throws Exception {
+    Configuration.getInstance().setProperty("index.queue.enabled", "false");
+    IndexingServiceImpl indexingService = indexingService();
+    Item item = daoItem.read("a");
+
+    indexingService.index(item);
+    verify(searchService).createDocument(item);
+
+    rejected.add("b");
+    Map<String, String> failures = indexingService.index(Arrays.asList(daoItem.read("b"), daoItem.read("c")));
+    assertEquals(Collections.singleton("b"), failures.keySet());
+
+    indexingService.index("c");
+    verify(itemService).addFormatsAndSets(any(Item.class));
+    assertTrue(queued().isEmpty());
+  }
+
+}
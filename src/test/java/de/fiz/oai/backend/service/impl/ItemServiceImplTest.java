@@ -0,0 +1,186 @@
+package de.fiz.oai.backend.service.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Properties;
+
+import javax.ws.rs.WebApplicationException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.fiz.oai.backend.dao.impl.InMemoryDAOContent;
+import de.fiz.oai.backend.dao.impl.InMemoryDAOItem;
+import de.fiz.oai.backend.exceptions.AlreadyExistsException;
+import de.fiz.oai.backend.models.Content;
+import de.fiz.oai.backend.models.Format;
+import de.fiz.oai.backend.models.Item;
+import de.fiz.oai.backend.service.IndexingService;
+import de.fiz.oai.backend.service.MetadataCache;
+import de.fiz.oai.backend.service.SearchService;
+import de.fiz.oai.backend.service.TransformerService;
+import de.fiz.oai.backend.utils.Configuration;
+
+/**
+ * Items must be found by their writes right after they were stored, while the write-behind
+ * index has not caught up yet. Seeding the item count is claimed by one node.
+ */
+public class ItemServiceImplTest {
+
+  private Properties configuration;
+
+  private ItemServiceImpl itemService;
+
+  private InMemoryDAOItem daoItem;
+
+  @Before
+  public void setUp() throws Exception {
+    configuration = (Properties) Configuration.getInstance().getProperties().clone();
+    daoItem = new InMemoryDAOItem();
+
+    MetadataCache metadataCache = mock(MetadataCache.class);
+    when(metadataCache.getFormat(anyString())).thenReturn(new Format());
+    when(metadataCache.getCrosswalks()).thenReturn(Collections.emptyList());
+    when(metadataCache.getSets()).thenReturn(Collections.emptyList());
+
+    // The index has no document of any item yet and the queue is never drained
+    SearchService searchService = mock(SearchService.class);
+    when(searchService.readDocument(any(Item.class))).thenReturn(null);
+
+    itemService = new ItemServiceImpl();
+    itemService.daoItem = daoItem;
+    itemService.daoContent = new InMemoryDAOContent();
+    itemService.metadataCache = metadataCache;
+    itemService.searchService = searchService;
+    itemService.indexingService = mock(IndexingService.class);
+    itemService.transformerService = mock(TransformerService.class);
+  }
+
+  @After
+  public void tearDown() {
+    Configuration.getInstance().getProperties().clear();
+    Configuration.getInstance().getProperties().putAll(configuration);
+  }
+
+  private Item item(String identifier, String xml) {
+    Content content = new Content();
+    content.setIdentifier(identifier);
+    content.setFormat("oai_dc");
+    content.setBytes(xml.getBytes(StandardCharsets.UTF_8));
+
+    Item item = new Item();
+    item.setIdentifier(identifier);
+    item.setIngestFormat("oai_dc");
+    item.setContent(content);
+    return item;
+  }
+
+  @Test
+  public void testSecondCreateRejected() throws Exception {
+    itemService.create(item("id1", "<record/>"));
+    try {
+      itemService.create(item("id1", "<other/>"));
+      fail("AlreadyExistsException expected");
+    } catch (AlreadyExistsException e) {
+      // The stored item is not overwritten
+    }
+    assertEquals(1, daoItem.getCountEstimate());
+    assertEquals("<record/>", new String(itemService.read("id1", "oai_dc", true).getContent().getBytes(),
+        StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void testReadBeforeIndexed() throws Exception {
+    itemService.create(item("id1", "<record/>"));
+
+    Item item = itemService.read("id1", null, false);
+    assertNotNull(item);
+    assertNull(item.getSets());
+  }
+
+  @Test
+  public void testUpdateBeforeIndexed() throws Exception {
+    itemService.create(item("id1", "<record/>"));
+
+    itemService.update(item("id1", "<changed/>"));
+    assertEquals("<changed/>", new String(itemService.read("id1", "oai_dc", true).getContent().getBytes(),
+        StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void testUpdateTagsBeforeIndexed() throws Exception {
+    itemService.create(item("id1", "<record/>"));
+
+    List<String> tags = Collections.singletonList("tag1");
+    assertEquals(tags, itemService.updateTags("id1", tags).getTags());
+    assertEquals(tags, daoItem.read("id1").getTags());
+  }
+
+  @Test(expected = WebApplicationException.class)
+  public void testUpdateUnknownItem() throws Exception {
+    itemService.update(item("id1", "<record/>"));
+  }
+
+  @Test
+  public void testSeedCountOnce() throws Exception {
+    daoItem.incrementCountAsync(5);
+
+    itemService.seedCount();
+    assertEquals(0, daoItem.getCountEstimate());
+    assertFalse(daoItem.claimCountSeed(new Date(Long.MAX_VALUE / 2), 0));
+  }
+
+  @Test
+  public void testSeedCountRetried() throws Exception {
+    Configuration.getInstance().setProperty("item.count.seed.retry.millis", "0");
+    InMemoryDAOItem countingDaoItem = new InMemoryDAOItem() {
+      private int counts;
+
+      @Override
+      public long getCount() {
+        // An item is created while counting the first time
+        if (counts++ == 0) {
+          incrementCountAsync(1);
+        }
+        return super.getCount();
+      }
+    };
+    itemService.daoItem = countingDaoItem;
+
+    itemService.seedCount();
+    assertEquals(0, countingDaoItem.getCountEstimate());
+  }
+
+  @Test
+  public void testSeedClaimOfDeadNodeTakenOver() throws Exception {
+    daoItem.incrementCountAsync(5);
+    assertTrue(daoItem.claimCountSeed(new Date(System.currentTimeMillis() - 7200000), 3600000));
+
+    itemService.seedCount();
+    assertEquals(0, daoItem.getCountEstimate());
+  }
+
+  @Test
+  public void testLiveSeedClaimKept() throws Exception {
+    daoItem.incrementCountAsync(5);
+    assertTrue(daoItem.claimCountSeed(new Date(), 3600000));
+
+    itemService.seedCount();
+    assertEquals(5, daoItem.getCountEstimate());
+  }
+
+}
@@ -0,0 +1,173 @@
+package de.fiz.oai.backend.service.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.client.solrj.response.QueryResponse;
+import org.apache.solr.client.solrj.response.UpdateResponse;
+import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.SolrDocumentList;
+import org.apache.solr.common.SolrException;
+import org.apache.solr.common.SolrException.ErrorCode;
+import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.params.CursorMarkParams;
+import org.apache.solr.common.params.SolrParams;
+import org.apache.solr.common.util.NamedList;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import de.fiz.oai.backend.models.Item;
+import de.fiz.oai.backend.models.SearchResult;
+import de.fiz.oai.backend.utils.SearchMarkCodec;
+
+/**
+ * Harvests with the Solr backend must cost one query per page, a bad document must not fail
+ * the other documents of its batch.
+ */
+public class SolrSearchServiceImplTest {
+
+  private SolrClient solrClient;
+
+  private SolrSearchServiceImpl searchService;
+
+  @Before
+  public void setUp() {
+    solrClient = mock(SolrClient.class);
+    searchService = new SolrSearchServiceImpl(solrClient);
+  }
+
+  @Test
+  public void testHarvestOneQueryPerPage() throws Exception {
+    when(solrClient.query(any(SolrParams.class))).thenReturn(response(5, "cursor1", "id1", "id2"),
+        response(5, "cursor2", "id3", "id4"), response(5, "cursor3", "id5"));
+
+    SearchResult<String> page = searchService.search(2, null, "oai_dc", null, null, null);
+    assertEquals(2, page.getSize());
+    assertNotNull(page.getSearchMark());
+    verify(solrClient, times(1)).query(any(SolrParams.class));
+
+    page = searchService.search(2, null, "oai_dc", null, null, page.getSearchMark());
+    assertEquals(2, page.getSize());
+    assertNotNull(page.getSearchMark());
+    verify(solrClient, times(2)).query(any(SolrParams.class));
+
+    page = searchService.search(2, null, "oai_dc", null, null, page.getSearchMark());
+    assertEquals(1, page.getSize());
+    assertNull(page.getSearchMark());
+    verify(solrClient, times(3)).query(any(SolrParams.class));
+
+    ArgumentCaptor<SolrParams> params = ArgumentCaptor.forClass(SolrParams.class);
+    verify(solrClient, times(3)).query(params.capture());
+    assertEquals(CursorMarkParams.CURSOR_MARK_START, params.getAllValues().get(0).get(CursorMarkParams.CURSOR_MARK_PARAM));
+    assertEquals("cursor1", params.getAllValues().get(1).get(CursorMarkParams.CURSOR_MARK_PARAM));
+    assertEquals("cursor2", params.getAllValues().get(2).get(CursorMarkParams.CURSOR_MARK_PARAM));
+  }
+
+  @Test
+  public void testFullLastPage() throws Exception {
+    when(solrClient.query(any(SolrParams.class))).thenReturn(response(2, "cursor1", "id1", "id2"),
+        response(2, "cursor1"));
+
+    SearchResult<String> page = searchService.search(2, null, "oai_dc", null, null, null);
+    assertEquals(2, page.getSize());
+    assertNotNull(page.getSearchMark());
+
+    // The cursor does not move behind the last hit
+    page = searchService.search(2, null, "oai_dc", null, null, page.getSearchMark());
+    assertEquals(0, page.getSize());
+    assertNull(page.getSearchMark());
+    verify(solrClient, times(2)).query(any(SolrParams.class));
+  }
+
+  @Test
+  public void testNumFoundShrinksDuringHarvest() throws Exception {
+    // Harvested items are updated out of the datestamp range, numFound drops below the
+    // number of hits returned so far while hits are left
+    when(solrClient.query(any(SolrParams.class))).thenReturn(response(5, "cursor1", "id1", "id2"),
+        response(3, "cursor2", "id3", "id4"), response(1, "cursor3", "id5"));
+
+    SearchResult<String> page = searchService.search(2, null, "oai_dc", null, null, null);
+    page = searchService.search(2, null, "oai_dc", null, null, page.getSearchMark());
+    assertEquals(2, page.getSize());
+    assertNotNull(page.getSearchMark());
+
+    page = searchService.search(2, null, "oai_dc", null, null, page.getSearchMark());
+    assertEquals("id5", page.getData().get(0));
+    assertNull(page.getSearchMark());
+  }
+
+  @Test
+  public void testSearchMarkWithHitCount() throws Exception {
+    when(solrClient.query(any(SolrParams.class))).thenReturn(response(5, "cursor3", "id5"));
+
+    // A searchMark handed out before carried the number of hits returned
+    searchService.search(2, null, "oai_dc", null, null, SearchMarkCodec.encode("4", "cursor2"));
+
+    ArgumentCaptor<SolrParams> params = ArgumentCaptor.forClass(SolrParams.class);
+    verify(solrClient).query(params.capture());
+    assertEquals("cursor2", params.getValue().get(CursorMarkParams.CURSOR_MARK_PARAM));
+  }
+
+  @Test
+  public void testRejectedBatchAddedOneByOne() throws Exception {
+    when(solrClient.add(anyCollection(), anyInt())).thenThrow(new SolrException(ErrorCode.BAD_REQUEST, "bad"));
+    when(solrClient.add(any(SolrInputDocument.class), anyInt())).thenAnswer(invocation -> {
+      SolrInputDocument document = invocation.getArgument(0);
+      if ("id2".equals(document.getFieldValue("identifier"))) {
+        throw new SolrException(ErrorCode.BAD_REQUEST, "bad document");
+      }
+      return new UpdateResponse();
+    });
+
+    Map<String, String> failures = searchService.createDocuments(Arrays.asList(item("id1"), item("id2"), item("id3")));
+    assertEquals(Collections.singleton("id2"), failures.keySet());
+    verify(solrClient, times(3)).add(any(SolrInputDocument.class), anyInt());
+  }
+
+  @Test(expected = IOException.class)
+  public void testUnreachableIndex() throws Exception {
+    when(solrClient.add(anyCollection(), anyInt())).thenThrow(new SolrServerException("connection refused"));
+
+    searchService.createDocuments(Arrays.asList(item("id1"), item("id2")));
+  }
+
+  private Item item(String identifier) {
+    Item item = new Item();
+    item.setIdentifier(identifier);
+    return item;
+  }
+
+  private QueryResponse response(long numFound, String nextCursorMark, String... identifiers) {
+    SolrDocumentList documents = new SolrDocumentList();
+    documents.setNumFound(numFound);
+    for (String identifier : identifiers) {
+      SolrDocument document = new SolrDocument();
+      document.addField("identifier", identifier);
+      documents.add(document);
+    }
+    NamedList<Object> values = new NamedList<>();
+    values.add("response", documents);
+    values.add(CursorMarkParams.CURSOR_MARK_NEXT, nextCursorMark);
+
+    QueryResponse response = new QueryResponse();
+    response.setResponse(values);
+    return response;
+  }
+
+}
@@ -0,0 +1,65 @@
+package de.fiz.oai.backend.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class ContentCompressorTest {
+
+  private static byte[] xml(int records) {
+    StringBuilder xml = new StringBuilder("<resource xmlns=\"http://datacite.org/schema/kernel-4\">");
+    for (int i = 0; i < records; i++) {
+      xml.append("<creator><creatorName>Müller, Hans</creatorName><affiliation>FIZ Karlsruhe</affiliation></creator>");
+    }
+    return xml.append("</resource>").toString().getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Test
+  public void testRoundTrip() throws IOException {
+    ContentCompressor compressor = new ContentCompressor(ContentCompressor.DEFLATE, 1024);
+    byte[] raw = xml(100);
+
+    byte[] stored = compressor.encode(raw);
+
+    assertEquals(ContentCompressor.MARKER, stored[0]);
+    assertTrue(stored.length < raw.length / 4);
+    assertEquals(new String(raw, StandardCharsets.UTF_8), new String(compressor.decode(stored), StandardCharsets.UTF_8));
+    assertEquals(Long.valueOf(1), compressor.getStatistics().get("compressedCount"));
+    assertEquals(Long.valueOf(raw.length), compressor.getStatistics().get("rawBytesRead"));
+    assertEquals(Long.valueOf(stored.length), compressor.getStatistics().get("storedBytesRead"));
+  }
+
+  @Test
+  public void testBelowThreshold() throws IOException {
+    ContentCompressor compressor = new ContentCompressor(ContentCompressor.DEFLATE, 1024);
+    byte[] raw = xml(1);
+
+    assertSame(raw, compressor.encode(raw));
+    assertEquals(Long.valueOf(1), compressor.getStatistics().get("uncompressedCount"));
+  }
+
+  @Test
+  public void testUncompressedRowsStayReadable() throws IOException {
+    byte[] raw = xml(100);
+
+    assertSame(raw, new ContentCompressor(ContentCompressor.DEFLATE, 0).decode(raw));
+    assertEquals(new String(raw, StandardCharsets.UTF_8),
+        new String(new ContentCompressor(null, 0).decode(new ContentCompressor(ContentCompressor.DEFLATE, 0).encode(raw)),
+            StandardCharsets.UTF_8));
+  }
+
+  @Test(expected = IOException.class)
+  public void testCorruptContent() throws IOException {
+    ContentCompressor compressor = new ContentCompressor(ContentCompressor.DEFLATE, 0);
+    byte[] stored = compressor.encode(xml(100));
+
+    compressor.decode(Arrays.copyOf(stored, stored.length / 2));
+  }
+
+}
@@ -0,0 +1,43 @@
+package de.fiz.oai.backend.utils;
+
+import static org.junit.Assert.assertEquals;
+
+import java.text.ParseException;
+
+import org.junit.Test;
+
+public class DatestampsTest {
+
+  @Test
+  public void testRoundTrip() throws ParseException {
+    long millis = Datestamps.parse("2019-05-20T20:33:18Z");
+
+    assertEquals(1558384398000L, millis);
+    assertEquals("2019-05-20T20:33:18Z", Datestamps.format(millis));
+  }
+
+  @Test
+  public void testFractionOfSecond() throws ParseException {
+    long millis = Datestamps.parse("1972-05-20T20:33:18.772Z");
+
+    assertEquals(75241998772L, millis);
+    assertEquals("1972-05-20T20:33:18Z", Datestamps.format(millis));
+  }
+
+  @Test
+  public void testSearchBounds() {
+    assertEquals("0001-01-01T00:00:00Z", Datestamps.format(Datestamps.MIN));
+    assertEquals("9999-12-31T00:00:00Z", Datestamps.format(Datestamps.MAX));
+  }
+
+  @Test
+  public void testNowHasSecondsGranularity() {
+    assertEquals(0, Datestamps.now() % 1000);
+  }
+
+  @Test(expected = ParseException.class)
+  public void testInvalid() throws ParseException {
+    Datestamps.parse("2019-05-20");
+  }
+
+}
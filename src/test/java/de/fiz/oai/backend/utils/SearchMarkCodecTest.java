@@ -0,0 +1,39 @@
+package de.fiz.oai.backend.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class SearchMarkCodecTest {
+
+  @Test
+  public void testRoundTrip() {
+    String searchMark = SearchMarkCodec.encode("74687598772", "oai:fiz:10.1055/b-0033-141");
+
+    assertTrue(SearchMarkCodec.isEncoded(searchMark));
+    assertTrue(searchMark.matches("v1\\.[A-Za-z0-9_-]+"));
+
+    String[] values = SearchMarkCodec.decode(searchMark, 2);
+    assertEquals("74687598772", values[0]);
+    assertEquals("oai:fiz:10.1055/b-0033-141", values[1]);
+  }
+
+  @Test
+  public void testLegacySearchMark() {
+    assertFalse(SearchMarkCodec.isEncoded("10.1055/b-0033-141"));
+    assertFalse(SearchMarkCodec.isEncoded(null));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testWrongValueCount() {
+    SearchMarkCodec.decode(SearchMarkCodec.encode("1"), 2);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testSeparatorInLeadingValue() {
+    SearchMarkCodec.encode("a:b", "c");
+  }
+
+}
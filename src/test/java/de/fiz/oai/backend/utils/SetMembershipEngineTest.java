@@ -0,0 +1,89 @@
+package de.fiz.oai.backend.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.xpath.XPathExpressionException;
+
+import org.junit.Test;
+import org.xml.sax.SAXException;
+
+import de.fiz.oai.backend.models.Content;
+import de.fiz.oai.backend.models.Set;
+
+public class SetMembershipEngineTest {
+
+  private static final String OAI_DC = "<?xml version=\"1.0\" encoding=\"utf-8\"?>\n"
+      + "<qualifieddc xmlns:dc=\"http://purl.org/dc/elements/1.1/\" xmlns:dcterms=\"http://purl.org/dc/terms/\">"
+      + "<dc:title>Hemophilia in focus</dc:title><dc:type>magazine</dc:type></qualifieddc>";
+
+  private static final String MARC = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+      + "<collection xmlns=\"http://www.loc.gov/MARC21/slim\" xmlns:marc=\"http://www.loc.gov/MARC21/slim\">"
+      + "<record><leader>00966nam a2200265n  4500</leader></record></collection>";
+
+  @Test
+  public void testXPathsAndTags() throws XPathExpressionException, SAXException {
+    Set magazines = createSet("magazines", "mag", Map.of("oai_dc", "qualifieddc[dc:type='magazine']"), null);
+    Set books = createSet("books", "book", Map.of("marc", "collection/record[contains(leader, 'nam')]"), null);
+    Set articles = createSet("articles", "art", Map.of("marc", "collection/record[contains(leader, 'naa')]"), null);
+    Set tagged = createSet("tagged", "tag", null, Arrays.asList("open", "free"));
+
+    List<String> sets = SetMembershipEngine.matchingSets(Arrays.asList(magazines, books, articles, tagged),
+        Arrays.asList(createContent("oai_dc", OAI_DC), createContent("marc", MARC)), Arrays.asList("free"));
+
+    assertEquals(Arrays.asList("magazines", "books", "tag"), sets);
+  }
+
+  @Test
+  public void testPlainAndNamespaceAwareOnSameContent() throws XPathExpressionException, SAXException {
+    Map<String, String> xPaths = new HashMap<>();
+    xPaths.put("marc", "marc:collection/marc:record");
+    Set prefixed = createSet("prefixed", "p", xPaths, null);
+    Set plain = createSet("plain", "q", Map.of("marc", "collection/record"), null);
+
+    List<String> sets = SetMembershipEngine.matchingSets(Arrays.asList(prefixed, plain),
+        Arrays.asList(createContent("marc", MARC)), null);
+
+    assertEquals(Arrays.asList("prefixed", "plain"), sets);
+  }
+
+  @Test
+  public void testMissingFormat() throws XPathExpressionException, SAXException {
+    Set magazines = createSet("magazines", "mag", Map.of("oai_dc", "qualifieddc[dc:type='magazine']"), null);
+
+    assertTrue(SetMembershipEngine.matchingSets(Arrays.asList(magazines), Arrays.asList(createContent("marc", MARC)),
+        Collections.emptyList()).isEmpty());
+  }
+
+  @Test(expected = SAXException.class)
+  public void testBrokenContent() throws XPathExpressionException, SAXException {
+    Set magazines = createSet("magazines", "mag", Map.of("oai_dc", "qualifieddc"), null);
+
+    SetMembershipEngine.matchingSets(Arrays.asList(magazines), Arrays.asList(createContent("oai_dc", "<qualifieddc>")),
+        null);
+  }
+
+  private Set createSet(String name, String spec, Map<String, String> xPaths, List<String> tags) {
+    Set set = new Set();
+    set.setName(name);
+    set.setSpec(spec);
+    set.setxPaths(xPaths);
+    set.setTags(tags);
+    return set;
+  }
+
+  private Content createContent(String format, String xml) {
+    Content content = new Content();
+    content.setIdentifier("id");
+    content.setFormat(format);
+    content.setContent(xml);
+    return content;
+  }
+
+}
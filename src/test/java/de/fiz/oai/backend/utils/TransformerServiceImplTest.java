@@ -0,0 +1,81 @@
+package de.fiz.oai.backend.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Properties;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.fiz.oai.backend.dao.impl.InMemoryDAOCrosswalk;
+import de.fiz.oai.backend.models.Crosswalk;
+
+/**
+ * Compiled stylesheets are checked against the stored ones once the metadata cache TTL has
+ * passed, as a crosswalk changed on another node is not updated here.
+ */
+public class TransformerServiceImplTest {
+
+  private Properties configuration;
+
+  private InMemoryDAOCrosswalk daoCrosswalk;
+
+  private TransformerServiceImpl transformerService;
+
+  @Before
+  public void setUp() throws Exception {
+    configuration = (Properties) Configuration.getInstance().getProperties().clone();
+    Configuration.getInstance().setProperty("metadata.cache.ttl", "1");
+
+    daoCrosswalk = new InMemoryDAOCrosswalk();
+    daoCrosswalk.create(crosswalk("first"));
+    transformerService = new TransformerServiceImpl();
+    transformerService.daoCrosswalk = daoCrosswalk;
+  }
+
+  @After
+  public void tearDown() {
+    Configuration.getInstance().getProperties().clear();
+    Configuration.getInstance().getProperties().putAll(configuration);
+  }
+
+  private Crosswalk crosswalk(String element) {
+    Crosswalk crosswalk = new Crosswalk();
+    crosswalk.setName("test");
+    crosswalk.setFormatFrom("oai_dc");
+    crosswalk.setFormatTo("test");
+    crosswalk.setXsltStylesheet("<xsl:stylesheet version=\"2.0\" xmlns:xsl=\"http://www.w3.org/1999/XSL/Transform\">"
+        + "<xsl:template match=\"/\"><" + element + "/></xsl:template></xsl:stylesheet>");
+    return crosswalk;
+  }
+
+  private long compiled() {
+    String info = transformerService.info();
+    String line = info.substring(info.indexOf("compiled: ") + "compiled: ".length());
+    return Long.parseLong(line.substring(0, line.indexOf('\n')));
+  }
+
+  @Test
+  public void testChangedStylesheetCompiledAfterTtl() throws Exception {
+    assertTrue(transformerService.transform("<record/>", "test").contains("<first/>"));
+
+    // Changed on another node
+    daoCrosswalk.create(crosswalk("second"));
+    assertTrue(transformerService.transform("<record/>", "test").contains("<first/>"));
+
+    Thread.sleep(1100);
+    assertTrue(transformerService.transform("<record/>", "test").contains("<second/>"));
+    assertEquals(2, compiled());
+  }
+
+  @Test
+  public void testUnchangedStylesheetNotCompiledAgain() throws Exception {
+    transformerService.transform("<record/>", "test");
+    Thread.sleep(1100);
+    transformerService.transform("<record/>", "test");
+    assertEquals(1, compiled());
+  }
+
+}